@@ -0,0 +1,99 @@
+package com.stackroute.keepnote.benchmark;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.flywaydb.core.Flyway;
+import org.hibernate.SessionFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.Primary;
+import org.springframework.orm.hibernate5.HibernateTransactionManager;
+import org.springframework.orm.hibernate5.LocalSessionFactoryBuilder;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import com.stackroute.keepnote.config.ApplicationContextConfig;
+import com.stackroute.keepnote.notification.LoggingNotificationSink;
+import com.stackroute.keepnote.notification.NotificationSink;
+import com.stackroute.keepnote.sql.SqlCountingDataSource;
+
+/*
+ * Application context of the benchmarks: the DAO, service, cache, search,
+ * scheduler, aspect and metrics beans of the application on top of an embedded H2
+ * database in MySQL mode, with the statements counted as in the application. The
+ * schema is created by the production Flyway migrations and the SessionFactory uses
+ * the production Hibernate properties, only with SQL logging turned off.
+ */
+@Configuration
+@ComponentScan(basePackages = { "com.stackroute.keepnote.dao", "com.stackroute.keepnote.service",
+		"com.stackroute.keepnote.cache", "com.stackroute.keepnote.search", "com.stackroute.keepnote.scheduler",
+		"com.stackroute.keepnote.aspect", "com.stackroute.keepnote.metrics" })
+@EnableTransactionManagement
+@EnableAspectJAutoProxy
+public class BenchmarkContextConfig {
+
+	private static final AtomicInteger DATABASE_COUNT = new AtomicInteger();
+
+	/*
+	 * Start a context on a database of its own
+	 */
+	public static AnnotationConfigApplicationContext start() {
+		return new AnnotationConfigApplicationContext(BenchmarkContextConfig.class);
+	}
+
+	@Bean(destroyMethod = "close")
+	public BasicDataSource dataSourcePool() {
+		BasicDataSource dsource = new BasicDataSource();
+		dsource.setDriverClassName("org.h2.Driver");
+		dsource.setUrl("jdbc:h2:mem:keepnote-benchmark-" + DATABASE_COUNT.incrementAndGet()
+				+ ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+		dsource.setUsername("sa");
+		dsource.setMaxTotal(20);
+		dsource.setPoolPreparedStatements(true);
+		return dsource;
+	}
+
+	/*
+	 * The pool behind a SqlCountingDataSource, as in the application, so that a
+	 * benchmark can count the statements of its operations (see NoteWriteBenchmark)
+	 */
+	@Bean
+	@Primary
+	public DataSource dataSource(BasicDataSource dataSourcePool) {
+		return new SqlCountingDataSource(dataSourcePool);
+	}
+
+	@Bean(initMethod = "migrate")
+	public Flyway flyway(DataSource dataSource) {
+		return Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load();
+	}
+
+	@Bean
+	@DependsOn("flyway")
+	public SessionFactory sessionFactory(DataSource dataSource) {
+		Properties hibernateproperties = new ApplicationContextConfig().getHibernateProperties();
+		hibernateproperties.setProperty("hibernate.show_sql", "false");
+		hibernateproperties.setProperty("hibernate.format_sql", "false");
+		LocalSessionFactoryBuilder sfactory = new LocalSessionFactoryBuilder(dataSource);
+		sfactory.scanPackages("com.stackroute.keepnote.model");
+		sfactory.addProperties(hibernateproperties);
+		return sfactory.buildSessionFactory();
+	}
+
+	@Bean
+	public HibernateTransactionManager platformTransactionManager(SessionFactory lsfactory) {
+		return new HibernateTransactionManager(lsfactory);
+	}
+
+	@Bean
+	public NotificationSink notificationSink() {
+		return new LoggingNotificationSink();
+	}
+}
@@ -0,0 +1,53 @@
+package com.stackroute.keepnote.benchmark;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.model.User;
+
+/*
+ * Factory of the records the benchmarks work on
+ */
+public final class BenchmarkData {
+
+	public static final String USER_ID = "benchmark-user";
+
+	public static final String PASSWORD = "benchmark-password";
+
+	private BenchmarkData() {
+	}
+
+	public static User user(String userId) {
+		return new User(userId, "Benchmark User", PASSWORD, "9876543210", new Date());
+	}
+
+	public static Category category(String userId) {
+		return new Category(0, "Benchmark", "Category created by the benchmarks", new Date(), userId, null);
+	}
+
+	public static Reminder reminder(String userId) {
+		return new Reminder(0, "Benchmark", "Reminder created by the benchmarks", "Email", userId, null,
+				new Date());
+	}
+
+	public static Note note(String userId, Category category, Reminder reminder) {
+		return new Note(0, "Benchmark note", "Note created by the benchmarks", "Active", new Date(), category,
+				reminder, userId);
+	}
+
+	public static List<Note> notes(int count, String userId, Category category, Reminder reminder) {
+
+		List<Note> notes = new ArrayList<>(count);
+
+		for (int index = 0; index < count; index++) {
+
+			notes.add(note(userId, category, reminder));
+		}
+
+		return notes;
+	}
+}
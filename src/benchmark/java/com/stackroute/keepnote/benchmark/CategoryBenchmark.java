@@ -0,0 +1,109 @@
+package com.stackroute.keepnote.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.stackroute.keepnote.dao.CategoryDAO;
+import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.service.CategoryService;
+
+/*
+ * Category operations of CategoryService: create, read by id (second-level cache),
+ * list (uncached and through the listing cache) and delete
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CategoryBenchmark {
+
+	private static final int LISTED_CATEGORY_COUNT = 20;
+
+	private AnnotationConfigApplicationContext context;
+
+	private CategoryService categoryService;
+
+	private CategoryDAO categoryDAO;
+
+	private int categoryId;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+
+		context = BenchmarkContextConfig.start();
+
+		categoryService = context.getBean(CategoryService.class);
+		categoryDAO = context.getBean(CategoryDAO.class);
+
+		for (int index = 0; index < LISTED_CATEGORY_COUNT; index++) {
+
+			Category category = BenchmarkData.category(BenchmarkData.USER_ID);
+			categoryService.createCategory(category);
+			categoryId = category.getCategoryId();
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public boolean createCategory() {
+		return categoryService.createCategory(BenchmarkData.category("benchmark-writer"));
+	}
+
+	@Benchmark
+	public Category getCategoryById() throws Exception {
+		return categoryService.getCategoryById(categoryId);
+	}
+
+	@Benchmark
+	public List<Category> getAllCategoryByUserId() {
+		return categoryDAO.getAllCategoryByUserId(BenchmarkData.USER_ID);
+	}
+
+	@Benchmark
+	public List<Category> getAllCategoryByUserIdCached() {
+		return categoryService.getAllCategoryByUserId(BenchmarkData.USER_ID);
+	}
+
+	@Benchmark
+	public boolean deleteCategory(DeletableCategory deletableCategory) {
+		return categoryService.deleteCategory(deletableCategory.categoryId, "benchmark-writer");
+	}
+
+	/*
+	 * A fresh category for every deleteCategory invocation, created outside of the
+	 * measurement
+	 */
+	@State(Scope.Thread)
+	public static class DeletableCategory {
+
+		private int categoryId;
+
+		@Setup(Level.Invocation)
+		public void createCategory(CategoryBenchmark benchmark) {
+
+			Category category = BenchmarkData.category("benchmark-writer");
+			benchmark.categoryService.createCategory(category);
+			categoryId = category.getCategoryId();
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package com.stackroute.keepnote.benchmark;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpInputMessage;
+
+import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.model.User;
+
+/*
+ * Writing and reading single Category, Reminder and User payloads through the
+ * Spring MVC Jackson converter, as sent and received by their controllers
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntityJsonBenchmark {
+
+	private MappingJackson2HttpMessageConverter converter;
+
+	private Category category;
+
+	private Reminder reminder;
+
+	private User user;
+
+	private byte[] categoryJson;
+
+	private byte[] reminderJson;
+
+	private byte[] userJson;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+
+		converter = JsonPayloads.converter();
+
+		Note note = JsonPayloads.notes(1, 64).get(0);
+
+		category = note.getCategory();
+		reminder = note.getReminder();
+		user = new User(BenchmarkData.USER_ID, "Benchmark User", BenchmarkData.PASSWORD, "9876543210", new Date());
+
+		categoryJson = JsonPayloads.write(converter, category, Category.class);
+		reminderJson = JsonPayloads.write(converter, reminder, Reminder.class);
+		userJson = JsonPayloads.write(converter, user, User.class);
+	}
+
+	@Benchmark
+	public HttpOutputMessage writeCategory() throws Exception {
+		return write(category);
+	}
+
+	@Benchmark
+	public Object readCategory() throws Exception {
+		return read(categoryJson, Category.class);
+	}
+
+	@Benchmark
+	public HttpOutputMessage writeReminder() throws Exception {
+		return write(reminder);
+	}
+
+	@Benchmark
+	public Object readReminder() throws Exception {
+		return read(reminderJson, Reminder.class);
+	}
+
+	@Benchmark
+	public HttpOutputMessage writeUser() throws Exception {
+		return write(user);
+	}
+
+	@Benchmark
+	public Object readUser() throws Exception {
+		return read(userJson, User.class);
+	}
+
+	private HttpOutputMessage write(Object payload) throws Exception {
+
+		HttpOutputMessage outputMessage = JsonPayloads.BodyOutputMessage.discarding();
+
+		converter.write(payload, payload.getClass(), MediaType.APPLICATION_JSON, outputMessage);
+
+		return outputMessage;
+	}
+
+	private Object read(byte[] json, Class<?> type) throws Exception {
+
+		MockHttpInputMessage inputMessage = new MockHttpInputMessage(json);
+		inputMessage.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+		return converter.read(type, null, inputMessage);
+	}
+}
@@ -0,0 +1,137 @@
+package com.stackroute.keepnote.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.Reminder;
+
+/*
+ * Payloads and plumbing shared by the JSON benchmarks. The converter is built the
+ * way @EnableWebMvc builds the one that writes the controller responses.
+ */
+public final class JsonPayloads {
+
+	public static final Type NOTE_LIST_TYPE = new ParameterizedTypeReference<List<Note>>() {
+	}.getType();
+
+	/*
+	 * Notes of one user share a handful of categories and reminders, as they do
+	 * when Hibernate loads them in one session
+	 */
+	private static final int CATEGORY_COUNT = 5;
+
+	private JsonPayloads() {
+	}
+
+	public static MappingJackson2HttpMessageConverter converter() {
+		return new MappingJackson2HttpMessageConverter(Jackson2ObjectMapperBuilder.json().build());
+	}
+
+	public static List<Note> notes(int count, int contentLength) {
+
+		List<Category> categories = new ArrayList<>(CATEGORY_COUNT);
+
+		List<Reminder> reminders = new ArrayList<>(CATEGORY_COUNT);
+
+		for (int index = 0; index < CATEGORY_COUNT; index++) {
+
+			categories.add(new Category(index + 1, "Category " + index, "Category of the JSON benchmarks",
+					new Date(), BenchmarkData.USER_ID, null));
+			reminders.add(new Reminder(index + 1, "Reminder " + index, "Reminder of the JSON benchmarks", "Email",
+					BenchmarkData.USER_ID, null, new Date()));
+		}
+
+		String content = content(contentLength);
+
+		List<Note> notes = new ArrayList<>(count);
+
+		for (int index = 0; index < count; index++) {
+
+			notes.add(new Note(index + 1, "Note " + index, content, "Active", new Date(),
+					categories.get(index % CATEGORY_COUNT), reminders.get(index % CATEGORY_COUNT),
+					BenchmarkData.USER_ID));
+		}
+
+		return notes;
+	}
+
+	/*
+	 * Note content of the given length, mixing plain text with characters that
+	 * have to be escaped
+	 */
+	public static String content(int length) {
+
+		char[] pattern = "Remember to \"check\" the notes\tof this week.\n".toCharArray();
+
+		char[] content = new char[length];
+
+		for (int index = 0; index < length; index++) {
+
+			content[index] = pattern[index % pattern.length];
+		}
+
+		return new String(content);
+	}
+
+	public static byte[] write(MappingJackson2HttpMessageConverter converter, Object payload, Type type)
+			throws IOException {
+
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+		converter.write(payload, type, MediaType.APPLICATION_JSON, new BodyOutputMessage(body));
+
+		return body.toByteArray();
+	}
+
+	/*
+	 * Response message writing its body into the given stream. The benchmarks
+	 * discard the body, the way a servlet response streams it out to the socket.
+	 */
+	public static final class BodyOutputMessage implements HttpOutputMessage {
+
+		private final HttpHeaders headers = new HttpHeaders();
+
+		private final OutputStream body;
+
+		public BodyOutputMessage(OutputStream body) {
+			this.body = body;
+		}
+
+		public static BodyOutputMessage discarding() {
+			return new BodyOutputMessage(new OutputStream() {
+
+				@Override
+				public void write(int b) {
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) {
+				}
+			});
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return headers;
+		}
+
+		@Override
+		public OutputStream getBody() {
+			return body;
+		}
+	}
+}
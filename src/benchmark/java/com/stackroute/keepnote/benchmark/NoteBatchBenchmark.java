@@ -0,0 +1,91 @@
+package com.stackroute.keepnote.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.NoteBatchResult;
+import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.service.CategoryService;
+import com.stackroute.keepnote.service.NoteService;
+import com.stackroute.keepnote.service.ReminderService;
+
+/*
+ * Importing noteCount notes one createNote call at a time versus one createNotes
+ * batch. Both report the time of the whole import, so the scores compare directly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NoteBatchBenchmark {
+
+	@Param({ "100", "1000" })
+	private int noteCount;
+
+	private AnnotationConfigApplicationContext context;
+
+	private NoteService noteService;
+
+	private Category category;
+
+	private Reminder reminder;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+
+		context = BenchmarkContextConfig.start();
+
+		noteService = context.getBean(NoteService.class);
+
+		category = BenchmarkData.category(BenchmarkData.USER_ID);
+		context.getBean(CategoryService.class).createCategory(category);
+
+		reminder = BenchmarkData.reminder(BenchmarkData.USER_ID);
+		context.getBean(ReminderService.class).createReminder(reminder);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public int createNotesOneByOne() throws Exception {
+
+		int createdCount = 0;
+
+		for (Note note : BenchmarkData.notes(noteCount, BenchmarkData.USER_ID, category, reminder)) {
+
+			if (noteService.createNote(note)) {
+
+				createdCount++;
+			}
+		}
+
+		return createdCount;
+	}
+
+	@Benchmark
+	public List<NoteBatchResult> createNotesBatch() {
+		return noteService.createNotes(BenchmarkData.notes(noteCount, BenchmarkData.USER_ID, category, reminder));
+	}
+}
@@ -0,0 +1,102 @@
+package com.stackroute.keepnote.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.service.CategoryService;
+import com.stackroute.keepnote.service.NoteService;
+import com.stackroute.keepnote.service.ReminderService;
+
+/*
+ * Single note operations of NoteService: create, read by id and delete
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NoteBenchmark {
+
+	private AnnotationConfigApplicationContext context;
+
+	private NoteService noteService;
+
+	private Category category;
+
+	private Reminder reminder;
+
+	private int noteId;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+
+		context = BenchmarkContextConfig.start();
+
+		noteService = context.getBean(NoteService.class);
+
+		category = BenchmarkData.category(BenchmarkData.USER_ID);
+		context.getBean(CategoryService.class).createCategory(category);
+
+		reminder = BenchmarkData.reminder(BenchmarkData.USER_ID);
+		context.getBean(ReminderService.class).createReminder(reminder);
+
+		Note note = BenchmarkData.note(BenchmarkData.USER_ID, category, reminder);
+		noteService.createNote(note);
+		noteId = note.getNoteId();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public boolean createNote() throws Exception {
+		return noteService.createNote(BenchmarkData.note(BenchmarkData.USER_ID, category, reminder));
+	}
+
+	@Benchmark
+	public Note getNoteById() throws Exception {
+		return noteService.getNoteById(noteId);
+	}
+
+	@Benchmark
+	public boolean deleteNote(DeletableNote deletableNote) throws Exception {
+		return noteService.deleteNote(deletableNote.noteId, BenchmarkData.USER_ID);
+	}
+
+	/*
+	 * A fresh note for every deleteNote invocation, created outside of the
+	 * measurement
+	 */
+	@State(Scope.Thread)
+	public static class DeletableNote {
+
+		private int noteId;
+
+		@Setup(Level.Invocation)
+		public void createNote(NoteBenchmark benchmark) throws Exception {
+
+			Note note = BenchmarkData.note(BenchmarkData.USER_ID, benchmark.category, benchmark.reminder);
+			benchmark.noteService.createNote(note);
+			noteId = note.getNoteId();
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package com.stackroute.keepnote.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpInputMessage;
+
+import com.stackroute.keepnote.model.Note;
+
+/*
+ * Writing and reading the JSON of a GET /note response holding noteCount notes,
+ * each with its category and reminder, through the Spring MVC Jackson converter.
+ * contentLength covers short notes and very long ones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NoteJsonBenchmark {
+
+	@Param({ "1", "100", "10000" })
+	private int noteCount;
+
+	@Param({ "64", "8192" })
+	private int contentLength;
+
+	private MappingJackson2HttpMessageConverter converter;
+
+	private List<Note> notes;
+
+	private byte[] json;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+
+		converter = JsonPayloads.converter();
+
+		notes = JsonPayloads.notes(noteCount, contentLength);
+
+		json = JsonPayloads.write(converter, notes, JsonPayloads.NOTE_LIST_TYPE);
+	}
+
+	@Benchmark
+	public HttpOutputMessage writeNotes() throws Exception {
+
+		HttpOutputMessage outputMessage = JsonPayloads.BodyOutputMessage.discarding();
+
+		converter.write(notes, JsonPayloads.NOTE_LIST_TYPE, MediaType.APPLICATION_JSON, outputMessage);
+
+		return outputMessage;
+	}
+
+	@Benchmark
+	public Object readNotes() throws Exception {
+
+		MockHttpInputMessage inputMessage = new MockHttpInputMessage(json);
+		inputMessage.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+		return converter.read(JsonPayloads.NOTE_LIST_TYPE, null, inputMessage);
+	}
+}
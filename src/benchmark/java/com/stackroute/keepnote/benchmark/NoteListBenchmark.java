@@ -0,0 +1,87 @@
+package com.stackroute.keepnote.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.stackroute.keepnote.dao.NoteDAO;
+import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.model.ResultPage;
+import com.stackroute.keepnote.service.CategoryService;
+import com.stackroute.keepnote.service.NoteService;
+import com.stackroute.keepnote.service.ReminderService;
+
+/*
+ * Listing the notes of a user holding noteCount notes: straight from the database,
+ * through the per-user listing cache of NoteService, and as a first page
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NoteListBenchmark {
+
+	@Param({ "10", "100", "1000" })
+	private int noteCount;
+
+	private AnnotationConfigApplicationContext context;
+
+	private NoteService noteService;
+
+	private NoteDAO noteDAO;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+
+		context = BenchmarkContextConfig.start();
+
+		noteService = context.getBean(NoteService.class);
+		noteDAO = context.getBean(NoteDAO.class);
+
+		Category category = BenchmarkData.category(BenchmarkData.USER_ID);
+		context.getBean(CategoryService.class).createCategory(category);
+
+		Reminder reminder = BenchmarkData.reminder(BenchmarkData.USER_ID);
+		context.getBean(ReminderService.class).createReminder(reminder);
+
+		noteService.createNotes(BenchmarkData.notes(noteCount, BenchmarkData.USER_ID, category, reminder));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<Note> getAllNotesByUserId() {
+		return noteDAO.getAllNotesByUserId(BenchmarkData.USER_ID);
+	}
+
+	@Benchmark
+	public List<Note> getAllNotesByUserIdCached() {
+		return noteService.getAllNotesByUserId(BenchmarkData.USER_ID);
+	}
+
+	@Benchmark
+	public ResultPage<Note> getNotesByUserIdFirstPage() {
+		return noteService.getNotesByUserId(BenchmarkData.USER_ID, null, ResultPage.DEFAULT_LIMIT);
+	}
+}
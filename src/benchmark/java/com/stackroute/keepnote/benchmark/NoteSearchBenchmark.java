@@ -0,0 +1,130 @@
+package com.stackroute.keepnote.benchmark;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.SearchResult;
+import com.stackroute.keepnote.search.NoteSearchIndex;
+
+/*
+ * Searches and updates of NoteSearchIndex for one user with noteCount notes. The
+ * notes are made of words drawn from a skewed vocabulary, so that a few words are
+ * in most notes and most words are rare, as in real text.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class NoteSearchBenchmark {
+
+	private static final int VOCABULARY_SIZE = 20000;
+
+	private static final int TITLE_WORDS = 4;
+
+	private static final int CONTENT_WORDS = 30;
+
+	private static final int LIMIT = NoteSearchIndex.DEFAULT_LIMIT;
+
+	@Param({ "10000", "100000" })
+	public int noteCount;
+
+	private NoteSearchIndex index;
+
+	private Random random;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+
+		random = new Random(42);
+
+		List<Note> notes = new ArrayList<>(noteCount);
+
+		for (int noteId = 1; noteId <= noteCount; noteId++) {
+
+			notes.add(note(noteId));
+		}
+
+		index = new NoteSearchIndex();
+		index.search(BenchmarkData.USER_ID, word(0), LIMIT, () -> notes);
+	}
+
+	@Benchmark
+	public SearchResult<Integer> searchCommonTerm() {
+		return index.search(BenchmarkData.USER_ID, word(0), LIMIT, null);
+	}
+
+	@Benchmark
+	public SearchResult<Integer> searchRareTerm() {
+		return index.search(BenchmarkData.USER_ID, word(VOCABULARY_SIZE / 2), LIMIT, null);
+	}
+
+	@Benchmark
+	public SearchResult<Integer> searchThreeTerms() {
+		return index.search(BenchmarkData.USER_ID, word(3) + " " + word(300) + " " + word(3000), LIMIT, null);
+	}
+
+	@Benchmark
+	public SearchResult<Integer> searchPrefix() {
+		return index.search(BenchmarkData.USER_ID, word(7).substring(0, 2) + "*", LIMIT, null);
+	}
+
+	@Benchmark
+	public void updateNote() {
+		index.indexNote(note(1 + random.nextInt(noteCount)), 0);
+	}
+
+	private Note note(int noteId) {
+		return new Note(noteId, words(TITLE_WORDS), words(CONTENT_WORDS), "Active", new Date(), null, null,
+				BenchmarkData.USER_ID);
+	}
+
+	private String words(int count) {
+
+		StringBuilder words = new StringBuilder();
+
+		for (int index = 0; index < count; index++) {
+
+			double skew = random.nextDouble();
+
+			words.append(word((int) (VOCABULARY_SIZE * skew * skew * skew))).append(' ');
+		}
+
+		return words.toString();
+	}
+
+	/*
+	 * The n-th word of the vocabulary, spelt in base 26 so that words share prefixes
+	 */
+	private static String word(int number) {
+
+		StringBuilder word = new StringBuilder("w");
+
+		do {
+
+			word.append((char) ('a' + number % 26));
+			number /= 26;
+
+		} while (number > 0);
+
+		return word.toString();
+	}
+}
@@ -0,0 +1,257 @@
+package com.stackroute.keepnote.benchmark;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.service.CategoryService;
+import com.stackroute.keepnote.service.NoteService;
+import com.stackroute.keepnote.service.ReminderService;
+import com.stackroute.keepnote.sql.SqlStatistics;
+import com.stackroute.keepnote.sql.SqlStatisticsContext;
+
+/*
+ * JDBC statements per note write. createNote, updateNote and deleteNote go through
+ * NoteService; createLinkedNote and deleteLinkedNote also keep the notes of the
+ * category and the reminder in step with the note, in a transaction of their own.
+ * Next to the average time, every benchmark reports the writes, statements and rows
+ * of the measurement in the writes, statements and rows counters, as counted by the
+ * SqlCountingDataSource of the benchmark context. JMH sums these over the
+ * iterations: statements / writes is the number of statements per note write.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NoteWriteBenchmark {
+
+	private AnnotationConfigApplicationContext context;
+
+	private NoteService noteService;
+
+	private CategoryService categoryService;
+
+	private ReminderService reminderService;
+
+	private SessionFactory sessionFactory;
+
+	private TransactionTemplate transactionTemplate;
+
+	private Category category;
+
+	private Reminder reminder;
+
+	private int noteId;
+
+	private int noteVersion;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+
+		context = BenchmarkContextConfig.start();
+
+		noteService = context.getBean(NoteService.class);
+		categoryService = context.getBean(CategoryService.class);
+		reminderService = context.getBean(ReminderService.class);
+		sessionFactory = context.getBean(SessionFactory.class);
+		transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+		category = BenchmarkData.category(BenchmarkData.USER_ID);
+		categoryService.createCategory(category);
+
+		reminder = BenchmarkData.reminder(BenchmarkData.USER_ID);
+		reminderService.createReminder(reminder);
+
+		Note note = BenchmarkData.note(BenchmarkData.USER_ID, category, reminder);
+		noteService.createNote(note);
+		noteId = note.getNoteId();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public boolean createNote(StatementCounters counters) throws Exception {
+		return counters.count(
+				() -> noteService.createNote(BenchmarkData.note(BenchmarkData.USER_ID, category, reminder)));
+	}
+
+	@Benchmark
+	public Note updateNote(StatementCounters counters) throws Exception {
+
+		Note note = BenchmarkData.note(BenchmarkData.USER_ID, category, reminder);
+		note.setNoteId(noteId);
+
+		Note updatedNote = counters
+				.count(() -> noteService.updateNote(note, noteId, BenchmarkData.USER_ID, noteVersion));
+		noteVersion = updatedNote.getNoteVersion();
+
+		return updatedNote;
+	}
+
+	@Benchmark
+	public boolean deleteNote(DeletableNote deletableNote, StatementCounters counters) throws Exception {
+		return counters.count(() -> noteService.deleteNote(deletableNote.noteId, BenchmarkData.USER_ID));
+	}
+
+	@Benchmark
+	public Note createLinkedNote(NoteParents parents, StatementCounters counters) throws Exception {
+		return counters.count(() -> transactionTemplate.execute(status -> {
+
+			Session session = sessionFactory.getCurrentSession();
+
+			Category linkedCategory = session.get(Category.class, parents.categoryId);
+			Reminder linkedReminder = session.get(Reminder.class, parents.reminderId);
+
+			Note note = BenchmarkData.note(BenchmarkData.USER_ID, linkedCategory, linkedReminder);
+			linkedCategory.getNotes().add(note);
+			linkedReminder.getNotes().add(note);
+			session.save(note);
+
+			return note;
+		}));
+	}
+
+	@Benchmark
+	public boolean deleteLinkedNote(DeletableLinkedNote deletableNote, StatementCounters counters)
+			throws Exception {
+		return counters.count(() -> transactionTemplate.execute(status -> {
+
+			Session session = sessionFactory.getCurrentSession();
+
+			Note note = session.get(Note.class, deletableNote.noteId);
+			note.getCategory().getNotes().remove(note);
+			note.getReminder().getNotes().remove(note);
+			session.delete(note);
+
+			return true;
+		}));
+	}
+
+	/*
+	 * A fresh note for every deleteNote invocation, created outside of the
+	 * measurement
+	 */
+	@State(Scope.Thread)
+	public static class DeletableNote {
+
+		private int noteId;
+
+		@Setup(Level.Invocation)
+		public void createNote(NoteWriteBenchmark benchmark) throws Exception {
+
+			Note note = BenchmarkData.note(BenchmarkData.USER_ID, benchmark.category, benchmark.reminder);
+			benchmark.noteService.createNote(note);
+			noteId = note.getNoteId();
+		}
+	}
+
+	/*
+	 * A fresh category and reminder for every createLinkedNote invocation, created
+	 * outside of the measurement, so that the notes they hold do not pile up over
+	 * the run
+	 */
+	@State(Scope.Thread)
+	public static class NoteParents {
+
+		private int categoryId;
+
+		private int reminderId;
+
+		@Setup(Level.Invocation)
+		public void createParents(NoteWriteBenchmark benchmark) {
+
+			Category category = BenchmarkData.category(BenchmarkData.USER_ID);
+			benchmark.categoryService.createCategory(category);
+			categoryId = category.getCategoryId();
+
+			Reminder reminder = BenchmarkData.reminder(BenchmarkData.USER_ID);
+			benchmark.reminderService.createReminder(reminder);
+			reminderId = reminder.getReminderId();
+		}
+	}
+
+	/*
+	 * A fresh note, linked to a fresh category and reminder, for every
+	 * deleteLinkedNote invocation, created outside of the measurement
+	 */
+	@State(Scope.Thread)
+	public static class DeletableLinkedNote {
+
+		private int noteId;
+
+		@Setup(Level.Invocation)
+		public void createNote(NoteWriteBenchmark benchmark, NoteParents parents) throws Exception {
+			noteId = benchmark.createLinkedNote(parents, new StatementCounters()).getNoteId();
+		}
+	}
+
+	/*
+	 * Writes, statements and rows of the measured writes of one iteration. Each write
+	 * runs with SqlStatistics of its own bound to the thread, so that the statements
+	 * of the invocation setup are left out.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class StatementCounters {
+
+		public long writes;
+
+		public long statements;
+
+		public long rows;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+
+			writes = 0;
+			statements = 0;
+			rows = 0;
+		}
+
+		<T> T count(Callable<T> write) throws Exception {
+
+			SqlStatistics statistics = new SqlStatistics();
+
+			SqlStatisticsContext.setStatistics(statistics);
+
+			try {
+
+				return write.call();
+
+			} finally {
+
+				SqlStatisticsContext.clear();
+
+				writes++;
+				statements += statistics.getStatementCount();
+				rows += statistics.getRowCount();
+			}
+		}
+	}
+}
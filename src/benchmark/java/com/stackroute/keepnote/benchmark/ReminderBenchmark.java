@@ -0,0 +1,109 @@
+package com.stackroute.keepnote.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.stackroute.keepnote.dao.ReminderDAO;
+import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.service.ReminderService;
+
+/*
+ * Reminder operations of ReminderService: create, read by id (second-level cache),
+ * list (uncached and through the listing cache) and delete
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReminderBenchmark {
+
+	private static final int LISTED_REMINDER_COUNT = 20;
+
+	private AnnotationConfigApplicationContext context;
+
+	private ReminderService reminderService;
+
+	private ReminderDAO reminderDAO;
+
+	private int reminderId;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+
+		context = BenchmarkContextConfig.start();
+
+		reminderService = context.getBean(ReminderService.class);
+		reminderDAO = context.getBean(ReminderDAO.class);
+
+		for (int index = 0; index < LISTED_REMINDER_COUNT; index++) {
+
+			Reminder reminder = BenchmarkData.reminder(BenchmarkData.USER_ID);
+			reminderService.createReminder(reminder);
+			reminderId = reminder.getReminderId();
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public boolean createReminder() {
+		return reminderService.createReminder(BenchmarkData.reminder("benchmark-writer"));
+	}
+
+	@Benchmark
+	public Reminder getReminderById() throws Exception {
+		return reminderService.getReminderById(reminderId);
+	}
+
+	@Benchmark
+	public List<Reminder> getAllReminderByUserId() {
+		return reminderDAO.getAllReminderByUserId(BenchmarkData.USER_ID);
+	}
+
+	@Benchmark
+	public List<Reminder> getAllReminderByUserIdCached() {
+		return reminderService.getAllReminderByUserId(BenchmarkData.USER_ID);
+	}
+
+	@Benchmark
+	public boolean deleteReminder(DeletableReminder deletableReminder) {
+		return reminderService.deleteReminder(deletableReminder.reminderId, "benchmark-writer");
+	}
+
+	/*
+	 * A fresh reminder for every deleteReminder invocation, created outside of the
+	 * measurement
+	 */
+	@State(Scope.Thread)
+	public static class DeletableReminder {
+
+		private int reminderId;
+
+		@Setup(Level.Invocation)
+		public void createReminder(ReminderBenchmark benchmark) {
+
+			Reminder reminder = BenchmarkData.reminder("benchmark-writer");
+			benchmark.reminderService.createReminder(reminder);
+			reminderId = reminder.getReminderId();
+		}
+	}
+}
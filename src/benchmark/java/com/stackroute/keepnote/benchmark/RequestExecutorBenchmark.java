@@ -0,0 +1,136 @@
+package com.stackroute.keepnote.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import com.stackroute.keepnote.async.RequestExecutor;
+import com.stackroute.keepnote.async.ThreadMode;
+import com.stackroute.keepnote.async.VirtualThreads;
+import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.service.CategoryService;
+import com.stackroute.keepnote.service.NoteService;
+import com.stackroute.keepnote.service.ReminderService;
+
+/*
+ * A burst of requests reading a note through a RequestExecutor, in the platform and
+ * the virtual thread mode. Every request also waits blockingMillis outside of the
+ * database, standing in for a call to another service, so the modes differ in how
+ * they hold the waiting requests. Both run with the executor sizes the application
+ * derives from the default pool of 20 connections. The virtual mode needs Java 21;
+ * run the platform mode only with -p mode=PLATFORM on an older runtime.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestExecutorBenchmark {
+
+	private static final int THREADS = 12;
+
+	@Param({ "PLATFORM", "VIRTUAL" })
+	private ThreadMode mode;
+
+	@Param({ "200" })
+	private int requests;
+
+	@Param({ "0", "5" })
+	private long blockingMillis;
+
+	private AnnotationConfigApplicationContext context;
+
+	private NoteService noteService;
+
+	private RequestExecutor requestExecutor;
+
+	private int noteId;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+
+		if (mode == ThreadMode.VIRTUAL && !VirtualThreads.isSupported()) {
+
+			throw new IllegalStateException("The VIRTUAL mode needs Java 21 or later, running on "
+					+ System.getProperty("java.version") + "; run with -p mode=PLATFORM");
+		}
+
+		context = BenchmarkContextConfig.start();
+
+		noteService = context.getBean(NoteService.class);
+
+		Category category = BenchmarkData.category(BenchmarkData.USER_ID);
+		context.getBean(CategoryService.class).createCategory(category);
+
+		Reminder reminder = BenchmarkData.reminder(BenchmarkData.USER_ID);
+		context.getBean(ReminderService.class).createReminder(reminder);
+
+		Note note = BenchmarkData.note(BenchmarkData.USER_ID, category, reminder);
+		noteService.createNote(note);
+		noteId = note.getNoteId();
+
+		requestExecutor = new RequestExecutor("benchmark", THREADS, requests, 60000, mode);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws InterruptedException {
+
+		requestExecutor.shutdown(10, TimeUnit.SECONDS);
+		context.close();
+	}
+
+	@Benchmark
+	public List<Object> readBurst() throws InterruptedException {
+
+		CountDownLatch answered = new CountDownLatch(requests);
+
+		List<DeferredResult<Note>> deferredResults = new ArrayList<>(requests);
+
+		for (int i = 0; i < requests; i++) {
+
+			DeferredResult<Note> deferredResult = requestExecutor.submit(() -> {
+
+				if (blockingMillis > 0) {
+
+					Thread.sleep(blockingMillis);
+				}
+
+				return noteService.getNoteById(noteId);
+			});
+			deferredResult.setResultHandler(result -> answered.countDown());
+
+			deferredResults.add(deferredResult);
+		}
+
+		answered.await();
+
+		List<Object> results = new ArrayList<>(requests);
+
+		for (DeferredResult<Note> deferredResult : deferredResults) {
+
+			results.add(deferredResult.getResult());
+		}
+
+		return results;
+	}
+}
@@ -0,0 +1,60 @@
+package com.stackroute.keepnote.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.stackroute.keepnote.model.User;
+import com.stackroute.keepnote.service.UserService;
+
+/*
+ * User operations of UserService on the login path: validateUser and getUserById
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserBenchmark {
+
+	private AnnotationConfigApplicationContext context;
+
+	private UserService userService;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+
+		context = BenchmarkContextConfig.start();
+
+		userService = context.getBean(UserService.class);
+		userService.registerUser(BenchmarkData.user(BenchmarkData.USER_ID));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public boolean validateUser() throws Exception {
+		return userService.validateUser(BenchmarkData.USER_ID, BenchmarkData.PASSWORD);
+	}
+
+	@Benchmark
+	public User getUserById() throws Exception {
+		return userService.getUserById(BenchmarkData.USER_ID);
+	}
+}
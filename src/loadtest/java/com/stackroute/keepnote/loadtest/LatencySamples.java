@@ -0,0 +1,79 @@
+package com.stackroute.keepnote.loadtest;
+
+import java.util.Arrays;
+
+/*
+ * Every latency recorded for one endpoint, in nanoseconds. Each virtual user keeps
+ * its own samples, which are merged once the run is over, so recording never
+ * contends and the percentiles are exact.
+ */
+public class LatencySamples {
+
+	private long[] samples = new long[1024];
+
+	private int size;
+
+	private int errorCount;
+
+	public void record(long nanos, boolean error) {
+
+		if (size == samples.length) {
+
+			samples = Arrays.copyOf(samples, size * 2);
+		}
+
+		samples[size++] = nanos;
+
+		if (error) {
+
+			errorCount++;
+		}
+	}
+
+	public void addAll(LatencySamples other) {
+
+		if (size + other.size > samples.length) {
+
+			samples = Arrays.copyOf(samples, Math.max(samples.length * 2, size + other.size));
+		}
+
+		System.arraycopy(other.samples, 0, samples, size, other.size);
+		size += other.size;
+		errorCount += other.errorCount;
+	}
+
+	public int getCount() {
+		return size;
+	}
+
+	public int getErrorCount() {
+		return errorCount;
+	}
+
+	/*
+	 * Sorted copy of the samples, for the percentile computation
+	 */
+	public long[] sorted() {
+
+		long[] sorted = Arrays.copyOf(samples, size);
+
+		Arrays.sort(sorted);
+
+		return sorted;
+	}
+
+	/*
+	 * Nearest-rank percentile (0 to 100) of sorted samples, in milliseconds
+	 */
+	public static double percentileMillis(long[] sorted, double percentile) {
+
+		if (sorted.length == 0) {
+
+			return 0;
+		}
+
+		int rank = (int) Math.ceil(sorted.length * percentile / 100);
+
+		return sorted[Math.max(rank, 1) - 1] / 1_000_000.0;
+	}
+}
@@ -0,0 +1,105 @@
+package com.stackroute.keepnote.loadtest;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+/*
+ * Drives the REST controllers with concurrent virtual users and reports the
+ * latency percentiles and throughput per endpoint. The requests go through the
+ * DispatcherServlet, interceptors, services, DAOs and an in-memory H2 database
+ * in-process, without sockets, so the numbers leave out the network and the
+ * servlet container.
+ * 
+ * Run it with: mvn -Ploadtest clean test -Dloadtest.args="users=32 durationSeconds=60"
+ */
+public class LoadTest {
+
+	public static void main(String[] args) throws Exception {
+
+		LoadTestSettings settings = LoadTestSettings.parse(args);
+
+		AnnotationConfigWebApplicationContext context = new AnnotationConfigWebApplicationContext();
+		context.setServletContext(new MockServletContext());
+		context.register(LoadTestContextConfig.class);
+		context.refresh();
+
+		boolean passed;
+
+		try {
+
+			passed = run(MockMvcBuilders.webAppContextSetup(context).build(), settings);
+
+		} finally {
+
+			context.close();
+		}
+
+		System.exit(passed ? 0 : 1);
+	}
+
+	private static boolean run(MockMvc mockMvc, LoadTestSettings settings) throws Exception {
+
+		List<VirtualUser> virtualUsers = new ArrayList<>();
+
+		for (int index = 0; index < settings.getUsers(); index++) {
+
+			VirtualUser virtualUser = new VirtualUser(mockMvc, "loadtest-user-" + index, settings.getMix());
+			virtualUser.setUp();
+			virtualUsers.add(virtualUser);
+		}
+
+		long measureFromNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(settings.getWarmupSeconds());
+
+		long stopAtNanos = measureFromNanos + TimeUnit.SECONDS.toNanos(settings.getDurationSeconds());
+
+		List<Thread> threads = new ArrayList<>();
+
+		for (VirtualUser virtualUser : virtualUsers) {
+
+			virtualUser.setRunWindow(measureFromNanos, stopAtNanos);
+
+			Thread thread = new Thread(virtualUser, "loadtest-" + threads.size());
+			thread.start();
+			threads.add(thread);
+		}
+
+		for (Thread thread : threads) {
+
+			thread.join();
+		}
+
+		for (VirtualUser virtualUser : virtualUsers) {
+
+			if (virtualUser.getFailure() != null) {
+
+				throw virtualUser.getFailure();
+			}
+		}
+
+		LoadTestReport report = new LoadTestReport(settings, virtualUsers);
+		report.print(System.out);
+
+		if (settings.getReport() != null) {
+
+			report.write(new File(settings.getReport()));
+			System.out.println("Report written to " + settings.getReport());
+		}
+
+		if (report.getErrorRate() > settings.getMaxErrorRate()) {
+
+			System.out.printf("Error rate %.4f is above the allowed %.4f%n", report.getErrorRate(),
+					settings.getMaxErrorRate());
+
+			return false;
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,122 @@
+package com.stackroute.keepnote.loadtest;
+
+import java.util.Properties;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.orm.hibernate5.HibernateTransactionManager;
+import org.springframework.orm.hibernate5.LocalSessionFactoryBuilder;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.stackroute.keepnote.auth.AdminInterceptor;
+import com.stackroute.keepnote.auth.AuthTokens;
+import com.stackroute.keepnote.auth.AuthenticationInterceptor;
+import com.stackroute.keepnote.config.ApplicationContextConfig;
+import com.stackroute.keepnote.datasource.DataSourcePools;
+import com.stackroute.keepnote.datasource.InstrumentedBasicDataSource;
+import com.stackroute.keepnote.metrics.MetricsRegistry;
+import com.stackroute.keepnote.metrics.RequestMetricsInterceptor;
+import com.stackroute.keepnote.notification.LoggingNotificationSink;
+import com.stackroute.keepnote.notification.NotificationSink;
+import com.stackroute.keepnote.sql.SlowQueryLog;
+import com.stackroute.keepnote.sql.SqlCountingDataSource;
+import com.stackroute.keepnote.sql.SqlStatisticsInterceptor;
+
+/*
+ * Web application context of the load test: every controller, service, DAO and
+ * aspect of the application, on an embedded H2 database in MySQL mode instead of
+ * MySQL. The schema comes from the production Flyway migrations and the
+ * SessionFactory uses the production Hibernate properties without SQL logging.
+ */
+@Configuration
+@ComponentScan(basePackages = { "com.stackroute.keepnote" }, excludeFilters = @ComponentScan.Filter(
+		type = FilterType.ASSIGNABLE_TYPE, classes = ApplicationContextConfig.class))
+@EnableWebMvc
+@EnableTransactionManagement
+@EnableAspectJAutoProxy
+public class LoadTestContextConfig implements WebMvcConfigurer {
+
+	/*
+	 * Pool sized like the production default of datasource.properties
+	 */
+	private static final int MAX_CONNECTIONS = 20;
+
+	@Autowired
+	private AuthTokens authTokens;
+
+	@Autowired
+	private MetricsRegistry metricsRegistry;
+
+	@Autowired
+	private SqlStatisticsInterceptor sqlStatisticsInterceptor;
+
+	@Autowired
+	private SlowQueryLog slowQueryLog;
+
+	@Bean
+	public DataSourcePools dataSourcePools() {
+		InstrumentedBasicDataSource dsource = new InstrumentedBasicDataSource();
+		dsource.setDriverClassName("org.h2.Driver");
+		dsource.setUrl("jdbc:h2:mem:keepnote-loadtest;MODE=MySQL;DB_CLOSE_DELAY=-1");
+		dsource.setUsername("sa");
+		dsource.setMaxTotal(MAX_CONNECTIONS);
+		dsource.setMaxIdle(MAX_CONNECTIONS);
+		dsource.setPoolPreparedStatements(true);
+		DataSourcePools dataSourcePools = new DataSourcePools();
+		dataSourcePools.addPool(DataSourcePools.PRIMARY, dsource);
+		return dataSourcePools;
+	}
+
+	@Bean
+	public DataSource dataSource(DataSourcePools dataSourcePools) {
+		return new SqlCountingDataSource(dataSourcePools.getPool(DataSourcePools.PRIMARY), slowQueryLog);
+	}
+
+	@Bean(initMethod = "migrate")
+	public Flyway flyway(DataSource dataSource) {
+		return Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load();
+	}
+
+	@Bean
+	@DependsOn("flyway")
+	public SessionFactory sessionFactory(DataSource dataSource) {
+		Properties hibernateproperties = new ApplicationContextConfig().getHibernateProperties();
+		hibernateproperties.setProperty("hibernate.show_sql", "false");
+		hibernateproperties.setProperty("hibernate.format_sql", "false");
+		LocalSessionFactoryBuilder sfactory = new LocalSessionFactoryBuilder(dataSource);
+		sfactory.scanPackages("com.stackroute.keepnote.model");
+		sfactory.addProperties(hibernateproperties);
+		return sfactory.buildSessionFactory();
+	}
+
+	@Bean
+	public HibernateTransactionManager platformTransactionManager(SessionFactory lsfactory) {
+		return new HibernateTransactionManager(lsfactory);
+	}
+
+	@Bean
+	public NotificationSink notificationSink() {
+		return new LoggingNotificationSink();
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new RequestMetricsInterceptor(metricsRegistry));
+		registry.addInterceptor(sqlStatisticsInterceptor);
+		registry.addInterceptor(new AdminInterceptor()).addPathPatterns(AdminInterceptor.PATH_PATTERNS);
+		registry.addInterceptor(new AuthenticationInterceptor(authTokens))
+				.excludePathPatterns(AdminInterceptor.PATH_PATTERNS);
+	}
+}
@@ -0,0 +1,127 @@
+package com.stackroute.keepnote.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/*
+ * Result of a load test run: the samples of all virtual users merged per endpoint,
+ * printed as a table and written as JSON so that runs can be compared.
+ */
+public class LoadTestReport {
+
+	private static final double[] PERCENTILES = { 50, 95, 99, 99.9 };
+
+	private final Map<Operation, LatencySamples> samples = new EnumMap<>(Operation.class);
+
+	private final LoadTestSettings settings;
+
+	public LoadTestReport(LoadTestSettings settings, List<VirtualUser> virtualUsers) {
+
+		this.settings = settings;
+
+		for (VirtualUser virtualUser : virtualUsers) {
+
+			for (Map.Entry<Operation, LatencySamples> entry : virtualUser.getSamples().entrySet()) {
+
+				samples.computeIfAbsent(entry.getKey(), key -> new LatencySamples()).addAll(entry.getValue());
+			}
+		}
+	}
+
+	public long getRequestCount() {
+		return samples.values().stream().mapToLong(LatencySamples::getCount).sum();
+	}
+
+	public long getErrorCount() {
+		return samples.values().stream().mapToLong(LatencySamples::getErrorCount).sum();
+	}
+
+	public double getErrorRate() {
+
+		long requestCount = getRequestCount();
+
+		return requestCount == 0 ? 0 : (double) getErrorCount() / requestCount;
+	}
+
+	public void print(PrintStream out) {
+
+		out.printf("%-22s %9s %7s %10s %9s %9s %9s %9s %9s%n", "endpoint", "requests", "errors", "req/s", "p50 ms",
+				"p95 ms", "p99 ms", "p99.9 ms", "max ms");
+
+		for (Map.Entry<Operation, LatencySamples> entry : samples.entrySet()) {
+
+			LatencySamples endpointSamples = entry.getValue();
+
+			long[] sorted = endpointSamples.sorted();
+
+			out.printf("%-22s %9d %7d %10.1f %9.3f %9.3f %9.3f %9.3f %9.3f%n", entry.getKey().getEndpoint(),
+					endpointSamples.getCount(), endpointSamples.getErrorCount(), throughput(endpointSamples.getCount()),
+					LatencySamples.percentileMillis(sorted, PERCENTILES[0]),
+					LatencySamples.percentileMillis(sorted, PERCENTILES[1]),
+					LatencySamples.percentileMillis(sorted, PERCENTILES[2]),
+					LatencySamples.percentileMillis(sorted, PERCENTILES[3]),
+					LatencySamples.percentileMillis(sorted, 100));
+		}
+
+		out.printf("%-22s %9d %7d %10.1f%n", "total", getRequestCount(), getErrorCount(),
+				throughput(getRequestCount()));
+	}
+
+	public void write(File file) throws IOException {
+
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("users", settings.getUsers());
+		report.put("warmupSeconds", settings.getWarmupSeconds());
+		report.put("durationSeconds", settings.getDurationSeconds());
+		report.put("requests", getRequestCount());
+		report.put("errors", getErrorCount());
+		report.put("throughput", throughput(getRequestCount()));
+
+		Map<String, Object> endpoints = new LinkedHashMap<>();
+
+		for (Map.Entry<Operation, LatencySamples> entry : samples.entrySet()) {
+
+			LatencySamples endpointSamples = entry.getValue();
+
+			long[] sorted = endpointSamples.sorted();
+
+			Map<String, Object> endpoint = new LinkedHashMap<>();
+			endpoint.put("requests", endpointSamples.getCount());
+			endpoint.put("errors", endpointSamples.getErrorCount());
+			endpoint.put("throughput", throughput(endpointSamples.getCount()));
+
+			for (double percentile : PERCENTILES) {
+
+				endpoint.put("p" + (percentile == Math.rint(percentile) ? String.valueOf((int) percentile)
+						: String.valueOf(percentile)) + "Millis", LatencySamples.percentileMillis(sorted, percentile));
+			}
+
+			endpoint.put("maxMillis", LatencySamples.percentileMillis(sorted, 100));
+
+			endpoints.put(entry.getKey().getEndpoint(), endpoint);
+		}
+
+		report.put("endpoints", endpoints);
+
+		File directory = file.getAbsoluteFile().getParentFile();
+
+		if (directory != null) {
+
+			directory.mkdirs();
+		}
+
+		new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+	}
+
+	private double throughput(long requestCount) {
+		return settings.getDurationSeconds() == 0 ? 0 : (double) requestCount / settings.getDurationSeconds();
+	}
+}
@@ -0,0 +1,134 @@
+package com.stackroute.keepnote.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/*
+ * Settings of a load test run, given as key=value arguments:
+ * 
+ * users - number of concurrent virtual users (default 16)
+ * 
+ * warmupSeconds - run time before the measurement starts (default 10)
+ * 
+ * durationSeconds - measured run time (default 30)
+ * 
+ * mix - weights of the operations, e.g. "listNotes:50,createNote:10"; operations
+ * left out keep their default weight, a weight of 0 disables an operation
+ * 
+ * maxErrorRate - share of unexpected responses above which the run fails
+ * (default 0.01)
+ * 
+ * report - file the JSON report is written to
+ */
+public class LoadTestSettings {
+
+	private int users = 16;
+
+	private int warmupSeconds = 10;
+
+	private int durationSeconds = 30;
+
+	private double maxErrorRate = 0.01;
+
+	private String report;
+
+	private final Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+
+	public LoadTestSettings() {
+
+		for (Operation operation : Operation.values()) {
+
+			mix.put(operation, operation.getDefaultWeight());
+		}
+	}
+
+	public static LoadTestSettings parse(String[] args) {
+
+		LoadTestSettings settings = new LoadTestSettings();
+
+		for (String arg : args) {
+
+			int separator = arg.indexOf('=');
+
+			if (separator < 0) {
+
+				throw new IllegalArgumentException("Expected key=value but got " + arg);
+			}
+
+			String key = arg.substring(0, separator);
+
+			String value = arg.substring(separator + 1);
+
+			switch (key) {
+
+			case "users":
+				settings.users = Integer.parseInt(value);
+				break;
+
+			case "warmupSeconds":
+				settings.warmupSeconds = Integer.parseInt(value);
+				break;
+
+			case "durationSeconds":
+				settings.durationSeconds = Integer.parseInt(value);
+				break;
+
+			case "maxErrorRate":
+				settings.maxErrorRate = Double.parseDouble(value);
+				break;
+
+			case "report":
+				settings.report = value;
+				break;
+
+			case "mix":
+				settings.parseMix(value);
+				break;
+
+			default:
+				throw new IllegalArgumentException("Unknown setting " + key);
+			}
+		}
+
+		return settings;
+	}
+
+	private void parseMix(String value) {
+
+		for (String entry : value.split(",")) {
+
+			String[] weight = entry.trim().split(":");
+
+			if (weight.length != 2) {
+
+				throw new IllegalArgumentException("Expected operation:weight but got " + entry);
+			}
+
+			mix.put(Operation.fromName(weight[0]), Integer.parseInt(weight[1]));
+		}
+	}
+
+	public int getUsers() {
+		return users;
+	}
+
+	public int getWarmupSeconds() {
+		return warmupSeconds;
+	}
+
+	public int getDurationSeconds() {
+		return durationSeconds;
+	}
+
+	public double getMaxErrorRate() {
+		return maxErrorRate;
+	}
+
+	public String getReport() {
+		return report;
+	}
+
+	public Map<Operation, Integer> getMix() {
+		return mix;
+	}
+}
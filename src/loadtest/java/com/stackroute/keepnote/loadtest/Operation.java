@@ -0,0 +1,64 @@
+package com.stackroute.keepnote.loadtest;
+
+/*
+ * Requests a virtual user can send, with the endpoint they are reported under and
+ * their default weight in the request mix
+ */
+public enum Operation {
+
+	LOGIN("POST /login", 2),
+
+	GET_USER("GET /user/{id}", 3),
+
+	LIST_NOTES("GET /note", 30),
+
+	PAGE_NOTES("GET /note?limit", 10),
+
+	CREATE_NOTE("POST /note", 12),
+
+	UPDATE_NOTE("PUT /note/{id}", 8),
+
+	PATCH_NOTE("PATCH /note/{id}", 4),
+
+	DELETE_NOTE("DELETE /note/{id}", 4),
+
+	SEARCH_NOTES("GET /note/search", 6),
+
+	LIST_CATEGORIES("GET /category", 10),
+
+	CREATE_CATEGORY("POST /category", 2),
+
+	UPDATE_CATEGORY("PUT /category/{id}", 1),
+
+	LIST_REMINDERS("GET /reminder", 10),
+
+	GET_REMINDER("GET /reminder/{id}", 4),
+
+	CREATE_REMINDER("POST /reminder", 2),
+
+	UPDATE_REMINDER("PUT /reminder/{id}", 2);
+
+	private final String endpoint;
+
+	private final int defaultWeight;
+
+	Operation(String endpoint, int defaultWeight) {
+		this.endpoint = endpoint;
+		this.defaultWeight = defaultWeight;
+	}
+
+	/*
+	 * Look up an operation by its camel case name, e.g. "listNotes"
+	 */
+	public static Operation fromName(String name) {
+		return valueOf(name.replaceAll("([a-z])([A-Z])", "$1_$2").toUpperCase());
+	}
+
+	public String getEndpoint() {
+		return endpoint;
+	}
+
+	public int getDefaultWeight() {
+		return defaultWeight;
+	}
+}
@@ -0,0 +1,505 @@
+package com.stackroute.keepnote.loadtest;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.NotePatch;
+import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.model.User;
+
+/*
+ * One simulated client: it registers and logs in with a session of its own, or
+ * a token in the token mode, then sends requests picked from the weighted mix
+ * until the run is over, recording the latency of each one under its endpoint.
+ * The ids of its notes, categories and reminders are learnt from the list
+ * responses, and the versions of its notes from the note listings and the PATCH
+ * responses.
+ */
+public class VirtualUser implements Runnable {
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	private static final int INITIAL_NOTE_COUNT = 5;
+
+	private static final long ASYNC_RESULT_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+	private static final long ASYNC_RESULT_POLL_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+	private final MockMvc mockMvc;
+
+	private final Operation[] operations;
+
+	private final int[] cumulativeWeights;
+
+	private long measureFromNanos;
+
+	private long stopAtNanos;
+
+	private final User user;
+
+	private final MockHttpSession session = new MockHttpSession();
+
+	private String token;
+
+	private final Map<Operation, LatencySamples> samples = new EnumMap<>(Operation.class);
+
+	private List<Integer> noteIds = new ArrayList<>();
+
+	private Map<Integer, Integer> noteVersions = new HashMap<>();
+
+	private List<Integer> categoryIds = new ArrayList<>();
+
+	private List<Integer> reminderIds = new ArrayList<>();
+
+	private Exception failure;
+
+	public VirtualUser(MockMvc mockMvc, String userId, Map<Operation, Integer> mix) {
+
+		this.mockMvc = mockMvc;
+		this.user = new User(userId, "Load test user", "password-" + userId, "9876543210", new Date());
+
+		List<Operation> weightedOperations = new ArrayList<>();
+
+		List<Integer> weights = new ArrayList<>();
+
+		int totalWeight = 0;
+
+		for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+
+			if (entry.getValue() > 0) {
+
+				totalWeight += entry.getValue();
+				weightedOperations.add(entry.getKey());
+				weights.add(totalWeight);
+			}
+		}
+
+		this.operations = weightedOperations.toArray(new Operation[0]);
+		this.cumulativeWeights = weights.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	/*
+	 * Register, log in and create the records the mix works on. These requests are
+	 * not measured.
+	 */
+	public void setUp() throws Exception {
+
+		expect(perform(post("/user/register").contentType(MediaType.APPLICATION_JSON).content(json(user))),
+				HttpStatus.CREATED);
+		expect(logIn(), HttpStatus.OK);
+		expect(perform(createCategory()), HttpStatus.CREATED);
+		expect(perform(createReminder()), HttpStatus.CREATED);
+
+		categoryIds = ids(perform(get("/category")), "categoryId");
+		reminderIds = ids(perform(get("/reminder")), "reminderId");
+
+		for (int index = 0; index < INITIAL_NOTE_COUNT; index++) {
+
+			expect(perform(createNote()), HttpStatus.CREATED);
+		}
+
+		listNotes();
+	}
+
+	/*
+	 * Requests sent before measureFromNanos are warmup and not recorded; the user
+	 * stops at stopAtNanos. Both are System.nanoTime() values.
+	 */
+	public void setRunWindow(long measureFromNanos, long stopAtNanos) {
+		this.measureFromNanos = measureFromNanos;
+		this.stopAtNanos = stopAtNanos;
+	}
+
+	@Override
+	public void run() {
+
+		try {
+
+			while (System.nanoTime() < stopAtNanos) {
+
+				Operation operation = pickOperation();
+
+				long start = System.nanoTime();
+
+				boolean expected = execute(operation);
+
+				long elapsed = System.nanoTime() - start;
+
+				if (start >= measureFromNanos) {
+
+					samples.computeIfAbsent(operation, key -> new LatencySamples()).record(elapsed, !expected);
+				}
+			}
+
+		} catch (Exception exception) {
+
+			failure = exception;
+		}
+	}
+
+	public Map<Operation, LatencySamples> getSamples() {
+		return samples;
+	}
+
+	public Exception getFailure() {
+		return failure;
+	}
+
+	private Operation pickOperation() {
+
+		int pick = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+
+		int index = 0;
+
+		while (cumulativeWeights[index] <= pick) {
+
+			index++;
+		}
+
+		return operations[index];
+	}
+
+	/*
+	 * Send the request of the operation and check its status. Operations on a
+	 * record fall back to listing the records when none is known yet.
+	 */
+	private boolean execute(Operation operation) throws Exception {
+
+		switch (operation) {
+
+		case LOGIN:
+			return status(logIn()) == HttpStatus.OK.value();
+
+		case GET_USER:
+			return status(perform(get("/user/" + user.getUserId()))) == HttpStatus.OK.value();
+
+		case LIST_NOTES:
+			return listNotes();
+
+		case PAGE_NOTES:
+			return status(perform(get("/note").param("limit", "20"))) == HttpStatus.OK.value();
+
+		case CREATE_NOTE:
+			return status(perform(createNote())) == HttpStatus.CREATED.value();
+
+		case UPDATE_NOTE:
+
+			if (noteIds.isEmpty()) {
+
+				return listNotes();
+			}
+
+			return updateNote(randomId(noteIds));
+
+		case PATCH_NOTE:
+
+			if (noteIds.isEmpty()) {
+
+				return listNotes();
+			}
+
+			return patchNote(randomId(noteIds));
+
+		case DELETE_NOTE:
+
+			if (noteIds.isEmpty()) {
+
+				return listNotes();
+			}
+
+			Integer noteId = noteIds.remove(noteIds.size() - 1);
+
+			return status(perform(delete("/note/" + noteId))) == HttpStatus.OK.value();
+
+		case SEARCH_NOTES:
+			return status(perform(get("/note/search").param("q", "load writ*"))) == HttpStatus.OK.value();
+
+		case LIST_CATEGORIES:
+			return listCategories();
+
+		case CREATE_CATEGORY:
+			return status(perform(createCategory())) == HttpStatus.CREATED.value();
+
+		case UPDATE_CATEGORY:
+
+			if (categoryIds.isEmpty()) {
+
+				return listCategories();
+			}
+
+			Category category = category(randomId(categoryIds));
+
+			return status(perform(put("/category/" + category.getCategoryId())
+					.contentType(MediaType.APPLICATION_JSON).content(json(category)))) == HttpStatus.OK.value();
+
+		case LIST_REMINDERS:
+			return listReminders();
+
+		case GET_REMINDER:
+
+			if (reminderIds.isEmpty()) {
+
+				return listReminders();
+			}
+
+			return status(perform(get("/reminder/" + randomId(reminderIds)))) == HttpStatus.OK.value();
+
+		case CREATE_REMINDER:
+			return status(perform(createReminder())) == HttpStatus.CREATED.value();
+
+		case UPDATE_REMINDER:
+
+			if (reminderIds.isEmpty()) {
+
+				return listReminders();
+			}
+
+			Reminder reminder = reminder(randomId(reminderIds));
+
+			return status(perform(put("/reminder/" + reminder.getReminderId())
+					.contentType(MediaType.APPLICATION_JSON).content(json(reminder)))) == HttpStatus.OK.value();
+
+		default:
+			throw new IllegalStateException("Unsupported operation " + operation);
+		}
+	}
+
+	private boolean listNotes() throws Exception {
+
+		MvcResult result = perform(get("/note"));
+
+		noteIds = ids(result, "noteId");
+
+		noteVersions = versions(result);
+
+		return status(result) == HttpStatus.OK.value();
+	}
+
+	private boolean updateNote(int noteId) throws Exception {
+
+		Note note = note(noteId);
+
+		MvcResult result = perform(put("/note/" + noteId).contentType(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.IF_MATCH, noteVersions.getOrDefault(noteId, 0)).content(json(note)));
+
+		return rememberVersion(noteId, result);
+	}
+
+	private boolean patchNote(int noteId) throws Exception {
+
+		NotePatch patch = new NotePatch(null, "Note patched by the load test", null, null, null,
+				noteVersions.getOrDefault(noteId, 0));
+
+		MvcResult result = perform(
+				patch("/note/" + noteId).contentType(MediaType.APPLICATION_JSON).content(json(patch)));
+
+		return rememberVersion(noteId, result);
+	}
+
+	/*
+	 * Keep the version of a note written by the request, for the next write of it
+	 */
+	private boolean rememberVersion(int noteId, MvcResult result) throws Exception {
+
+		if (status(result) != HttpStatus.OK.value()) {
+
+			return false;
+		}
+
+		noteVersions.put(noteId,
+				OBJECT_MAPPER.readTree(result.getResponse().getContentAsByteArray()).get("noteVersion").asInt());
+
+		return true;
+	}
+
+	private boolean listCategories() throws Exception {
+
+		MvcResult result = perform(get("/category"));
+
+		categoryIds = ids(result, "categoryId");
+
+		return status(result) == HttpStatus.OK.value();
+	}
+
+	private boolean listReminders() throws Exception {
+
+		MvcResult result = perform(get("/reminder"));
+
+		reminderIds = ids(result, "reminderId");
+
+		return status(result) == HttpStatus.OK.value();
+	}
+
+	/*
+	 * Log in and, when the application runs in the token mode, keep the token for
+	 * the following requests
+	 */
+	private MvcResult logIn() throws Exception {
+
+		MvcResult result = perform(post("/login").contentType(MediaType.APPLICATION_JSON).content(json(user)));
+
+		byte[] body = result.getResponse().getContentAsByteArray();
+
+		if (status(result) == HttpStatus.OK.value() && body.length > 0) {
+
+			token = OBJECT_MAPPER.readTree(body).get("token").asText();
+		}
+
+		return result;
+	}
+
+	private MockHttpServletRequestBuilder createNote() throws Exception {
+		return post("/note").contentType(MediaType.APPLICATION_JSON).content(json(note(0)));
+	}
+
+	private MockHttpServletRequestBuilder createCategory() throws Exception {
+		return post("/category").contentType(MediaType.APPLICATION_JSON).content(json(category(0)));
+	}
+
+	private MockHttpServletRequestBuilder createReminder() throws Exception {
+		return post("/reminder").contentType(MediaType.APPLICATION_JSON).content(json(reminder(0)));
+	}
+
+	private Note note(int noteId) {
+
+		Category category = categoryIds.isEmpty() ? null : category(randomId(categoryIds));
+
+		Reminder reminder = reminderIds.isEmpty() ? null : reminder(randomId(reminderIds));
+
+		return new Note(noteId, "Load test note", "Note written by the load test", "Active", new Date(), category,
+				reminder, user.getUserId());
+	}
+
+	private Category category(int categoryId) {
+		return new Category(categoryId, "Load test", "Category written by the load test", new Date(),
+				user.getUserId(), null);
+	}
+
+	private Reminder reminder(int reminderId) {
+		return new Reminder(reminderId, "Load test", "Reminder written by the load test", "Email", user.getUserId(),
+				null, new Date());
+	}
+
+	/*
+	 * Perform the request and, when the controller answered asynchronously, wait
+	 * for the result and dispatch it like the container would
+	 */
+	private MvcResult perform(MockHttpServletRequestBuilder request) throws Exception {
+
+		if (token != null) {
+
+			request.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+		}
+
+		MvcResult mvcResult = mockMvc.perform(request.session(session)).andReturn();
+
+		if (mvcResult.getRequest().isAsyncStarted()) {
+
+			awaitAsyncResult(mvcResult);
+
+			return mockMvc.perform(asyncDispatch(mvcResult)).andReturn();
+		}
+
+		return mvcResult;
+	}
+
+	/*
+	 * MockMvc itself polls for the async result every 100 ms, which would add up to
+	 * 100 ms to every measured request, so the result is awaited here at a much
+	 * finer grain first. The executor thread asks for the dispatch only once the
+	 * result is fully recorded, so the dispatch is what is waited for.
+	 */
+	private static void awaitAsyncResult(MvcResult mvcResult) {
+
+		MockAsyncContext asyncContext = (MockAsyncContext) mvcResult.getRequest().getAsyncContext();
+
+		long deadline = System.nanoTime() + ASYNC_RESULT_TIMEOUT_NANOS;
+
+		while (asyncContext.getDispatchedPath() == null && System.nanoTime() < deadline) {
+
+			LockSupport.parkNanos(ASYNC_RESULT_POLL_NANOS);
+		}
+	}
+
+	private static int status(MvcResult result) {
+		return result.getResponse().getStatus();
+	}
+
+	private static void expect(MvcResult result, HttpStatus expectedStatus) {
+
+		if (status(result) != expectedStatus.value()) {
+
+			throw new IllegalStateException(result.getRequest().getMethod() + " " + result.getRequest().getRequestURI()
+					+ " answered " + status(result) + " instead of " + expectedStatus.value());
+		}
+	}
+
+	private static List<Integer> ids(MvcResult result, String idField) throws Exception {
+
+		List<Integer> ids = new ArrayList<>();
+
+		if (status(result) != HttpStatus.OK.value()) {
+
+			return ids;
+		}
+
+		for (JsonNode record : OBJECT_MAPPER.readTree(result.getResponse().getContentAsByteArray())) {
+
+			ids.add(record.get(idField).asInt());
+		}
+
+		return ids;
+	}
+
+	private static Map<Integer, Integer> versions(MvcResult result) throws Exception {
+
+		Map<Integer, Integer> versions = new HashMap<>();
+
+		if (status(result) != HttpStatus.OK.value()) {
+
+			return versions;
+		}
+
+		for (JsonNode record : OBJECT_MAPPER.readTree(result.getResponse().getContentAsByteArray())) {
+
+			versions.put(record.get("noteId").asInt(), record.get("noteVersion").asInt());
+		}
+
+		return versions;
+	}
+
+	private static int randomId(List<Integer> ids) {
+		return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+	}
+
+	private static String json(Object payload) throws Exception {
+		return OBJECT_MAPPER.writeValueAsString(payload);
+	}
+}
@@ -0,0 +1,77 @@
+package com.stackroute.keepnote.aspect;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.stackroute.keepnote.metrics.MetricsRegistry;
+import com.stackroute.keepnote.metrics.OperationMetrics;
+
+/*
+ * The class "MetricsAspect" times every call of a service and DAO method into the
+ * MetricsRegistry, counting the calls that throw as errors. The OperationMetrics
+ * of a method is looked up once and cached by Method, so a call only costs two
+ * System.nanoTime() and a histogram update.
+ */
+@Aspect
+@Component
+public class MetricsAspect {
+
+	public static final String SERVICE_LAYER = "service";
+
+	public static final String DAO_LAYER = "dao";
+
+	@Autowired
+	private MetricsRegistry metricsRegistry;
+
+	private final ConcurrentMap<Method, OperationMetrics> serviceMethods = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<Method, OperationMetrics> daoMethods = new ConcurrentHashMap<>();
+
+	public MetricsAspect(MetricsRegistry metricsRegistry) {
+		this.metricsRegistry = metricsRegistry;
+	}
+
+	@Around("execution(* com.stackroute.keepnote.service..*.*(..))")
+	public Object timeServiceMethods(ProceedingJoinPoint joinPoint) throws Throwable {
+		return time(joinPoint, serviceMethods, SERVICE_LAYER);
+	}
+
+	@Around("execution(* com.stackroute.keepnote.dao..*.*(..))")
+	public Object timeDaoMethods(ProceedingJoinPoint joinPoint) throws Throwable {
+		return time(joinPoint, daoMethods, DAO_LAYER);
+	}
+
+	private Object time(ProceedingJoinPoint joinPoint, ConcurrentMap<Method, OperationMetrics> methods, String layer)
+			throws Throwable {
+
+		OperationMetrics operationMetrics = methods.computeIfAbsent(
+				((MethodSignature) joinPoint.getSignature()).getMethod(),
+				method -> metricsRegistry.getMethodMetrics(layer,
+						joinPoint.getTarget().getClass().getSimpleName() + "." + method.getName()));
+
+		long start = System.nanoTime();
+
+		boolean failed = true;
+
+		try {
+
+			Object value = joinPoint.proceed();
+
+			failed = false;
+
+			return value;
+
+		} finally {
+
+			operationMetrics.record(System.nanoTime() - start, failed);
+		}
+	}
+}
@@ -0,0 +1,368 @@
+package com.stackroute.keepnote.async;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import com.stackroute.keepnote.datasource.LastWrite;
+import com.stackroute.keepnote.datasource.RequestUserContext;
+import com.stackroute.keepnote.metrics.LatencyHistogram;
+import com.stackroute.keepnote.sql.SqlStatistics;
+import com.stackroute.keepnote.sql.SqlStatisticsContext;
+
+/*
+ * The class "RequestExecutor" runs the work of controller methods off the servlet
+ * container thread, on a fixed number of named threads fed by a bounded queue. The
+ * container thread is handed back as soon as the work is queued; the response is
+ * written when the DeferredResult is set.
+ *
+ * In VIRTUAL mode every task gets a virtual thread of its own instead, and waits
+ * for one of "threads" semaphore permits before running: the database still sees
+ * at most as many concurrent requests as in PLATFORM mode, while a waiting request
+ * costs a parked virtual thread rather than a queue slot in front of a pool. The
+ * queue capacity then bounds the number of tasks waiting for a permit.
+ *
+ * Work that cannot leave the container thread, such as a listing written to the
+ * response while it is read from the database, runs inline (see callInline) under
+ * one of the same permits; in PLATFORM mode the pool threads take a permit too, so
+ * inline and queued work share the "threads" budget in both modes.
+ *
+ * A request is answered 503(SERVICE UNAVAILABLE) without running when the queue is
+ * full, and when it does not complete within the timeout. A request timing out
+ * while still queued is not run at all. The user and last write bound to
+ * RequestUserContext and the statistics bound to SqlStatisticsContext on the
+ * container thread are bound to the executor thread for the duration of the work,
+ * so the read-your-writes routing keeps working and the statements are counted
+ * for the request.
+ */
+public class RequestExecutor {
+
+	private final String name;
+
+	private final ThreadMode threadMode;
+
+	private final int threads;
+
+	private final long timeoutMillis;
+
+	private final int queueCapacity;
+
+	private final ExecutorService executor;
+
+	private final Semaphore admission;
+
+	private final AtomicInteger queuedCount = new AtomicInteger();
+
+	private final AtomicInteger activeCount = new AtomicInteger();
+
+	private final AtomicLong completedCount = new AtomicLong();
+
+	private final AtomicLong rejectedCount = new AtomicLong();
+
+	private final AtomicLong timedOutCount = new AtomicLong();
+
+	private final LatencyHistogram queueWaitHistogram = new LatencyHistogram();
+
+	private final LatencyHistogram executionHistogram = new LatencyHistogram();
+
+	public RequestExecutor(String name, int threads, int queueCapacity, long timeoutMillis) {
+		this(name, threads, queueCapacity, timeoutMillis, ThreadMode.PLATFORM);
+	}
+
+	public RequestExecutor(String name, int threads, int queueCapacity, long timeoutMillis, ThreadMode threadMode) {
+
+		this.name = name;
+		this.threadMode = threadMode;
+		this.threads = threads;
+		this.timeoutMillis = timeoutMillis;
+		this.queueCapacity = queueCapacity;
+
+		this.admission = new Semaphore(threads, true);
+
+		if (threadMode == ThreadMode.VIRTUAL) {
+
+			this.executor = VirtualThreads.newExecutor("keepnote-" + name + "-");
+
+		} else {
+
+			AtomicInteger threadNumber = new AtomicInteger();
+
+			this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+					new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+
+						Thread thread = new Thread(runnable,
+								"keepnote-" + name + "-" + threadNumber.incrementAndGet());
+						thread.setDaemon(true);
+
+						return thread;
+					}, new ThreadPoolExecutor.AbortPolicy());
+		}
+	}
+
+	/*
+	 * A result that is already set, for requests answered without queueing any work
+	 */
+	public static <T> DeferredResult<T> completed(T result) {
+
+		DeferredResult<T> deferredResult = new DeferredResult<>();
+		deferredResult.setResult(result);
+
+		return deferredResult;
+	}
+
+	/*
+	 * Queue the task and return the result it will be answered with. An exception
+	 * thrown by the task is handled by Spring MVC as if the controller method had
+	 * thrown it.
+	 */
+	public <T> DeferredResult<T> submit(Callable<T> task) {
+
+		DeferredResult<T> deferredResult = new DeferredResult<>(timeoutMillis,
+				new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE));
+
+		deferredResult.onTimeout(timedOutCount::incrementAndGet);
+
+		String userId = RequestUserContext.getUserId();
+
+		LastWrite lastWrite = RequestUserContext.getLastWrite();
+
+		SqlStatistics sqlStatistics = SqlStatisticsContext.getStatistics();
+
+		long queuedAt = System.nanoTime();
+
+		try {
+
+			int queued = queuedCount.incrementAndGet();
+
+			// the platform pool bounds its own queue; virtual threads are never queued
+			if (threadMode == ThreadMode.VIRTUAL && queued > queueCapacity) {
+
+				throw new RejectedExecutionException("Queue of " + name + " is full");
+			}
+
+			executor.execute(() -> run(task, deferredResult, userId, lastWrite, sqlStatistics, queuedAt));
+
+		} catch (RejectedExecutionException exception) {
+
+			queuedCount.decrementAndGet();
+			rejectedCount.incrementAndGet();
+			deferredResult.setErrorResult(new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE));
+		}
+
+		return deferredResult;
+	}
+
+	private <T> void run(Callable<T> task, DeferredResult<T> deferredResult, String userId, LastWrite lastWrite,
+			SqlStatistics sqlStatistics, long queuedAt) {
+
+		admission.acquireUninterruptibly();
+
+		queuedCount.decrementAndGet();
+
+		try {
+
+			// answered 503 while it was waiting
+			if (deferredResult.isSetOrExpired()) {
+
+				return;
+			}
+
+			execute(task, deferredResult, userId, lastWrite, sqlStatistics, System.nanoTime() - queuedAt);
+
+		} finally {
+
+			admission.release();
+		}
+	}
+
+	/*
+	 * Run the task on the calling thread and return its result. The task waits for a
+	 * permit like the queued work, and is handed the deadline, in System.nanoTime(),
+	 * by which it has to be done: the timeout of the executor after the call. It is
+	 * refused with a RejectedExecutionException when no permit is free before the
+	 * deadline, and has to give up by itself once the deadline has passed.
+	 */
+	public <T> T callInline(InlineTask<T> task) throws Exception {
+
+		long queuedAt = System.nanoTime();
+
+		long deadline = queuedAt + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+		queuedCount.incrementAndGet();
+
+		boolean admitted;
+
+		try {
+
+			admitted = admission.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS);
+
+		} finally {
+
+			queuedCount.decrementAndGet();
+		}
+
+		if (!admitted) {
+
+			rejectedCount.incrementAndGet();
+
+			throw new RejectedExecutionException("No permit of " + name + " within " + timeoutMillis + " ms");
+		}
+
+		long startedAt = System.nanoTime();
+
+		queueWaitHistogram.record(startedAt - queuedAt);
+
+		activeCount.incrementAndGet();
+
+		try {
+
+			return task.call(deadline);
+
+		} finally {
+
+			admission.release();
+
+			activeCount.decrementAndGet();
+			completedCount.incrementAndGet();
+
+			executionHistogram.record(System.nanoTime() - startedAt);
+		}
+	}
+
+	private <T> void execute(Callable<T> task, DeferredResult<T> deferredResult, String userId,
+			LastWrite lastWrite, SqlStatistics sqlStatistics, long queueWait) {
+
+		long startedAt = System.nanoTime();
+
+		queueWaitHistogram.record(queueWait);
+
+		activeCount.incrementAndGet();
+
+		RequestUserContext.setUserId(userId);
+		RequestUserContext.setLastWrite(lastWrite);
+		SqlStatisticsContext.setStatistics(sqlStatistics);
+
+		try {
+
+			deferredResult.setResult(task.call());
+
+		} catch (Exception exception) {
+
+			deferredResult.setErrorResult(exception);
+
+		} finally {
+
+			RequestUserContext.clear();
+			SqlStatisticsContext.clear();
+
+			activeCount.decrementAndGet();
+			completedCount.incrementAndGet();
+
+			executionHistogram.record(System.nanoTime() - startedAt);
+		}
+	}
+
+	/*
+	 * Stop taking work and wait a little for the queued work to drain
+	 */
+	public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+
+		executor.shutdown();
+
+		if (!executor.awaitTermination(timeout, unit)) {
+
+			executor.shutdownNow();
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getTimeoutMillis() {
+		return timeoutMillis;
+	}
+
+	public ThreadMode getThreadMode() {
+		return threadMode;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	public int getQueueDepth() {
+		return queuedCount.get();
+	}
+
+	public int getActiveCount() {
+		return activeCount.get();
+	}
+
+	public long getCompletedCount() {
+		return completedCount.get();
+	}
+
+	public long getRejectedCount() {
+		return rejectedCount.get();
+	}
+
+	public long getTimedOutCount() {
+		return timedOutCount.get();
+	}
+
+	public LatencyHistogram getQueueWaitHistogram() {
+		return queueWaitHistogram;
+	}
+
+	public LatencyHistogram getExecutionHistogram() {
+		return executionHistogram;
+	}
+
+	/*
+	 * The settings, gauges and histograms of the executor, as rendered by the
+	 * /admin/executors endpoint
+	 */
+	public Map<String, Object> toMap() {
+
+		Map<String, Object> executorMetrics = new LinkedHashMap<>();
+		executorMetrics.put("mode", threadMode);
+		executorMetrics.put("threads", threads);
+		executorMetrics.put("queueCapacity", queueCapacity);
+		executorMetrics.put("timeoutMillis", timeoutMillis);
+		executorMetrics.put("queueDepth", getQueueDepth());
+		executorMetrics.put("active", getActiveCount());
+		executorMetrics.put("completed", getCompletedCount());
+		executorMetrics.put("rejected", getRejectedCount());
+		executorMetrics.put("timedOut", getTimedOutCount());
+		executorMetrics.put("queueWait", queueWaitHistogram.toMap());
+		executorMetrics.put("execution", executionHistogram.toMap());
+
+		return executorMetrics;
+	}
+
+	/*
+	 * Work run inline by callInline, given the deadline it has to be done by
+	 */
+	@FunctionalInterface
+	public interface InlineTask<T> {
+
+		T call(long deadline) throws Exception;
+	}
+}
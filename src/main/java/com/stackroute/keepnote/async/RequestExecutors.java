@@ -0,0 +1,131 @@
+package com.stackroute.keepnote.async;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.stackroute.keepnote.datasource.DataSourcePools;
+import com.stackroute.keepnote.datasource.InstrumentedBasicDataSource;
+
+/*
+ * The class "RequestExecutors" holds the executors the controllers hand their work
+ * to: one for the requests that only read and one for the requests that write, so
+ * a burst of imports cannot starve the listings and the other way round.
+ *
+ * The executors are sized after the connection pools, so their threads (or, with
+ * virtual threads, their admission permits) do not queue again for a connection:
+ * writes get 40% of the primary pool and reads the rest of it, or the whole replica
+ * pool when there is one. They are configured with the system properties
+ * keepnote.async.mode (platform or virtual, default platform),
+ * keepnote.async.reads.threads, keepnote.async.reads.queueCapacity (default 200),
+ * keepnote.async.reads.timeoutMillis (default 10000) and their writes equivalents
+ * (defaults 100 and 15000). The virtual mode needs Java 21 or later and falls back
+ * to the platform mode on an older runtime.
+ */
+@Component
+public class RequestExecutors implements DisposableBean {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(RequestExecutors.class);
+
+	public static final String READS = "reads";
+
+	public static final String WRITES = "writes";
+
+	/*
+	 * Pool size assumed when the executors are not built from the DataSourcePools,
+	 * the keepnote.datasource.maxTotal default
+	 */
+	private static final int DEFAULT_POOL_SIZE = 20;
+
+	private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+	private final RequestExecutor reads;
+
+	private final RequestExecutor writes;
+
+	public RequestExecutors() {
+		this(DEFAULT_POOL_SIZE, 0);
+	}
+
+	@Autowired
+	public RequestExecutors(DataSourcePools dataSourcePools) {
+		this(dataSourcePools.getPool(DataSourcePools.PRIMARY).getMaxTotal(),
+				maxTotal(dataSourcePools.getPool(DataSourcePools.REPLICA)));
+	}
+
+	private RequestExecutors(int primaryPoolSize, int replicaPoolSize) {
+		this(threadModeFromSystemProperties(), primaryPoolSize, replicaPoolSize);
+	}
+
+	private RequestExecutors(ThreadMode threadMode, int primaryPoolSize, int replicaPoolSize) {
+		this(fromSystemProperties(READS, threadMode,
+				replicaPoolSize > 0 ? replicaPoolSize : primaryPoolSize - writeShare(primaryPoolSize), 200, 10000),
+				fromSystemProperties(WRITES, threadMode, writeShare(primaryPoolSize), 100, 15000));
+	}
+
+	public RequestExecutors(RequestExecutor reads, RequestExecutor writes) {
+		this.reads = reads;
+		this.writes = writes;
+	}
+
+	private static int maxTotal(InstrumentedBasicDataSource pool) {
+		return pool == null ? 0 : pool.getMaxTotal();
+	}
+
+	private static int writeShare(int poolSize) {
+		return Math.max(1, poolSize * 2 / 5);
+	}
+
+	private static ThreadMode threadModeFromSystemProperties() {
+
+		ThreadMode threadMode = ThreadMode
+				.valueOf(System.getProperty("keepnote.async.mode", ThreadMode.PLATFORM.name()).toUpperCase());
+
+		if (threadMode == ThreadMode.VIRTUAL && !VirtualThreads.isSupported()) {
+
+			LOGGER.warn("keepnote.async.mode=virtual needs Java 21 or later, running on {}; using platform threads",
+					System.getProperty("java.version"));
+
+			return ThreadMode.PLATFORM;
+		}
+
+		return threadMode;
+	}
+
+	private static RequestExecutor fromSystemProperties(String name, ThreadMode threadMode, int defaultThreads,
+			int defaultQueueCapacity, long defaultTimeoutMillis) {
+		return new RequestExecutor(name, Integer.getInteger("keepnote.async." + name + ".threads", defaultThreads),
+				Integer.getInteger("keepnote.async." + name + ".queueCapacity", defaultQueueCapacity),
+				Long.getLong("keepnote.async." + name + ".timeoutMillis", defaultTimeoutMillis), threadMode);
+	}
+
+	public RequestExecutor getReads() {
+		return reads;
+	}
+
+	public RequestExecutor getWrites() {
+		return writes;
+	}
+
+	public Map<String, Object> toMap() {
+
+		Map<String, Object> executorMetrics = new LinkedHashMap<>();
+		executorMetrics.put(READS, reads.toMap());
+		executorMetrics.put(WRITES, writes.toMap());
+
+		return executorMetrics;
+	}
+
+	@Override
+	public void destroy() throws InterruptedException {
+
+		reads.shutdown(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		writes.shutdown(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+	}
+}
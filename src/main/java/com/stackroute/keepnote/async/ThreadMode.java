@@ -0,0 +1,14 @@
+package com.stackroute.keepnote.async;
+
+/*
+ * The kind of threads a RequestExecutor runs its tasks on.
+ *
+ * PLATFORM - a fixed pool of platform threads fed by a bounded queue.
+ *
+ * VIRTUAL - a new virtual thread per task (Java 21 or later), admitted to run by a
+ * semaphore with as many permits as the platform pool would have threads.
+ */
+public enum ThreadMode {
+
+	PLATFORM, VIRTUAL
+}
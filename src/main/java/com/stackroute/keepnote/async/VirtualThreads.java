@@ -0,0 +1,87 @@
+package com.stackroute.keepnote.async;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/*
+ * The class "VirtualThreads" creates executors that start one virtual thread per
+ * task. The project is compiled for Java 8, so the JDK 21 API (Thread.ofVirtual()
+ * and Executors.newThreadPerTaskExecutor) is looked up reflectively, once; on an
+ * older runtime isSupported() answers false.
+ */
+public final class VirtualThreads {
+
+	private static final Method OF_VIRTUAL;
+
+	private static final Method BUILDER_NAME;
+
+	private static final Method BUILDER_FACTORY;
+
+	private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+	static {
+
+		Method ofVirtual = null;
+		Method builderName = null;
+		Method builderFactory = null;
+		Method newThreadPerTaskExecutor = null;
+
+		try {
+
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+
+			ofVirtual = Thread.class.getMethod("ofVirtual");
+			builderName = builderClass.getMethod("name", String.class, long.class);
+			builderFactory = builderClass.getMethod("factory");
+			newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+
+			// a preview build without --enable-preview only fails when the builder is created
+			ofVirtual.invoke(null);
+
+		} catch (ReflectiveOperationException | LinkageError exception) {
+
+			ofVirtual = null;
+		}
+
+		OF_VIRTUAL = ofVirtual;
+		BUILDER_NAME = builderName;
+		BUILDER_FACTORY = builderFactory;
+		NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+	}
+
+	private VirtualThreads() {
+	}
+
+	public static boolean isSupported() {
+		return OF_VIRTUAL != null;
+	}
+
+	/*
+	 * An executor starting a new virtual thread, named namePrefix followed by a
+	 * counter, for every task
+	 */
+	public static ExecutorService newExecutor(String namePrefix) {
+
+		if (!isSupported()) {
+
+			throw new UnsupportedOperationException("Virtual threads need Java 21 or later, running on "
+					+ System.getProperty("java.version"));
+		}
+
+		try {
+
+			Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), namePrefix, 1L);
+
+			ThreadFactory threadFactory = (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+
+			return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, threadFactory);
+
+		} catch (IllegalAccessException | InvocationTargetException exception) {
+
+			throw new IllegalStateException("Could not create a virtual thread executor", exception);
+		}
+	}
+}
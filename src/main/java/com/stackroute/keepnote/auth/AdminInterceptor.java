@@ -0,0 +1,73 @@
+package com.stackroute.keepnote.auth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/*
+ * The class "AdminInterceptor" guards the operational endpoints: everything under
+ * /admin and the /metrics scrape. Their output names callers, SQL and bind values,
+ * so they are not open to users of the application but to operators and scrapers
+ * holding the admin token, sent as "Authorization: Bearer <admin token>".
+ *
+ * A request without a bearer token is answered with 401(UNAUTHORIZED) and one with
+ * a wrong token with 403(FORBIDDEN). The token is taken from the environment
+ * variable KEEPNOTE_ADMIN_TOKEN, of at least 32 characters; when it is not set the
+ * endpoints are closed to everybody.
+ */
+public class AdminInterceptor implements HandlerInterceptor {
+
+	public static final String[] PATH_PATTERNS = { "/admin/**", "/metrics" };
+
+	private static final int MIN_TOKEN_LENGTH = 32;
+
+	private static final String BEARER = "Bearer ";
+
+	private final byte[] token;
+
+	public AdminInterceptor() {
+		this(System.getenv("KEEPNOTE_ADMIN_TOKEN"));
+	}
+
+	public AdminInterceptor(String token) {
+
+		if (token != null && token.length() < MIN_TOKEN_LENGTH) {
+
+			throw new IllegalStateException(
+					"KEEPNOTE_ADMIN_TOKEN needs at least " + MIN_TOKEN_LENGTH + " characters");
+		}
+
+		this.token = token == null ? null : token.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+
+		String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+
+		if (authorization == null || !authorization.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+
+			response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+			response.setStatus(HttpStatus.UNAUTHORIZED.value());
+
+			return false;
+		}
+
+		byte[] presented = authorization.substring(BEARER.length()).getBytes(StandardCharsets.UTF_8);
+
+		if (token == null || !MessageDigest.isEqual(token, presented)) {
+
+			response.setStatus(HttpStatus.FORBIDDEN.value());
+
+			return false;
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,15 @@
+package com.stackroute.keepnote.auth;
+
+/*
+ * How a logged in user is recognised on the following requests.
+ *
+ * SESSION - /login stores the user in the HttpSession, which needs sticky sessions
+ * or session replication once there is more than one node.
+ *
+ * TOKEN - /login answers a signed, expiring token the client sends back in the
+ * Authorization header; any node sharing the secret can check it on its own.
+ */
+public enum AuthMode {
+
+	SESSION, TOKEN
+}
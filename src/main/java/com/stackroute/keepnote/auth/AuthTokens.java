@@ -0,0 +1,284 @@
+package com.stackroute.keepnote.auth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.stereotype.Component;
+
+/*
+ * The class "AuthTokens" issues and checks the stateless login tokens. A token is
+ *
+ *     base64url(userId) "." expiresAt "." base64url(HMAC-SHA256 of the first two parts)
+ *
+ * with expiresAt in epoch seconds, so it carries everything needed to check it and
+ * any node holding the same secret accepts it. Checking runs on every request, so
+ * it works on the header in place: one Mac and the scratch buffers are kept per
+ * thread and the only allocation is the String of the user id.
+ *
+ * It is configured with the system properties keepnote.auth.mode (session or token,
+ * default session) and keepnote.auth.tokenTtlSeconds (default 3600), and the
+ * environment variable KEEPNOTE_AUTH_SECRET, of at least 32 characters, which is
+ * required in the token mode.
+ */
+@Component
+public class AuthTokens {
+
+	private static final String ALGORITHM = "HmacSHA256";
+
+	private static final int MIN_SECRET_LENGTH = 32;
+
+	private static final int SIGNATURE_LENGTH = 32;
+
+	// base64url without padding of the 32 bytes signature
+	private static final int ENCODED_SIGNATURE_LENGTH = 43;
+
+	private static final byte[] BASE64URL_VALUES = new byte[128];
+
+	static {
+
+		Arrays.fill(BASE64URL_VALUES, (byte) -1);
+
+		String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+
+		for (int i = 0; i < alphabet.length(); i++) {
+
+			BASE64URL_VALUES[alphabet.charAt(i)] = (byte) i;
+		}
+	}
+
+	private final AuthMode mode;
+
+	private final SecretKeySpec key;
+
+	private final long ttlSeconds;
+
+	private final Clock clock;
+
+	private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(this::newScratch);
+
+	public AuthTokens() {
+		this(AuthMode.valueOf(System.getProperty("keepnote.auth.mode", AuthMode.SESSION.name()).toUpperCase()),
+				System.getenv("KEEPNOTE_AUTH_SECRET"), Long.getLong("keepnote.auth.tokenTtlSeconds", 3600),
+				Clock.systemUTC());
+	}
+
+	public AuthTokens(AuthMode mode, String secret, long ttlSeconds, Clock clock) {
+
+		if (mode == AuthMode.TOKEN && (secret == null || secret.length() < MIN_SECRET_LENGTH)) {
+
+			throw new IllegalStateException("keepnote.auth.mode=token needs KEEPNOTE_AUTH_SECRET of at least "
+					+ MIN_SECRET_LENGTH + " characters");
+		}
+
+		this.mode = mode;
+		this.key = secret == null ? null : new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+		this.ttlSeconds = ttlSeconds;
+		this.clock = clock;
+	}
+
+	public AuthMode getMode() {
+		return mode;
+	}
+
+	/*
+	 * The expiry, in epoch seconds, of a token issued now
+	 */
+	public long newExpiry() {
+		return clock.millis() / 1000 + ttlSeconds;
+	}
+
+	public String issue(String userId, long expiresAt) {
+
+		Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+
+		String payload = encoder.encodeToString(userId.getBytes(StandardCharsets.UTF_8)) + "." + expiresAt;
+
+		Scratch buffers = scratch.get();
+
+		return payload + "." + encoder.encodeToString(buffers.sign(payload, 0, payload.length()));
+	}
+
+	/*
+	 * The user id of the token starting at offset in value, or null when the token
+	 * is malformed, expired or not signed with this secret
+	 */
+	public String verify(String value, int offset) {
+
+		int signatureDot = value.lastIndexOf('.');
+
+		int expiryDot = signatureDot > offset ? value.lastIndexOf('.', signatureDot - 1) : -1;
+
+		if (expiryDot <= offset || value.length() - signatureDot - 1 != ENCODED_SIGNATURE_LENGTH) {
+
+			return null;
+		}
+
+		long expiresAt = parseSeconds(value, expiryDot + 1, signatureDot);
+
+		if (expiresAt <= clock.millis() / 1000) {
+
+			return null;
+		}
+
+		Scratch buffers = scratch.get();
+
+		byte[] signature = buffers.sign(value, offset, signatureDot);
+
+		if (signature == null || decode(value, signatureDot + 1, value.length(), buffers.expected) != SIGNATURE_LENGTH
+				|| !MessageDigest.isEqual(signature, buffers.expected)) {
+
+			return null;
+		}
+
+		int userIdLength = decode(value, offset, expiryDot, buffers.payload);
+
+		return userIdLength <= 0 ? null : new String(buffers.payload, 0, userIdLength, StandardCharsets.UTF_8);
+	}
+
+	/*
+	 * The decimal digits between from and to, or -1 when there are none or another
+	 * character
+	 */
+	private static long parseSeconds(String value, int from, int to) {
+
+		if (from == to || to - from > 18) {
+
+			return -1;
+		}
+
+		long seconds = 0;
+
+		for (int i = from; i < to; i++) {
+
+			char digit = value.charAt(i);
+
+			if (digit < '0' || digit > '9') {
+
+				return -1;
+			}
+
+			seconds = seconds * 10 + (digit - '0');
+		}
+
+		return seconds;
+	}
+
+	/*
+	 * Decode the unpadded base64url characters between from and to into out,
+	 * answering the number of bytes, or -1 when a character is invalid or out is too
+	 * small
+	 */
+	private static int decode(String value, int from, int to, byte[] out) {
+
+		int length = 0;
+
+		int bits = 0;
+
+		int bitCount = 0;
+
+		for (int i = from; i < to; i++) {
+
+			char character = value.charAt(i);
+
+			int sextet = character < 128 ? BASE64URL_VALUES[character] : -1;
+
+			if (sextet < 0) {
+
+				return -1;
+			}
+
+			bits = bits << 6 | sextet;
+			bitCount += 6;
+
+			if (bitCount >= 8) {
+
+				if (length == out.length) {
+
+					return -1;
+				}
+
+				bitCount -= 8;
+				out[length++] = (byte) (bits >> bitCount);
+			}
+		}
+
+		return length;
+	}
+
+	private Scratch newScratch() {
+
+		try {
+
+			Mac mac = Mac.getInstance(ALGORITHM);
+			mac.init(key);
+
+			return new Scratch(mac);
+
+		} catch (GeneralSecurityException exception) {
+
+			throw new IllegalStateException("Could not initialise " + ALGORITHM, exception);
+		}
+	}
+
+	/*
+	 * The Mac and buffers of one thread
+	 */
+	private static final class Scratch {
+
+		private final Mac mac;
+
+		private final byte[] signature = new byte[SIGNATURE_LENGTH];
+
+		private final byte[] expected = new byte[SIGNATURE_LENGTH];
+
+		private byte[] payload = new byte[256];
+
+		private Scratch(Mac mac) {
+			this.mac = mac;
+		}
+
+		/*
+		 * Sign the ASCII characters between from and to, or answer null when there is
+		 * another character
+		 */
+		private byte[] sign(String value, int from, int to) {
+
+			if (payload.length < to - from) {
+
+				payload = new byte[to - from];
+			}
+
+			for (int i = from; i < to; i++) {
+
+				char character = value.charAt(i);
+
+				if (character >= 128) {
+
+					return null;
+				}
+
+				payload[i - from] = (byte) character;
+			}
+
+			mac.update(payload, 0, to - from);
+
+			try {
+
+				mac.doFinal(signature, 0);
+
+			} catch (GeneralSecurityException exception) {
+
+				throw new IllegalStateException("Could not sign with " + ALGORITHM, exception);
+			}
+
+			return signature;
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package com.stackroute.keepnote.auth;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import com.stackroute.keepnote.datasource.LastWrite;
+import com.stackroute.keepnote.datasource.RequestUserContext;
+
+/*
+ * The class "AuthenticationInterceptor" is the one place the logged in user of a
+ * request is worked out. In the token mode it checks the "Authorization: Bearer"
+ * token and answers 401(UNAUTHORIZED) itself when the token is invalid or expired;
+ * in the session mode it reads the user stored in the HttpSession by /login. The
+ * user is exposed to the handlers as the "loggedInUserId" request attribute, and
+ * requests without one are answered by the handlers as before.
+ *
+ * The user is also bound to the RequestUserContext for the read-your-writes
+ * routing, with the time of the last write of the user taken from the
+ * KEEPNOTE_LAST_WRITE cookie. When a write of the request commits, on whichever
+ * node, the cookie is set to its time, so that the next reads of the user stay
+ * on the primary even when another node serves them. When the handler hands its
+ * work to a RequestExecutor the binding is carried over to the executor thread
+ * and released on the container thread, which goes back to the pool.
+ */
+public class AuthenticationInterceptor implements AsyncHandlerInterceptor {
+
+	public static final String LOGGED_IN_USER_ID = "loggedInUserId";
+
+	public static final String LAST_WRITE_COOKIE = "KEEPNOTE_LAST_WRITE";
+
+	private static final String BEARER = "Bearer ";
+
+	private final AuthTokens authTokens;
+
+	public AuthenticationInterceptor(AuthTokens authTokens) {
+		this.authTokens = authTokens;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+
+		String userId = null;
+
+		if (authTokens.getMode() == AuthMode.TOKEN) {
+
+			String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+
+			if (authorization != null) {
+
+				if (authorization.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+
+					userId = authTokens.verify(authorization, BEARER.length());
+				}
+
+				if (userId == null) {
+
+					response.setStatus(HttpStatus.UNAUTHORIZED.value());
+
+					return false;
+				}
+			}
+
+		} else {
+
+			HttpSession session = request.getSession(false);
+
+			if (session != null) {
+
+				userId = (String) session.getAttribute(LOGGED_IN_USER_ID);
+			}
+		}
+
+		if (userId != null) {
+
+			request.setAttribute(LOGGED_IN_USER_ID, userId);
+			RequestUserContext.setUserId(userId);
+			RequestUserContext.setLastWrite(new LastWrite(readLastWrite(request),
+					writtenAt -> writeLastWrite(request, response, writtenAt)));
+		}
+
+		return true;
+	}
+
+	/*
+	 * The time of the last write of the user sent in the cookie, or 0 when there is
+	 * no readable one
+	 */
+	private long readLastWrite(HttpServletRequest request) {
+
+		Cookie[] cookies = request.getCookies();
+
+		if (cookies == null) {
+
+			return 0;
+		}
+
+		for (Cookie cookie : cookies) {
+
+			if (LAST_WRITE_COOKIE.equals(cookie.getName())) {
+
+				try {
+
+					return Long.parseLong(cookie.getValue());
+
+				} catch (NumberFormatException exception) {
+
+					return 0;
+				}
+			}
+		}
+
+		return 0;
+	}
+
+	private void writeLastWrite(HttpServletRequest request, HttpServletResponse response, long writtenAt) {
+
+		Cookie cookie = new Cookie(LAST_WRITE_COOKIE, Long.toString(writtenAt));
+
+		String contextPath = request.getContextPath();
+
+		cookie.setPath(contextPath.isEmpty() ? "/" : contextPath);
+		cookie.setHttpOnly(true);
+
+		response.addCookie(cookie);
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception exception) {
+
+		RequestUserContext.clear();
+	}
+
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+			Object handler) {
+
+		RequestUserContext.clear();
+	}
+}
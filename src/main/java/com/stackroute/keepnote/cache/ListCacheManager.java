@@ -0,0 +1,61 @@
+package com.stackroute.keepnote.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.stackroute.keepnote.dao.ListVersionDAO;
+import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.Reminder;
+
+/*
+ * The class "ListCacheManager" holds the per-user listing caches shared by the
+ * service classes. Notes embed their category and reminder, so a change to a
+ * category or a reminder has to drop the cached note listings as well.
+ * 
+ * The caches are sized with the system properties keepnote.cache.notes.maxUsers,
+ * keepnote.cache.notes.ttlSeconds and their categories/reminders equivalents. The
+ * application versions the listings in the database so that the caches of all the
+ * nodes stay in step; without a ListVersionDAO the caches only see the writes of
+ * their own node.
+ */
+@Component
+public class ListCacheManager {
+
+	public static final String NOTE_LIST = "notes";
+
+	public static final String CATEGORY_LIST = "categories";
+
+	public static final String REMINDER_LIST = "reminders";
+
+	private final UserListCache<Note> noteListCache;
+
+	private final UserListCache<Category> categoryListCache;
+
+	private final UserListCache<Reminder> reminderListCache;
+
+	public ListCacheManager() {
+		this(null);
+	}
+
+	@Autowired
+	public ListCacheManager(ListVersionDAO listVersionDAO) {
+		this.noteListCache = UserListCache.fromSystemProperties(NOTE_LIST, Note::getNoteId, listVersionDAO);
+		this.categoryListCache = UserListCache.fromSystemProperties(CATEGORY_LIST, Category::getCategoryId,
+				listVersionDAO);
+		this.reminderListCache = UserListCache.fromSystemProperties(REMINDER_LIST, Reminder::getReminderId,
+				listVersionDAO);
+	}
+
+	public UserListCache<Note> getNoteListCache() {
+		return noteListCache;
+	}
+
+	public UserListCache<Category> getCategoryListCache() {
+		return categoryListCache;
+	}
+
+	public UserListCache<Reminder> getReminderListCache() {
+		return reminderListCache;
+	}
+}
@@ -0,0 +1,250 @@
+package com.stackroute.keepnote.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+import com.stackroute.keepnote.dao.ListVersionDAO;
+
+/*
+ * The class "UserListCache" keeps the result of a per-user listing (all notes, all
+ * categories or all reminders of one user) in memory. At most maxUsers listings are
+ * kept, the least recently used one being evicted first, and a listing expires
+ * ttlMillis after it was loaded.
+ * 
+ * Writes have to call invalidateUser() or invalidateItem() once they have been
+ * committed. Every invalidation also bumps a generation counter, and a listing
+ * loaded while the counter moved is handed to its caller but not cached. That way a
+ * listing read before a concurrent write committed can never outlive the write.
+ *
+ * Every node holds a cache of its own. With a ListVersionDAO, invalidateUser() also
+ * bumps the version of the listing of the user in the database, and a cached
+ * listing is only served while the version read before it was loaded is still the
+ * current one: a write on any node invalidates the listing on all of them, for one
+ * primary key lookup per cached read. invalidateItem() and clear() only act on this
+ * node, so writes call invalidateUser() for the owner as well.
+ */
+public class UserListCache<T> {
+
+	private static final int DEFAULT_MAX_USERS = 1000;
+
+	private static final long DEFAULT_TTL_SECONDS = 60;
+
+	private final String name;
+
+	private final int maxUsers;
+
+	private final long ttlMillis;
+
+	private final ToIntFunction<T> idExtractor;
+
+	private final ListVersionDAO listVersionDAO;
+
+	private final LinkedHashMap<String, CachedList<T>> listings;
+
+	/*
+	 * Owner of every item of the cached listings, used to invalidate a listing when
+	 * only the id of the modified item is known (deletes)
+	 */
+	private final Map<Integer, String> owners = new HashMap<>();
+
+	private long generation;
+
+	private long hitCount;
+
+	private long missCount;
+
+	public UserListCache(int maxUsers, long ttlMillis, ToIntFunction<T> idExtractor) {
+		this(null, maxUsers, ttlMillis, idExtractor, null);
+	}
+
+	public UserListCache(String name, int maxUsers, long ttlMillis, ToIntFunction<T> idExtractor,
+			ListVersionDAO listVersionDAO) {
+		this.name = name;
+		this.maxUsers = maxUsers;
+		this.ttlMillis = ttlMillis;
+		this.idExtractor = idExtractor;
+		this.listVersionDAO = listVersionDAO;
+		this.listings = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	/*
+	 * Create a cache sized by the system properties keepnote.cache.<name>.maxUsers
+	 * and keepnote.cache.<name>.ttlSeconds. A maxUsers of 0 disables caching. The
+	 * listings are versioned under the name of the cache when a ListVersionDAO is
+	 * given.
+	 */
+	public static <T> UserListCache<T> fromSystemProperties(String name, ToIntFunction<T> idExtractor,
+			ListVersionDAO listVersionDAO) {
+
+		int maxUsers = Integer.getInteger("keepnote.cache." + name + ".maxUsers", DEFAULT_MAX_USERS);
+		long ttlSeconds = Long.getLong("keepnote.cache." + name + ".ttlSeconds", DEFAULT_TTL_SECONDS);
+
+		return new UserListCache<>(name, maxUsers, ttlSeconds * 1000, idExtractor, listVersionDAO);
+	}
+
+	/*
+	 * Return the cached listing of the user, or load it with the given loader and
+	 * cache it when no write happened in the meantime
+	 */
+	public List<T> get(String userId, Supplier<List<T>> loader) {
+
+		long version = listVersionDAO == null || maxUsers == 0 ? 0 : listVersionDAO.getVersion(name, userId);
+
+		long loadGeneration;
+
+		synchronized (this) {
+
+			CachedList<T> cachedList = listings.get(userId);
+
+			if (cachedList != null && cachedList.expiresAt > System.currentTimeMillis()
+					&& cachedList.version == version) {
+
+				hitCount++;
+				return cachedList.items;
+			}
+
+			if (cachedList != null) {
+
+				remove(userId);
+			}
+
+			missCount++;
+			loadGeneration = generation;
+		}
+
+		List<T> items = Collections.unmodifiableList(new ArrayList<>(loader.get()));
+
+		synchronized (this) {
+
+			if (loadGeneration == generation && maxUsers > 0) {
+
+				listings.put(userId, new CachedList<>(items, System.currentTimeMillis() + ttlMillis, version));
+
+				for (T item : items) {
+
+					owners.put(idExtractor.applyAsInt(item), userId);
+				}
+
+				evictEldest();
+			}
+		}
+
+		return items;
+	}
+
+	/*
+	 * Drop the cached listing of the user, on this node and, through its version,
+	 * on the others. Returns the new version of the listing, 0 without a
+	 * ListVersionDAO.
+	 */
+	public long invalidateUser(String userId) {
+
+		synchronized (this) {
+
+			generation++;
+
+			if (userId != null) {
+
+				remove(userId);
+			}
+		}
+
+		if (userId != null && listVersionDAO != null) {
+
+			return listVersionDAO.bumpVersion(name, userId);
+		}
+
+		return 0;
+	}
+
+	/*
+	 * Drop the cached listing of this node that holds the item with the given id,
+	 * if any
+	 */
+	public synchronized void invalidateItem(int id) {
+
+		generation++;
+
+		String userId = owners.get(id);
+
+		if (userId != null) {
+
+			remove(userId);
+		}
+	}
+
+	/*
+	 * Drop every cached listing of this node, used when a change affects the
+	 * listings of several users at once
+	 */
+	public synchronized void clear() {
+
+		generation++;
+		listings.clear();
+		owners.clear();
+	}
+
+	public synchronized int size() {
+		return listings.size();
+	}
+
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	private void remove(String userId) {
+
+		CachedList<T> cachedList = listings.remove(userId);
+
+		if (cachedList != null) {
+
+			for (T item : cachedList.items) {
+
+				owners.remove(idExtractor.applyAsInt(item), userId);
+			}
+		}
+	}
+
+	private void evictEldest() {
+
+		Iterator<Map.Entry<String, CachedList<T>>> eldest = listings.entrySet().iterator();
+
+		while (listings.size() > maxUsers && eldest.hasNext()) {
+
+			Map.Entry<String, CachedList<T>> entry = eldest.next();
+
+			eldest.remove();
+
+			for (T item : entry.getValue().items) {
+
+				owners.remove(idExtractor.applyAsInt(item), entry.getKey());
+			}
+		}
+	}
+
+	private static final class CachedList<T> {
+
+		private final List<T> items;
+
+		private final long expiresAt;
+
+		private final long version;
+
+		private CachedList(List<T> items, long expiresAt, long version) {
+			this.items = items;
+			this.expiresAt = expiresAt;
+			this.version = version;
+		}
+	}
+}
@@ -1,19 +1,45 @@
 package com.stackroute.keepnote.config;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Properties;
 
 import javax.sql.DataSource;
 
-import org.apache.commons.dbcp2.BasicDataSource;
+import org.flywaydb.core.Flyway;
 import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.orm.hibernate5.HibernateTransactionManager;
 import org.springframework.orm.hibernate5.LocalSessionFactoryBuilder;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.stackroute.keepnote.auth.AdminInterceptor;
+import com.stackroute.keepnote.auth.AuthTokens;
+import com.stackroute.keepnote.auth.AuthenticationInterceptor;
+import com.stackroute.keepnote.dao.NoteDAOImpl;
+import com.stackroute.keepnote.datasource.DataSourcePools;
+import com.stackroute.keepnote.datasource.InstrumentedBasicDataSource;
+import com.stackroute.keepnote.datasource.ReadWriteRoutingDataSource;
+import com.stackroute.keepnote.datasource.ReadYourWritesTracker;
+import com.stackroute.keepnote.metrics.MetricsRegistry;
+import com.stackroute.keepnote.metrics.RequestMetricsInterceptor;
+import com.stackroute.keepnote.notification.FileNotificationSink;
+import com.stackroute.keepnote.notification.LoggingNotificationSink;
+import com.stackroute.keepnote.notification.NotificationSink;
+import com.stackroute.keepnote.sql.SlowQueryLog;
+import com.stackroute.keepnote.sql.SqlCountingDataSource;
+import com.stackroute.keepnote.sql.SqlStatisticsInterceptor;
 
 /*This class will contain the application-context for the application. 
  * Define the following annotations:
@@ -26,13 +52,31 @@ import org.springframework.web.servlet.config.annotation.EnableWebMvc;
  * @EnableTransactionManagement - Enables Spring's annotation-driven transaction management capability.
  *                  
  * @EnableAspectJAutoProxy - This spring aop annotation is used to enable @AspectJ support with Java @Configuration  
+ * @PropertySource - loads the connection pool settings, which system properties and 
+ *                  environment variables can override
  * */
 @Configuration
 @ComponentScan(basePackages = { "com.stackroute" })
 @EnableWebMvc
 @EnableTransactionManagement
 @EnableAspectJAutoProxy
-public class ApplicationContextConfig {
+@PropertySource("classpath:datasource.properties")
+public class ApplicationContextConfig implements WebMvcConfigurer {
+
+	@Autowired
+	private Environment environment;
+
+	@Autowired
+	private AuthTokens authTokens;
+
+	@Autowired
+	private MetricsRegistry metricsRegistry;
+
+	@Autowired
+	private SqlStatisticsInterceptor sqlStatisticsInterceptor;
+
+	@Autowired
+	private SlowQueryLog slowQueryLog;
 
 	/*
 	 * Define the bean for DataSource. In our application, we are using MySQL as
@@ -49,31 +93,151 @@ public class ApplicationContextConfig {
 	 * dataSource.setUsername(System.getenv("MYSQL_USER"));
 	 * dataSource.setPassword(System.getenv("MYSQL_PASSWORD"));
 	 */
+	/*
+	 * Define the connection pools: the primary on MYSQL_HOST and, when
+	 * MYSQL_REPLICA_HOST is set, a replica pool with the same settings.
+	 */
 	@Bean
-	public DataSource dataSource() {
-		BasicDataSource dsource = new BasicDataSource();
+	public DataSourcePools dataSourcePools() {
+
+		DataSourcePools dataSourcePools = new DataSourcePools();
+
+		dataSourcePools.addPool(DataSourcePools.PRIMARY, createDataSource(System.getenv("MYSQL_HOST")));
+
+		String replicaHost = System.getenv("MYSQL_REPLICA_HOST");
+
+		if (replicaHost != null && !replicaHost.isEmpty()) {
+
+			dataSourcePools.addPool(DataSourcePools.REPLICA, createDataSource(replicaHost));
+		}
+
+		return dataSourcePools;
+	}
+
+	/*
+	 * When a replica pool exists, read-only transactions are routed to it and
+	 * everything else to the primary. A user's reads stay on the primary for
+	 * keepnote.datasource.readYourWritesMillis after each of their writes, so a
+	 * note just created shows up in the next GET, also when another node serves it:
+	 * the time of the write travels with the client in the KEEPNOTE_LAST_WRITE
+	 * cookie. Every statement is counted for the request it runs for by the
+	 * SqlCountingDataSource, and the slow ones are logged by the SlowQueryLog.
+	 */
+	@Bean
+	public DataSource dataSource(DataSourcePools dataSourcePools) {
+
+		DataSource primary = dataSourcePools.getPool(DataSourcePools.PRIMARY);
+
+		DataSource replica = dataSourcePools.getPool(DataSourcePools.REPLICA);
+
+		if (replica == null) {
+
+			return new SqlCountingDataSource(primary, slowQueryLog);
+		}
+
+		ReadYourWritesTracker readYourWritesTracker = new ReadYourWritesTracker(
+				environment.getRequiredProperty("keepnote.datasource.readYourWritesMillis", Long.class));
+
+		ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(primary, replica,
+				readYourWritesTracker);
+		routingDataSource.afterPropertiesSet();
+
+		return new SqlCountingDataSource(new LazyConnectionDataSourceProxy(routingDataSource), slowQueryLog);
+	}
+
+	/*
+	 * Create a pool for the given host, sized and validated according to the
+	 * keepnote.datasource.* settings of datasource.properties. The streamed
+	 * listings ask for their rows to be streamed statement by statement (see
+	 * ResultStreams), so cursor fetch is not turned on for the whole connection.
+	 * rewriteBatchedStatements lets the driver send a JDBC batch, such as the
+	 * inserts of a note batch, as multi-row statements rather than one round trip
+	 * per row.
+	 */
+	private InstrumentedBasicDataSource createDataSource(String host) {
+		InstrumentedBasicDataSource dsource = new InstrumentedBasicDataSource();
 		dsource.setDriverClassName("com.mysql.cj.jdbc.Driver");
 		dsource.setUrl("jdbc:mysql://"
-				+ System.getenv("MYSQL_HOST")
+				+ host
 				+ ":3306/"
 				+ System.getenv("MYSQL_DATABASE")
-				+ "?verifyServerCertificate=false&useSSL=false&requireSSL=false&createDatabaseIfNotExist=true");
+				+ "?verifyServerCertificate=false&useSSL=false&requireSSL=false&createDatabaseIfNotExist=true"
+				+ "&rewriteBatchedStatements=true");
 		dsource.setUsername(System.getenv("MYSQL_USER"));
 		dsource.setPassword(System.getenv("MYSQL_PASSWORD"));
+		dsource.setInitialSize(getPoolSetting("initialSize", Integer.class));
+		dsource.setMinIdle(getPoolSetting("minIdle", Integer.class));
+		dsource.setMaxIdle(getPoolSetting("maxIdle", Integer.class));
+		dsource.setMaxTotal(getPoolSetting("maxTotal", Integer.class));
+		dsource.setMaxWaitMillis(getPoolSetting("maxWaitMillis", Long.class));
+		dsource.setTestOnBorrow(getPoolSetting("testOnBorrow", Boolean.class));
+		dsource.setTestWhileIdle(getPoolSetting("testWhileIdle", Boolean.class));
+		dsource.setValidationQueryTimeout(getPoolSetting("validationQueryTimeoutSeconds", Integer.class));
+		dsource.setTimeBetweenEvictionRunsMillis(getPoolSetting("timeBetweenEvictionRunsMillis", Long.class));
+		dsource.setMinEvictableIdleTimeMillis(getPoolSetting("minEvictableIdleTimeMillis", Long.class));
+		dsource.setMaxConnLifetimeMillis(getPoolSetting("maxConnLifetimeMillis", Long.class));
+		dsource.setPoolPreparedStatements(getPoolSetting("poolPreparedStatements", Boolean.class));
+		dsource.setMaxOpenPreparedStatements(getPoolSetting("maxOpenPreparedStatements", Integer.class));
 		return dsource;
 	}
 
+	private <T> T getPoolSetting(String name, Class<T> type) {
+		return environment.getRequiredProperty("keepnote.datasource." + name, type);
+	}
+
+	/*
+	 * Time every request and count its SQL statements for the /metrics endpoint,
+	 * keep /admin and /metrics to holders of the admin token, and work out the
+	 * logged in user of every other request, from its token or its session
+	 * according to keepnote.auth.mode, for the handlers and the read-your-writes
+	 * routing of the DataSource
+	 */
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new RequestMetricsInterceptor(metricsRegistry));
+		registry.addInterceptor(sqlStatisticsInterceptor);
+		registry.addInterceptor(new AdminInterceptor()).addPathPatterns(AdminInterceptor.PATH_PATTERNS);
+		registry.addInterceptor(new AuthenticationInterceptor(authTokens))
+				.excludePathPatterns(AdminInterceptor.PATH_PATTERNS);
+	}
+
+	/*
+	 * Define the bean for Flyway. The schema is owned by the versioned scripts in
+	 * src/main/resources/db/migration; pending scripts are applied once at startup,
+	 * before the SessionFactory is built, and already applied ones are skipped.
+	 */
+	@Bean(initMethod = "migrate")
+	public Flyway flyway(DataSource dataSource) {
+		return Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load();
+	}
+
 	/*
 	 * create a getter for Hibernate properties here we have to mention 1.
-	 * show_sql 2. Dialect 3. hbm2ddl
+	 * show_sql 2. Dialect 3. hbm2ddl. The schema is created by the Flyway
+	 * migrations, so Hibernate only validates the mappings against it. Categories
+	 * and reminders are kept in the second-level cache configured in ehcache.xml.
+	 * show_sql prints every statement to the console from the request thread, so
+	 * it is off unless -Dkeepnote.hibernate.showSql=true; the SlowQueryLog reports
+	 * the statements worth looking at. Hibernate statistics, which /admin/cache
+	 * reports the cache hit ratio from, are collected on every session operation,
+	 * so they are off unless -Dkeepnote.hibernate.generateStatistics=true.
 	 */
 	public Properties getHibernateProperties() {
 		Properties hibernateproperties = new Properties();
 		hibernateproperties.setProperty("hibernate.dialect", "org.hibernate.dialect.MySQL5InnoDBDialect");
-		hibernateproperties.setProperty("hibernate.show_sql", "true");
-		hibernateproperties.setProperty("hibernate.format_sql", "true");
-		hibernateproperties.setProperty("hibernate.show_sql", "true");
-		hibernateproperties.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+		String showSql = System.getProperty("keepnote.hibernate.showSql", "false");
+		hibernateproperties.setProperty("hibernate.show_sql", showSql);
+		hibernateproperties.setProperty("hibernate.format_sql", showSql);
+		hibernateproperties.setProperty("hibernate.hbm2ddl.auto", "validate");
+		hibernateproperties.setProperty("hibernate.jdbc.batch_size", String.valueOf(NoteDAOImpl.BATCH_SIZE));
+		hibernateproperties.setProperty("hibernate.order_inserts", "true");
+		hibernateproperties.setProperty("hibernate.order_updates", "true");
+		hibernateproperties.setProperty("hibernate.cache.use_second_level_cache", "true");
+		hibernateproperties.setProperty("hibernate.cache.region.factory_class",
+				"org.hibernate.cache.ehcache.SingletonEhCacheRegionFactory");
+		hibernateproperties.setProperty("net.sf.ehcache.configurationResourceName", "/ehcache.xml");
+		hibernateproperties.setProperty("hibernate.generate_statistics",
+				System.getProperty("keepnote.hibernate.generateStatistics", "false"));
 		return hibernateproperties;
 	}
 
@@ -83,6 +247,7 @@ public class ApplicationContextConfig {
 	 * operations.
 	 */
 	@Bean
+	@DependsOn("flyway")
 	public SessionFactory sessionFactory(DataSource dataSource) {
 		LocalSessionFactoryBuilder sfactory = new LocalSessionFactoryBuilder(dataSource);
 		sfactory.scanPackages("com.stackroute");
@@ -103,4 +268,22 @@ public class ApplicationContextConfig {
 		HibernateTransactionManager trnsManager = new HibernateTransactionManager(lsfactory);
 		return trnsManager;
 	}
+
+	/*
+	 * Define the sink the due reminders are delivered to: the file named by the
+	 * property keepnote.reminder.sinkFile when it is set, the application log
+	 * otherwise.
+	 */
+	@Bean
+	public NotificationSink notificationSink() throws IOException {
+
+		String sinkFile = environment.getProperty("keepnote.reminder.sinkFile");
+
+		if (sinkFile == null || sinkFile.isEmpty()) {
+
+			return new LoggingNotificationSink();
+		}
+
+		return new FileNotificationSink(Paths.get(sinkFile));
+	}
 }
@@ -18,4 +18,14 @@ public class WebApplicationInitializer extends AbstractAnnotationConfigDispatche
 	protected String[] getServletMappings() {
 		return new String[] {"/"};
 	}
+
+	/*
+	 * The controllers answer with a DeferredResult set from the request executors,
+	 * which needs the DispatcherServlet (and any filter in front of it) to support
+	 * asynchronous requests
+	 */
+	@Override
+	protected boolean isAsyncSupported() {
+		return true;
+	}
 }
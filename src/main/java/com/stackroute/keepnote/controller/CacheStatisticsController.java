@@ -0,0 +1,69 @@
+package com.stackroute.keepnote.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/*
+ * This controller exposes the hit/miss counters of the Hibernate second-level cache
+ * so that the effect of caching categories and reminders on the note write path can
+ * be checked on a running instance. The number of prepared statements is included
+ * as well, since a cache hit is a statement that was not sent to the database.
+ */
+@RestController
+public class CacheStatisticsController {
+
+	@Autowired
+	private SessionFactory sessionFactory;
+
+	public CacheStatisticsController(SessionFactory sessionFactory) {
+		this.sessionFactory = sessionFactory;
+	}
+
+	/*
+	 * Define a handler method which will return the second-level cache statistics,
+	 * overall and per cache region.
+	 * 
+	 * This handler method should map to the URL "/admin/cache" using HTTP GET
+	 * method
+	 */
+	@GetMapping("/admin/cache")
+	public ResponseEntity<Map<String, Object>> getCacheStatistics() {
+
+		Statistics statistics = sessionFactory.getStatistics();
+
+		Map<String, Object> cacheStatistics = new LinkedHashMap<>();
+		cacheStatistics.put("statisticsEnabled", statistics.isStatisticsEnabled());
+		cacheStatistics.put("hitCount", statistics.getSecondLevelCacheHitCount());
+		cacheStatistics.put("missCount", statistics.getSecondLevelCacheMissCount());
+		cacheStatistics.put("putCount", statistics.getSecondLevelCachePutCount());
+		cacheStatistics.put("prepareStatementCount", statistics.getPrepareStatementCount());
+
+		Map<String, Object> regions = new LinkedHashMap<>();
+
+		for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+
+			SecondLevelCacheStatistics regionStatistics = statistics.getSecondLevelCacheStatistics(regionName);
+
+			Map<String, Object> region = new LinkedHashMap<>();
+			region.put("hitCount", regionStatistics.getHitCount());
+			region.put("missCount", regionStatistics.getMissCount());
+			region.put("putCount", regionStatistics.getPutCount());
+			region.put("elementCountInMemory", regionStatistics.getElementCountInMemory());
+
+			regions.put(regionName, region);
+		}
+
+		cacheStatistics.put("regions", regions);
+
+		return new ResponseEntity<>(cacheStatistics, HttpStatus.OK);
+	}
+}
@@ -1,8 +1,8 @@
 package com.stackroute.keepnote.controller;
 
-import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
-import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -13,11 +13,18 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import com.stackroute.keepnote.auth.AuthenticationInterceptor;
+import com.stackroute.keepnote.async.RequestExecutor;
+import com.stackroute.keepnote.async.RequestExecutors;
 import com.stackroute.keepnote.exception.CategoryNotFoundException;
 import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.ResultPage;
 import com.stackroute.keepnote.service.CategoryService;
 
 /*
@@ -39,8 +46,12 @@ public class CategoryController {
 	@Autowired
 	private CategoryService categoryService;
 
-	public CategoryController(CategoryService categoryService) {
+	@Autowired
+	private RequestExecutors requestExecutors;
+
+	public CategoryController(CategoryService categoryService, RequestExecutors requestExecutors) {
 		this.categoryService = categoryService;
+		this.requestExecutors = requestExecutors;
 	}
 
 	/*
@@ -62,13 +73,17 @@ public class CategoryController {
 	 * method".
 	 */
 	@PostMapping("/category")
-	public ResponseEntity<?> createCategory(@RequestBody Category category, HttpSession httpsession) {
+	public DeferredResult<ResponseEntity<?>> createCategory(@RequestBody Category category,
+			@RequestAttribute(value = AuthenticationInterceptor.LOGGED_IN_USER_ID, required = false) String validUserId) {
 
-		String validUserId = (String) httpsession.getAttribute("loggedInUserId");
+		if (StringUtils.isEmpty(validUserId)) {
+
+			return RequestExecutor.completed(new ResponseEntity<>(HttpStatus.UNAUTHORIZED));
+		}
 
-		HttpStatus responseStatus = HttpStatus.UNAUTHORIZED;
+		return requestExecutors.getWrites().submit(() -> {
 
-		if (!StringUtils.isEmpty(validUserId)) {
+			HttpStatus responseStatus;
 
 			if (categoryService.createCategory(category)) {
 
@@ -79,9 +94,8 @@ public class CategoryController {
 				responseStatus = HttpStatus.CONFLICT;
 			}
 
-		}
-
-		return new ResponseEntity<>(responseStatus);
+			return new ResponseEntity<>(responseStatus);
+		});
 	}
 
 	/*
@@ -101,15 +115,19 @@ public class CategoryController {
 	 * method" where "id" should be replaced by a valid categoryId without {}
 	 */
 	@PutMapping("/category/{id}")
-	public ResponseEntity<Category> updateCategory(@PathVariable("id") int categoryId, @RequestBody Category category, HttpSession httpsession) {
+	public DeferredResult<ResponseEntity<Category>> updateCategory(@PathVariable("id") int categoryId, @RequestBody Category category,
+			@RequestAttribute(value = AuthenticationInterceptor.LOGGED_IN_USER_ID, required = false) String validUserId) {
+
+		if (StringUtils.isEmpty(validUserId)) {
 
-		String validUserId = (String) httpsession.getAttribute("loggedInUserId");
+			return RequestExecutor.completed(new ResponseEntity<>(HttpStatus.UNAUTHORIZED));
+		}
 
-		HttpStatus responseStatus = HttpStatus.UNAUTHORIZED;
+		return requestExecutors.getWrites().submit(() -> {
 
-		Category updatedCategory = null;
-				
-		if (!StringUtils.isEmpty(validUserId)) {
+			HttpStatus responseStatus;
+
+			Category updatedCategory = null;
 
 			try {
 				
@@ -128,9 +146,9 @@ public class CategoryController {
 
 				responseStatus = HttpStatus.NOT_FOUND;
 			}
-		}
 
-		return new ResponseEntity<>(updatedCategory, responseStatus);
+			return new ResponseEntity<>(updatedCategory, responseStatus);
+		});
 	}
 	
 	/*
@@ -152,15 +170,19 @@ public class CategoryController {
 	 * method.
 	 */
 	@DeleteMapping("/category/{id}")
-	public ResponseEntity<?> deleteCategory(@PathVariable("id") int categoryId, HttpSession httpsession) {
+	public DeferredResult<ResponseEntity<?>> deleteCategory(@PathVariable("id") int categoryId,
+			@RequestAttribute(value = AuthenticationInterceptor.LOGGED_IN_USER_ID, required = false) String validUserId) {
 
-		String validUserId = (String) httpsession.getAttribute("loggedInUserId");
+		if (StringUtils.isEmpty(validUserId)) {
 
-		HttpStatus responseStatus = HttpStatus.UNAUTHORIZED;
+			return RequestExecutor.completed(new ResponseEntity<>(HttpStatus.UNAUTHORIZED));
+		}
+
+		return requestExecutors.getWrites().submit(() -> {
 
-		if (!StringUtils.isEmpty(validUserId)) {
+			HttpStatus responseStatus;
 
-			if (categoryService.deleteCategory(categoryId)) {
+			if (categoryService.deleteCategory(categoryId, validUserId)) {
 
 				responseStatus = HttpStatus.OK;
 
@@ -168,9 +190,9 @@ public class CategoryController {
 
 				responseStatus = HttpStatus.NOT_FOUND;
 			}
-		}
 
-		return new ResponseEntity<>(responseStatus);
+			return new ResponseEntity<>(responseStatus);
+		});
 	}
 	
 	/*
@@ -185,25 +207,99 @@ public class CategoryController {
 	 * in.
 	 * 
 	 * 
-	 * This handler method should map to the URL "/category" using HTTP GET method
+	 * This handler method should map to the URL "/category" using HTTP GET method.
+	 * 
+	 * When "limit" and/or "after" are passed, only one page of categories is returned
+	 * together with the cursor of the next page, ordered by creation date and id.
+	 * A malformed "after" cursor results in 400(BAD REQUEST).
 	 */
 	@GetMapping("/category")
-	public ResponseEntity<List<Category>> getCategoryForUser(HttpSession httpsession) {
+	public DeferredResult<ResponseEntity<?>> getCategoryForUser(@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "after", required = false) String afterCursor,
+			@RequestAttribute(value = AuthenticationInterceptor.LOGGED_IN_USER_ID, required = false) String validUserId) {
+
+		if (StringUtils.isEmpty(validUserId)) {
+
+			return RequestExecutor.completed(new ResponseEntity<>(HttpStatus.UNAUTHORIZED));
+		}
 
-		String validUserId = (String) httpsession.getAttribute("loggedInUserId");
+		return requestExecutors.getReads().submit(() -> {
 
-		HttpStatus responseStatus = HttpStatus.UNAUTHORIZED;
+			HttpStatus responseStatus = HttpStatus.OK;
 
-		List<Category> categoryList = null;
-		
-		if (!StringUtils.isEmpty(validUserId)) {
+			Object categoryList = null;
 
-			categoryList = categoryService.getAllCategoryByUserId(validUserId);
-			
-			responseStatus = HttpStatus.OK;
+			if (limit == null && afterCursor == null) {
+
+				categoryList = categoryService.getAllCategoryByUserId(validUserId);
+
+			} else {
+
+				try {
+
+					categoryList = categoryService.getCategoriesByUserId(validUserId, afterCursor, ResultPage.clampLimit(limit));
+
+				} catch (IllegalArgumentException exception) {
+
+					responseStatus = HttpStatus.BAD_REQUEST;
+				}
+			}
+
+			return new ResponseEntity<>(categoryList, responseStatus);
+		});
+	}
+
+	/*
+	 * Define a handler method which will stream all the categories of the logged in
+	 * user. The categories are written to the response as a JSON array while they are
+	 * read from the database, ordered by creation date and id, so the full listing
+	 * is never held in memory; the listing cache is bypassed.
+	 * The listing is written on the container thread, counted against the reads
+	 * executor like the queued reads: it waits at most the executor timeout for a
+	 * permit, and the array is cut short once that timeout is over.
+	 * 
+	 * This handler method should return any one of the status messages basis on
+	 * different situations:
+	 * 
+	 * 1. 200(OK) - With every category of the user.
+	 * 
+	 * 2. 401(UNAUTHORIZED) -If the user trying to perform the action has not logged
+	 * in.
+	 * 
+	 * 3. 503(SERVICE UNAVAILABLE) - If no permit of the reads executor was free in
+	 * time.
+	 * 
+	 * This handler method should map to the URL "/category?stream=true" using HTTP GET
+	 * method.
+	 */
+	@GetMapping(value = "/category", params = "stream=true")
+	public ResponseEntity<?> streamCategoriesForUser(HttpServletResponse response,
+			@RequestAttribute(value = AuthenticationInterceptor.LOGGED_IN_USER_ID, required = false) String validUserId)
+			throws Exception {
+
+		if (StringUtils.isEmpty(validUserId)) {
+
+			return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
 		}
 
-		return new ResponseEntity<>(categoryList, responseStatus);
+		try {
+
+			return requestExecutors.getReads().callInline(deadline -> {
+
+				try (JsonArrayWriter<Category> writer = JsonArrayWriter.start(response, deadline)) {
+
+					categoryService.streamCategoriesByUserId(validUserId, writer);
+
+					writer.finish();
+				}
+
+				return null;
+			});
+
+		} catch (RejectedExecutionException exception) {
+
+			return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+		}
 	}
 
 }
\ No newline at end of file
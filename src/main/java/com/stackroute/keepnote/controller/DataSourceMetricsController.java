@@ -0,0 +1,64 @@
+package com.stackroute.keepnote.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.stackroute.keepnote.datasource.DataSourcePools;
+import com.stackroute.keepnote.datasource.InstrumentedBasicDataSource;
+
+/*
+ * This controller exposes live gauges of the connection pools, so that pool
+ * exhaustion can be diagnosed and the keepnote.datasource.* settings tuned on a
+ * running instance. Like every /admin endpoint it needs the admin token (see
+ * AdminInterceptor).
+ */
+@RestController
+public class DataSourceMetricsController {
+
+	@Autowired
+	private DataSourcePools dataSourcePools;
+
+	public DataSourceMetricsController(DataSourcePools dataSourcePools) {
+		this.dataSourcePools = dataSourcePools;
+	}
+
+	/*
+	 * Define a handler method which will return, for every pool, its settings, the
+	 * number of active and idle connections, the number of threads waiting for a
+	 * connection and the histogram of the borrow wait times.
+	 * 
+	 * This handler method should map to the URL "/admin/datasource" using HTTP GET
+	 * method
+	 */
+	@GetMapping("/admin/datasource")
+	public ResponseEntity<Map<String, Object>> getDataSourceMetrics() {
+
+		Map<String, Object> dataSourceMetrics = new LinkedHashMap<>();
+
+		for (Map.Entry<String, InstrumentedBasicDataSource> entry : dataSourcePools.getPools().entrySet()) {
+
+			InstrumentedBasicDataSource pool = entry.getValue();
+
+			Map<String, Object> poolMetrics = new LinkedHashMap<>();
+			poolMetrics.put("maxTotal", pool.getMaxTotal());
+			poolMetrics.put("maxIdle", pool.getMaxIdle());
+			poolMetrics.put("minIdle", pool.getMinIdle());
+			poolMetrics.put("maxWaitMillis", pool.getMaxWaitMillis());
+			poolMetrics.put("poolPreparedStatements", pool.isPoolPreparedStatements());
+			poolMetrics.put("active", pool.getNumActive());
+			poolMetrics.put("idle", pool.getNumIdle());
+			poolMetrics.put("waiters", pool.getNumWaiters());
+			poolMetrics.put("borrowWait", pool.getBorrowWaitHistogram().toMap());
+
+			dataSourceMetrics.put(entry.getKey(), poolMetrics);
+		}
+
+		return new ResponseEntity<>(dataSourceMetrics, HttpStatus.OK);
+	}
+}
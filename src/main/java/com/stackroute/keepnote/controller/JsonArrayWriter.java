@@ -0,0 +1,94 @@
+package com.stackroute.keepnote.controller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/*
+ * The class "JsonArrayWriter" writes a JSON array to the response body one element
+ * at a time, as the elements are handed to it. The elements are serialized like
+ * the message converter of Spring MVC would serialize a list of them, but the
+ * list itself never exists: the generator buffers a few kilobytes and flushes
+ * them to the servlet output stream as it goes.
+ *
+ * Once the first buffer has been flushed the response is committed, so a failure
+ * part way through can no longer change the status; the client sees a truncated
+ * array instead. The same goes for an array not written by its deadline: the
+ * element after it fails, so that the query behind the array is abandoned and its
+ * connection handed back.
+ */
+final class JsonArrayWriter<T> implements Consumer<T>, Closeable {
+
+	private static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build()
+			.disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+	private final JsonGenerator generator;
+
+	private final long deadline;
+
+	private JsonArrayWriter(JsonGenerator generator, long deadline) {
+		this.generator = generator;
+		this.deadline = deadline;
+	}
+
+	/*
+	 * Answer 200(OK) with a JSON body and open the array, which has to be written by
+	 * the deadline, in System.nanoTime()
+	 */
+	static <T> JsonArrayWriter<T> start(HttpServletResponse response, long deadline) throws IOException {
+
+		response.setStatus(HttpStatus.OK.value());
+		response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+
+		JsonGenerator generator = OBJECT_MAPPER.getFactory().createGenerator(response.getOutputStream());
+
+		generator.writeStartArray();
+
+		return new JsonArrayWriter<>(generator, deadline);
+	}
+
+	/*
+	 * Write one element of the array
+	 */
+	@Override
+	public void accept(T element) {
+
+		try {
+
+			if (System.nanoTime() - deadline > 0) {
+
+				throw new InterruptedIOException("Array not written by its deadline");
+			}
+
+			OBJECT_MAPPER.writeValue(generator, element);
+
+		} catch (IOException exception) {
+
+			throw new UncheckedIOException(exception);
+		}
+	}
+
+	/*
+	 * Close the array once every element has been written
+	 */
+	void finish() throws IOException {
+		generator.writeEndArray();
+	}
+
+	@Override
+	public void close() throws IOException {
+		generator.close();
+	}
+}
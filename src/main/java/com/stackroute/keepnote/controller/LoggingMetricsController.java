@@ -0,0 +1,63 @@
+package com.stackroute.keepnote.controller;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.ILoggerFactory;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.stackroute.keepnote.log.RingBufferAppender;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+
+/*
+ * This controller exposes the counters of the asynchronous log appenders, so that
+ * log events lost under load are noticed. With the default logback.xml, which
+ * writes synchronously, there are none and the answer is empty.
+ */
+@RestController
+public class LoggingMetricsController {
+
+	/*
+	 * Define a handler method which will return, for every RingBufferAppender of the
+	 * logging configuration, its settings, the number of queued and written events
+	 * and the number of events discarded or dropped because the buffer was full.
+	 * 
+	 * This handler method should map to the URL "/admin/logging" using HTTP GET
+	 * method
+	 */
+	@GetMapping("/admin/logging")
+	public ResponseEntity<Map<String, Object>> getLoggingMetrics() {
+
+		Map<String, Object> loggingMetrics = new LinkedHashMap<>();
+
+		ILoggerFactory loggerFactory = LoggerFactory.getILoggerFactory();
+
+		if (loggerFactory instanceof LoggerContext) {
+
+			for (Logger logger : ((LoggerContext) loggerFactory).getLoggerList()) {
+
+				for (Iterator<Appender<ILoggingEvent>> iterator = logger.iteratorForAppenders(); iterator
+						.hasNext();) {
+
+					Appender<ILoggingEvent> appender = iterator.next();
+
+					if (appender instanceof RingBufferAppender) {
+
+						loggingMetrics.put(appender.getName(), ((RingBufferAppender) appender).toMap());
+					}
+				}
+			}
+		}
+
+		return new ResponseEntity<>(loggingMetrics, HttpStatus.OK);
+	}
+}
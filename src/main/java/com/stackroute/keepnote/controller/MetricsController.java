@@ -0,0 +1,55 @@
+package com.stackroute.keepnote.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.stackroute.keepnote.metrics.MetricsRegistry;
+import com.stackroute.keepnote.metrics.PrometheusTextFormat;
+
+/*
+ * This controller exposes the latency histograms and error counters of every
+ * service and DAO method and of every controller mapping, and the SQL work of the
+ * requests of every mapping, in the Prometheus text format, to be scraped by a
+ * Prometheus server. The scrape presents the admin token as its bearer token (see
+ * AdminInterceptor).
+ */
+@RestController
+public class MetricsController {
+
+	@Autowired
+	private MetricsRegistry metricsRegistry;
+
+	public MetricsController(MetricsRegistry metricsRegistry) {
+		this.metricsRegistry = metricsRegistry;
+	}
+
+	/*
+	 * Define a handler method which will return the metrics as
+	 * keepnote_method_seconds and keepnote_method_errors_total, labelled with the
+	 * layer and operation, and keepnote_http_request_seconds and
+	 * keepnote_http_request_errors_total, labelled with the HTTP method and path,
+	 * and the keepnote_http_request_sql_* counters of the same requests.
+	 * 
+	 * This handler method should map to the URL "/metrics" using HTTP GET method
+	 */
+	@GetMapping("/metrics")
+	public ResponseEntity<String> getMetrics() {
+
+		StringBuilder metrics = new StringBuilder();
+
+		PrometheusTextFormat.writeOperations(metrics, "keepnote_method", "service and DAO method calls",
+				metricsRegistry.getMethodMetrics());
+		PrometheusTextFormat.writeOperations(metrics, "keepnote_http_request", "HTTP requests",
+				metricsRegistry.getRequestMetrics());
+		PrometheusTextFormat.writeRequestSql(metrics, "keepnote_http_request", metricsRegistry.getRequestSqlMetrics());
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.set(HttpHeaders.CONTENT_TYPE, PrometheusTextFormat.CONTENT_TYPE);
+
+		return new ResponseEntity<>(metrics.toString(), headers, HttpStatus.OK);
+	}
+}
@@ -1,25 +1,51 @@
 package com.stackroute.keepnote.controller;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
-import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-
+import org.springframework.web.context.request.async.DeferredResult;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.stackroute.keepnote.auth.AuthenticationInterceptor;
+import com.stackroute.keepnote.async.RequestExecutor;
+import com.stackroute.keepnote.async.RequestExecutors;
 import com.stackroute.keepnote.exception.CategoryNotFoundException;
 import com.stackroute.keepnote.exception.NoteNotFoundException;
+import com.stackroute.keepnote.exception.NoteVersionConflictException;
 import com.stackroute.keepnote.exception.ReminderNotFoundException;
 import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.NoteBatchResult;
+import com.stackroute.keepnote.model.NotePatch;
+import com.stackroute.keepnote.model.ResultPage;
+import com.stackroute.keepnote.model.SearchResult;
+import com.stackroute.keepnote.search.NoteSearchIndex;
+import com.stackroute.keepnote.search.SearchTerm;
 import com.stackroute.keepnote.service.NoteService;
 
 /*
@@ -33,6 +59,15 @@ import com.stackroute.keepnote.service.NoteService;
 @RestController
 public class NoteController {
 
+	public static final String NDJSON_VALUE = "application/x-ndjson";
+
+	public static final int MAX_BATCH_SIZE = 10000;
+
+	public static final String SEARCH_TRUNCATED_HEADER = "X-Search-Truncated";
+
+	private static final ObjectReader NOTE_READER = Jackson2ObjectMapperBuilder.json().build()
+			.readerFor(Note.class);
+
 	/*
 	 * Autowiring should be implemented for the NoteService. (Use Constructor-based
 	 * autowiring) Please note that we should not create any object using the new
@@ -41,8 +76,12 @@ public class NoteController {
 	@Autowired
 	private NoteService noteService;
 
-	public NoteController(NoteService noteService) {
+	@Autowired
+	private RequestExecutors requestExecutors;
+
+	public NoteController(NoteService noteService, RequestExecutors requestExecutors) {
 		this.noteService = noteService;
+		this.requestExecutors = requestExecutors;
 	}
 
 	/*
@@ -63,13 +102,17 @@ public class NoteController {
 	 * This handler method should map to the URL "/note" using HTTP POST method
 	 */
 	@PostMapping("/note")
-	public ResponseEntity<?> createNote(@RequestBody Note note, HttpSession httpsession) {
+	public DeferredResult<ResponseEntity<?>> createNote(@RequestBody Note note,
+			@RequestAttribute(value = AuthenticationInterceptor.LOGGED_IN_USER_ID, required = false) String validUserId) {
 
-		String validUserId = (String) httpsession.getAttribute("loggedInUserId");
+		if (StringUtils.isEmpty(validUserId)) {
 
-		HttpStatus responseStatus = HttpStatus.UNAUTHORIZED;
+			return RequestExecutor.completed(new ResponseEntity<>(HttpStatus.UNAUTHORIZED));
+		}
+
+		return requestExecutors.getWrites().submit(() -> {
 
-		if (!StringUtils.isEmpty(validUserId)) {
+			HttpStatus responseStatus;
 
 			try {
 
@@ -86,42 +129,186 @@ public class NoteController {
 
 				responseStatus = HttpStatus.NOT_FOUND;
 			}
-		}
 
-		return new ResponseEntity<>(responseStatus);
+			return new ResponseEntity<>(responseStatus);
+		});
 	}
 
 	/*
-	 * Define a handler method which will delete a note from a database.
+	 * Define a handler method which will create a batch of notes in one go, for
+	 * clients importing their notes from other tools. The body is either a JSON
+	 * array of notes or newline delimited JSON (application/x-ndjson) with one
+	 * note per line. Either body is read one note at a time and reading stops at
+	 * the first note past MAX_BATCH_SIZE, so an oversized batch is refused without
+	 * binding all of it. The response lists the outcome of every note in the order
+	 * it was submitted. This handler method should return any one of the status
+	 * messages basis on different situations:
 	 * 
-	 * This handler method should return any one of the status messages basis on
+	 * 1. 201(CREATED) - If every note of the batch was created.
+	 * 
+	 * 2. 207(MULTI STATUS) - If some notes could not be created.
+	 * 
+	 * 3. 400(BAD REQUEST) - If the body could not be parsed.
+	 * 
+	 * 4. 413(PAYLOAD TOO LARGE) - If the batch holds more than MAX_BATCH_SIZE notes.
+	 * 
+	 * 5. 401(UNAUTHORIZED) - If the user trying to perform the action has not
+	 * logged in.
+	 * 
+	 * This handler method should map to the URL "/note/batch" using HTTP POST
+	 * method
+	 */
+	@PostMapping(value = "/note/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public DeferredResult<ResponseEntity<List<NoteBatchResult>>> createNotes(HttpServletRequest request,
+			@RequestAttribute(value = AuthenticationInterceptor.LOGGED_IN_USER_ID, required = false) String validUserId) {
+
+		List<Note> notes = new ArrayList<>();
+
+		try (JsonParser parser = NOTE_READER.getFactory().createParser(request.getReader())) {
+
+			if (parser.nextToken() != JsonToken.START_ARRAY) {
+
+				return RequestExecutor.completed(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+			}
+
+			JsonToken token;
+
+			while (notes.size() <= MAX_BATCH_SIZE && (token = parser.nextToken()) != JsonToken.END_ARRAY) {
+
+				if (token == null) {
+
+					return RequestExecutor.completed(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+				}
+
+				notes.add(NOTE_READER.readValue(parser));
+			}
+
+		} catch (IOException exception) {
+
+			return RequestExecutor.completed(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+		}
+
+		return createNoteBatch(notes, validUserId);
+	}
+
+	@PostMapping(value = "/note/batch", consumes = NDJSON_VALUE)
+	public DeferredResult<ResponseEntity<List<NoteBatchResult>>> createNotesFromNdjson(HttpServletRequest request,
+			@RequestAttribute(value = AuthenticationInterceptor.LOGGED_IN_USER_ID, required = false) String validUserId) {
+
+		List<Note> notes = new ArrayList<>();
+
+		try (MappingIterator<Note> noteIterator = NOTE_READER.readValues(request.getReader())) {
+
+			while (noteIterator.hasNextValue()) {
+
+				notes.add(noteIterator.nextValue());
+
+				if (notes.size() > MAX_BATCH_SIZE) {
+
+					break;
+				}
+			}
+
+		} catch (IOException exception) {
+
+			return RequestExecutor.completed(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+		}
+
+		return createNoteBatch(notes, validUserId);
+	}
+
+	private DeferredResult<ResponseEntity<List<NoteBatchResult>>> createNoteBatch(List<Note> notes,
+			String validUserId) {
+
+		if (StringUtils.isEmpty(validUserId)) {
+
+			return RequestExecutor.completed(new ResponseEntity<>(HttpStatus.UNAUTHORIZED));
+		}
+
+		if (notes.size() > MAX_BATCH_SIZE) {
+
+			return RequestExecutor.completed(new ResponseEntity<>(HttpStatus.PAYLOAD_TOO_LARGE));
+		}
+
+		return requestExecutors.getWrites().submit(() -> {
+
+			List<NoteBatchResult> results = noteService.createNotes(notes);
+
+			HttpStatus responseStatus = HttpStatus.CREATED;
+
+			for (NoteBatchResult result : results) {
+
+				if (!NoteBatchResult.CREATED.equals(result.getStatus())) {
+
+					responseStatus = HttpStatus.MULTI_STATUS;
+					break;
+				}
+			}
+
+			return new ResponseEntity<>(results, responseStatus);
+		});
+	}
+
+	/*
+	 * Define a handler method which will update a specific note by reading the
+	 * Serialized object from request body and save the updated note details in a
+	 * note table in database handle ReminderNotFoundException,
+	 * NoteNotFoundException, CategoryNotFoundException as well. please note that
+	 * the loggedIn userID should be taken as the createdBy for the note. This
+	 * handler method should return any one of the status messages basis on
 	 * different situations:
 	 * 
-	 * 1. 200(OK) - If the note deleted successfully from database.
+	 * 1. 200(OK) - If the note updated successfully.
 	 * 
 	 * 2. 404(NOT FOUND) - If the note with specified noteId is not found.
 	 * 
 	 * 3. 401(UNAUTHORIZED) - If the user trying to perform the action has not
 	 * logged in.
 	 * 
-	 * This handler method should map to the URL "/note/{id}" using HTTP Delete
-	 * method" where "id" should be replaced by a valid noteId without {}
+	 * 4. 409(CONFLICT) - If the note changed since the client read it.
+	 * 
+	 * 5. 400(BAD REQUEST) - If the If-Match header holds no note version.
+	 * 
+	 * A request may carry an If-Match header with the noteVersion the client read,
+	 * as in "If-Match: 4": like a patch, the note is then only replaced while it
+	 * is still at that version. Without one, or with "If-Match: *", the note is
+	 * replaced whatever its version.
+	 * 
+	 * This handler method should map to the URL "/note/{id}" using HTTP PUT method.
 	 */
 	@PutMapping("/note/{id}")
-	public ResponseEntity<Note> updateNote(@PathVariable("id") int noteId, @RequestBody Note note,
-			HttpSession httpsession) {
+	public DeferredResult<ResponseEntity<Note>> updateNote(@PathVariable("id") int noteId, @RequestBody Note note,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+			@RequestAttribute(value = AuthenticationInterceptor.LOGGED_IN_USER_ID, required = false) String validUserId) {
+
+		if (StringUtils.isEmpty(validUserId)) {
+
+			return RequestExecutor.completed(new ResponseEntity<>(HttpStatus.UNAUTHORIZED));
+		}
+
+		Integer noteVersion = null;
+
+		if (ifMatch != null && !"*".equals(ifMatch.trim())) {
+
+			noteVersion = parseVersion(ifMatch);
 
-		String validUserId = (String) httpsession.getAttribute("loggedInUserId");
+			if (noteVersion == null) {
 
-		HttpStatus responseStatus = HttpStatus.UNAUTHORIZED;
+				return RequestExecutor.completed(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+			}
+		}
+
+		Integer expectedVersion = noteVersion;
+
+		return requestExecutors.getWrites().submit(() -> {
 
-		Note updatedNote = null;
+			HttpStatus responseStatus;
 
-		if (!StringUtils.isEmpty(validUserId)) {
+			Note updatedNote = null;
 
 			try {
 
-				updatedNote = noteService.updateNote(note, noteId);
+				updatedNote = noteService.updateNote(note, noteId, validUserId, expectedVersion);
 
 				if (updatedNote != null) {
 
@@ -135,41 +322,103 @@ public class NoteController {
 			} catch (ReminderNotFoundException | CategoryNotFoundException | NoteNotFoundException exception) {
 
 				responseStatus = HttpStatus.NOT_FOUND;
+
+			} catch (NoteVersionConflictException exception) {
+
+				responseStatus = HttpStatus.CONFLICT;
 			}
+
+			return new ResponseEntity<>(updatedNote, responseStatus);
+		});
+	}
+
+	/*
+	 * Partial update of a note: only the fields set in the body are written, and
+	 * only if the note is still at the noteVersion given in the body, which is
+	 * required.
+	 * 
+	 * 1. 200(OK) - The note was updated, the body holds it with its new version.
+	 * 
+	 * 2. 400(BAD REQUEST) - The body has no noteVersion.
+	 * 
+	 * 3. 404(NOT FOUND) - The note, or the category or reminder of the body, is not
+	 * found. A note of another user is not found either.
+	 * 
+	 * 4. 409(CONFLICT) - The note changed since the client read noteVersion.
+	 * 
+	 * 5. 401(UNAUTHORIZED) - The user has not logged in.
+	 */
+	@PatchMapping("/note/{id}")
+	public DeferredResult<ResponseEntity<Note>> patchNote(@PathVariable("id") int noteId,
+			@RequestBody NotePatch patch,
+			@RequestAttribute(value = AuthenticationInterceptor.LOGGED_IN_USER_ID, required = false) String validUserId) {
+
+		if (StringUtils.isEmpty(validUserId)) {
+
+			return RequestExecutor.completed(new ResponseEntity<>(HttpStatus.UNAUTHORIZED));
 		}
 
-		return new ResponseEntity<>(updatedNote, responseStatus);
+		if (patch.getNoteVersion() == null) {
+
+			return RequestExecutor.completed(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+		}
+
+		return requestExecutors.getWrites().submit(() -> {
+
+			HttpStatus responseStatus;
+
+			Note patchedNote = null;
+
+			try {
+
+				patchedNote = noteService.patchNote(patch, noteId, validUserId);
+
+				responseStatus = HttpStatus.OK;
+
+			} catch (ReminderNotFoundException | CategoryNotFoundException | NoteNotFoundException exception) {
+
+				responseStatus = HttpStatus.NOT_FOUND;
+
+			} catch (NoteVersionConflictException exception) {
+
+				responseStatus = HttpStatus.CONFLICT;
+			}
+
+			return new ResponseEntity<>(patchedNote, responseStatus);
+		});
 	}
 
 	/*
-	 * Define a handler method which will update a specific note by reading the
-	 * Serialized object from request body and save the updated note details in a
-	 * note table in database handle ReminderNotFoundException,
-	 * NoteNotFoundException, CategoryNotFoundException as well. please note that
-	 * the loggedIn userID should be taken as the createdBy for the note. This
-	 * handler method should return any one of the status messages basis on
+	 * Define a handler method which will delete a note from a database.
+	 * 
+	 * This handler method should return any one of the status messages basis on
 	 * different situations:
 	 * 
-	 * 1. 200(OK) - If the note updated successfully.
+	 * 1. 200(OK) - If the note deleted successfully from database.
 	 * 
 	 * 2. 404(NOT FOUND) - If the note with specified noteId is not found.
 	 * 
 	 * 3. 401(UNAUTHORIZED) - If the user trying to perform the action has not
 	 * logged in.
 	 * 
-	 * This handler method should map to the URL "/note/{id}" using HTTP PUT method.
+	 * This handler method should map to the URL "/note/{id}" using HTTP Delete
+	 * method" where "id" should be replaced by a valid noteId without {}
 	 */
 	@DeleteMapping("/note/{id}")
-	public ResponseEntity<?> deleteNote(@PathVariable("id") int noteId, HttpSession httpsession) {
+	public DeferredResult<ResponseEntity<?>> deleteNote(@PathVariable("id") int noteId,
+			@RequestAttribute(value = AuthenticationInterceptor.LOGGED_IN_USER_ID, required = false) String validUserId) {
 
-		String validUserId = (String) httpsession.getAttribute("loggedInUserId");
+		if (StringUtils.isEmpty(validUserId)) {
+
+			return RequestExecutor.completed(new ResponseEntity<>(HttpStatus.UNAUTHORIZED));
+		}
 
-		HttpStatus responseStatus = HttpStatus.UNAUTHORIZED;
+		return requestExecutors.getWrites().submit(() -> {
 
-		if (!StringUtils.isEmpty(validUserId)) {
+			HttpStatus responseStatus;
 
 			try {
-				if (noteService.deleteNote(noteId)) {
+				if (noteService.deleteNote(noteId, validUserId)) {
 
 					responseStatus = HttpStatus.OK;
 
@@ -181,9 +430,9 @@ public class NoteController {
 
 				responseStatus = HttpStatus.NOT_FOUND;
 			}
-		}
 
-		return new ResponseEntity<>(responseStatus);
+			return new ResponseEntity<>(responseStatus);
+		});
 	}
 
 	/*
@@ -198,24 +447,182 @@ public class NoteController {
 	 * in.
 	 * 
 	 * 
-	 * This handler method should map to the URL "/note" using HTTP GET method
+	 * This handler method should map to the URL "/note" using HTTP GET method.
+	 * 
+	 * When "limit" and/or "after" are passed, only one page of notes is returned
+	 * together with the cursor of the next page, ordered by creation date and id.
+	 * A malformed "after" cursor results in 400(BAD REQUEST).
 	 */
 	@GetMapping("/note")
-	public ResponseEntity<List<Note>> getNotesForUser(HttpSession httpsession) {
+	public DeferredResult<ResponseEntity<?>> getNotesForUser(
+			@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "after", required = false) String afterCursor,
+			@RequestAttribute(value = AuthenticationInterceptor.LOGGED_IN_USER_ID, required = false) String validUserId) {
+
+		if (StringUtils.isEmpty(validUserId)) {
+
+			return RequestExecutor.completed(new ResponseEntity<>(HttpStatus.UNAUTHORIZED));
+		}
+
+		return requestExecutors.getReads().submit(() -> {
+
+			HttpStatus responseStatus = HttpStatus.OK;
+
+			Object notesList = null;
+
+			if (limit == null && afterCursor == null) {
+
+				notesList = noteService.getAllNotesByUserId(validUserId);
+
+			} else {
+
+				try {
+
+					notesList = noteService.getNotesByUserId(validUserId, afterCursor, ResultPage.clampLimit(limit));
+
+				} catch (IllegalArgumentException exception) {
+
+					responseStatus = HttpStatus.BAD_REQUEST;
+				}
+			}
+
+			return new ResponseEntity<>(notesList, responseStatus);
+		});
+	}
+
+	/*
+	 * Define a handler method which will stream all the notes of the logged in
+	 * user. The notes are written to the response as a JSON array while they are
+	 * read from the database, ordered by creation date and id, so the full listing
+	 * is never held in memory; the listing cache is bypassed.
+	 * The listing is written on the container thread, counted against the reads
+	 * executor like the queued reads: it waits at most the executor timeout for a
+	 * permit, and the array is cut short once that timeout is over.
+	 * 
+	 * This handler method should return any one of the status messages basis on
+	 * different situations:
+	 * 
+	 * 1. 200(OK) - With every note of the user.
+	 * 
+	 * 2. 401(UNAUTHORIZED) -If the user trying to perform the action has not logged
+	 * in.
+	 * 
+	 * 3. 503(SERVICE UNAVAILABLE) - If no permit of the reads executor was free in
+	 * time.
+	 * 
+	 * This handler method should map to the URL "/note?stream=true" using HTTP GET
+	 * method.
+	 */
+	@GetMapping(value = "/note", params = "stream=true")
+	public ResponseEntity<?> streamNotesForUser(HttpServletResponse response,
+			@RequestAttribute(value = AuthenticationInterceptor.LOGGED_IN_USER_ID, required = false) String validUserId)
+			throws Exception {
+
+		if (StringUtils.isEmpty(validUserId)) {
+
+			return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+		}
+
+		try {
+
+			return requestExecutors.getReads().callInline(deadline -> {
+
+				try (JsonArrayWriter<Note> writer = JsonArrayWriter.start(response, deadline)) {
+
+					noteService.streamNotesByUserId(validUserId, writer);
+
+					writer.finish();
+				}
+
+				return null;
+			});
+
+		} catch (RejectedExecutionException exception) {
+
+			return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+		}
+	}
+
+	/*
+	 * Define a handler method which will search the notes of the logged in user.
+	 * The query "q" is made of words matched against the note titles and contents;
+	 * a word ending with '*' matches every word starting with it. The best matching
+	 * notes are returned first, at most "limit" of them (default 20, at most 100).
+	 * 
+	 * This handler method should return any one of the status messages basis on
+	 * different situations:
+	 * 
+	 * 1. 200(OK) - With the matching notes, possibly none. When a prefix word
+	 * matched more words than are searched for one prefix, only the words found in
+	 * the most notes were searched, and the X-Search-Truncated header lists the
+	 * prefix words concerned, comma separated.
+	 * 
+	 * 2. 400(BAD REQUEST) - If the query holds no word.
+	 * 
+	 * 3. 401(UNAUTHORIZED) -If the user trying to perform the action has not logged
+	 * in.
+	 * 
+	 * This handler method should map to the URL "/note/search" using HTTP GET
+	 * method.
+	 */
+	@GetMapping("/note/search")
+	public DeferredResult<ResponseEntity<List<Note>>> searchNotes(
+			@RequestParam(value = "q", required = false) String query,
+			@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestAttribute(value = AuthenticationInterceptor.LOGGED_IN_USER_ID, required = false) String validUserId) {
+
+		if (StringUtils.isEmpty(validUserId)) {
 
-		String validUserId = (String) httpsession.getAttribute("loggedInUserId");
+			return RequestExecutor.completed(new ResponseEntity<>(HttpStatus.UNAUTHORIZED));
+		}
+
+		if (SearchTerm.parseQuery(query).isEmpty()) {
+
+			return RequestExecutor.completed(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+		}
 
-		HttpStatus responseStatus = HttpStatus.UNAUTHORIZED;
+		return requestExecutors.getReads().submit(() -> {
 
-		List<Note> notesList = null;
+			SearchResult<Note> searchResult = noteService.searchNotes(validUserId, query,
+					NoteSearchIndex.clampLimit(limit));
 
-		if (!StringUtils.isEmpty(validUserId)) {
+			HttpHeaders headers = new HttpHeaders();
 
-			notesList = noteService.getAllNotesByUserId(validUserId);
+			if (!searchResult.getTruncatedPrefixes().isEmpty()) {
 
-			responseStatus = HttpStatus.OK;
+				headers.set(SEARCH_TRUNCATED_HEADER,
+						StringUtils.collectionToCommaDelimitedString(searchResult.getTruncatedPrefixes()));
+			}
+
+			return new ResponseEntity<>(searchResult.getItems(), headers, HttpStatus.OK);
+		});
+	}
+
+	/*
+	 * The note version of an If-Match header, "4", "\"4\"" or "W/\"4\"", or null
+	 * when the header holds something else
+	 */
+	private static Integer parseVersion(String ifMatch) {
+
+		String version = ifMatch.trim();
+
+		if (version.startsWith("W/")) {
+
+			version = version.substring(2);
 		}
 
-		return new ResponseEntity<>(notesList, responseStatus);
+		if (version.length() >= 2 && version.startsWith("\"") && version.endsWith("\"")) {
+
+			version = version.substring(1, version.length() - 1);
+		}
+
+		try {
+
+			return Integer.valueOf(version);
+
+		} catch (NumberFormatException exception) {
+
+			return null;
+		}
 	}
 }
@@ -1,8 +1,8 @@
 package com.stackroute.keepnote.controller;
 
-import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
-import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -13,11 +13,18 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import com.stackroute.keepnote.auth.AuthenticationInterceptor;
+import com.stackroute.keepnote.async.RequestExecutor;
+import com.stackroute.keepnote.async.RequestExecutors;
 import com.stackroute.keepnote.exception.ReminderNotFoundException;
 import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.model.ResultPage;
 import com.stackroute.keepnote.service.ReminderService;
 
 /*
@@ -52,8 +59,12 @@ public class ReminderController {
 	@Autowired
 	private ReminderService reminderService;
 
-	public ReminderController(ReminderService reminderService) {
+	@Autowired
+	private RequestExecutors requestExecutors;
+
+	public ReminderController(ReminderService reminderService, RequestExecutors requestExecutors) {
 		this.reminderService = reminderService;
+		this.requestExecutors = requestExecutors;
 	}
 
 	/*
@@ -75,13 +86,17 @@ public class ReminderController {
 	 * method".
 	 */
 	@PostMapping("/reminder")
-	public ResponseEntity<?> createReminder(@RequestBody Reminder reminder, HttpSession httpsession) {
+	public DeferredResult<ResponseEntity<?>> createReminder(@RequestBody Reminder reminder,
+			@RequestAttribute(value = AuthenticationInterceptor.LOGGED_IN_USER_ID, required = false) String validUserId) {
 
-		String validUserId = (String) httpsession.getAttribute("loggedInUserId");
+		if (StringUtils.isEmpty(validUserId)) {
 
-		HttpStatus responseStatus = HttpStatus.UNAUTHORIZED;
+			return RequestExecutor.completed(new ResponseEntity<>(HttpStatus.UNAUTHORIZED));
+		}
 
-		if (!StringUtils.isEmpty(validUserId)) {
+		return requestExecutors.getWrites().submit(() -> {
+
+			HttpStatus responseStatus;
 
 			if (reminderService.createReminder(reminder)) {
 
@@ -92,9 +107,8 @@ public class ReminderController {
 				responseStatus = HttpStatus.CONFLICT;
 			}
 
-		}
-
-		return new ResponseEntity<>(responseStatus);
+			return new ResponseEntity<>(responseStatus);
+		});
 	}
 	
 	/*
@@ -114,15 +128,19 @@ public class ReminderController {
 	 * method" where "id" should be replaced by a valid reminderId without {}
 	 */
 	@DeleteMapping("/reminder/{id}")
-	public ResponseEntity<?> deleteReminder(@PathVariable("id") int reminderId, HttpSession httpsession) {
+	public DeferredResult<ResponseEntity<?>> deleteReminder(@PathVariable("id") int reminderId,
+			@RequestAttribute(value = AuthenticationInterceptor.LOGGED_IN_USER_ID, required = false) String validUserId) {
+
+		if (StringUtils.isEmpty(validUserId)) {
 
-		String validUserId = (String) httpsession.getAttribute("loggedInUserId");
+			return RequestExecutor.completed(new ResponseEntity<>(HttpStatus.UNAUTHORIZED));
+		}
 
-		HttpStatus responseStatus = HttpStatus.UNAUTHORIZED;
+		return requestExecutors.getWrites().submit(() -> {
 
-		if (!StringUtils.isEmpty(validUserId)) {
+			HttpStatus responseStatus;
 
-			if (reminderService.deleteReminder(reminderId)) {
+			if (reminderService.deleteReminder(reminderId, validUserId)) {
 
 				responseStatus = HttpStatus.OK;
 
@@ -130,9 +148,9 @@ public class ReminderController {
 
 				responseStatus = HttpStatus.NOT_FOUND;
 			}
-		}
 
-		return new ResponseEntity<>(responseStatus);
+			return new ResponseEntity<>(responseStatus);
+		});
 	}
 	
 	/*
@@ -154,15 +172,19 @@ public class ReminderController {
 	 * method.
 	 */
 	@PutMapping("/reminder/{id}")
-	public ResponseEntity<Reminder> updateReminder(@PathVariable("id") int reminderId, @RequestBody Reminder reminder, HttpSession httpsession) {
+	public DeferredResult<ResponseEntity<Reminder>> updateReminder(@PathVariable("id") int reminderId, @RequestBody Reminder reminder,
+			@RequestAttribute(value = AuthenticationInterceptor.LOGGED_IN_USER_ID, required = false) String validUserId) {
 
-		String validUserId = (String) httpsession.getAttribute("loggedInUserId");
+		if (StringUtils.isEmpty(validUserId)) {
 
-		HttpStatus responseStatus = HttpStatus.UNAUTHORIZED;
+			return RequestExecutor.completed(new ResponseEntity<>(HttpStatus.UNAUTHORIZED));
+		}
 
-		Reminder updatedReminder = null;
-				
-		if (!StringUtils.isEmpty(validUserId)) {
+		return requestExecutors.getWrites().submit(() -> {
+
+			HttpStatus responseStatus;
+
+			Reminder updatedReminder = null;
 
 			try {
 				
@@ -181,9 +203,9 @@ public class ReminderController {
 
 				responseStatus = HttpStatus.NOT_FOUND;
 			}
-		}
 
-		return new ResponseEntity<>(updatedReminder, responseStatus);
+			return new ResponseEntity<>(updatedReminder, responseStatus);
+		});
 	}
 	
 	/*
@@ -198,25 +220,99 @@ public class ReminderController {
 	 * in.
 	 * 
 	 * 
-	 * This handler method should map to the URL "/reminder" using HTTP GET method
+	 * This handler method should map to the URL "/reminder" using HTTP GET method.
+	 * 
+	 * When "limit" and/or "after" are passed, only one page of reminders is returned
+	 * together with the cursor of the next page, ordered by creation date and id.
+	 * A malformed "after" cursor results in 400(BAD REQUEST).
 	 */
 	@GetMapping("/reminder")
-	public ResponseEntity<List<Reminder>> getReminderForUser(HttpSession httpsession) {
+	public DeferredResult<ResponseEntity<?>> getReminderForUser(@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "after", required = false) String afterCursor,
+			@RequestAttribute(value = AuthenticationInterceptor.LOGGED_IN_USER_ID, required = false) String validUserId) {
 
-		String validUserId = (String) httpsession.getAttribute("loggedInUserId");
+		if (StringUtils.isEmpty(validUserId)) {
+
+			return RequestExecutor.completed(new ResponseEntity<>(HttpStatus.UNAUTHORIZED));
+		}
 
-		HttpStatus responseStatus = HttpStatus.UNAUTHORIZED;
+		return requestExecutors.getReads().submit(() -> {
 
-		List<Reminder> reminderList = null;
-		
-		if (!StringUtils.isEmpty(validUserId)) {
+			HttpStatus responseStatus = HttpStatus.OK;
 
-			reminderList = reminderService.getAllReminderByUserId(validUserId);
-			
-			responseStatus = HttpStatus.OK;
+			Object reminderList = null;
+
+			if (limit == null && afterCursor == null) {
+
+				reminderList = reminderService.getAllReminderByUserId(validUserId);
+
+			} else {
+
+				try {
+
+					reminderList = reminderService.getRemindersByUserId(validUserId, afterCursor, ResultPage.clampLimit(limit));
+
+				} catch (IllegalArgumentException exception) {
+
+					responseStatus = HttpStatus.BAD_REQUEST;
+				}
+			}
+
+			return new ResponseEntity<>(reminderList, responseStatus);
+		});
+	}
+
+	/*
+	 * Define a handler method which will stream all the reminders of the logged in
+	 * user. The reminders are written to the response as a JSON array while they are
+	 * read from the database, ordered by creation date and id, so the full listing
+	 * is never held in memory; the listing cache is bypassed.
+	 * The listing is written on the container thread, counted against the reads
+	 * executor like the queued reads: it waits at most the executor timeout for a
+	 * permit, and the array is cut short once that timeout is over.
+	 * 
+	 * This handler method should return any one of the status messages basis on
+	 * different situations:
+	 * 
+	 * 1. 200(OK) - With every reminder of the user.
+	 * 
+	 * 2. 401(UNAUTHORIZED) -If the user trying to perform the action has not logged
+	 * in.
+	 * 
+	 * 3. 503(SERVICE UNAVAILABLE) - If no permit of the reads executor was free in
+	 * time.
+	 * 
+	 * This handler method should map to the URL "/reminder?stream=true" using HTTP GET
+	 * method.
+	 */
+	@GetMapping(value = "/reminder", params = "stream=true")
+	public ResponseEntity<?> streamRemindersForUser(HttpServletResponse response,
+			@RequestAttribute(value = AuthenticationInterceptor.LOGGED_IN_USER_ID, required = false) String validUserId)
+			throws Exception {
+
+		if (StringUtils.isEmpty(validUserId)) {
+
+			return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
 		}
 
-		return new ResponseEntity<>(reminderList, responseStatus);
+		try {
+
+			return requestExecutors.getReads().callInline(deadline -> {
+
+				try (JsonArrayWriter<Reminder> writer = JsonArrayWriter.start(response, deadline)) {
+
+					reminderService.streamRemindersByUserId(validUserId, writer);
+
+					writer.finish();
+				}
+
+				return null;
+			});
+
+		} catch (RejectedExecutionException exception) {
+
+			return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+		}
 	}
 	
 	/*
@@ -235,17 +331,21 @@ public class ReminderController {
 	 * method where "id" should be replaced by a valid reminderId without {}
 	 */
 	@GetMapping("/reminder/{id}")
-	public ResponseEntity<Reminder> getReminderDetails(@PathVariable("id") int reminderId, HttpSession httpsession) {
+	public DeferredResult<ResponseEntity<Reminder>> getReminderDetails(@PathVariable("id") int reminderId,
+			@RequestAttribute(value = AuthenticationInterceptor.LOGGED_IN_USER_ID, required = false) String validUserId) {
+
+		if (StringUtils.isEmpty(validUserId)) {
 
-		String validUserId = (String) httpsession.getAttribute("loggedInUserId");
+			return RequestExecutor.completed(new ResponseEntity<>(HttpStatus.UNAUTHORIZED));
+		}
 
-		HttpStatus responseStatus = HttpStatus.UNAUTHORIZED;
+		return requestExecutors.getReads().submit(() -> {
 
-		Reminder reminder = null;
-		
-		try {
-			
-			if (!StringUtils.isEmpty(validUserId)) {
+			HttpStatus responseStatus;
+
+			Reminder reminder = null;
+
+			try {
 
 				reminder = reminderService.getReminderById(reminderId);
 				
@@ -258,13 +358,13 @@ public class ReminderController {
 					responseStatus = HttpStatus.NOT_FOUND;
 					
 				}
-			}
-			
-		}catch (ReminderNotFoundException exception) {
+				
+			}catch (ReminderNotFoundException exception) {
 
-			responseStatus = HttpStatus.NOT_FOUND;
-		}
+				responseStatus = HttpStatus.NOT_FOUND;
+			}
 
-		return new ResponseEntity<>(reminder, responseStatus);
+			return new ResponseEntity<>(reminder, responseStatus);
+		});
 	}
 }
\ No newline at end of file
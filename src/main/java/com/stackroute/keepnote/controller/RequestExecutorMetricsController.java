@@ -0,0 +1,42 @@
+package com.stackroute.keepnote.controller;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.stackroute.keepnote.async.RequestExecutors;
+
+/*
+ * This controller exposes live gauges of the request executors, so that a growing
+ * queue or rejected requests can be spotted and the keepnote.async.* settings tuned
+ * on a running instance. It answers on the container thread, so it stays reachable
+ * when the executors are saturated.
+ */
+@RestController
+public class RequestExecutorMetricsController {
+
+	@Autowired
+	private RequestExecutors requestExecutors;
+
+	public RequestExecutorMetricsController(RequestExecutors requestExecutors) {
+		this.requestExecutors = requestExecutors;
+	}
+
+	/*
+	 * Define a handler method which will return, for the read and the write
+	 * executor, its settings, the number of queued and running requests, the number
+	 * of rejected and timed out requests and the histograms of the queue wait and
+	 * execution times.
+	 *
+	 * This handler method should map to the URL "/admin/executors" using HTTP GET
+	 * method
+	 */
+	@GetMapping("/admin/executors")
+	public ResponseEntity<Map<String, Object>> getRequestExecutorMetrics() {
+		return new ResponseEntity<>(requestExecutors.toMap(), HttpStatus.OK);
+	}
+}
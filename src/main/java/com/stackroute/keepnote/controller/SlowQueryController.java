@@ -0,0 +1,41 @@
+package com.stackroute.keepnote.controller;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.stackroute.keepnote.sql.SlowQueryLog;
+
+/*
+ * This controller exposes the slowest SQL statements executed since startup, so
+ * that the queries worth an index or a rewrite can be found without turning on
+ * show_sql. The statements can carry their bind values, so like every /admin
+ * endpoint it needs the admin token (see AdminInterceptor).
+ */
+@RestController
+public class SlowQueryController {
+
+	@Autowired
+	private SlowQueryLog slowQueryLog;
+
+	public SlowQueryController(SlowQueryLog slowQueryLog) {
+		this.slowQueryLog = slowQueryLog;
+	}
+
+	/*
+	 * Define a handler method which will return the slow query threshold, the
+	 * number of statements that went over it, and the slowest of them with their
+	 * SQL, bind parameters, rows, time and calling method, the slowest first.
+	 * 
+	 * This handler method should map to the URL "/admin/slow-queries" using HTTP
+	 * GET method
+	 */
+	@GetMapping("/admin/slow-queries")
+	public ResponseEntity<Map<String, Object>> getSlowQueries() {
+		return new ResponseEntity<>(slowQueryLog.toMap(), HttpStatus.OK);
+	}
+}
@@ -1,5 +1,9 @@
 package com.stackroute.keepnote.controller;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSession;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,9 +11,13 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.stackroute.keepnote.auth.AuthMode;
+import com.stackroute.keepnote.auth.AuthTokens;
+import com.stackroute.keepnote.auth.AuthenticationInterceptor;
 import com.stackroute.keepnote.exception.UserNotFoundException;
 import com.stackroute.keepnote.model.User;
 import com.stackroute.keepnote.service.UserService;
@@ -34,8 +42,12 @@ public class UserAuthenticationController {
 	@Autowired
 	private UserService userService;
 
-	public UserAuthenticationController(UserService userService) {
+	@Autowired
+	private AuthTokens authTokens;
+
+	public UserAuthenticationController(UserService userService, AuthTokens authTokens) {
 		this.userService = userService;
+		this.authTokens = authTokens;
 	}
 
 	/*
@@ -43,8 +55,11 @@ public class UserAuthenticationController {
 	 * Serialized user object from request body containing the userId and password
 	 * and validating the same. Post login, the userId will have to be stored into
 	 * session object, so that we can check whether the user is logged in for all
-	 * other services handle UserNotFoundException as well. This handler method
-	 * should return any one of the status messages basis on different situations:
+	 * other services handle UserNotFoundException as well. In the token mode
+	 * nothing is stored: the response body holds the signed token, to be sent as
+	 * "Authorization: Bearer <token>", and its expiry in epoch seconds. This
+	 * handler method should return any one of the status messages basis on
+	 * different situations:
 	 * 
 	 * 1. 200(OK) - If login is successful.
 	 * 
@@ -53,10 +68,12 @@ public class UserAuthenticationController {
 	 * This handler method should map to the URL "/login" using HTTP POST method
 	 */
 	@PostMapping("/login")
-	public ResponseEntity<?> validateUser(@RequestBody User user, HttpSession httpsession) {
+	public ResponseEntity<?> validateUser(@RequestBody User user, HttpServletRequest request) {
 
 		HttpStatus responseStatus = HttpStatus.UNAUTHORIZED;
 
+		Map<String, Object> token = null;
+
 		String userId = user.getUserId();
 
 		String password = user.getUserPassword();
@@ -67,7 +84,18 @@ public class UserAuthenticationController {
 
 			if (userStatus) {
 
-				httpsession.setAttribute("loggedInUserId", userId);
+				if (authTokens.getMode() == AuthMode.TOKEN) {
+
+					long expiresAt = authTokens.newExpiry();
+
+					token = new LinkedHashMap<>();
+					token.put("token", authTokens.issue(userId, expiresAt));
+					token.put("expiresAt", expiresAt);
+
+				} else {
+
+					request.getSession().setAttribute(AuthenticationInterceptor.LOGGED_IN_USER_ID, userId);
+				}
 
 				responseStatus = HttpStatus.OK;
 
@@ -79,13 +107,14 @@ public class UserAuthenticationController {
 			
 		}
 
-		return new ResponseEntity<>(responseStatus);
+		return new ResponseEntity<>(token, responseStatus);
 	}
 	
 	/*
 	 * Define a handler method which will perform logout. Post logout, the user
-	 * session is to be destroyed. This handler method should return any one of the
-	 * status messages basis on different situations:
+	 * session is to be destroyed. A token cannot be withdrawn, it is up to the
+	 * client to drop it, and it stays valid until it expires. This handler method
+	 * should return any one of the status messages basis on different situations:
 	 * 
 	 * 1. 200(OK) - If logout is successful
 	 * 
@@ -94,18 +123,24 @@ public class UserAuthenticationController {
 	 * This handler method should map to the URL "/logout" using HTTP GET method
 	 */
 	@GetMapping("/logout")
-	public ResponseEntity<?> logOutUser(HttpSession httpsession){
+	public ResponseEntity<?> logOutUser(
+			@RequestAttribute(value = AuthenticationInterceptor.LOGGED_IN_USER_ID, required = false) String loggedInUserId,
+			HttpServletRequest request){
 		
 		HttpStatus responseStatus = HttpStatus.BAD_REQUEST;
 		
-		String loggedInUserId = (String) httpsession.getAttribute("loggedInUserId");
-		
 		try {
 			User sessionUser = userService.getUserById(loggedInUserId);
 		
 			if(sessionUser!=null && userService.validateUser(sessionUser.getUserId(), sessionUser.getUserPassword())) {
 				
-				httpsession.invalidate();
+				HttpSession httpsession = request.getSession(false);
+
+				if (httpsession != null) {
+
+					httpsession.invalidate();
+				}
+
 				responseStatus = HttpStatus.OK;
 			}
 			
@@ -1,7 +1,5 @@
 package com.stackroute.keepnote.controller;
 
-import javax.servlet.http.HttpSession;
-
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -11,9 +9,11 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.stackroute.keepnote.auth.AuthenticationInterceptor;
 import com.stackroute.keepnote.exception.UserAlreadyExistException;
 import com.stackroute.keepnote.exception.UserNotFoundException;
 import com.stackroute.keepnote.model.User;
@@ -94,9 +94,7 @@ public class UserController {
 	 */
 	@PutMapping("/user/{id}")
 	public ResponseEntity<User> updateUser(@PathVariable("id") String userId, @RequestBody User user,
-			HttpSession httpsession) {
-
-		String validUserId = (String) httpsession.getAttribute("loggedInUserId");
+			@RequestAttribute(value = AuthenticationInterceptor.LOGGED_IN_USER_ID, required = false) String validUserId) {
 
 		HttpStatus responseStatus = HttpStatus.UNAUTHORIZED;
 
@@ -144,9 +142,8 @@ public class UserController {
 	 * method" where "id" should be replaced by a valid userId without {}
 	 */
 	@DeleteMapping("/user/{id}")
-	public ResponseEntity<?> deleteUser(@PathVariable("id") String userId, HttpSession httpsession) {
-
-		String validUserId = (String) httpsession.getAttribute("loggedInUserId");
+	public ResponseEntity<?> deleteUser(@PathVariable("id") String userId,
+			@RequestAttribute(value = AuthenticationInterceptor.LOGGED_IN_USER_ID, required = false) String validUserId) {
 
 		HttpStatus responseStatus = HttpStatus.UNAUTHORIZED;
 
@@ -181,9 +178,8 @@ public class UserController {
 	 * where "id" should be replaced by a valid userId without {}
 	 */
 	@GetMapping("/user/{id}")
-	public ResponseEntity<User> getUserDetails(@PathVariable("id") String userId, HttpSession httpsession) {
-
-		String validUserId = (String) httpsession.getAttribute("loggedInUserId");
+	public ResponseEntity<User> getUserDetails(@PathVariable("id") String userId,
+			@RequestAttribute(value = AuthenticationInterceptor.LOGGED_IN_USER_ID, required = false) String validUserId) {
 
 		HttpStatus responseStatus = HttpStatus.UNAUTHORIZED;
 
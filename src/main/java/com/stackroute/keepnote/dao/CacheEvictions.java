@@ -0,0 +1,61 @@
+package com.stackroute.keepnote.dao;
+
+import java.io.Serializable;
+
+import org.hibernate.Cache;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/*
+ * The class "CacheEvictions" runs single-row updates and deletes of cached entities
+ * without emptying their second-level cache region. Hibernate cannot tell which rows
+ * an HQL bulk statement touches, so it clears the whole region of the entity; the
+ * statements run here are native SQL synchronized on QUERY_SPACE, which no entity
+ * is mapped to, so no region is cleared, and only the row written is evicted by id.
+ * As that query space does not make Hibernate flush either, the session is flushed
+ * first. The row is evicted again once the transaction completes, so that a read in
+ * another transaction cannot put the old row back between the statement and the
+ * commit.
+ */
+public final class CacheEvictions {
+
+	public static final String QUERY_SPACE = "keepnote.evictById";
+
+	private CacheEvictions() {
+	}
+
+	/*
+	 * Execute the statement, which writes at most the row of the entity with the
+	 * given id, and evict that entity. Returns the number of rows written.
+	 */
+	public static int executeUpdate(Session session, NativeQuery<?> query, Class<?> entityClass, Serializable id) {
+
+		session.flush();
+
+		int updatedRows = query.addSynchronizedQuerySpace(QUERY_SPACE).executeUpdate();
+
+		if (updatedRows == 0) {
+
+			return updatedRows;
+		}
+
+		Cache cache = session.getSessionFactory().getCache();
+
+		cache.evictEntity(entityClass, id);
+
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+				@Override
+				public void afterCompletion(int status) {
+					cache.evictEntity(entityClass, id);
+				}
+			});
+		}
+
+		return updatedRows;
+	}
+}
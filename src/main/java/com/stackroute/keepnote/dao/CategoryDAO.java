@@ -1,9 +1,11 @@
 package com.stackroute.keepnote.dao;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import com.stackroute.keepnote.exception.CategoryNotFoundException;
 import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.PageCursor;
 
 public interface CategoryDAO {
 
@@ -14,11 +16,15 @@ public interface CategoryDAO {
 
 	public boolean createCategory(Category category);
 
-	public boolean deleteCategory(int noteId);
+	public boolean deleteCategory(int categoryId, String userId);
 
 	public boolean updateCategory(Category category);
 
 	public Category getCategoryById(int categoryId) throws CategoryNotFoundException;
 
 	public List<Category> getAllCategoryByUserId(String userId);
+
+	public List<Category> getCategoriesByUserId(String userId, PageCursor after, int limit);
+
+	public int streamCategoriesByUserId(String userId, Consumer<Category> consumer);
 }
@@ -1,17 +1,18 @@
 package com.stackroute.keepnote.dao;
 
 import java.util.List;
-
-import javax.transaction.Transactional;
+import java.util.function.Consumer;
 
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.stackroute.keepnote.exception.CategoryNotFoundException;
 import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.PageCursor;
 
 /*
  * This class is implementing the UserDAO interface. This class has to be annotated with 
@@ -62,26 +63,19 @@ public class CategoryDAOImpl implements CategoryDAO {
 	}
 
 	/*
-	 * Remove an existing category
+	 * Remove an existing category of the given user with a single delete statement
+	 * keyed on the primary key and the owner. Only that category is evicted from
+	 * the second-level cache (see CacheEvictions).
 	 */
-	public boolean deleteCategory(int categoryId) {
-
-		boolean operationFlag = false;
-
-		List<Category> categoryList = getSession().createQuery("from Category").list();
-
-		for (Category tempCategory : categoryList) {
-
-			if (tempCategory.getCategoryId() == categoryId) {
-
-				getSession().remove(tempCategory);
-				operationFlag = true;
-				break;
+	public boolean deleteCategory(int categoryId, String userId) {
 
-			}
-		}
+		int deletedRows = CacheEvictions.executeUpdate(getSession(),
+				getSession().createNativeQuery(
+						"delete from CATEGORY where CATEGORY_ID = :categoryId and CATEGORY_CREATOR = :userId")
+						.setParameter("categoryId", categoryId).setParameter("userId", userId),
+				Category.class, categoryId);
 
-		return operationFlag;
+		return deletedRows > 0;
 	}
 
 	/*
@@ -106,6 +100,7 @@ public class CategoryDAOImpl implements CategoryDAO {
 	/*
 	 * Retrieve details of a specific category
 	 */
+	@Transactional(readOnly = true)
 	public Category getCategoryById(int categoryId) throws CategoryNotFoundException {
 
 		Category categoryRecord = getSession().find(Category.class, categoryId);
@@ -122,8 +117,56 @@ public class CategoryDAOImpl implements CategoryDAO {
 	/*
 	 * Retrieve details of all categories by userId
 	 */
+	@Transactional(readOnly = true)
 	public List<Category> getAllCategoryByUserId(String userId) {
 		return getSession().createQuery("from Category where CATEGORY_CREATOR = :userId").setParameter("userId", userId)
 				.list();
 	}
+
+	/*
+	 * Pass every category of the user to the consumer, ordered by creation date and
+	 * categoryId, without holding them all in memory
+	 */
+	@Transactional(readOnly = true)
+	public int streamCategoriesByUserId(String userId, Consumer<Category> consumer) {
+		return ResultStreams.forEach(getSession(),
+				getSession().createQuery("from Category where categoryCreatedBy = :userId "
+						+ "order by categoryCreationDate, categoryId", Category.class).setParameter("userId", userId),
+				consumer);
+	}
+
+	/*
+	 * Retrieve one page of categories by userId, ordered by creation date and
+	 * categoryId, starting right after the given cursor. Categories without a
+	 * creation date sort first, so after a cursor without one come the undated
+	 * categories with a greater id and then every dated one.
+	 */
+	@Transactional(readOnly = true)
+	public List<Category> getCategoriesByUserId(String userId, PageCursor after, int limit) {
+
+		if (after == null) {
+
+			return getSession()
+					.createQuery("from Category where categoryCreatedBy = :userId "
+							+ "order by categoryCreationDate, categoryId", Category.class)
+					.setParameter("userId", userId).setMaxResults(limit).list();
+		}
+
+		if (after.getCreatedAt() == null) {
+
+			return getSession()
+					.createQuery("from Category where categoryCreatedBy = :userId and "
+							+ "(categoryCreationDate is not null or categoryId > :afterId) "
+							+ "order by categoryCreationDate, categoryId", Category.class)
+					.setParameter("userId", userId).setParameter("afterId", after.getId()).setMaxResults(limit)
+					.list();
+		}
+
+		return getSession()
+				.createQuery("from Category where categoryCreatedBy = :userId and (categoryCreationDate > :afterDate or "
+						+ "(categoryCreationDate = :afterDate and categoryId > :afterId)) "
+						+ "order by categoryCreationDate, categoryId", Category.class)
+				.setParameter("userId", userId).setParameter("afterDate", after.getCreatedAt())
+				.setParameter("afterId", after.getId()).setMaxResults(limit).list();
+	}
 }
@@ -0,0 +1,8 @@
+package com.stackroute.keepnote.dao;
+
+public interface ListVersionDAO {
+
+	public long getVersion(String listName, String userId);
+
+	public long bumpVersion(String listName, String userId);
+}
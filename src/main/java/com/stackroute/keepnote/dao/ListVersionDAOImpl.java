@@ -0,0 +1,70 @@
+package com.stackroute.keepnote.dao;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/*
+ * This class keeps the versions of the per-user listings cached by every node, in
+ * the LIST_VERSION table. The statements are native SQL synchronized on the
+ * LIST_VERSION table, which no entity is mapped to, so they leave the second-level
+ * cache alone.
+ */
+@Repository
+@Transactional
+public class ListVersionDAOImpl implements ListVersionDAO {
+
+	private static final String QUERY_SPACE = "LIST_VERSION";
+
+	@Autowired
+	private SessionFactory sessionFactory;
+
+	public ListVersionDAOImpl(SessionFactory sessionFactory) {
+		this.sessionFactory = sessionFactory;
+	}
+
+	public Session getSession() {
+		return sessionFactory.getCurrentSession();
+	}
+
+	/*
+	 * Retrieve the version of a listing of the user, 0 if it was never written.
+	 * This is a read like the listing itself, so it is routed the same way and is
+	 * never older than the listing a node would load instead.
+	 */
+	@Transactional(readOnly = true)
+	public long getVersion(String listName, String userId) {
+
+		Object version = getSession()
+				.createNativeQuery(
+						"select LIST_VERSION from LIST_VERSION where USER_ID = :userId and LIST_NAME = :listName")
+				.addSynchronizedQuerySpace(QUERY_SPACE).setParameter("userId", userId)
+				.setParameter("listName", listName).uniqueResult();
+
+		return version == null ? 0 : ((Number) version).longValue();
+	}
+
+	/*
+	 * Move a listing of the user to its next version, with a single upsert, and
+	 * return that version. The upsert locks the row until the commit, so the version
+	 * read back is the one written here.
+	 */
+	public long bumpVersion(String listName, String userId) {
+
+		getSession()
+				.createNativeQuery("insert into LIST_VERSION (USER_ID, LIST_NAME, LIST_VERSION) "
+						+ "values (:userId, :listName, 1) on duplicate key update LIST_VERSION = LIST_VERSION + 1")
+				.addSynchronizedQuerySpace(QUERY_SPACE).setParameter("userId", userId)
+				.setParameter("listName", listName).executeUpdate();
+
+		Object version = getSession()
+				.createNativeQuery(
+						"select LIST_VERSION from LIST_VERSION where USER_ID = :userId and LIST_NAME = :listName")
+				.addSynchronizedQuerySpace(QUERY_SPACE).setParameter("userId", userId)
+				.setParameter("listName", listName).uniqueResult();
+
+		return ((Number) version).longValue();
+	}
+}
@@ -1,9 +1,13 @@
 package com.stackroute.keepnote.dao;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import com.stackroute.keepnote.exception.NoteNotFoundException;
+import com.stackroute.keepnote.exception.NoteVersionConflictException;
 import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.NotePatch;
+import com.stackroute.keepnote.model.PageCursor;
 
 public interface NoteDAO {
 
@@ -14,12 +18,25 @@ public interface NoteDAO {
 
 	public boolean createNote(Note note);
 
-	public boolean deleteNote(int noteId)throws NoteNotFoundException;
+	public boolean createNotes(List<Note> notes);
+
+	public boolean deleteNote(int noteId, String userId) throws NoteNotFoundException;
 
 	public List<Note> getAllNotesByUserId(String userId);
 
+	public List<Note> getNotesByUserId(String userId, PageCursor after, int limit);
+
 	public Note getNoteById(int noteId) throws NoteNotFoundException;
 
+	public List<Note> getNotesByIds(List<Integer> noteIds);
+
 	public boolean UpdateNote(Note note);
 
+	public int patchNote(int noteId, String userId, NotePatch patch)
+			throws NoteNotFoundException, NoteVersionConflictException;
+
+	public void replaceNote(int noteId, String userId, Note note, Integer noteVersion)
+			throws NoteNotFoundException, NoteVersionConflictException;
+
+	public int streamNotesByUserId(String userId, Consumer<Note> consumer);
 }
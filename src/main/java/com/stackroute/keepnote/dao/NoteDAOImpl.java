@@ -1,17 +1,26 @@
 package com.stackroute.keepnote.dao;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
-import javax.transaction.Transactional;
+import javax.persistence.PersistenceException;
 
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.query.Query;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
 import com.stackroute.keepnote.exception.NoteNotFoundException;
+import com.stackroute.keepnote.exception.NoteVersionConflictException;
 import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.NotePatch;
+import com.stackroute.keepnote.model.PageCursor;
 
 /*
  * This class is implementing the UserDAO interface. This class has to be annotated with 
@@ -26,6 +35,20 @@ import com.stackroute.keepnote.model.Note;
 @Transactional
 public class NoteDAOImpl implements NoteDAO {
 
+	/*
+	 * Number of notes written per JDBC batch, kept in line with
+	 * hibernate.jdbc.batch_size in ApplicationContextConfig
+	 */
+	public static final int BATCH_SIZE = 50;
+
+	/*
+	 * Start of the queries of notes handed to the controllers: the lazy category
+	 * and reminder of the notes are fetched in the same statement, instead of one
+	 * select per distinct category and reminder
+	 */
+	private static final String NOTE_WITH_CATEGORY_AND_REMINDER = "select n from Note n left join fetch n.category "
+			+ "left join fetch n.reminder ";
+
 	/*
 	 * Autowiring should be implemented for the SessionFactory.(Use
 	 * constructor-based autowiring.
@@ -62,40 +85,134 @@ public class NoteDAOImpl implements NoteDAO {
 	}
 
 	/*
-	 * Remove an existing note
+	 * Create a batch of notes in a single transaction. The session is flushed and
+	 * cleared every BATCH_SIZE notes so the inserts go out as JDBC batches and the
+	 * persistence context does not grow with the size of the import. A constraint
+	 * violation rolls the whole batch back.
 	 */
-	public boolean deleteNote(int noteId) {
-		boolean operationFlag = false;
+	public boolean createNotes(List<Note> notes) {
+
+		boolean operationFlag = true;
+
+		Session session = getSession();
+
+		try {
+
+			for (int index = 0; index < notes.size(); index++) {
 
-		List<Note> noteList = getSession().createQuery("from Note").list();
+				session.save(notes.get(index));
 
-		for (Note tempNote : noteList) {
+				if ((index + 1) % BATCH_SIZE == 0) {
 
-			if (tempNote.getNoteId() == noteId) {
+					session.flush();
+					session.clear();
+				}
+			}
+
+			session.flush();
+			session.clear();
+
+		} catch (PersistenceException exception) {
 
-				getSession().remove(tempNote);
-				operationFlag = true;
-				break;
+			// flush() reports the violation wrapped in a PersistenceException
+			if (!(exception instanceof ConstraintViolationException)
+					&& !(exception.getCause() instanceof ConstraintViolationException)) {
+
+				throw exception;
 
 			}
+
+			TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+			operationFlag = false;
+
 		}
 
 		return operationFlag;
 	}
 
 	/*
-	 * Retrieve details of all notes by userId
+	 * Remove an existing note of the given user. The delete is keyed on the primary
+	 * key and the owner and runs as a single statement, so no Note entity is loaded
+	 * into the session. A note of another user is left alone, as if it did not exist.
 	 */
+	public boolean deleteNote(int noteId, String userId) {
+
+		int deletedRows = getSession()
+				.createQuery("delete from Note where noteId = :noteId and createdBy = :userId")
+				.setParameter("noteId", noteId).setParameter("userId", userId).executeUpdate();
+
+		return deletedRows > 0;
+	}
+
+	/*
+	 * Retrieve details of all notes by userId, with their category and reminder, in
+	 * one statement
+	 */
+	@Transactional(readOnly = true)
 	public List<Note> getAllNotesByUserId(String userId) {
-		return getSession().createQuery("from Note where NOTE_CREATOR = :userId").setParameter("userId", userId).list();
+		return getSession().createQuery(NOTE_WITH_CATEGORY_AND_REMINDER + "where n.createdBy = :userId", Note.class)
+				.setParameter("userId", userId).list();
+	}
+
+	/*
+	 * Pass every note of the user to the consumer, ordered by creation date and
+	 * noteId, without holding them all in memory. The category and reminder of the
+	 * notes are fetched in the same query.
+	 */
+	@Transactional(readOnly = true)
+	public int streamNotesByUserId(String userId, Consumer<Note> consumer) {
+		return ResultStreams.forEach(getSession(),
+				getSession().createQuery(NOTE_WITH_CATEGORY_AND_REMINDER
+						+ "where n.createdBy = :userId order by n.noteCreatedAt, n.noteId", Note.class)
+						.setParameter("userId", userId),
+				consumer);
 	}
 
 	/*
-	 * Retrieve details of a specific note
+	 * Retrieve one page of notes by userId, ordered by creation date and noteId.
+	 * The page starts right after the given cursor (keyset pagination), so the cost
+	 * of a page does not depend on how deep into the listing it is. Notes without a
+	 * creation date sort first, so after a cursor without one come the undated
+	 * notes with a greater id and then every dated note. The category and reminder
+	 * of the notes are fetched in the same query.
 	 */
+	@Transactional(readOnly = true)
+	public List<Note> getNotesByUserId(String userId, PageCursor after, int limit) {
+
+		if (after == null) {
+
+			return getSession()
+					.createQuery(NOTE_WITH_CATEGORY_AND_REMINDER
+							+ "where n.createdBy = :userId order by n.noteCreatedAt, n.noteId", Note.class)
+					.setParameter("userId", userId).setMaxResults(limit).list();
+		}
+
+		if (after.getCreatedAt() == null) {
+
+			return getSession()
+					.createQuery(NOTE_WITH_CATEGORY_AND_REMINDER + "where n.createdBy = :userId and "
+							+ "(n.noteCreatedAt is not null or n.noteId > :afterId) "
+							+ "order by n.noteCreatedAt, n.noteId", Note.class)
+					.setParameter("userId", userId).setParameter("afterId", after.getId()).setMaxResults(limit)
+					.list();
+		}
+
+		return getSession()
+				.createQuery(NOTE_WITH_CATEGORY_AND_REMINDER + "where n.createdBy = :userId and "
+						+ "(n.noteCreatedAt > :afterDate or (n.noteCreatedAt = :afterDate and n.noteId > :afterId)) "
+						+ "order by n.noteCreatedAt, n.noteId", Note.class)
+				.setParameter("userId", userId).setParameter("afterDate", after.getCreatedAt())
+				.setParameter("afterId", after.getId()).setMaxResults(limit).list();
+	}
+
+	/*
+	 * Retrieve details of a specific note, with its category and reminder
+	 */
+	@Transactional(readOnly = true)
 	public Note getNoteById(int noteId) throws NoteNotFoundException {
 
-		Note noteRecord = getSession().find(Note.class, noteId);
+		Note noteRecord = getSession().createQuery(NOTE_WITH_CATEGORY_AND_REMINDER + "where n.noteId = :noteId",
+				Note.class).setParameter("noteId", noteId).uniqueResult();
 
 		if (noteRecord == null) {
 
@@ -107,7 +224,20 @@ public class NoteDAOImpl implements NoteDAO {
 	}
 
 	/*
-	 * Update an existing note
+	 * Retrieve the notes with the given ids in one query, in no particular order.
+	 * Ids of notes that no longer exist are left out. The category and reminder of
+	 * the notes are fetched in the same query.
+	 */
+	@Transactional(readOnly = true)
+	public List<Note> getNotesByIds(List<Integer> noteIds) {
+		return getSession().createQuery(NOTE_WITH_CATEGORY_AND_REMINDER + "where n.noteId in (:noteIds)", Note.class)
+				.setParameterList("noteIds", noteIds).list();
+	}
+
+	/*
+	 * Update an existing note loaded in the current session. A note built from a
+	 * request is not known to the session, and would be inserted as a new note:
+	 * such a note goes through replaceNote.
 	 */
 
 	public boolean UpdateNote(Note note) {
@@ -126,4 +256,120 @@ public class NoteDAOImpl implements NoteDAO {
 
 		return operationFlag;
 	}
+
+	/*
+	 * Apply the fields set in the patch to a note of the given user, in one update
+	 * statement that writes only those columns and bumps the version, on the
+	 * condition that the note is still at the version of the patch. Nothing is read
+	 * before the write: the version is only looked up when no row was updated, to
+	 * tell a note that does not exist from one that changed in the meantime. A note
+	 * of another user is not found, as with a delete. Returns the new version of
+	 * the note.
+	 */
+	public int patchNote(int noteId, String userId, NotePatch patch)
+			throws NoteNotFoundException, NoteVersionConflictException {
+
+		StringBuilder statement = new StringBuilder("update Note set noteVersion = noteVersion + 1");
+
+		Map<String, Object> parameters = new LinkedHashMap<>();
+
+		addAssignment(statement, parameters, "noteTitle", patch.getNoteTitle());
+		addAssignment(statement, parameters, "noteContent", patch.getNoteContent());
+		addAssignment(statement, parameters, "noteStatus", patch.getNoteStatus());
+		addAssignment(statement, parameters, "category", patch.getCategory());
+		addAssignment(statement, parameters, "reminder", patch.getReminder());
+
+		statement.append(" where noteId = :noteId and createdBy = :userId and noteVersion = :noteVersion");
+
+		Query<?> query = getSession().createQuery(statement.toString());
+
+		parameters.forEach(query::setParameter);
+
+		int updatedRows = query.setParameter("noteId", noteId).setParameter("userId", userId)
+				.setParameter("noteVersion", patch.getNoteVersion()).executeUpdate();
+
+		if (updatedRows == 0) {
+
+			checkVersion(noteId, userId, patch.getNoteVersion());
+		}
+
+		return patch.getNoteVersion() + 1;
+	}
+
+	/*
+	 * Replace the note of the given user with the given id by the given note, in
+	 * one update statement that bumps the version. When a version is given, the
+	 * note is only replaced while it is still at that version. Every field is
+	 * written but the owner, which is kept, and the creation date, which is kept
+	 * when the given note has none. A note of another user is not found.
+	 */
+	public void replaceNote(int noteId, String userId, Note note, Integer noteVersion)
+			throws NoteNotFoundException, NoteVersionConflictException {
+
+		StringBuilder statement = new StringBuilder("update Note set noteVersion = noteVersion + 1, "
+				+ "noteTitle = :noteTitle, noteContent = :noteContent, noteStatus = :noteStatus, "
+				+ "category = :category, reminder = :reminder");
+
+		Map<String, Object> parameters = new LinkedHashMap<>();
+
+		addAssignment(statement, parameters, "noteCreatedAt", note.getNoteCreatedAt());
+
+		statement.append(" where noteId = :noteId and createdBy = :userId");
+
+		if (noteVersion != null) {
+
+			statement.append(" and noteVersion = :noteVersion");
+			parameters.put("noteVersion", noteVersion);
+		}
+
+		Query<?> query = getSession().createQuery(statement.toString());
+
+		parameters.forEach(query::setParameter);
+
+		int updatedRows = query.setParameter("noteTitle", note.getNoteTitle())
+				.setParameter("noteContent", note.getNoteContent()).setParameter("noteStatus", note.getNoteStatus())
+				.setParameter("category", note.getCategory()).setParameter("reminder", note.getReminder())
+				.setParameter("noteId", noteId).setParameter("userId", userId).executeUpdate();
+
+		if (updatedRows == 0) {
+
+			if (noteVersion == null) {
+
+				throw new NoteNotFoundException("Note record not found");
+			}
+
+			checkVersion(noteId, userId, noteVersion);
+		}
+	}
+
+	/*
+	 * Tell why a versioned update of the note wrote no row: the user has no such
+	 * note, or it is no longer at the expected version. The version of a note of
+	 * another user is not looked at, so that it is not given away.
+	 */
+	private void checkVersion(int noteId, String userId, int expectedVersion)
+			throws NoteNotFoundException, NoteVersionConflictException {
+
+		Integer currentVersion = getSession()
+				.createQuery("select n.noteVersion from Note n where n.noteId = :noteId and n.createdBy = :userId",
+						Integer.class)
+				.setParameter("noteId", noteId).setParameter("userId", userId).uniqueResult();
+
+		if (currentVersion == null) {
+
+			throw new NoteNotFoundException("Note record not found");
+		}
+
+		throw new NoteVersionConflictException("Note is at version " + currentVersion + ", not " + expectedVersion);
+	}
+
+	private static void addAssignment(StringBuilder statement, Map<String, Object> parameters, String property,
+			Object value) {
+
+		if (value != null) {
+
+			statement.append(", ").append(property).append(" = :").append(property);
+			parameters.put(property, value);
+		}
+	}
 }
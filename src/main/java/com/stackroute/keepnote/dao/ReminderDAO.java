@@ -1,8 +1,12 @@
 package com.stackroute.keepnote.dao;
 
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import com.stackroute.keepnote.exception.ReminderNotFoundException;
+import com.stackroute.keepnote.model.PageCursor;
 import com.stackroute.keepnote.model.Reminder;
 
 public interface ReminderDAO {
@@ -15,9 +19,17 @@ public interface ReminderDAO {
 
 	public boolean updateReminder(Reminder reminder);
 
-	public boolean deleteReminder(int reminderId);
+	public boolean deleteReminder(int reminderId, String userId);
 
 	public Reminder getReminderById(int reminderId) throws ReminderNotFoundException;
 
 	public List<Reminder> getAllReminderByUserId(String userId);
+
+	public List<Reminder> getRemindersByUserId(String userId, PageCursor after, int limit);
+
+	public Map<Integer, Date> getPendingReminderDueTimes();
+
+	public boolean markReminderFired(int reminderId, Date dueAt, Date firedAt, Date nextDueAt);
+
+	public int streamRemindersByUserId(String userId, Consumer<Reminder> consumer);
 }
@@ -1,17 +1,25 @@
 package com.stackroute.keepnote.dao;
 
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
-import javax.transaction.Transactional;
+import javax.persistence.TemporalType;
 
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.type.StringType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.stackroute.keepnote.exception.ReminderNotFoundException;
+import com.stackroute.keepnote.model.PageCursor;
 import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.model.ReminderRecurrence;
 
 /*
  * This class is implementing the UserDAO interface. This class has to be annotated with 
@@ -62,69 +70,160 @@ public class ReminderDAOImpl implements ReminderDAO {
 	}
 
 	/*
-	 * Update an existing reminder
+	 * Update, in place, the reminder with the id of the given one: its name,
+	 * description, type, due time and recurrence. The creator, creation date and
+	 * time it last fired are left as they are. Only that reminder is evicted from
+	 * the second-level cache. Returns false when there is no such reminder.
 	 */
 	public boolean updateReminder(Reminder reminder) {
 
-		boolean operationFlag = true;
+		ReminderRecurrence recurrence = reminder.getReminderRecurrence();
+
+		int updatedRows = CacheEvictions.executeUpdate(getSession(),
+				getSession()
+						.createNativeQuery("update REMINDER set REMINDER_NAME = :name, REMINDER_DESCR = :description, "
+								+ "REMINDER_TYPE = :type, REMINDER_DUE_AT = :dueAt, "
+								+ "REMINDER_RECURRENCE = :recurrence where REMINDER_ID = :reminderId")
+						.setParameter("name", reminder.getReminderName(), StringType.INSTANCE)
+						.setParameter("description", reminder.getReminderDescription(), StringType.INSTANCE)
+						.setParameter("type", reminder.getReminderType(), StringType.INSTANCE)
+						.setParameter("dueAt", reminder.getReminderDueAt(), TemporalType.TIMESTAMP)
+						.setParameter("recurrence", recurrence == null ? null : recurrence.name(), StringType.INSTANCE)
+						.setParameter("reminderId", reminder.getReminderId()),
+				Reminder.class, reminder.getReminderId());
+
+		return updatedRows > 0;
+	}
 
-		try {
+	/*
+	 * Remove an existing reminder of the given user with a single delete statement
+	 * keyed on the primary key and the owner. Only that reminder is evicted from
+	 * the second-level cache (see CacheEvictions).
+	 */
+	public boolean deleteReminder(int reminderId, String userId) {
 
-			getSession().save(reminder);
+		int deletedRows = CacheEvictions.executeUpdate(getSession(),
+				getSession().createNativeQuery(
+						"delete from REMINDER where REMINDER_ID = :reminderId and REMINDER_CREATOR = :userId")
+						.setParameter("reminderId", reminderId).setParameter("userId", userId),
+				Reminder.class, reminderId);
 
-		} catch (ConstraintViolationException exception) {
+		return deletedRows > 0;
+	}
 
-			operationFlag = false;
+	/*
+	 * Retrieve details of a specific reminder
+	 */
+	@Transactional(readOnly = true)
+	public Reminder getReminderById(int reminderId) throws ReminderNotFoundException {
+
+		Reminder reminderRecord = getSession().find(Reminder.class, reminderId);
+
+		if (reminderRecord == null) {
+
+			throw new ReminderNotFoundException("Reminder record not found");
 
 		}
 
-		return operationFlag;
+		return reminderRecord;
 	}
 
 	/*
-	 * Remove an existing reminder
+	 * Retrieve details of all reminders by userId
 	 */
-	public boolean deleteReminder(int reminderId) {
+	@Transactional(readOnly = true)
+	public List<Reminder> getAllReminderByUserId(String userId) {
+		return getSession().createQuery("from Reminder where REMINDER_CREATOR = :userId").setParameter("userId", userId)
+				.list();
+	}
 
-		boolean operationFlag = false;
+	/*
+	 * Pass every reminder of the user to the consumer, ordered by creation date and
+	 * reminderId, without holding them all in memory
+	 */
+	@Transactional(readOnly = true)
+	public int streamRemindersByUserId(String userId, Consumer<Reminder> consumer) {
+		return ResultStreams.forEach(getSession(),
+				getSession().createQuery("from Reminder where reminderCreatedBy = :userId "
+						+ "order by reminderCreationDate, reminderId", Reminder.class).setParameter("userId", userId),
+				consumer);
+	}
 
-		List<Reminder> reminderList = getSession().createQuery("from Reminder").list();
+	/*
+	 * Retrieve one page of reminders by userId, ordered by creation date and
+	 * reminderId, starting right after the given cursor. Reminders without a
+	 * creation date sort first, so after a cursor without one come the undated
+	 * reminders with a greater id and then every dated one.
+	 */
+	@Transactional(readOnly = true)
+	public List<Reminder> getRemindersByUserId(String userId, PageCursor after, int limit) {
 
-		for (Reminder tempReminder : reminderList) {
+		if (after == null) {
 
-			if (tempReminder.getReminderId() == reminderId) {
+			return getSession()
+					.createQuery("from Reminder where reminderCreatedBy = :userId "
+							+ "order by reminderCreationDate, reminderId", Reminder.class)
+					.setParameter("userId", userId).setMaxResults(limit).list();
+		}
 
-				getSession().remove(tempReminder);
-				operationFlag = true;
-				break;
+		if (after.getCreatedAt() == null) {
 
-			}
+			return getSession()
+					.createQuery("from Reminder where reminderCreatedBy = :userId and "
+							+ "(reminderCreationDate is not null or reminderId > :afterId) "
+							+ "order by reminderCreationDate, reminderId", Reminder.class)
+					.setParameter("userId", userId).setParameter("afterId", after.getId()).setMaxResults(limit)
+					.list();
 		}
 
-		return operationFlag;
+		return getSession()
+				.createQuery("from Reminder where reminderCreatedBy = :userId and (reminderCreationDate > :afterDate or "
+						+ "(reminderCreationDate = :afterDate and reminderId > :afterId)) "
+						+ "order by reminderCreationDate, reminderId", Reminder.class)
+				.setParameter("userId", userId).setParameter("afterDate", after.getCreatedAt())
+				.setParameter("afterId", after.getId()).setMaxResults(limit).list();
 	}
 
 	/*
-	 * Retrieve details of a specific reminder
+	 * Retrieve the id and due time of every reminder that has not fired since its
+	 * due time. Only the two columns are read, not the entities.
 	 */
-	public Reminder getReminderById(int reminderId) throws ReminderNotFoundException {
+	@Transactional(readOnly = true)
+	public Map<Integer, Date> getPendingReminderDueTimes() {
 
-		Reminder reminderRecord = getSession().find(Reminder.class, reminderId);
+		List<Object[]> rows = getSession()
+				.createQuery("select reminderId, reminderDueAt from Reminder where reminderDueAt is not null and "
+						+ "(reminderFiredAt is null or reminderFiredAt < reminderDueAt)", Object[].class)
+				.list();
 
-		if (reminderRecord == null) {
+		Map<Integer, Date> dueTimes = new LinkedHashMap<>();
 
-			throw new ReminderNotFoundException("Reminder record not found");
+		for (Object[] row : rows) {
 
+			dueTimes.put((Integer) row[0], (Date) row[1]);
 		}
 
-		return reminderRecord;
+		return dueTimes;
 	}
 
 	/*
-	 * Retrieve details of all reminders by userId
+	 * Record that a reminder fired and move it to its next due time, which is its
+	 * current one for a reminder that does not recur. The update only applies while
+	 * the reminder is still due at dueAt, so a reminder rescheduled or fired in the
+	 * meantime, possibly by another node, is left alone and false is returned.
+	 * Only that reminder is evicted from the second-level cache (see
+	 * CacheEvictions).
 	 */
-	public List<Reminder> getAllReminderByUserId(String userId) {
-		return getSession().createQuery("from Reminder where REMINDER_CREATOR = :userId").setParameter("userId", userId)
-				.list();
+	public boolean markReminderFired(int reminderId, Date dueAt, Date firedAt, Date nextDueAt) {
+
+		int updatedRows = CacheEvictions.executeUpdate(getSession(),
+				getSession().createNativeQuery("update REMINDER set REMINDER_FIRED_AT = :firedAt, "
+						+ "REMINDER_DUE_AT = :nextDueAt where REMINDER_ID = :reminderId and REMINDER_DUE_AT = :dueAt")
+						.setParameter("firedAt", firedAt, TemporalType.TIMESTAMP)
+						.setParameter("nextDueAt", nextDueAt, TemporalType.TIMESTAMP)
+						.setParameter("reminderId", reminderId).setParameter("dueAt", dueAt, TemporalType.TIMESTAMP),
+				Reminder.class, reminderId);
+
+		return updatedRows > 0;
 	}
 }
@@ -0,0 +1,72 @@
+package com.stackroute.keepnote.dao;
+
+import java.util.function.Consumer;
+
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.Query;
+
+/*
+ * The class "ResultStreams" hands the rows of a query to a consumer one at a time
+ * instead of building a list. The query is read through a forward-only cursor,
+ * FETCH_SIZE rows per round trip, and every entity is evicted from the session
+ * once consumed, so memory does not grow with the number of rows. Entities are
+ * loaded read-only and bypass the second-level cache, which a full listing would
+ * only flush out.
+ * 
+ * MySQL Connector/J only fetches rows incrementally on a statement whose fetch
+ * size is Integer.MIN_VALUE, which makes it stream the rows of that statement
+ * alone, so on MySQL the streamed queries get that fetch size instead; the other
+ * statements keep receiving their whole result at once. While the rows stream no
+ * other statement can run on the connection, so the consumer must not make the
+ * session load anything. The consumer runs inside the transaction of the calling
+ * DAO method.
+ */
+public final class ResultStreams {
+
+	public static final int FETCH_SIZE = 100;
+
+	private static final int MYSQL_STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+	private ResultStreams() {
+	}
+
+	/*
+	 * Pass every row of the query to the consumer and return the number of rows
+	 */
+	public static <T> int forEach(Session session, Query<T> query, Consumer<? super T> consumer) {
+
+		int count = 0;
+
+		query.setFetchSize(fetchSize(session)).setReadOnly(true).setCacheMode(CacheMode.IGNORE);
+
+		try (ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY)) {
+
+			while (results.next()) {
+
+				@SuppressWarnings("unchecked")
+				T record = (T) results.get(0);
+
+				consumer.accept(record);
+
+				session.evict(record);
+
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	private static int fetchSize(Session session) {
+
+		SessionFactoryImplementor sessionFactory = (SessionFactoryImplementor) session.getSessionFactory();
+
+		return sessionFactory.getJdbcServices().getDialect() instanceof MySQLDialect ? MYSQL_STREAMING_FETCH_SIZE
+				: FETCH_SIZE;
+	}
+}
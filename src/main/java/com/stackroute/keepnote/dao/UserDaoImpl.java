@@ -1,7 +1,5 @@
 package com.stackroute.keepnote.dao;
 
-import java.util.List;
-
 import javax.transaction.Transactional;
 
 import org.hibernate.Session;
@@ -115,26 +113,14 @@ public class UserDaoImpl implements UserDAO {
 	}
 
 	/*
-	 * Remove an existing user
+	 * Remove an existing user with a single keyed delete statement
 	 */
 	public boolean deleteUser(String userId) {
 
-		boolean operationFlag = false;
-
-		List<User> userList = getSession().createQuery("from User").list();
-
-		for (User tempUser : userList) {
-
-			if (tempUser.getUserId().equalsIgnoreCase(userId)) {
+		int deletedRows = getSession().createQuery("delete from User where userId = :userId")
+				.setParameter("userId", userId).executeUpdate();
 
-				getSession().remove(tempUser);
-				operationFlag = true;
-				break;
-
-			}
-		}
-
-		return operationFlag;
+		return deletedRows > 0;
 	}
 
 }
@@ -0,0 +1,41 @@
+package com.stackroute.keepnote.datasource;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * The class "DataSourcePools" holds the connection pools of the application by name
+ * ("primary" and, when configured, "replica") so that their metrics can be
+ * reported, and closes them on shutdown.
+ */
+public class DataSourcePools implements AutoCloseable {
+
+	public static final String PRIMARY = "primary";
+
+	public static final String REPLICA = "replica";
+
+	private final Map<String, InstrumentedBasicDataSource> pools = new LinkedHashMap<>();
+
+	public void addPool(String name, InstrumentedBasicDataSource pool) {
+		pools.put(name, pool);
+	}
+
+	public InstrumentedBasicDataSource getPool(String name) {
+		return pools.get(name);
+	}
+
+	public Map<String, InstrumentedBasicDataSource> getPools() {
+		return Collections.unmodifiableMap(pools);
+	}
+
+	@Override
+	public void close() throws SQLException {
+
+		for (InstrumentedBasicDataSource pool : pools.values()) {
+
+			pool.close();
+		}
+	}
+}
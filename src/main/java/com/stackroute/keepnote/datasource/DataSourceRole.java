@@ -0,0 +1,9 @@
+package com.stackroute.keepnote.datasource;
+
+/*
+ * Lookup keys of the ReadWriteRoutingDataSource
+ */
+public enum DataSourceRole {
+
+	PRIMARY, REPLICA
+}
@@ -0,0 +1,61 @@
+package com.stackroute.keepnote.datasource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+
+import com.stackroute.keepnote.metrics.LatencyHistogram;
+
+/*
+ * The class "InstrumentedBasicDataSource" is a DBCP2 pool that measures how long
+ * every borrow waits for a connection and how many threads are borrowing at any
+ * time, so that pool exhaustion shows up before requests start timing out.
+ */
+public class InstrumentedBasicDataSource extends BasicDataSource {
+
+	private final LatencyHistogram borrowWaitHistogram = new LatencyHistogram();
+
+	private final AtomicInteger borrowing = new AtomicInteger();
+
+	@Override
+	public Connection getConnection() throws SQLException {
+
+		long start = System.nanoTime();
+
+		borrowing.incrementAndGet();
+
+		try {
+
+			return super.getConnection();
+
+		} finally {
+
+			borrowing.decrementAndGet();
+			borrowWaitHistogram.record(System.nanoTime() - start);
+		}
+	}
+
+	/*
+	 * Number of threads blocked waiting for a connection of the pool
+	 */
+	public int getNumWaiters() {
+
+		GenericObjectPool<?> connectionPool = getConnectionPool();
+
+		return connectionPool == null ? 0 : connectionPool.getNumWaiters();
+	}
+
+	/*
+	 * Number of threads currently inside getConnection(), waiting or not
+	 */
+	public int getNumBorrowing() {
+		return borrowing.get();
+	}
+
+	public LatencyHistogram getBorrowWaitHistogram() {
+		return borrowWaitHistogram;
+	}
+}
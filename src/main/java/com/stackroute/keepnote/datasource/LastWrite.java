@@ -0,0 +1,41 @@
+package com.stackroute.keepnote.datasource;
+
+import java.util.function.LongConsumer;
+
+/*
+ * The class "LastWrite" is the time of the last committed write of the user, as
+ * carried by the client from request to request. Any node can then keep the reads
+ * of the user on the primary after a write taken by another node. The time comes
+ * in with the request and is handed back to the client, through the publisher,
+ * when a write of the request commits.
+ *
+ * The client can send any time it likes, but all it can achieve is to have its own
+ * reads served by the primary for a while: the ReadWriteRoutingDataSource ignores a
+ * time that is not within the read-your-writes window of its clock.
+ */
+public class LastWrite {
+
+	private volatile long writtenAt;
+
+	private final LongConsumer publisher;
+
+	public LastWrite(long writtenAt, LongConsumer publisher) {
+		this.writtenAt = writtenAt;
+		this.publisher = publisher;
+	}
+
+	public long getWrittenAt() {
+		return writtenAt;
+	}
+
+	/*
+	 * Record that a write of the request committed at the given time and hand it
+	 * back to the client
+	 */
+	public void recordWrite(long writtenAt) {
+
+		this.writtenAt = writtenAt;
+
+		publisher.accept(writtenAt);
+	}
+}
@@ -0,0 +1,104 @@
+package com.stackroute.keepnote.datasource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/*
+ * The class "ReadWriteRoutingDataSource" sends the connections of read-only
+ * transactions to the replica and every other connection to the primary. Reads of a
+ * user who committed a write within the read-your-writes window stay on the
+ * primary, whether the write was taken by this node or, as told by the LastWrite
+ * the client sent along, by another one.
+ * 
+ * The routing decision needs the transaction to be set up already, so this data
+ * source has to be wrapped in a LazyConnectionDataSourceProxy: the physical
+ * connection is then only fetched when the first statement runs.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+	private final ReadYourWritesTracker readYourWritesTracker;
+
+	public ReadWriteRoutingDataSource(DataSource primary, DataSource replica,
+			ReadYourWritesTracker readYourWritesTracker) {
+
+		this.readYourWritesTracker = readYourWritesTracker;
+
+		Map<Object, Object> targetDataSources = new HashMap<>();
+		targetDataSources.put(DataSourceRole.PRIMARY, primary);
+		targetDataSources.put(DataSourceRole.REPLICA, replica);
+
+		setTargetDataSources(targetDataSources);
+		setDefaultTargetDataSource(primary);
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+
+		String userId = RequestUserContext.getUserId();
+
+		LastWrite lastWrite = RequestUserContext.getLastWrite();
+
+		if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+
+			if (userId != null && readYourWritesTracker.isWithinWindow(userId)) {
+
+				return DataSourceRole.PRIMARY;
+			}
+
+			if (lastWrite != null && readYourWritesTracker.isWithinWindow(lastWrite.getWrittenAt())) {
+
+				return DataSourceRole.PRIMARY;
+			}
+
+			return DataSourceRole.REPLICA;
+		}
+
+		if (userId != null) {
+
+			recordWriteOnCompletion(userId, lastWrite);
+		}
+
+		return DataSourceRole.PRIMARY;
+	}
+
+	/*
+	 * The window starts once the write is committed, as replication lag is counted
+	 * from the commit
+	 */
+	private void recordWriteOnCompletion(String userId, LastWrite lastWrite) {
+
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+
+			recordWrite(userId, lastWrite);
+			return;
+		}
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+			@Override
+			public void afterCompletion(int status) {
+
+				if (status == STATUS_COMMITTED) {
+
+					recordWrite(userId, lastWrite);
+				}
+			}
+		});
+	}
+
+	private void recordWrite(String userId, LastWrite lastWrite) {
+
+		long writtenAt = readYourWritesTracker.recordWrite(userId);
+
+		if (lastWrite != null) {
+
+			lastWrite.recordWrite(writtenAt);
+		}
+	}
+}
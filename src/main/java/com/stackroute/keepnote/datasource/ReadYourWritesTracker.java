@@ -0,0 +1,72 @@
+package com.stackroute.keepnote.datasource;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * The class "ReadYourWritesTracker" remembers when every user last committed a write.
+ * For windowMillis after that write the reads of the user are sent to the primary,
+ * so the user sees their own changes even when the replica lags behind.
+ *
+ * The writes remembered here are those taken by this node only. The other nodes
+ * learn about them from the LastWrite the client carries, which is checked against
+ * the same window by isWithinWindow(long).
+ */
+public class ReadYourWritesTracker {
+
+	/*
+	 * Number of tracked users above which expired entries are purged
+	 */
+	private static final int PURGE_THRESHOLD = 10000;
+
+	private final long windowMillis;
+
+	private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+	public ReadYourWritesTracker(long windowMillis) {
+		this.windowMillis = windowMillis;
+	}
+
+	/*
+	 * Record that the user has just committed a write, and return its time
+	 */
+	public long recordWrite(String userId) {
+
+		long now = System.currentTimeMillis();
+
+		lastWrites.put(userId, now);
+
+		if (lastWrites.size() > PURGE_THRESHOLD) {
+
+			lastWrites.values().removeIf(writtenAt -> now - writtenAt >= windowMillis);
+		}
+
+		return now;
+	}
+
+	/*
+	 * Check whether the user committed a write less than windowMillis ago
+	 */
+	public boolean isWithinWindow(String userId) {
+
+		Long writtenAt = lastWrites.get(userId);
+
+		return writtenAt != null && System.currentTimeMillis() - writtenAt < windowMillis;
+	}
+
+	/*
+	 * Check whether a write at the given time, recorded by any node, was less than
+	 * windowMillis ago. A time ahead of the clock of this node by windowMillis or
+	 * more is not taken: the clocks of the nodes do not drift apart that far.
+	 */
+	public boolean isWithinWindow(long writtenAt) {
+
+		long age = System.currentTimeMillis() - writtenAt;
+
+		return age < windowMillis && age > -windowMillis;
+	}
+
+	public long getWindowMillis() {
+		return windowMillis;
+	}
+}
@@ -0,0 +1,38 @@
+package com.stackroute.keepnote.datasource;
+
+/*
+ * The class "RequestUserContext" holds the id of the user the current request is
+ * served for, and the LastWrite the client sent along. It is bound by the
+ * AuthenticationInterceptor and read by the ReadWriteRoutingDataSource to apply
+ * the read-your-writes window.
+ */
+public final class RequestUserContext {
+
+	private static final ThreadLocal<String> CURRENT_USER = new ThreadLocal<>();
+
+	private static final ThreadLocal<LastWrite> CURRENT_LAST_WRITE = new ThreadLocal<>();
+
+	private RequestUserContext() {
+	}
+
+	public static void setUserId(String userId) {
+		CURRENT_USER.set(userId);
+	}
+
+	public static String getUserId() {
+		return CURRENT_USER.get();
+	}
+
+	public static void setLastWrite(LastWrite lastWrite) {
+		CURRENT_LAST_WRITE.set(lastWrite);
+	}
+
+	public static LastWrite getLastWrite() {
+		return CURRENT_LAST_WRITE.get();
+	}
+
+	public static void clear() {
+		CURRENT_USER.remove();
+		CURRENT_LAST_WRITE.remove();
+	}
+}
@@ -0,0 +1,19 @@
+package com.stackroute.keepnote.exception;
+
+/*
+ * Thrown when a note is updated against a version other than its current one:
+ * somebody else changed the note after the client read it.
+ */
+public class NoteVersionConflictException extends Exception {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+
+	public NoteVersionConflictException(String message) {
+		super(message);
+
+	}
+
+}
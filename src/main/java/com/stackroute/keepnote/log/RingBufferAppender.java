@@ -0,0 +1,328 @@
+package com.stackroute.keepnote.log;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+
+/*
+ * The class "RingBufferAppender" takes logging off the request threads. Events are
+ * put into a bounded array ring buffer and written by a single background thread to
+ * the attached appenders, in batches of up to batchSize events followed by one
+ * flush, so attached file appenders should not flush every event themselves
+ * (immediateFlush false).
+ *
+ * Logging never blocks the caller. Once less than discardingThreshold slots are
+ * left, events at or below discardLevel (INFO by default) are discarded; when the
+ * buffer is full, every event is dropped. Both are counted, and the writer thread
+ * reports the events lost since its last report as one WARN line of the log itself.
+ * The counters of every RingBufferAppender are also exposed on /admin/logging.
+ *
+ * Configured in logback-production.xml with queueSize (default 8192),
+ * discardingThreshold (default a fifth of queueSize), discardLevel and batchSize
+ * (default 256).
+ */
+public class RingBufferAppender extends UnsynchronizedAppenderBase<ILoggingEvent>
+		implements AppenderAttachable<ILoggingEvent> {
+
+	private static final long STOP_TIMEOUT_MILLIS = 1000;
+
+	private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+
+	private int queueSize = 8192;
+
+	private int discardingThreshold = -1;
+
+	private Level discardLevel = Level.INFO;
+
+	private int batchSize = 256;
+
+	private BlockingQueue<ILoggingEvent> queue;
+
+	private Thread writer;
+
+	private final AtomicLong writtenCount = new AtomicLong();
+
+	private final AtomicLong discardedCount = new AtomicLong();
+
+	private final AtomicLong overflowCount = new AtomicLong();
+
+	// lost events already reported in the log, only touched by the writer thread
+	private long reportedLostCount;
+
+	@Override
+	public void start() {
+
+		if (isStarted()) {
+
+			return;
+		}
+
+		if (queueSize < 1 || batchSize < 1) {
+
+			addError("queueSize and batchSize of [" + name + "] must be positive");
+
+			return;
+		}
+
+		if (discardingThreshold < 0) {
+
+			discardingThreshold = queueSize / 5;
+		}
+
+		queue = new ArrayBlockingQueue<>(queueSize);
+
+		writer = new Thread(this::writeBatches, "keepnote-log-" + name);
+		writer.setDaemon(true);
+
+		super.start();
+
+		writer.start();
+	}
+
+	@Override
+	public void stop() {
+
+		if (!isStarted()) {
+
+			return;
+		}
+
+		super.stop();
+
+		writer.interrupt();
+
+		try {
+
+			writer.join(STOP_TIMEOUT_MILLIS);
+
+		} catch (InterruptedException exception) {
+
+			Thread.currentThread().interrupt();
+		}
+
+		if (writer.isAlive()) {
+
+			addWarn("[" + name + "] stopped with " + queue.size() + " events still queued");
+		}
+
+		appenders.detachAndStopAllAppenders();
+	}
+
+	@Override
+	protected void append(ILoggingEvent event) {
+
+		if (queue.remainingCapacity() < discardingThreshold && event.getLevel().toInt() <= discardLevel.toInt()) {
+
+			discardedCount.incrementAndGet();
+
+			return;
+		}
+
+		// freeze the thread dependent parts of the event before another thread reads it
+		event.prepareForDeferredProcessing();
+
+		if (!queue.offer(event)) {
+
+			overflowCount.incrementAndGet();
+		}
+	}
+
+	private void writeBatches() {
+
+		List<ILoggingEvent> batch = new ArrayList<>(batchSize);
+
+		try {
+
+			while (isStarted()) {
+
+				batch.add(queue.take());
+				queue.drainTo(batch, batchSize - 1);
+
+				writeBatch(batch);
+			}
+
+		} catch (InterruptedException exception) {
+
+			// stopping, write what is left
+		}
+
+		while (queue.drainTo(batch, batchSize) > 0) {
+
+			writeBatch(batch);
+		}
+	}
+
+	private void writeBatch(List<ILoggingEvent> batch) {
+
+		for (ILoggingEvent event : batch) {
+
+			appenders.appendLoopOnAppenders(event);
+		}
+
+		writtenCount.addAndGet(batch.size());
+
+		batch.clear();
+
+		reportLostEvents();
+
+		flushAppenders();
+	}
+
+	private void reportLostEvents() {
+
+		long lostCount = getDiscardedCount() + getOverflowCount();
+
+		if (lostCount == reportedLostCount) {
+
+			return;
+		}
+
+		LoggingEvent report = new LoggingEvent(Logger.class.getName(),
+				((LoggerContext) getContext()).getLogger(RingBufferAppender.class), Level.WARN,
+				"Dropped {} log events in [{}] since the last report, {} in total", null,
+				new Object[] { lostCount - reportedLostCount, name, lostCount });
+
+		reportedLostCount = lostCount;
+
+		appenders.appendLoopOnAppenders(report);
+	}
+
+	private void flushAppenders() {
+
+		for (Iterator<Appender<ILoggingEvent>> iterator = appenders.iteratorForAppenders(); iterator.hasNext();) {
+
+			Appender<ILoggingEvent> appender = iterator.next();
+
+			if (appender instanceof OutputStreamAppender && appender.isStarted()) {
+
+				try {
+
+					((OutputStreamAppender<ILoggingEvent>) appender).getOutputStream().flush();
+
+				} catch (IOException exception) {
+
+					addError("Could not flush [" + appender.getName() + "]", exception);
+				}
+			}
+		}
+	}
+
+	public int getQueueSize() {
+		return queueSize;
+	}
+
+	public void setQueueSize(int queueSize) {
+		this.queueSize = queueSize;
+	}
+
+	public int getDiscardingThreshold() {
+		return discardingThreshold;
+	}
+
+	public void setDiscardingThreshold(int discardingThreshold) {
+		this.discardingThreshold = discardingThreshold;
+	}
+
+	public String getDiscardLevel() {
+		return discardLevel.toString();
+	}
+
+	public void setDiscardLevel(String discardLevel) {
+		this.discardLevel = Level.toLevel(discardLevel, Level.INFO);
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	public int getQueueDepth() {
+		return queue == null ? 0 : queue.size();
+	}
+
+	public long getWrittenCount() {
+		return writtenCount.get();
+	}
+
+	public long getDiscardedCount() {
+		return discardedCount.get();
+	}
+
+	public long getOverflowCount() {
+		return overflowCount.get();
+	}
+
+	/*
+	 * The settings and counters of the appender, as rendered by the /admin/logging
+	 * endpoint
+	 */
+	public Map<String, Object> toMap() {
+
+		Map<String, Object> appenderMetrics = new LinkedHashMap<>();
+		appenderMetrics.put("queueSize", queueSize);
+		appenderMetrics.put("discardingThreshold", discardingThreshold);
+		appenderMetrics.put("discardLevel", getDiscardLevel());
+		appenderMetrics.put("batchSize", batchSize);
+		appenderMetrics.put("queueDepth", getQueueDepth());
+		appenderMetrics.put("written", getWrittenCount());
+		appenderMetrics.put("discarded", getDiscardedCount());
+		appenderMetrics.put("overflowed", getOverflowCount());
+
+		return appenderMetrics;
+	}
+
+	@Override
+	public void addAppender(Appender<ILoggingEvent> appender) {
+		appenders.addAppender(appender);
+	}
+
+	@Override
+	public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+		return appenders.iteratorForAppenders();
+	}
+
+	@Override
+	public Appender<ILoggingEvent> getAppender(String name) {
+		return appenders.getAppender(name);
+	}
+
+	@Override
+	public boolean isAttached(Appender<ILoggingEvent> appender) {
+		return appenders.isAttached(appender);
+	}
+
+	@Override
+	public void detachAndStopAllAppenders() {
+		appenders.detachAndStopAllAppenders();
+	}
+
+	@Override
+	public boolean detachAppender(Appender<ILoggingEvent> appender) {
+		return appenders.detachAppender(appender);
+	}
+
+	@Override
+	public boolean detachAppender(String name) {
+		return appenders.detachAppender(name);
+	}
+}
@@ -0,0 +1,143 @@
+package com.stackroute.keepnote.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * The class "LatencyHistogram" counts durations into fixed buckets, from 0.1 ms up
+ * to 10 s. Recording is lock-free, so it can sit on hot paths such as connection
+ * borrowing; percentiles are estimated as the upper bound of the bucket they fall in.
+ */
+public class LatencyHistogram {
+
+	/*
+	 * Upper bounds of the buckets, in milliseconds. A last, unbounded bucket holds
+	 * everything above the final bound.
+	 */
+	public static final double[] BUCKET_BOUNDS_MILLIS = { 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 25, 50, 100, 250, 500,
+			1000, 2500, 5000, 10000 };
+
+	private final AtomicLongArray bucketCounts = new AtomicLongArray(BUCKET_BOUNDS_MILLIS.length + 1);
+
+	private final LongAdder count = new LongAdder();
+
+	private final LongAdder sumNanos = new LongAdder();
+
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	/*
+	 * Record one duration, in nanoseconds
+	 */
+	public void record(long nanos) {
+
+		double millis = nanos / 1_000_000.0;
+
+		int bucket = 0;
+
+		while (bucket < BUCKET_BOUNDS_MILLIS.length && millis > BUCKET_BOUNDS_MILLIS[bucket]) {
+
+			bucket++;
+		}
+
+		bucketCounts.incrementAndGet(bucket);
+		count.increment();
+		sumNanos.add(nanos);
+		maxNanos.accumulateAndGet(nanos, Math::max);
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public double getSumMillis() {
+		return sumNanos.sum() / 1_000_000.0;
+	}
+
+	public double getMeanMillis() {
+
+		long samples = count.sum();
+
+		return samples == 0 ? 0 : getSumMillis() / samples;
+	}
+
+	public double getMaxMillis() {
+		return maxNanos.get() / 1_000_000.0;
+	}
+
+	/*
+	 * Number of recorded durations at or below each bucket bound, the last entry
+	 * counting every duration
+	 */
+	public long[] getCumulativeCounts() {
+
+		long[] cumulativeCounts = new long[bucketCounts.length()];
+
+		long total = 0;
+
+		for (int bucket = 0; bucket < cumulativeCounts.length; bucket++) {
+
+			total += bucketCounts.get(bucket);
+			cumulativeCounts[bucket] = total;
+		}
+
+		return cumulativeCounts;
+	}
+
+	/*
+	 * Estimate the given percentile (0 to 100) in milliseconds
+	 */
+	public double getPercentileMillis(double percentile) {
+
+		long[] cumulativeCounts = getCumulativeCounts();
+
+		long total = cumulativeCounts[cumulativeCounts.length - 1];
+
+		if (total == 0) {
+
+			return 0;
+		}
+
+		long rank = (long) Math.ceil(total * percentile / 100);
+
+		for (int bucket = 0; bucket < BUCKET_BOUNDS_MILLIS.length; bucket++) {
+
+			if (cumulativeCounts[bucket] >= rank) {
+
+				return Math.min(BUCKET_BOUNDS_MILLIS[bucket], getMaxMillis());
+			}
+		}
+
+		return getMaxMillis();
+	}
+
+	/*
+	 * Summary of the histogram, suitable for a JSON response
+	 */
+	public Map<String, Object> toMap() {
+
+		Map<String, Object> summary = new LinkedHashMap<>();
+		summary.put("count", getCount());
+		summary.put("meanMillis", getMeanMillis());
+		summary.put("p50Millis", getPercentileMillis(50));
+		summary.put("p95Millis", getPercentileMillis(95));
+		summary.put("p99Millis", getPercentileMillis(99));
+		summary.put("maxMillis", getMaxMillis());
+
+		Map<String, Long> buckets = new LinkedHashMap<>();
+
+		long[] cumulativeCounts = getCumulativeCounts();
+
+		for (int bucket = 0; bucket < BUCKET_BOUNDS_MILLIS.length; bucket++) {
+
+			buckets.put("le" + BUCKET_BOUNDS_MILLIS[bucket], cumulativeCounts[bucket]);
+		}
+
+		buckets.put("leInf", cumulativeCounts[BUCKET_BOUNDS_MILLIS.length]);
+		summary.put("buckets", buckets);
+
+		return summary;
+	}
+}
@@ -0,0 +1,82 @@
+package com.stackroute.keepnote.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.stereotype.Component;
+
+/*
+ * The class "MetricsRegistry" holds the OperationMetrics of the application: one per
+ * service and DAO method, recorded by the MetricsAspect, and one per controller
+ * mapping, recorded by the RequestMetricsInterceptor, along with the SQL work of the
+ * requests of every mapping, recorded by the SqlStatisticsInterceptor. They are
+ * rendered on /metrics by PrometheusTextFormat.
+ */
+@Component
+public class MetricsRegistry {
+
+	private final ConcurrentMap<String, OperationMetrics> methods = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<String, OperationMetrics> requests = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<String, RequestSqlMetrics> requestSql = new ConcurrentHashMap<>();
+
+	/*
+	 * The metrics of a method of the given layer ("service" or "dao"), named
+	 * SimpleClassName.methodName
+	 */
+	public OperationMetrics getMethodMetrics(String layer, String operation) {
+		return methods.computeIfAbsent(layer + " " + operation, key -> new OperationMetrics(operation,
+				"layer=\"" + PrometheusTextFormat.escape(layer) + "\",operation=\""
+						+ PrometheusTextFormat.escape(operation) + "\""));
+	}
+
+	/*
+	 * The metrics of a controller mapping, such as GET /note/{id}
+	 */
+	public OperationMetrics getRequestMetrics(String httpMethod, String path) {
+		return requests.computeIfAbsent(httpMethod + " " + path,
+				key -> new OperationMetrics(key, requestLabels(httpMethod, path)));
+	}
+
+	/*
+	 * The SQL work of the requests of a controller mapping
+	 */
+	public RequestSqlMetrics getRequestSqlMetrics(String httpMethod, String path) {
+		return requestSql.computeIfAbsent(httpMethod + " " + path,
+				key -> new RequestSqlMetrics(requestLabels(httpMethod, path)));
+	}
+
+	private static String requestLabels(String httpMethod, String path) {
+		return "method=\"" + PrometheusTextFormat.escape(httpMethod) + "\",path=\"" + PrometheusTextFormat.escape(path)
+				+ "\"";
+	}
+
+	public List<OperationMetrics> getMethodMetrics() {
+		return sorted(methods.values());
+	}
+
+	public List<OperationMetrics> getRequestMetrics() {
+		return sorted(requests.values());
+	}
+
+	public List<RequestSqlMetrics> getRequestSqlMetrics() {
+
+		List<RequestSqlMetrics> sortedRequests = new ArrayList<>(requestSql.values());
+		sortedRequests.sort(Comparator.comparing(RequestSqlMetrics::getLabels));
+
+		return sortedRequests;
+	}
+
+	private static List<OperationMetrics> sorted(Collection<OperationMetrics> operations) {
+
+		List<OperationMetrics> sortedOperations = new ArrayList<>(operations);
+		sortedOperations.sort(Comparator.comparing(OperationMetrics::getLabels));
+
+		return sortedOperations;
+	}
+}
@@ -0,0 +1,53 @@
+package com.stackroute.keepnote.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * The class "OperationMetrics" holds the latency histogram and the error counter of
+ * one operation, a service or DAO method or a controller mapping. The Prometheus
+ * labels identifying it are rendered once, when it is registered.
+ */
+public class OperationMetrics {
+
+	private final String name;
+
+	private final String labels;
+
+	private final LatencyHistogram histogram = new LatencyHistogram();
+
+	private final LongAdder errorCount = new LongAdder();
+
+	public OperationMetrics(String name, String labels) {
+		this.name = name;
+		this.labels = labels;
+	}
+
+	/*
+	 * Record one call, in nanoseconds, and whether it failed
+	 */
+	public void record(long nanos, boolean failed) {
+
+		histogram.record(nanos);
+
+		if (failed) {
+
+			errorCount.increment();
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getLabels() {
+		return labels;
+	}
+
+	public LatencyHistogram getHistogram() {
+		return histogram;
+	}
+
+	public long getErrorCount() {
+		return errorCount.sum();
+	}
+}
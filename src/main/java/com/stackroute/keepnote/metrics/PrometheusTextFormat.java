@@ -0,0 +1,134 @@
+package com.stackroute.keepnote.metrics;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/*
+ * The class "PrometheusTextFormat" renders OperationMetrics in the Prometheus text
+ * exposition format (version 0.0.4): every operation becomes a histogram, in
+ * seconds, with the LatencyHistogram buckets as "le" bounds, plus an errors
+ * counter. Percentiles such as the p99 of NoteServiceImpl.updateNote are computed
+ * from the buckets on the Prometheus side with histogram_quantile. The SQL work of
+ * the requests is rendered as counters.
+ */
+public final class PrometheusTextFormat {
+
+	public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	// bucket bounds in seconds, rendered once
+	private static final String[] BUCKET_BOUNDS = new String[LatencyHistogram.BUCKET_BOUNDS_MILLIS.length];
+
+	static {
+
+		for (int bucket = 0; bucket < BUCKET_BOUNDS.length; bucket++) {
+
+			BUCKET_BOUNDS[bucket] = new BigDecimal(Double.toString(LatencyHistogram.BUCKET_BOUNDS_MILLIS[bucket]))
+					.movePointLeft(3).stripTrailingZeros().toPlainString();
+		}
+	}
+
+	private PrometheusTextFormat() {
+	}
+
+	/*
+	 * Append a histogram family named name_seconds and a counter family named
+	 * name_errors_total holding the given operations, described as subject in the
+	 * HELP lines
+	 */
+	public static void writeOperations(StringBuilder output, String name, String subject,
+			List<OperationMetrics> operations) {
+
+		String histogramName = name + "_seconds";
+
+		output.append("# HELP ").append(histogramName).append(" Duration of ").append(subject).append('\n');
+		output.append("# TYPE ").append(histogramName).append(" histogram\n");
+
+		for (OperationMetrics operation : operations) {
+
+			LatencyHistogram histogram = operation.getHistogram();
+
+			long[] cumulativeCounts = histogram.getCumulativeCounts();
+
+			for (int bucket = 0; bucket < BUCKET_BOUNDS.length; bucket++) {
+
+				sample(output, histogramName + "_bucket",
+						operation.getLabels() + ",le=\"" + BUCKET_BOUNDS[bucket] + "\"",
+						Long.toString(cumulativeCounts[bucket]));
+			}
+
+			long count = cumulativeCounts[BUCKET_BOUNDS.length];
+
+			sample(output, histogramName + "_bucket", operation.getLabels() + ",le=\"+Inf\"", Long.toString(count));
+			sample(output, histogramName + "_sum", operation.getLabels(),
+					Double.toString(histogram.getSumMillis() / 1000));
+			sample(output, histogramName + "_count", operation.getLabels(), Long.toString(count));
+		}
+
+		String errorsName = name + "_errors_total";
+
+		output.append("# HELP ").append(errorsName).append(" Failures of ").append(subject).append('\n');
+		output.append("# TYPE ").append(errorsName).append(" counter\n");
+
+		for (OperationMetrics operation : operations) {
+
+			sample(output, errorsName, operation.getLabels(), Long.toString(operation.getErrorCount()));
+		}
+	}
+
+	/*
+	 * Append the counter families name_sql_statements_total, name_sql_rows_total,
+	 * name_sql_seconds_total and name_sql_repeated_statements_total holding the
+	 * SQL work of the given requests
+	 */
+	public static void writeRequestSql(StringBuilder output, String name, List<RequestSqlMetrics> requests) {
+
+		counterFamily(output, name + "_sql_statements_total", "SQL statements executed by requests");
+
+		for (RequestSqlMetrics request : requests) {
+
+			sample(output, name + "_sql_statements_total", request.getLabels(),
+					Long.toString(request.getStatementCount()));
+		}
+
+		counterFamily(output, name + "_sql_rows_total", "Rows read or changed by the SQL statements of requests");
+
+		for (RequestSqlMetrics request : requests) {
+
+			sample(output, name + "_sql_rows_total", request.getLabels(), Long.toString(request.getRowCount()));
+		}
+
+		counterFamily(output, name + "_sql_seconds_total", "Time spent executing the SQL statements of requests");
+
+		for (RequestSqlMetrics request : requests) {
+
+			sample(output, name + "_sql_seconds_total", request.getLabels(),
+					Double.toString(request.getElapsedNanos() / 1e9));
+		}
+
+		counterFamily(output, name + "_sql_repeated_statements_total",
+				"Requests that ran one SQL statement repeatedly");
+
+		for (RequestSqlMetrics request : requests) {
+
+			sample(output, name + "_sql_repeated_statements_total", request.getLabels(),
+					Long.toString(request.getRepeatedStatementCount()));
+		}
+	}
+
+	private static void counterFamily(StringBuilder output, String name, String help) {
+
+		output.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		output.append("# TYPE ").append(name).append(" counter\n");
+	}
+
+	private static void sample(StringBuilder output, String name, String labels, String value) {
+		output.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+	}
+
+	/*
+	 * Escape a label value: backslash, double quote and line feed
+	 */
+	public static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+}
@@ -0,0 +1,59 @@
+package com.stackroute.keepnote.metrics;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/*
+ * The class "RequestMetricsInterceptor" times every request into the
+ * MetricsRegistry, under its HTTP method and the pattern of the controller mapping
+ * that served it, such as GET /note/{id}. A request handed to a RequestExecutor is
+ * timed from its first dispatch until the response is complete, queueing included.
+ * Responses with a 5xx status and requests ending with an exception count as
+ * errors.
+ */
+public class RequestMetricsInterceptor implements AsyncHandlerInterceptor {
+
+	private static final String START_ATTRIBUTE = RequestMetricsInterceptor.class.getName() + ".start";
+
+	private final MetricsRegistry metricsRegistry;
+
+	public RequestMetricsInterceptor(MetricsRegistry metricsRegistry) {
+		this.metricsRegistry = metricsRegistry;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+
+		// an async dispatch keeps the start of the first dispatch
+		if (request.getAttribute(START_ATTRIBUTE) == null) {
+
+			request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+		}
+
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception exception) {
+
+		Object start = request.getAttribute(START_ATTRIBUTE);
+
+		if (start == null) {
+
+			return;
+		}
+
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+
+		boolean failed = exception != null
+				|| response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+
+		metricsRegistry.getRequestMetrics(request.getMethod(), pattern == null ? "unmapped" : pattern.toString())
+				.record(System.nanoTime() - (Long) start, failed);
+	}
+}
@@ -0,0 +1,61 @@
+package com.stackroute.keepnote.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * The class "RequestSqlMetrics" adds up the SQL work of the requests of one
+ * controller mapping: the statements, rows and time in the driver, and the number
+ * of requests that ran one statement repeatedly, the N+1 suspects. Divided by the
+ * request count of keepnote_http_request_seconds they give the work per request.
+ */
+public class RequestSqlMetrics {
+
+	private final String labels;
+
+	private final LongAdder statementCount = new LongAdder();
+
+	private final LongAdder rowCount = new LongAdder();
+
+	private final LongAdder elapsedNanos = new LongAdder();
+
+	private final LongAdder repeatedStatementCount = new LongAdder();
+
+	public RequestSqlMetrics(String labels) {
+		this.labels = labels;
+	}
+
+	/*
+	 * Record the SQL work of one request, and whether it repeated a statement
+	 */
+	public void record(long statements, long rows, long nanos, boolean repeatedStatement) {
+
+		statementCount.add(statements);
+		rowCount.add(rows);
+		elapsedNanos.add(nanos);
+
+		if (repeatedStatement) {
+
+			repeatedStatementCount.increment();
+		}
+	}
+
+	public String getLabels() {
+		return labels;
+	}
+
+	public long getStatementCount() {
+		return statementCount.sum();
+	}
+
+	public long getRowCount() {
+		return rowCount.sum();
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos.sum();
+	}
+
+	public long getRepeatedStatementCount() {
+		return repeatedStatementCount.sum();
+	}
+}
@@ -11,7 +11,14 @@ import javax.persistence.Id;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 /*
  * The class "Category" will be acting as the data model for the Category Table in the database. 
@@ -22,10 +29,17 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
  */
 @Entity
 @Table(name = "CATEGORY")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "keepnote.category")
+@BatchSize(size = 50)
+@JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
 public class Category {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "categoryIdGenerator")
+	@GenericGenerator(name = "categoryIdGenerator", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+			@Parameter(name = "sequence_name", value = "CATEGORY_ID_SEQ"),
+			@Parameter(name = "increment_size", value = "50"),
+			@Parameter(name = "optimizer", value = "pooled-lo") })
 	@Column(name = "CATEGORY_ID")
 	private int categoryId;
 
@@ -41,7 +55,12 @@ public class Category {
 	@Column(name = "CATEGORY_CREATOR")
 	private String categoryCreatedBy;
 
-	@OneToMany
+	/*
+	 * The notes of this category, read through the NOTE.CATEGORY_ID foreign key
+	 * owned by Note.category. Adding or removing a note here writes nothing: set
+	 * the category of the note instead.
+	 */
+	@OneToMany(mappedBy = "category")
 	@JsonIgnore
 	private List<Note> notes;
 	
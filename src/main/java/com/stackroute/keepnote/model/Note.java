@@ -4,12 +4,20 @@ import java.util.Date;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
+import javax.persistence.Version;
+
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 /*
  * The class "Note" will be acting as the data model for the Note Table in the database. 
@@ -17,13 +25,25 @@ import javax.persistence.Table;
  * Hibernate will scan all package for any Java objects annotated with the @Entity annotation. 
  * If it finds any, then it will begin the process of looking through that particular 
  * Java object to recreate it as a table in your database.
+ *
+ * The category and reminder are loaded lazily. The DAO queries returning notes to
+ * the controllers fetch them in the same statement. Anywhere else, using one
+ * category or reminder not loaded yet loads up to 50 of those in the session
+ * with one select (@BatchSize), or takes them from the second-level cache.
+ *
+ * Updates of a loaded note only write the columns that changed (@DynamicUpdate).
  */
 @Entity
 @Table(name = "NOTE")
+@DynamicUpdate
 public class Note {
 	
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "noteIdGenerator")
+	@GenericGenerator(name = "noteIdGenerator", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+			@Parameter(name = "sequence_name", value = "NOTE_ID_SEQ"),
+			@Parameter(name = "increment_size", value = "50"),
+			@Parameter(name = "optimizer", value = "pooled-lo") })
 	@Column(name = "NOTE_ID")
 	private int noteId;
 
@@ -42,13 +62,23 @@ public class Note {
 	@Column(name = "NOTE_CREATOR")
 	private String createdBy;
 	
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name="CATEGORY_ID")
 	private Category category;
 	
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name="REMINDER_ID")
 	private Reminder reminder;
+
+	/*
+	 * Bumped by every update of the note. Clients send back the version they read
+	 * with a PATCH, or as the If-Match header of a PUT, which is refused when the
+	 * note has changed since.
+	 */
+	@Version
+	@Column(name = "NOTE_VERSION")
+	@JsonProperty(access = JsonProperty.Access.READ_ONLY)
+	private int noteVersion;
 	
 	
 	public Note(){}
@@ -138,4 +168,12 @@ public class Note {
 	public void setReminder(Reminder reminder) {
 		this.reminder = reminder;
 	}
+
+	public int getNoteVersion() {
+		return noteVersion;
+	}
+
+	public void setNoteVersion(int noteVersion) {
+		this.noteVersion = noteVersion;
+	}
 }
@@ -0,0 +1,66 @@
+package com.stackroute.keepnote.model;
+
+/*
+ * The class "NoteBatchResult" reports the outcome of one note of a bulk import. The
+ * index refers to the position of the note in the submitted batch, the status is
+ * one of CREATED, NOT_FOUND (unknown category or reminder) or CONFLICT, and noteId
+ * is only set for notes that were created.
+ */
+public class NoteBatchResult {
+
+	public static final String CREATED = "CREATED";
+
+	public static final String NOT_FOUND = "NOT_FOUND";
+
+	public static final String CONFLICT = "CONFLICT";
+
+	private int index;
+
+	private Integer noteId;
+
+	private String status;
+
+	private String message;
+
+	public NoteBatchResult() {
+	}
+
+	public NoteBatchResult(int index, Integer noteId, String status, String message) {
+		this.index = index;
+		this.noteId = noteId;
+		this.status = status;
+		this.message = message;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public void setIndex(int index) {
+		this.index = index;
+	}
+
+	public Integer getNoteId() {
+		return noteId;
+	}
+
+	public void setNoteId(Integer noteId) {
+		this.noteId = noteId;
+	}
+
+	public String getStatus() {
+		return status;
+	}
+
+	public void setStatus(String status) {
+		this.status = status;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public void setMessage(String message) {
+		this.message = message;
+	}
+}
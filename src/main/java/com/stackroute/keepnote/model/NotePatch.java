@@ -0,0 +1,84 @@
+package com.stackroute.keepnote.model;
+
+/*
+ * The class "NotePatch" is the body of a partial note update (PATCH /note/{id}).
+ * Only the fields that are set are written; the others keep their value. The
+ * category and reminder are given by id, as in a note ({"categoryId": 3}), and
+ * cannot be cleared by a patch. noteVersion is the version of the note the client
+ * read, and is required: the patch is refused when the note has changed since.
+ */
+public class NotePatch {
+
+	private String noteTitle;
+
+	private String noteContent;
+
+	private String noteStatus;
+
+	private Category category;
+
+	private Reminder reminder;
+
+	private Integer noteVersion;
+
+	public NotePatch() {
+	}
+
+	public NotePatch(String noteTitle, String noteContent, String noteStatus, Category category, Reminder reminder,
+			Integer noteVersion) {
+		this.noteTitle = noteTitle;
+		this.noteContent = noteContent;
+		this.noteStatus = noteStatus;
+		this.category = category;
+		this.reminder = reminder;
+		this.noteVersion = noteVersion;
+	}
+
+	public String getNoteTitle() {
+		return noteTitle;
+	}
+
+	public void setNoteTitle(String noteTitle) {
+		this.noteTitle = noteTitle;
+	}
+
+	public String getNoteContent() {
+		return noteContent;
+	}
+
+	public void setNoteContent(String noteContent) {
+		this.noteContent = noteContent;
+	}
+
+	public String getNoteStatus() {
+		return noteStatus;
+	}
+
+	public void setNoteStatus(String noteStatus) {
+		this.noteStatus = noteStatus;
+	}
+
+	public Category getCategory() {
+		return category;
+	}
+
+	public void setCategory(Category category) {
+		this.category = category;
+	}
+
+	public Reminder getReminder() {
+		return reminder;
+	}
+
+	public void setReminder(Reminder reminder) {
+		this.reminder = reminder;
+	}
+
+	public Integer getNoteVersion() {
+		return noteVersion;
+	}
+
+	public void setNoteVersion(Integer noteVersion) {
+		this.noteVersion = noteVersion;
+	}
+}
@@ -0,0 +1,74 @@
+package com.stackroute.keepnote.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/*
+ * The class "PageCursor" marks the position of the last row returned in a page of a
+ * per-user listing. Listings are ordered by creation date and then by id, so the pair
+ * (createdAt, id) is enough to resume the listing right after that row. Notes written
+ * before the creation date was set on every write path have none; they sort first,
+ * and a cursor on such a note carries no date. Clients only ever see the opaque,
+ * URL-safe encoded form produced by encode().
+ */
+public class PageCursor {
+
+	private static final char SEPARATOR = ':';
+
+	private final Date createdAt;
+
+	private final int id;
+
+	public PageCursor(Date createdAt, int id) {
+		this.createdAt = createdAt;
+		this.id = id;
+	}
+
+	public Date getCreatedAt() {
+		return createdAt;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	/*
+	 * Encode the cursor into the opaque token handed out as "nextCursor"
+	 */
+	public String encode() {
+		String rawCursor = (createdAt == null ? "" : String.valueOf(createdAt.getTime())) + SEPARATOR + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(rawCursor.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	/*
+	 * Decode a token produced by encode(). An IllegalArgumentException is thrown
+	 * when the token has been tampered with or was not issued by this application.
+	 */
+	public static PageCursor decode(String token) {
+
+		String rawCursor = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+
+		int separatorIndex = rawCursor.indexOf(SEPARATOR);
+
+		if (separatorIndex < 0) {
+
+			throw new IllegalArgumentException("Malformed page cursor");
+
+		}
+
+		try {
+
+			Date createdAt = separatorIndex == 0 ? null
+					: new Date(Long.parseLong(rawCursor.substring(0, separatorIndex)));
+			int id = Integer.parseInt(rawCursor.substring(separatorIndex + 1));
+
+			return new PageCursor(createdAt, id);
+
+		} catch (NumberFormatException exception) {
+
+			throw new IllegalArgumentException("Malformed page cursor", exception);
+
+		}
+	}
+}
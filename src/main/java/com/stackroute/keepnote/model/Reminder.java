@@ -5,13 +5,23 @@ import java.util.List;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 /*
  * The class "Reminder" will be acting as the data model for the Reminder Table in the database. 
@@ -22,10 +32,17 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
  */
 @Entity
 @Table(name = "REMINDER")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "keepnote.reminder")
+@BatchSize(size = 50)
+@JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
 public class Reminder {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reminderIdGenerator")
+	@GenericGenerator(name = "reminderIdGenerator", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+			@Parameter(name = "sequence_name", value = "REMINDER_ID_SEQ"),
+			@Parameter(name = "increment_size", value = "50"),
+			@Parameter(name = "optimizer", value = "pooled-lo") })
 	@Column(name = "REMINDER_ID")
 	private int reminderId;
 
@@ -44,7 +61,27 @@ public class Reminder {
 	@Column(name = "REMINDER_CREATOR")
 	private String reminderCreatedBy;
 
-	@OneToMany
+	@Column(name = "REMINDER_DUE_AT")
+	private Date reminderDueAt;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "REMINDER_RECURRENCE")
+	private ReminderRecurrence reminderRecurrence;
+
+	/*
+	 * When the reminder last fired, set by the scheduler only. A reminder is
+	 * pending while it has a due time and has not fired since that due time.
+	 */
+	@Column(name = "REMINDER_FIRED_AT")
+	@JsonProperty(access = JsonProperty.Access.READ_ONLY)
+	private Date reminderFiredAt;
+
+	/*
+	 * The notes of this reminder, read through the NOTE.REMINDER_ID foreign key
+	 * owned by Note.reminder. Adding or removing a note here writes nothing: set
+	 * the reminder of the note instead.
+	 */
+	@OneToMany(mappedBy = "reminder")
 	@JsonIgnore
 	private List<Note> notes;
 
@@ -122,6 +159,30 @@ public class Reminder {
 		this.reminderCreatedBy = reminderCreatedBy;
 	}
 
+	public Date getReminderDueAt() {
+		return reminderDueAt;
+	}
+
+	public void setReminderDueAt(Date reminderDueAt) {
+		this.reminderDueAt = reminderDueAt;
+	}
+
+	public ReminderRecurrence getReminderRecurrence() {
+		return reminderRecurrence;
+	}
+
+	public void setReminderRecurrence(ReminderRecurrence reminderRecurrence) {
+		this.reminderRecurrence = reminderRecurrence;
+	}
+
+	public Date getReminderFiredAt() {
+		return reminderFiredAt;
+	}
+
+	public void setReminderFiredAt(Date reminderFiredAt) {
+		this.reminderFiredAt = reminderFiredAt;
+	}
+
 	public List<Note> getNotes() {
 		return notes;
 	}
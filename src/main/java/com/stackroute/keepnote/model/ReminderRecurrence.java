@@ -0,0 +1,46 @@
+package com.stackroute.keepnote.model;
+
+import java.util.Calendar;
+import java.util.Date;
+
+/*
+ * The enum "ReminderRecurrence" tells how often a reminder fires again after its
+ * due time. A reminder without recurrence fires once.
+ */
+public enum ReminderRecurrence {
+
+	HOURLY(Calendar.HOUR_OF_DAY, 1),
+
+	DAILY(Calendar.DAY_OF_MONTH, 1),
+
+	WEEKLY(Calendar.DAY_OF_MONTH, 7),
+
+	MONTHLY(Calendar.MONTH, 1);
+
+	private final int calendarField;
+
+	private final int amount;
+
+	ReminderRecurrence(int calendarField, int amount) {
+		this.calendarField = calendarField;
+		this.amount = amount;
+	}
+
+	/*
+	 * The first occurrence following the given due time that is later than now.
+	 * Occurrences missed while the application was down are skipped.
+	 */
+	public Date nextAfter(Date dueAt, long nowMillis) {
+
+		Calendar calendar = Calendar.getInstance();
+		calendar.setTime(dueAt);
+
+		do {
+
+			calendar.add(calendarField, amount);
+
+		} while (calendar.getTimeInMillis() <= nowMillis);
+
+		return calendar.getTime();
+	}
+}
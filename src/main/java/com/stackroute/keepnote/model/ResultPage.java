@@ -0,0 +1,58 @@
+package com.stackroute.keepnote.model;
+
+import java.util.List;
+
+/*
+ * The class "ResultPage" is the response body of a paginated listing. It carries one
+ * page of items together with the cursor that has to be passed as "after" to fetch
+ * the following page. The nextCursor is null once the last page has been reached.
+ */
+public class ResultPage<T> {
+
+	public static final int DEFAULT_LIMIT = 50;
+
+	public static final int MAX_LIMIT = 500;
+
+	private List<T> items;
+
+	private String nextCursor;
+
+	public ResultPage() {
+	}
+
+	public ResultPage(List<T> items, String nextCursor) {
+		this.items = items;
+		this.nextCursor = nextCursor;
+	}
+
+	public List<T> getItems() {
+		return items;
+	}
+
+	public void setItems(List<T> items) {
+		this.items = items;
+	}
+
+	/*
+	 * Bring a client supplied page size into the range [1, MAX_LIMIT], falling back
+	 * to DEFAULT_LIMIT when no size was requested
+	 */
+	public static int clampLimit(Integer requestedLimit) {
+
+		if (requestedLimit == null) {
+
+			return DEFAULT_LIMIT;
+
+		}
+
+		return Math.max(1, Math.min(MAX_LIMIT, requestedLimit));
+	}
+
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public void setNextCursor(String nextCursor) {
+		this.nextCursor = nextCursor;
+	}
+}
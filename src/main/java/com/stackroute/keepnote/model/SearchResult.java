@@ -0,0 +1,40 @@
+package com.stackroute.keepnote.model;
+
+import java.util.List;
+
+/*
+ * The class "SearchResult" is the outcome of a full-text search: the matching items,
+ * best first, and the prefix terms of the query that matched more indexed terms
+ * than are searched for one prefix. Those were only expanded to their most
+ * frequent terms, and a longer prefix would find notes that were left out.
+ */
+public class SearchResult<T> {
+
+	private List<T> items;
+
+	private List<String> truncatedPrefixes;
+
+	public SearchResult() {
+	}
+
+	public SearchResult(List<T> items, List<String> truncatedPrefixes) {
+		this.items = items;
+		this.truncatedPrefixes = truncatedPrefixes;
+	}
+
+	public List<T> getItems() {
+		return items;
+	}
+
+	public void setItems(List<T> items) {
+		this.items = items;
+	}
+
+	public List<String> getTruncatedPrefixes() {
+		return truncatedPrefixes;
+	}
+
+	public void setTruncatedPrefixes(List<String> truncatedPrefixes) {
+		this.truncatedPrefixes = truncatedPrefixes;
+	}
+}
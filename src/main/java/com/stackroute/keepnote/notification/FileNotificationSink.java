@@ -0,0 +1,70 @@
+package com.stackroute.keepnote.notification;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stackroute.keepnote.model.Reminder;
+
+/*
+ * Notification sink appending every due reminder to a file as one JSON object per
+ * line, so that tests and local setups can check what fired and when. Each line is
+ * flushed as soon as it is written.
+ */
+public class FileNotificationSink implements NotificationSink, Closeable {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final Writer writer;
+
+	public FileNotificationSink(Path file) throws IOException {
+
+		Path directory = file.toAbsolutePath().getParent();
+
+		if (directory != null) {
+
+			Files.createDirectories(directory);
+		}
+
+		this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+				StandardOpenOption.APPEND);
+	}
+
+	@Override
+	public synchronized void send(Reminder reminder, Date dueAt) {
+
+		Map<String, Object> notification = new LinkedHashMap<>();
+		notification.put("reminderId", reminder.getReminderId());
+		notification.put("reminderName", reminder.getReminderName());
+		notification.put("reminderDescription", reminder.getReminderDescription());
+		notification.put("reminderType", reminder.getReminderType());
+		notification.put("reminderCreatedBy", reminder.getReminderCreatedBy());
+		notification.put("dueAt", dueAt.getTime());
+		notification.put("sentAt", System.currentTimeMillis());
+
+		try {
+
+			writer.write(objectMapper.writeValueAsString(notification));
+			writer.write('\n');
+			writer.flush();
+
+		} catch (IOException exception) {
+
+			throw new UncheckedIOException(exception);
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		writer.close();
+	}
+}
@@ -0,0 +1,24 @@
+package com.stackroute.keepnote.notification;
+
+import java.util.Date;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.stackroute.keepnote.model.Reminder;
+
+/*
+ * Notification sink writing every due reminder to the application log. This is
+ * the default sink, meant for development and tests.
+ */
+public class LoggingNotificationSink implements NotificationSink {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(LoggingNotificationSink.class);
+
+	@Override
+	public void send(Reminder reminder, Date dueAt) {
+
+		LOGGER.info("Reminder {} \"{}\" of {} due at {}: {}", reminder.getReminderId(), reminder.getReminderName(),
+				reminder.getReminderCreatedBy(), dueAt, reminder.getReminderDescription());
+	}
+}
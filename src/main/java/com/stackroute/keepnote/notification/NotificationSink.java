@@ -0,0 +1,20 @@
+package com.stackroute.keepnote.notification;
+
+import java.util.Date;
+
+import com.stackroute.keepnote.model.Reminder;
+
+/*
+ * The interface "NotificationSink" is where the reminder scheduler delivers the
+ * reminders that fell due. Implementations are called from a single scheduler
+ * thread, one reminder at a time, and should not block for long: the next due
+ * reminders wait meanwhile.
+ */
+public interface NotificationSink {
+
+	/*
+	 * Deliver a reminder that fell due at dueAt. The reminder already carries its
+	 * next due time when it recurs.
+	 */
+	public void send(Reminder reminder, Date dueAt);
+}
@@ -0,0 +1,388 @@
+package com.stackroute.keepnote.scheduler;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * The class "HashedTimingWheel" runs tasks after a delay, with a resolution of one
+ * tick. The wheel is an array of buckets, each a doubly linked list of timeouts; a
+ * worker thread moves to the next bucket every tick and expires the timeouts of the
+ * bucket whose deadline has come, the others in the bucket being due in a later
+ * round of the wheel. Scheduling and cancelling are O(1) whatever the number of
+ * pending timeouts: both only enqueue, and the worker links or unlinks the timeout
+ * at its next tick. The tasks of expired timeouts are handed to the given executor.
+ * 
+ * Deadlines are rounded up to the next tick, so a task runs between its deadline
+ * and one tick later, later still when the executor is busy.
+ */
+public class HashedTimingWheel {
+
+	/*
+	 * At most this many newly scheduled timeouts are moved into the wheel per tick,
+	 * so that a burst of scheduling does not delay the expiry of due timeouts
+	 */
+	private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+	private final long tickNanos;
+
+	private final Bucket[] wheel;
+
+	private final int mask;
+
+	private final Executor taskExecutor;
+
+	private final Queue<WheelTimeout> scheduled = new ConcurrentLinkedQueue<>();
+
+	private final Queue<WheelTimeout> cancelled = new ConcurrentLinkedQueue<>();
+
+	private final AtomicLong pendingCount = new AtomicLong();
+
+	private final Thread worker;
+
+	private volatile boolean running;
+
+	private volatile long startNanos;
+
+	private long tick;
+
+	public HashedTimingWheel(long tickDuration, TimeUnit unit, int wheelSize, Executor taskExecutor,
+			String threadName) {
+
+		if (tickDuration <= 0 || wheelSize <= 0) {
+
+			throw new IllegalArgumentException("tickDuration and wheelSize must be positive");
+		}
+
+		int size = Integer.highestOneBit(wheelSize - 1) << 1;
+
+		this.tickNanos = unit.toNanos(tickDuration);
+		this.wheel = new Bucket[Math.max(size, 1)];
+		this.mask = wheel.length - 1;
+		this.taskExecutor = taskExecutor;
+
+		for (int index = 0; index < wheel.length; index++) {
+
+			wheel[index] = new Bucket();
+		}
+
+		this.worker = new Thread(this::runWorker, threadName);
+		this.worker.setDaemon(true);
+	}
+
+	public synchronized void start() {
+
+		if (running) {
+
+			return;
+		}
+
+		startNanos = System.nanoTime();
+		running = true;
+		worker.start();
+	}
+
+	/*
+	 * Stop the worker; pending timeouts are dropped without running
+	 */
+	public void stop() throws InterruptedException {
+
+		synchronized (this) {
+
+			if (!running) {
+
+				return;
+			}
+
+			running = false;
+		}
+
+		worker.interrupt();
+		worker.join();
+	}
+
+	/*
+	 * Run the task once the delay has elapsed. The timeout can be cancelled until
+	 * then.
+	 */
+	public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+
+		if (!running) {
+
+			throw new IllegalStateException("The timing wheel is not running");
+		}
+
+		WheelTimeout timeout = new WheelTimeout(task, System.nanoTime() - startNanos + unit.toNanos(delay));
+
+		pendingCount.incrementAndGet();
+		scheduled.add(timeout);
+
+		return timeout;
+	}
+
+	/*
+	 * Number of timeouts scheduled and neither expired nor cancelled yet
+	 */
+	public long getPendingCount() {
+		return pendingCount.get();
+	}
+
+	public int getWheelSize() {
+		return wheel.length;
+	}
+
+	private void runWorker() {
+
+		while (running) {
+
+			long deadline = waitForNextTick();
+
+			if (deadline < 0) {
+
+				break;
+			}
+
+			removeCancelled();
+			transferScheduled();
+
+			wheel[(int) (tick & mask)].expire(deadline);
+
+			tick++;
+		}
+	}
+
+	/*
+	 * Sleep until the end of the current tick and return its deadline, relative to
+	 * the start of the wheel, or -1 when the wheel was stopped
+	 */
+	private long waitForNextTick() {
+
+		long deadline = tickNanos * (tick + 1);
+
+		while (true) {
+
+			long sleepNanos = deadline - (System.nanoTime() - startNanos);
+
+			if (sleepNanos <= 0) {
+
+				return deadline;
+			}
+
+			try {
+
+				TimeUnit.NANOSECONDS.sleep(sleepNanos);
+
+			} catch (InterruptedException exception) {
+
+				if (!running) {
+
+					return -1;
+				}
+			}
+		}
+	}
+
+	private void removeCancelled() {
+
+		WheelTimeout timeout;
+
+		while ((timeout = cancelled.poll()) != null) {
+
+			if (timeout.bucket != null) {
+
+				timeout.bucket.remove(timeout);
+			}
+		}
+	}
+
+	private void transferScheduled() {
+
+		for (int transfers = 0; transfers < MAX_TRANSFERS_PER_TICK; transfers++) {
+
+			WheelTimeout timeout = scheduled.poll();
+
+			if (timeout == null) {
+
+				return;
+			}
+
+			if (timeout.state.get() != WheelTimeout.PENDING) {
+
+				continue;
+			}
+
+			long expiryTick = (timeout.deadlineNanos + tickNanos - 1) / tickNanos - 1;
+
+			timeout.remainingRounds = (expiryTick - tick) / wheel.length;
+
+			// a deadline already passed expires at the current tick
+			long bucketTick = Math.max(expiryTick, tick);
+
+			wheel[(int) (bucketTick & mask)].add(timeout);
+		}
+	}
+
+	/*
+	 * A task scheduled on the wheel
+	 */
+	public interface Timeout {
+
+		/*
+		 * Prevent the task from running; false when it already ran or was cancelled
+		 */
+		public boolean cancel();
+
+		public boolean isCancelled();
+
+		public boolean isExpired();
+	}
+
+	private final class WheelTimeout implements Timeout {
+
+		private static final int PENDING = 0;
+
+		private static final int CANCELLED = 1;
+
+		private static final int EXPIRED = 2;
+
+		private final Runnable task;
+
+		private final long deadlineNanos;
+
+		private final AtomicInteger state = new AtomicInteger(PENDING);
+
+		private long remainingRounds;
+
+		private Bucket bucket;
+
+		private WheelTimeout previous;
+
+		private WheelTimeout next;
+
+		private WheelTimeout(Runnable task, long deadlineNanos) {
+			this.task = task;
+			this.deadlineNanos = deadlineNanos;
+		}
+
+		@Override
+		public boolean cancel() {
+
+			if (!state.compareAndSet(PENDING, CANCELLED)) {
+
+				return false;
+			}
+
+			pendingCount.decrementAndGet();
+			cancelled.add(this);
+
+			return true;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return state.get() == CANCELLED;
+		}
+
+		@Override
+		public boolean isExpired() {
+			return state.get() == EXPIRED;
+		}
+
+		private void expire() {
+
+			if (!state.compareAndSet(PENDING, EXPIRED)) {
+
+				return;
+			}
+
+			pendingCount.decrementAndGet();
+			taskExecutor.execute(task);
+		}
+	}
+
+	/*
+	 * Timeouts hashed to one slot of the wheel, only touched by the worker thread
+	 */
+	private final class Bucket {
+
+		private WheelTimeout head;
+
+		private WheelTimeout tail;
+
+		private void add(WheelTimeout timeout) {
+
+			timeout.bucket = this;
+
+			if (head == null) {
+
+				head = timeout;
+				tail = timeout;
+
+			} else {
+
+				tail.next = timeout;
+				timeout.previous = tail;
+				tail = timeout;
+			}
+		}
+
+		private void expire(long deadlineNanos) {
+
+			WheelTimeout timeout = head;
+
+			while (timeout != null) {
+
+				WheelTimeout next = timeout.next;
+
+				if (timeout.isCancelled()) {
+
+					remove(timeout);
+
+				} else if (timeout.remainingRounds <= 0 && timeout.deadlineNanos <= deadlineNanos) {
+
+					remove(timeout);
+					timeout.expire();
+
+				} else {
+
+					timeout.remainingRounds--;
+				}
+
+				timeout = next;
+			}
+		}
+
+		private void remove(WheelTimeout timeout) {
+
+			if (timeout.bucket != this) {
+
+				return;
+			}
+
+			if (timeout.previous != null) {
+
+				timeout.previous.next = timeout.next;
+
+			} else {
+
+				head = timeout.next;
+			}
+
+			if (timeout.next != null) {
+
+				timeout.next.previous = timeout.previous;
+
+			} else {
+
+				tail = timeout.previous;
+			}
+
+			timeout.previous = null;
+			timeout.next = null;
+			timeout.bucket = null;
+		}
+	}
+}
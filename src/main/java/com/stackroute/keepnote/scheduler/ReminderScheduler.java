@@ -0,0 +1,275 @@
+package com.stackroute.keepnote.scheduler;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.stackroute.keepnote.cache.ListCacheManager;
+import com.stackroute.keepnote.dao.ReminderDAO;
+import com.stackroute.keepnote.exception.ReminderNotFoundException;
+import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.model.ReminderRecurrence;
+import com.stackroute.keepnote.notification.NotificationSink;
+
+/*
+ * The class "ReminderScheduler" fires the reminders when they fall due. Every
+ * pending reminder has one timeout on a HashedTimingWheel, found by reminder id
+ * when the reminder is rescheduled or cancelled. The pending reminders are read
+ * from the database once the application context has started.
+ * 
+ * When a timeout expires the reminder is first marked as fired in the database,
+ * conditionally on its due time: a reminder moved in the meantime, or already fired
+ * by another node sharing the database, is skipped. It is then handed to the
+ * NotificationSink and, when it recurs, scheduled again at its next due time. A
+ * reminder is thus notified at most once per due time.
+ * 
+ * The wheel is sized with the system properties keepnote.reminder.tickMillis
+ * (default 100) and keepnote.reminder.wheelSize (default 512).
+ */
+@Component
+public class ReminderScheduler implements SmartLifecycle {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ReminderScheduler.class);
+
+	private static final long DEFAULT_TICK_MILLIS = 100;
+
+	private static final int DEFAULT_WHEEL_SIZE = 512;
+
+	@Autowired
+	private ReminderDAO reminderDAO;
+
+	@Autowired
+	private NotificationSink notificationSink;
+
+	@Autowired
+	private ListCacheManager listCacheManager;
+
+	private final ExecutorService fireExecutor = Executors.newSingleThreadExecutor(runnable -> {
+
+		Thread thread = new Thread(runnable, "reminder-fire");
+		thread.setDaemon(true);
+
+		return thread;
+	});
+
+	private final HashedTimingWheel timingWheel;
+
+	private final Map<Integer, HashedTimingWheel.Timeout> timeouts = new ConcurrentHashMap<>();
+
+	private volatile boolean running;
+
+	@Autowired
+	public ReminderScheduler(ReminderDAO reminderDAO, NotificationSink notificationSink,
+			ListCacheManager listCacheManager) {
+		this(reminderDAO, notificationSink, listCacheManager,
+				Long.getLong("keepnote.reminder.tickMillis", DEFAULT_TICK_MILLIS),
+				Integer.getInteger("keepnote.reminder.wheelSize", DEFAULT_WHEEL_SIZE));
+	}
+
+	public ReminderScheduler(ReminderDAO reminderDAO, NotificationSink notificationSink,
+			ListCacheManager listCacheManager, long tickMillis, int wheelSize) {
+		this.reminderDAO = reminderDAO;
+		this.notificationSink = notificationSink;
+		this.listCacheManager = listCacheManager;
+		this.timingWheel = new HashedTimingWheel(tickMillis, TimeUnit.MILLISECONDS, wheelSize, fireExecutor,
+				"reminder-wheel");
+	}
+
+	/*
+	 * Truncate a due time to whole seconds, the precision of the database column,
+	 * so that the due time kept in memory matches the stored one
+	 */
+	public static Date toSeconds(Date dueAt) {
+		return dueAt == null ? null : new Date(dueAt.getTime() / 1000 * 1000);
+	}
+
+	/*
+	 * Schedule the reminder at its due time, replacing its previous schedule. A
+	 * reminder without due time, or which already fired since its due time, is
+	 * only unscheduled.
+	 */
+	public void schedule(Reminder reminder) {
+
+		cancel(reminder.getReminderId());
+
+		Date dueAt = reminder.getReminderDueAt();
+
+		if (dueAt == null || !running) {
+
+			return;
+		}
+
+		if (reminder.getReminderFiredAt() != null && !reminder.getReminderFiredAt().before(dueAt)) {
+
+			return;
+		}
+
+		schedule(reminder.getReminderId(), dueAt);
+	}
+
+	public void cancel(int reminderId) {
+
+		HashedTimingWheel.Timeout timeout = timeouts.remove(reminderId);
+
+		if (timeout != null) {
+
+			timeout.cancel();
+		}
+	}
+
+	/*
+	 * Number of reminders waiting for their due time
+	 */
+	public long getPendingCount() {
+		return timingWheel.getPendingCount();
+	}
+
+	private void schedule(int reminderId, Date dueAt) {
+
+		long delayMillis = Math.max(0, dueAt.getTime() - System.currentTimeMillis());
+
+		FireTask fireTask = new FireTask(reminderId, dueAt);
+
+		fireTask.timeout = timingWheel.newTimeout(fireTask, delayMillis, TimeUnit.MILLISECONDS);
+
+		HashedTimingWheel.Timeout previous = timeouts.put(reminderId, fireTask.timeout);
+
+		if (previous != null) {
+
+			previous.cancel();
+		}
+	}
+
+	private void fire(FireTask fireTask) {
+
+		timeouts.remove(fireTask.reminderId, fireTask.timeout);
+
+		try {
+
+			Reminder reminder = reminderDAO.getReminderById(fireTask.reminderId);
+
+			ReminderRecurrence recurrence = reminder.getReminderRecurrence();
+
+			Date nextDueAt = recurrence == null ? fireTask.dueAt
+					: recurrence.nextAfter(fireTask.dueAt, System.currentTimeMillis());
+
+			Date firedAt = toSeconds(new Date());
+
+			if (!reminderDAO.markReminderFired(fireTask.reminderId, fireTask.dueAt, firedAt, nextDueAt)) {
+
+				return;
+			}
+
+			reminder.setReminderDueAt(nextDueAt);
+			reminder.setReminderFiredAt(firedAt);
+
+			listCacheManager.getReminderListCache().invalidateUser(reminder.getReminderCreatedBy());
+
+			if (recurrence != null) {
+
+				schedule(reminder);
+			}
+
+			notificationSink.send(reminder, fireTask.dueAt);
+
+		} catch (ReminderNotFoundException exception) {
+
+			// deleted after it was scheduled
+
+		} catch (RuntimeException exception) {
+
+			LOGGER.error("Firing reminder " + fireTask.reminderId + " failed", exception);
+		}
+	}
+
+	/*
+	 * Start the wheel and schedule the pending reminders, once every bean of the
+	 * context is ready
+	 */
+	@Override
+	public void start() {
+
+		timingWheel.start();
+		running = true;
+
+		for (Map.Entry<Integer, Date> dueTime : reminderDAO.getPendingReminderDueTimes().entrySet()) {
+
+			if (!timeouts.containsKey(dueTime.getKey())) {
+
+				schedule(dueTime.getKey(), dueTime.getValue());
+			}
+		}
+
+		LOGGER.info("Reminder scheduler started with {} pending reminders", timingWheel.getPendingCount());
+	}
+
+	@Override
+	public void stop() {
+
+		running = false;
+
+		try {
+
+			timingWheel.stop();
+
+		} catch (InterruptedException exception) {
+
+			Thread.currentThread().interrupt();
+		}
+
+		fireExecutor.shutdown();
+		timeouts.clear();
+	}
+
+	@Override
+	public void stop(Runnable callback) {
+		stop();
+		callback.run();
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	@Override
+	public boolean isAutoStartup() {
+		return true;
+	}
+
+	@Override
+	public int getPhase() {
+		return 0;
+	}
+
+	/*
+	 * Fires one reminder for one due time
+	 */
+	private class FireTask implements Runnable {
+
+		private final int reminderId;
+
+		private final Date dueAt;
+
+		private volatile HashedTimingWheel.Timeout timeout;
+
+		private FireTask(int reminderId, Date dueAt) {
+			this.reminderId = reminderId;
+			this.dueAt = dueAt;
+		}
+
+		@Override
+		public void run() {
+			fire(this);
+		}
+	}
+}
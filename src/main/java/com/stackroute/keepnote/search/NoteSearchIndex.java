@@ -0,0 +1,369 @@
+package com.stackroute.keepnote.search;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.stackroute.keepnote.cache.ListCacheManager;
+import com.stackroute.keepnote.dao.ListVersionDAO;
+import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.SearchResult;
+
+/*
+ * The class "NoteSearchIndex" holds the full-text indexes of the notes, one per
+ * user. The index of a user is built from the database on their first search and
+ * kept up to date by the note service afterwards. At most maxUsers indexes are
+ * kept (system property keepnote.search.maxUsers), the least recently searched one
+ * being dropped first.
+ * 
+ * Changes have to be applied once they have been committed. A load holds the write
+ * lock of the index while it reads the notes, so a change committed during the load
+ * waits for it and is then applied on top; adding a note that the load already
+ * found only replaces it.
+ *
+ * Every node holds indexes of its own, and only applies the changes it makes. To
+ * see the changes made on the other nodes, an index follows the version of the
+ * notes listing of its user in the database (see ListVersionDAO), which every note
+ * write bumps. A search first reads that version, one primary key lookup, and
+ * reloads the index when it holds an older one. A change made on this node moves
+ * the index to the version its write bumped, provided it held the version right
+ * before; otherwise a write of another node came in between and the next search
+ * reloads. Without a ListVersionDAO the indexes only see the writes of their own
+ * node.
+ */
+@Component
+public class NoteSearchIndex {
+
+	public static final int DEFAULT_LIMIT = 20;
+
+	public static final int MAX_LIMIT = 100;
+
+	private static final int DEFAULT_MAX_USERS = 1000;
+
+	private final int maxUsers;
+
+	private final ListVersionDAO listVersionDAO;
+
+	private final LinkedHashMap<String, UserNoteIndex> indexes;
+
+	/*
+	 * Owner of every indexed note, used when only the id of the note is known
+	 * (deletes)
+	 */
+	private final Map<Integer, String> owners = new ConcurrentHashMap<>();
+
+	public NoteSearchIndex() {
+		this(null);
+	}
+
+	@Autowired
+	public NoteSearchIndex(ListVersionDAO listVersionDAO) {
+		this(Integer.getInteger("keepnote.search.maxUsers", DEFAULT_MAX_USERS), listVersionDAO);
+	}
+
+	public NoteSearchIndex(int maxUsers) {
+		this(maxUsers, null);
+	}
+
+	public NoteSearchIndex(int maxUsers, ListVersionDAO listVersionDAO) {
+		this.maxUsers = maxUsers;
+		this.listVersionDAO = listVersionDAO;
+		this.indexes = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	/*
+	 * Bring a client supplied number of results into the range [1, MAX_LIMIT],
+	 * falling back to DEFAULT_LIMIT when none was requested
+	 */
+	public static int clampLimit(Integer requestedLimit) {
+
+		if (requestedLimit == null) {
+
+			return DEFAULT_LIMIT;
+		}
+
+		return Math.max(1, Math.min(MAX_LIMIT, requestedLimit));
+	}
+
+	/*
+	 * Ids of the notes of the user best matching the query, best first. The loader
+	 * reads all notes of the user and is only called when his index is not in
+	 * memory yet, or is behind the notes written on another node.
+	 */
+	public SearchResult<Integer> search(String userId, String query, int limit, Supplier<List<Note>> loader) {
+
+		List<SearchTerm> searchTerms = SearchTerm.parseQuery(query);
+
+		if (searchTerms.isEmpty()) {
+
+			return new SearchResult<>(Collections.emptyList(), Collections.emptyList());
+		}
+
+		UserNoteIndex index = getOrCreateIndex(userId);
+
+		// read before the notes a load would read, so that the load holds this version
+		long version = listVersionDAO == null ? 0 : listVersionDAO.getVersion(ListCacheManager.NOTE_LIST, userId);
+
+		Lock readLock = index.getLock().readLock();
+
+		readLock.lock();
+
+		try {
+
+			if (index.isLoaded() && index.getVersion() >= version) {
+
+				return index.search(searchTerms, limit);
+			}
+
+		} finally {
+
+			readLock.unlock();
+		}
+
+		load(userId, index, version, loader);
+
+		readLock.lock();
+
+		try {
+
+			return index.search(searchTerms, limit);
+
+		} finally {
+
+			readLock.unlock();
+		}
+	}
+
+	private void load(String userId, UserNoteIndex index, long version, Supplier<List<Note>> loader) {
+
+		Lock writeLock = index.getLock().writeLock();
+
+		writeLock.lock();
+
+		try {
+
+			if (index.isLoaded()) {
+
+				if (index.getVersion() >= version) {
+
+					return;
+				}
+
+				// notes were written on another node: read them all again
+				for (Integer noteId : index.getNoteIds()) {
+
+					index.remove(noteId);
+					owners.remove(noteId, userId);
+				}
+			}
+
+			for (Note note : loader.get()) {
+
+				index.add(note);
+				owners.put(note.getNoteId(), userId);
+			}
+
+			index.setVersion(version);
+			index.setLoaded(true);
+
+		} finally {
+
+			writeLock.unlock();
+		}
+	}
+
+	/*
+	 * Index a created or updated note, whose write moved the notes listing of its
+	 * user to listVersion. Notes of users whose index is not in memory are skipped,
+	 * they will be read with the rest when the index is loaded.
+	 */
+	public void indexNote(Note note, long listVersion) {
+
+		removeNote(note.getNoteId());
+
+		if (note.getCreatedBy() == null) {
+
+			return;
+		}
+
+		UserNoteIndex index = getIndex(note.getCreatedBy());
+
+		if (index == null) {
+
+			return;
+		}
+
+		Lock writeLock = index.getLock().writeLock();
+
+		writeLock.lock();
+
+		try {
+
+			index.add(note);
+			owners.put(note.getNoteId(), note.getCreatedBy());
+
+			advance(index, listVersion);
+
+		} finally {
+
+			writeLock.unlock();
+		}
+	}
+
+	/*
+	 * Index a batch of created notes. The versions their writes moved the listings
+	 * to are not known, so the indexes stay at their version and are reloaded by
+	 * their next search when a ListVersionDAO is used.
+	 */
+	public void indexNotes(List<Note> notes) {
+
+		for (Note note : notes) {
+
+			indexNote(note, -1);
+		}
+	}
+
+	/*
+	 * Remove a deleted note, whose write moved the notes listing of its user to
+	 * listVersion
+	 */
+	public void removeNote(int noteId, long listVersion) {
+
+		UserNoteIndex index = removeNote(noteId);
+
+		if (index == null) {
+
+			return;
+		}
+
+		Lock writeLock = index.getLock().writeLock();
+
+		writeLock.lock();
+
+		try {
+
+			advance(index, listVersion);
+
+		} finally {
+
+			writeLock.unlock();
+		}
+	}
+
+	/*
+	 * Move the index to the version of a change just applied, unless it missed a
+	 * change in between. Called with the write lock held.
+	 */
+	private void advance(UserNoteIndex index, long listVersion) {
+
+		if (listVersion == index.getVersion() + 1) {
+
+			index.setVersion(listVersion);
+		}
+	}
+
+	/*
+	 * Remove the note from the index of its owner, if in memory, and return that
+	 * index
+	 */
+	private UserNoteIndex removeNote(int noteId) {
+
+		String owner = owners.remove(noteId);
+
+		UserNoteIndex index = owner == null ? null : getIndex(owner);
+
+		if (index == null) {
+
+			return null;
+		}
+
+		Lock writeLock = index.getLock().writeLock();
+
+		writeLock.lock();
+
+		try {
+
+			index.remove(noteId);
+
+		} finally {
+
+			writeLock.unlock();
+		}
+
+		return index;
+	}
+
+	public synchronized int getIndexedUserCount() {
+		return indexes.size();
+	}
+
+	public synchronized void clear() {
+		indexes.clear();
+		owners.clear();
+	}
+
+	private synchronized UserNoteIndex getIndex(String userId) {
+		return indexes.get(userId);
+	}
+
+	private UserNoteIndex getOrCreateIndex(String userId) {
+
+		UserNoteIndex evicted = null;
+
+		UserNoteIndex index;
+
+		synchronized (this) {
+
+			index = indexes.get(userId);
+
+			if (index == null) {
+
+				index = new UserNoteIndex();
+
+				if (maxUsers > 0 && indexes.size() >= maxUsers) {
+
+					Map.Entry<String, UserNoteIndex> eldest = indexes.entrySet().iterator().next();
+
+					evicted = eldest.getValue();
+
+					indexes.remove(eldest.getKey());
+				}
+
+				indexes.put(userId, index);
+			}
+		}
+
+		if (evicted != null) {
+
+			forgetOwners(evicted);
+		}
+
+		return index;
+	}
+
+	private void forgetOwners(UserNoteIndex evicted) {
+
+		Lock readLock = evicted.getLock().readLock();
+
+		readLock.lock();
+
+		try {
+
+			for (Integer noteId : evicted.getNoteIds()) {
+
+				owners.remove(noteId);
+			}
+
+		} finally {
+
+			readLock.unlock();
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package com.stackroute.keepnote.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * The class "SearchTerm" is one term of a search query. Text is split into terms on
+ * everything that is not a letter or a digit and lower-cased, the same way for the
+ * indexed notes and for the queries. In a query, a word ending with '*' matches
+ * every indexed term starting with it.
+ */
+public class SearchTerm {
+
+	/*
+	 * Longer terms are cut, so that pasted tokens or encoded data do not bloat the
+	 * index
+	 */
+	public static final int MAX_TERM_LENGTH = 64;
+
+	private final String term;
+
+	private final boolean prefix;
+
+	public SearchTerm(String term, boolean prefix) {
+		this.term = term;
+		this.prefix = prefix;
+	}
+
+	public String getTerm() {
+		return term;
+	}
+
+	public boolean isPrefix() {
+		return prefix;
+	}
+
+	/*
+	 * Split a title or a content into its terms, in order, duplicates included
+	 */
+	public static List<String> tokenize(String text) {
+
+		List<String> terms = new ArrayList<>();
+
+		if (text == null) {
+
+			return terms;
+		}
+
+		int start = -1;
+
+		for (int index = 0; index <= text.length(); index++) {
+
+			boolean termCharacter = index < text.length() && Character.isLetterOrDigit(text.charAt(index));
+
+			if (termCharacter && start < 0) {
+
+				start = index;
+
+			} else if (!termCharacter && start >= 0) {
+
+				terms.add(text.substring(start, Math.min(index, start + MAX_TERM_LENGTH)).toLowerCase());
+				start = -1;
+			}
+		}
+
+		return terms;
+	}
+
+	/*
+	 * Parse a query. The '*' of a prefix term applies to the last term of its word,
+	 * so "spring-boo*" searches for "spring" and for terms starting with "boo".
+	 */
+	public static List<SearchTerm> parseQuery(String query) {
+
+		List<SearchTerm> searchTerms = new ArrayList<>();
+
+		if (query == null) {
+
+			return searchTerms;
+		}
+
+		for (String word : query.trim().split("\\s+")) {
+
+			List<String> terms = tokenize(word);
+
+			for (int index = 0; index < terms.size(); index++) {
+
+				boolean prefix = index == terms.size() - 1 && word.endsWith("*");
+
+				searchTerms.add(new SearchTerm(terms.get(index), prefix));
+			}
+		}
+
+		return searchTerms;
+	}
+
+	@Override
+	public String toString() {
+		return prefix ? term + "*" : term;
+	}
+}
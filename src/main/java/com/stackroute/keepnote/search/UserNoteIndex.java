@@ -0,0 +1,367 @@
+package com.stackroute.keepnote.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.SearchResult;
+
+/*
+ * The class "UserNoteIndex" is the inverted index over the notes of one user. Every
+ * indexed note gets a small document number, reused once the note is removed, and
+ * every term maps to the sorted document numbers of the notes containing it along
+ * with its frequency in each. The terms are kept sorted so that a prefix term is a
+ * range of the term map, and scores are summed up in an array indexed by document
+ * number. Postings take two ints each, which keeps users with 100k notes in a few
+ * tens of megabytes.
+ * 
+ * Matching notes are ranked with BM25. An occurrence in the title counts
+ * TITLE_WEIGHT times as much as one in the content. Searches share a read lock,
+ * changes take the write lock.
+ */
+public class UserNoteIndex {
+
+	public static final int TITLE_WEIGHT = 3;
+
+	/*
+	 * At most this many indexed terms are searched for one prefix term, so that a
+	 * one-letter prefix does not turn into a scan of the whole index. The terms
+	 * found in the most notes are kept, and the prefix is reported as truncated.
+	 */
+	public static final int MAX_PREFIX_EXPANSIONS = 64;
+
+	private static final double K1 = 1.2;
+
+	private static final double B = 0.75;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final NavigableMap<String, Postings> postings = new TreeMap<>();
+
+	private final Map<Integer, Integer> documents = new HashMap<>();
+
+	private int[] noteIds = new int[16];
+
+	private int[] lengths = new int[16];
+
+	private Postings[][] documentPostings = new Postings[16][];
+
+	private int[] freeDocuments = new int[16];
+
+	private int freeDocumentCount;
+
+	private int documentLimit;
+
+	private long totalLength;
+
+	private boolean loaded;
+
+	private long version;
+
+	public ReadWriteLock getLock() {
+		return lock;
+	}
+
+	/*
+	 * Whether the notes of the user were read from the database. Changes made
+	 * before are applied all the same: the load may have missed them.
+	 */
+	public boolean isLoaded() {
+		return loaded;
+	}
+
+	public void setLoaded(boolean loaded) {
+		this.loaded = loaded;
+	}
+
+	/*
+	 * Version of the notes listing of the user that the index holds all the changes
+	 * of (see NoteSearchIndex)
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	public void setVersion(long version) {
+		this.version = version;
+	}
+
+	public int size() {
+		return documents.size();
+	}
+
+	public List<Integer> getNoteIds() {
+		return new ArrayList<>(documents.keySet());
+	}
+
+	/*
+	 * Add a note, replacing the indexed version of the same note if any
+	 */
+	public void add(Note note) {
+
+		remove(note.getNoteId());
+
+		Map<String, Integer> frequencies = new HashMap<>();
+
+		for (String term : SearchTerm.tokenize(note.getNoteTitle())) {
+
+			frequencies.merge(term, TITLE_WEIGHT, Integer::sum);
+		}
+
+		for (String term : SearchTerm.tokenize(note.getNoteContent())) {
+
+			frequencies.merge(term, 1, Integer::sum);
+		}
+
+		int document = allocateDocument();
+
+		Postings[] notePostings = new Postings[frequencies.size()];
+
+		int length = 0;
+
+		int index = 0;
+
+		for (Map.Entry<String, Integer> frequency : frequencies.entrySet()) {
+
+			Postings termPostings = postings.computeIfAbsent(frequency.getKey(), Postings::new);
+
+			termPostings.add(document, frequency.getValue());
+
+			notePostings[index++] = termPostings;
+
+			length += frequency.getValue();
+		}
+
+		documents.put(note.getNoteId(), document);
+		noteIds[document] = note.getNoteId();
+		lengths[document] = length;
+		documentPostings[document] = notePostings;
+		totalLength += length;
+	}
+
+	public void remove(int noteId) {
+
+		Integer document = documents.remove(noteId);
+
+		if (document == null) {
+
+			return;
+		}
+
+		for (Postings termPostings : documentPostings[document]) {
+
+			termPostings.remove(document);
+
+			if (termPostings.size == 0) {
+
+				postings.remove(termPostings.term);
+			}
+		}
+
+		totalLength -= lengths[document];
+		documentPostings[document] = null;
+
+		if (freeDocumentCount == freeDocuments.length) {
+
+			freeDocuments = Arrays.copyOf(freeDocuments, freeDocumentCount * 2);
+		}
+
+		freeDocuments[freeDocumentCount++] = document;
+	}
+
+	/*
+	 * Ids of the best matching notes, best first. A note matches when it contains
+	 * at least one of the terms; notes containing more of them, rarer ones or
+	 * containing them more often rank higher. Equal scores rank the most recently
+	 * created note (highest id) first. A prefix term matching more than
+	 * MAX_PREFIX_EXPANSIONS indexed terms is listed among the truncated prefixes of
+	 * the result.
+	 */
+	public SearchResult<Integer> search(List<SearchTerm> searchTerms, int limit) {
+
+		double[] scores = new double[documentLimit];
+
+		double averageLength = documents.isEmpty() ? 1 : (double) totalLength / documents.size();
+
+		List<String> truncatedPrefixes = new ArrayList<>();
+
+		for (SearchTerm searchTerm : searchTerms) {
+
+			if (!searchTerm.isPrefix()) {
+
+				score(postings.get(searchTerm.getTerm()), averageLength, scores);
+				continue;
+			}
+
+			Collection<Postings> expansions = postings
+					.subMap(searchTerm.getTerm(), true, searchTerm.getTerm() + Character.MAX_VALUE, false).values();
+
+			if (expansions.size() > MAX_PREFIX_EXPANSIONS) {
+
+				expansions = mostFrequent(expansions);
+				truncatedPrefixes.add(searchTerm.toString());
+			}
+
+			for (Postings termPostings : expansions) {
+
+				score(termPostings, averageLength, scores);
+			}
+		}
+
+		PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1,
+				(first, second) -> scores[first] == scores[second] ? Integer.compare(noteIds[first], noteIds[second])
+						: Double.compare(scores[first], scores[second]));
+
+		for (int document = 0; document < documentLimit; document++) {
+
+			if (scores[document] == 0) {
+
+				continue;
+			}
+
+			if (best.size() < limit) {
+
+				best.add(document);
+
+			} else if (best.comparator().compare(document, best.peek()) > 0) {
+
+				best.poll();
+				best.add(document);
+			}
+		}
+
+		List<Integer> bestNoteIds = new ArrayList<>(best.size());
+
+		while (!best.isEmpty()) {
+
+			bestNoteIds.add(noteIds[best.poll()]);
+		}
+
+		Collections.reverse(bestNoteIds);
+
+		return new SearchResult<>(bestNoteIds, truncatedPrefixes);
+	}
+
+	/*
+	 * The MAX_PREFIX_EXPANSIONS terms found in the most notes, the alphabetically
+	 * first ones among equally frequent terms. The expansions are only counted, the
+	 * postings of the terms left out are not read.
+	 */
+	private static Collection<Postings> mostFrequent(Collection<Postings> expansions) {
+
+		Comparator<Postings> frequency = Comparator.<Postings> comparingInt(termPostings -> termPostings.size)
+				.thenComparing(termPostings -> termPostings.term, Comparator.reverseOrder());
+
+		PriorityQueue<Postings> mostFrequent = new PriorityQueue<>(MAX_PREFIX_EXPANSIONS + 1, frequency);
+
+		for (Postings termPostings : expansions) {
+
+			if (mostFrequent.size() < MAX_PREFIX_EXPANSIONS) {
+
+				mostFrequent.add(termPostings);
+
+			} else if (frequency.compare(termPostings, mostFrequent.peek()) > 0) {
+
+				mostFrequent.poll();
+				mostFrequent.add(termPostings);
+			}
+		}
+
+		return mostFrequent;
+	}
+
+	private void score(Postings termPostings, double averageLength, double[] scores) {
+
+		if (termPostings == null) {
+
+			return;
+		}
+
+		double documentFrequency = termPostings.size;
+
+		double idf = Math.log(1 + (documents.size() - documentFrequency + 0.5) / (documentFrequency + 0.5));
+
+		for (int index = 0; index < termPostings.size; index++) {
+
+			int document = termPostings.documents[index];
+
+			double frequency = termPostings.frequencies[index];
+
+			scores[document] += idf * frequency * (K1 + 1)
+					/ (frequency + K1 * (1 - B + B * lengths[document] / averageLength));
+		}
+	}
+
+	private int allocateDocument() {
+
+		if (freeDocumentCount > 0) {
+
+			return freeDocuments[--freeDocumentCount];
+		}
+
+		if (documentLimit == noteIds.length) {
+
+			noteIds = Arrays.copyOf(noteIds, documentLimit * 2);
+			lengths = Arrays.copyOf(lengths, documentLimit * 2);
+			documentPostings = Arrays.copyOf(documentPostings, documentLimit * 2);
+		}
+
+		return documentLimit++;
+	}
+
+	/*
+	 * Document numbers containing one term, sorted, with the term frequency of each
+	 */
+	private static class Postings {
+
+		private final String term;
+
+		private int[] documents = new int[2];
+
+		private int[] frequencies = new int[2];
+
+		private int size;
+
+		private Postings(String term) {
+			this.term = term;
+		}
+
+		private void add(int document, int frequency) {
+
+			int position = -Arrays.binarySearch(documents, 0, size, document) - 1;
+
+			if (size == documents.length) {
+
+				documents = Arrays.copyOf(documents, size * 2);
+				frequencies = Arrays.copyOf(frequencies, size * 2);
+			}
+
+			System.arraycopy(documents, position, documents, position + 1, size - position);
+			System.arraycopy(frequencies, position, frequencies, position + 1, size - position);
+
+			documents[position] = document;
+			frequencies[position] = frequency;
+			size++;
+		}
+
+		private void remove(int document) {
+
+			int position = Arrays.binarySearch(documents, 0, size, document);
+
+			System.arraycopy(documents, position + 1, documents, position, size - position - 1);
+			System.arraycopy(frequencies, position + 1, frequencies, position, size - position - 1);
+			size--;
+		}
+	}
+}
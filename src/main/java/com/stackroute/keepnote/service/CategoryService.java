@@ -1,9 +1,11 @@
 package com.stackroute.keepnote.service;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import com.stackroute.keepnote.exception.CategoryNotFoundException;
 import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.ResultPage;
 
 public interface CategoryService {
 
@@ -13,7 +15,7 @@ public interface CategoryService {
 	 */
 	public boolean createCategory(Category category);
 
-	public boolean deleteCategory(int noteId);
+	public boolean deleteCategory(int categoryId, String userId);
 
 	public Category updateCategory(Category category, int id) throws CategoryNotFoundException;
 
@@ -21,4 +23,8 @@ public interface CategoryService {
 
 	public List<Category> getAllCategoryByUserId(String userId);
 
+	public int streamCategoriesByUserId(String userId, Consumer<Category> consumer);
+
+	public ResultPage<Category> getCategoriesByUserId(String userId, String afterCursor, int limit);
+
 }
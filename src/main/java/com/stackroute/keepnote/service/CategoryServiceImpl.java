@@ -1,13 +1,19 @@
 package com.stackroute.keepnote.service;
 
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.stackroute.keepnote.cache.ListCacheManager;
 import com.stackroute.keepnote.dao.CategoryDAO;
 import com.stackroute.keepnote.exception.CategoryNotFoundException;
 import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.PageCursor;
+import com.stackroute.keepnote.model.ResultPage;
 
 /*
 * Service classes are used here to implement additional business logic/validation 
@@ -28,16 +34,39 @@ public class CategoryServiceImpl implements CategoryService {
 	@Autowired
 	private CategoryDAO categoryDAO;
 
+	/*
+	 * Per-user listing caches, invalidated after every successful write
+	 */
+	@Autowired
+	private ListCacheManager listCacheManager;
+
 	/*
 	 * This method should be used to save a new category.
 	 */
 	public boolean createCategory(Category category) {
-		return categoryDAO.createCategory(category);
+
+		if (category.getCategoryCreationDate() == null) {
+
+			category.setCategoryCreationDate(new Date());
+		}
+
+		boolean operationFlag = categoryDAO.createCategory(category);
+
+		listCacheManager.getCategoryListCache().invalidateUser(category.getCategoryCreatedBy());
+
+		return operationFlag;
 	}
 
 	/* This method should be used to delete an existing category. */
-	public boolean deleteCategory(int categoryId) {
-		return categoryDAO.deleteCategory(categoryId);
+	public boolean deleteCategory(int categoryId, String userId) {
+
+		boolean operationFlag = categoryDAO.deleteCategory(categoryId, userId);
+
+		listCacheManager.getCategoryListCache().invalidateUser(userId);
+		listCacheManager.getNoteListCache().clear();
+		listCacheManager.getNoteListCache().invalidateUser(userId);
+
+		return operationFlag;
 	}
 
 	/*
@@ -50,7 +79,14 @@ public class CategoryServiceImpl implements CategoryService {
 		
 		if(categoryRecord!=null) {
 			
-			if(categoryDAO.updateCategory(category)) {
+			boolean operationFlag = categoryDAO.updateCategory(category);
+
+			listCacheManager.getCategoryListCache().invalidateItem(id);
+			listCacheManager.getCategoryListCache().invalidateUser(category.getCategoryCreatedBy());
+			listCacheManager.getNoteListCache().clear();
+			listCacheManager.getNoteListCache().invalidateUser(categoryRecord.getCategoryCreatedBy());
+
+			if(operationFlag) {
 				
 				return category;
 			}
@@ -81,9 +117,42 @@ public class CategoryServiceImpl implements CategoryService {
 	}
 
 	/*
-	 * This method should be used to get a category by userId.
+	 * This method should be used to get a category by userId. The listing is served
+	 * from the per-user cache; the returned list is shared and must not be modified.
 	 */
 	public List<Category> getAllCategoryByUserId(String userId) {
-		return categoryDAO.getAllCategoryByUserId(userId);
+		return listCacheManager.getCategoryListCache().get(userId,
+				() -> categoryDAO.getAllCategoryByUserId(userId));
+	}
+
+	/*
+	 * This method should be used to pass every category of the user to the consumer
+	 * without building the full listing. The listing cache is bypassed.
+	 */
+	public int streamCategoriesByUserId(String userId, Consumer<Category> consumer) {
+		return categoryDAO.streamCategoriesByUserId(userId, consumer);
+	}
+
+	/*
+	 * This method should be used to get one page of categories by userId.
+	 */
+	public ResultPage<Category> getCategoriesByUserId(String userId, String afterCursor, int limit) {
+
+		PageCursor after = afterCursor == null ? null : PageCursor.decode(afterCursor);
+
+		List<Category> categories = categoryDAO.getCategoriesByUserId(userId, after, limit + 1);
+
+		String nextCursor = null;
+
+		if (categories.size() > limit) {
+
+			categories = new ArrayList<>(categories.subList(0, limit));
+
+			Category lastCategory = categories.get(limit - 1);
+
+			nextCursor = new PageCursor(lastCategory.getCategoryCreationDate(), lastCategory.getCategoryId()).encode();
+		}
+
+		return new ResultPage<>(categories, nextCursor);
 	}
 }
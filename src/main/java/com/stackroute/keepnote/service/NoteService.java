@@ -1,11 +1,17 @@
 package com.stackroute.keepnote.service;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import com.stackroute.keepnote.exception.CategoryNotFoundException;
 import com.stackroute.keepnote.exception.NoteNotFoundException;
+import com.stackroute.keepnote.exception.NoteVersionConflictException;
 import com.stackroute.keepnote.exception.ReminderNotFoundException;
 import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.NoteBatchResult;
+import com.stackroute.keepnote.model.NotePatch;
+import com.stackroute.keepnote.model.ResultPage;
+import com.stackroute.keepnote.model.SearchResult;
 
 public interface NoteService {
 	/*
@@ -14,12 +20,23 @@ public interface NoteService {
 	 */
 	public boolean createNote(Note note) throws ReminderNotFoundException, CategoryNotFoundException;
 
-	public boolean deleteNote(int noteId)throws NoteNotFoundException;
+	public List<NoteBatchResult> createNotes(List<Note> notes);
+
+	public boolean deleteNote(int noteId, String userId) throws NoteNotFoundException;
 
 	public List<Note> getAllNotesByUserId(String userId);
 
+	public int streamNotesByUserId(String userId, Consumer<Note> consumer);
+
+	public ResultPage<Note> getNotesByUserId(String userId, String afterCursor, int limit);
+
 	public Note getNoteById(int noteId) throws NoteNotFoundException;
 
-	public Note updateNote(Note note, int id)
-			throws ReminderNotFoundException, NoteNotFoundException, CategoryNotFoundException;
+	public SearchResult<Note> searchNotes(String userId, String query, int limit);
+
+	public Note updateNote(Note note, int id, String userId, Integer noteVersion) throws ReminderNotFoundException,
+			NoteNotFoundException, CategoryNotFoundException, NoteVersionConflictException;
+
+	public Note patchNote(NotePatch patch, int id, String userId) throws ReminderNotFoundException,
+			NoteNotFoundException, CategoryNotFoundException, NoteVersionConflictException;
 }
@@ -1,19 +1,33 @@
 package com.stackroute.keepnote.service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.stackroute.keepnote.cache.ListCacheManager;
 import com.stackroute.keepnote.dao.CategoryDAO;
 import com.stackroute.keepnote.dao.NoteDAO;
 import com.stackroute.keepnote.dao.ReminderDAO;
 import com.stackroute.keepnote.exception.CategoryNotFoundException;
 import com.stackroute.keepnote.exception.NoteNotFoundException;
+import com.stackroute.keepnote.exception.NoteVersionConflictException;
 import com.stackroute.keepnote.exception.ReminderNotFoundException;
 import com.stackroute.keepnote.model.Category;
 import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.NoteBatchResult;
+import com.stackroute.keepnote.model.NotePatch;
+import com.stackroute.keepnote.model.PageCursor;
 import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.model.ResultPage;
+import com.stackroute.keepnote.model.SearchResult;
+import com.stackroute.keepnote.search.NoteSearchIndex;
 
 /*
 * Service classes are used here to implement additional business logic/validation 
@@ -41,6 +55,19 @@ public class NoteServiceImpl implements NoteService {
 	@Autowired
 	private ReminderDAO reminderDAO;
 
+	/*
+	 * Per-user listing caches, invalidated after every successful write
+	 */
+	@Autowired
+	private ListCacheManager listCacheManager;
+
+	/*
+	 * Full-text index over the titles and contents of the notes, updated after
+	 * every successful write
+	 */
+	@Autowired
+	private NoteSearchIndex noteSearchIndex;
+
 	/*
 	 * This method should be used to save a new note.
 	 */
@@ -65,24 +92,209 @@ public class NoteServiceImpl implements NoteService {
 		note.setCategory(categoryRecord);
 		note.setReminder(reminderRecord);
 
+		if (note.getNoteCreatedAt() == null) {
+
+			note.setNoteCreatedAt(new Date());
+		}
+
 		operationFlag = noteDAO.createNote(note);
 
+		long listVersion = listCacheManager.getNoteListCache().invalidateUser(note.getCreatedBy());
+
+		if (operationFlag) {
+
+			noteSearchIndex.indexNote(note, listVersion);
+		}
+
 		return operationFlag;
 	}
 
+	/*
+	 * This method should be used to save a batch of notes. Every distinct category
+	 * and reminder id is resolved only once for the whole batch; notes referring to
+	 * an unknown category or reminder are reported as NOT_FOUND and the remaining
+	 * notes are written together in one transaction.
+	 */
+	public List<NoteBatchResult> createNotes(List<Note> notes) {
+
+		NoteBatchResult[] results = new NoteBatchResult[notes.size()];
+
+		Map<Integer, Category> categoryRecords = new HashMap<>();
+
+		Map<Integer, Reminder> reminderRecords = new HashMap<>();
+
+		List<Note> validNotes = new ArrayList<>(notes.size());
+
+		List<Integer> validIndexes = new ArrayList<>(notes.size());
+
+		for (int index = 0; index < notes.size(); index++) {
+
+			Note note = notes.get(index);
+
+			Category categoryRecord = null;
+
+			Reminder reminderRecord = null;
+
+			if (note.getCategory() != null) {
+
+				int categoryId = note.getCategory().getCategoryId();
+
+				if (!categoryRecords.containsKey(categoryId)) {
+
+					categoryRecords.put(categoryId, findCategory(categoryId));
+				}
+
+				categoryRecord = categoryRecords.get(categoryId);
+
+				if (categoryRecord == null) {
+
+					results[index] = new NoteBatchResult(index, null, NoteBatchResult.NOT_FOUND,
+							"Category record not found");
+					continue;
+				}
+			}
+
+			if (note.getReminder() != null) {
+
+				int reminderId = note.getReminder().getReminderId();
+
+				if (!reminderRecords.containsKey(reminderId)) {
+
+					reminderRecords.put(reminderId, findReminder(reminderId));
+				}
+
+				reminderRecord = reminderRecords.get(reminderId);
+
+				if (reminderRecord == null) {
+
+					results[index] = new NoteBatchResult(index, null, NoteBatchResult.NOT_FOUND,
+							"Reminder record not found");
+					continue;
+				}
+			}
+
+			note.setCategory(categoryRecord);
+			note.setReminder(reminderRecord);
+
+			if (note.getNoteCreatedAt() == null) {
+
+				note.setNoteCreatedAt(new Date());
+			}
+
+			validNotes.add(note);
+			validIndexes.add(index);
+		}
+
+		boolean operationFlag = validNotes.isEmpty() || noteDAO.createNotes(validNotes);
+
+		for (Note note : validNotes) {
+
+			listCacheManager.getNoteListCache().invalidateUser(note.getCreatedBy());
+		}
+
+		if (operationFlag) {
+
+			noteSearchIndex.indexNotes(validNotes);
+		}
+
+		for (int position = 0; position < validNotes.size(); position++) {
+
+			int index = validIndexes.get(position);
+
+			if (operationFlag) {
+
+				results[index] = new NoteBatchResult(index, validNotes.get(position).getNoteId(),
+						NoteBatchResult.CREATED, null);
+
+			} else {
+
+				results[index] = new NoteBatchResult(index, null, NoteBatchResult.CONFLICT,
+						"Batch rolled back because of a conflicting note");
+			}
+		}
+
+		return Arrays.asList(results);
+	}
+
+	private Category findCategory(int categoryId) {
+
+		try {
+
+			return categoryDAO.getCategoryById(categoryId);
+
+		} catch (CategoryNotFoundException exception) {
+
+			return null;
+		}
+	}
+
+	private Reminder findReminder(int reminderId) {
+
+		try {
+
+			return reminderDAO.getReminderById(reminderId);
+
+		} catch (ReminderNotFoundException exception) {
+
+			return null;
+		}
+	}
+
 	/* This method should be used to delete an existing note. */
 
-	public boolean deleteNote(int noteId) throws NoteNotFoundException {
-		
-		return noteDAO.deleteNote(noteId);
-		
+	public boolean deleteNote(int noteId, String userId) throws NoteNotFoundException {
+
+		boolean operationFlag = noteDAO.deleteNote(noteId, userId);
+
+		long listVersion = listCacheManager.getNoteListCache().invalidateUser(userId);
+
+		if (operationFlag) {
+
+			noteSearchIndex.removeNote(noteId, listVersion);
+		}
+
+		return operationFlag;
 	}
 	/*
-	 * This method should be used to get a note by userId.
+	 * This method should be used to get a note by userId. The listing is served from
+	 * the per-user cache; the returned list is shared and must not be modified.
 	 */
 
 	public List<Note> getAllNotesByUserId(String userId) {
-		return noteDAO.getAllNotesByUserId(userId);
+		return listCacheManager.getNoteListCache().get(userId, () -> noteDAO.getAllNotesByUserId(userId));
+	}
+
+	/*
+	 * This method should be used to pass every note of the user to the consumer
+	 * without building the full listing. The listing cache is bypassed so a large
+	 * listing is never held in memory as a whole.
+	 */
+	public int streamNotesByUserId(String userId, Consumer<Note> consumer) {
+		return noteDAO.streamNotesByUserId(userId, consumer);
+	}
+
+	/*
+	 * This method should be used to get one page of notes by userId. One extra row
+	 * is fetched to find out whether another page follows.
+	 */
+	public ResultPage<Note> getNotesByUserId(String userId, String afterCursor, int limit) {
+
+		PageCursor after = afterCursor == null ? null : PageCursor.decode(afterCursor);
+
+		List<Note> notes = noteDAO.getNotesByUserId(userId, after, limit + 1);
+
+		String nextCursor = null;
+
+		if (notes.size() > limit) {
+
+			notes = new ArrayList<>(notes.subList(0, limit));
+
+			Note lastNote = notes.get(limit - 1);
+
+			nextCursor = new PageCursor(lastNote.getNoteCreatedAt(), lastNote.getNoteId()).encode();
+		}
+
+		return new ResultPage<>(notes, nextCursor);
 	}
 
 	/*
@@ -93,18 +305,62 @@ public class NoteServiceImpl implements NoteService {
 	}
 
 	/*
-	 * This method should be used to update a existing note.
+	 * This method should be used to search the notes of a user by title and
+	 * content. The ranked note ids come from the in-memory index and the notes
+	 * themselves are read in one query, keeping the rank order.
 	 */
+	public SearchResult<Note> searchNotes(String userId, String query, int limit) {
+
+		SearchResult<Integer> noteIdResult = noteSearchIndex.search(userId, query, limit,
+				() -> noteDAO.getAllNotesByUserId(userId));
+
+		List<Integer> noteIds = noteIdResult.getItems();
+
+		List<Note> notes = new ArrayList<>(noteIds.size());
+
+		SearchResult<Note> noteResult = new SearchResult<>(notes, noteIdResult.getTruncatedPrefixes());
+
+		if (noteIds.isEmpty()) {
+
+			return noteResult;
+		}
+
+		Map<Integer, Note> noteRecords = new HashMap<>();
 
-	public Note updateNote(Note note, int id)
-			throws ReminderNotFoundException, NoteNotFoundException, CategoryNotFoundException {
+		for (Note note : noteDAO.getNotesByIds(noteIds)) {
+
+			noteRecords.put(note.getNoteId(), note);
+		}
+
+		for (Integer noteId : noteIds) {
+
+			Note note = noteRecords.get(noteId);
+
+			if (note != null) {
+
+				notes.add(note);
+			}
+		}
+
+		return noteResult;
+	}
+
+	/*
+	 * This method should be used to update a existing note of the given user; when
+	 * a noteVersion, the version the client read, is given, only while the note is
+	 * still at that version. The note with the given id is replaced in place; a
+	 * note sent without a creation date keeps the one it was created with, and the
+	 * owner is kept. As with a patch, the note is read once written, for the
+	 * caches, the search index and the response.
+	 */
+
+	public Note updateNote(Note note, int id, String userId, Integer noteVersion) throws ReminderNotFoundException,
+			NoteNotFoundException, CategoryNotFoundException, NoteVersionConflictException {
 
 		Category categoryRecord = null;
 
 		Reminder reminderRecord = null;
 
-		noteDAO.getNoteById(id);
-
 		if (note.getCategory() != null) {
 
 			categoryRecord = categoryDAO.getCategoryById(note.getCategory().getCategoryId());
@@ -117,8 +373,48 @@ public class NoteServiceImpl implements NoteService {
 
 		note.setCategory(categoryRecord);
 		note.setReminder(reminderRecord);
-		
-		noteDAO.UpdateNote(note);
+
+		noteDAO.replaceNote(id, userId, note, noteVersion);
+
+		listCacheManager.getNoteListCache().invalidateItem(id);
+
+		Note noteRecord = noteDAO.getNoteById(id);
+
+		long listVersion = listCacheManager.getNoteListCache().invalidateUser(noteRecord.getCreatedBy());
+
+		noteSearchIndex.indexNote(noteRecord, listVersion);
+
+		return noteRecord;
+	}
+
+	/*
+	 * Apply a partial update to an existing note of the given user, if it is still
+	 * at the version the patch was made against. The category and reminder of the patch, if any,
+	 * are resolved first; the note is read once written, for the caches, the search
+	 * index and the response.
+	 */
+	public Note patchNote(NotePatch patch, int id, String userId) throws ReminderNotFoundException,
+			NoteNotFoundException, CategoryNotFoundException, NoteVersionConflictException {
+
+		if (patch.getCategory() != null) {
+
+			patch.setCategory(categoryDAO.getCategoryById(patch.getCategory().getCategoryId()));
+		}
+
+		if (patch.getReminder() != null) {
+
+			patch.setReminder(reminderDAO.getReminderById(patch.getReminder().getReminderId()));
+		}
+
+		noteDAO.patchNote(id, userId, patch);
+
+		listCacheManager.getNoteListCache().invalidateItem(id);
+
+		Note note = noteDAO.getNoteById(id);
+
+		long listVersion = listCacheManager.getNoteListCache().invalidateUser(note.getCreatedBy());
+
+		noteSearchIndex.indexNote(note, listVersion);
 
 		return note;
 	}
@@ -1,9 +1,11 @@
 package com.stackroute.keepnote.service;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import com.stackroute.keepnote.exception.ReminderNotFoundException;
 import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.model.ResultPage;
 
 public interface ReminderService {
 	/*
@@ -14,9 +16,13 @@ public interface ReminderService {
 
 	public Reminder updateReminder(Reminder reminder, int id) throws ReminderNotFoundException;
 
-	public boolean deleteReminder(int reminderId);
+	public boolean deleteReminder(int reminderId, String userId);
 
 	public Reminder getReminderById(int reminderId) throws ReminderNotFoundException;
 
 	public List<Reminder> getAllReminderByUserId(String userId);
+
+	public int streamRemindersByUserId(String userId, Consumer<Reminder> consumer);
+
+	public ResultPage<Reminder> getRemindersByUserId(String userId, String afterCursor, int limit);
 }
@@ -1,13 +1,20 @@
 package com.stackroute.keepnote.service;
 
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.stackroute.keepnote.cache.ListCacheManager;
 import com.stackroute.keepnote.dao.ReminderDAO;
 import com.stackroute.keepnote.exception.ReminderNotFoundException;
+import com.stackroute.keepnote.model.PageCursor;
 import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.model.ResultPage;
+import com.stackroute.keepnote.scheduler.ReminderScheduler;
 
 /*
 * Service classes are used here to implement additional business logic/validation 
@@ -28,30 +35,95 @@ public class ReminderServiceImpl implements ReminderService {
 	 */
 	@Autowired
 	private ReminderDAO reminderDAO;
-	
+
+	/*
+	 * Per-user listing caches, invalidated after every successful write
+	 */
+	@Autowired
+	private ListCacheManager listCacheManager;
+
+	/*
+	 * Fires the reminders at their due time; rescheduled or cancelled after every
+	 * successful write
+	 */
+	@Autowired
+	private ReminderScheduler reminderScheduler;
 
 	/*
 	 * This method should be used to save a new reminder.
 	 */
 	public boolean createReminder(Reminder reminder) {
-		return reminderDAO.createReminder(reminder);
+
+		if (reminder.getReminderCreationDate() == null) {
+
+			reminder.setReminderCreationDate(new Date());
+		}
+
+		reminder.setReminderDueAt(ReminderScheduler.toSeconds(reminder.getReminderDueAt()));
+		reminder.setReminderFiredAt(null);
+
+		boolean operationFlag = reminderDAO.createReminder(reminder);
+
+		listCacheManager.getReminderListCache().invalidateUser(reminder.getReminderCreatedBy());
+
+		if (operationFlag) {
+
+			reminderScheduler.schedule(reminder);
+		}
+
+		return operationFlag;
 	}
 
 	/*
-	 * This method should be used to update a existing reminder.
+	 * This method should be used to update a existing reminder. The reminder with
+	 * the given id is updated in place, whatever id the body holds, and keeps its
+	 * creator and creation date. The time the reminder last fired is kept, so that
+	 * moving its due time to the future schedules it again while leaving it
+	 * untouched does not fire it twice. Returns null when the reminder was deleted
+	 * in the meantime.
 	 */
 	public Reminder updateReminder(Reminder reminder, int id) throws ReminderNotFoundException {
 
-		reminderDAO.getReminderById(id);
-			
-		reminderDAO.updateReminder(reminder);
-				
+		Reminder reminderRecord = reminderDAO.getReminderById(id);
+
+		reminder.setReminderId(id);
+		reminder.setReminderCreatedBy(reminderRecord.getReminderCreatedBy());
+		reminder.setReminderCreationDate(reminderRecord.getReminderCreationDate());
+		reminder.setReminderDueAt(ReminderScheduler.toSeconds(reminder.getReminderDueAt()));
+		reminder.setReminderFiredAt(reminderRecord.getReminderFiredAt());
+
+		if (!reminderDAO.updateReminder(reminder)) {
+
+			reminderScheduler.cancel(id);
+
+			return null;
+		}
+
+		reminderScheduler.schedule(reminder);
+
+		listCacheManager.getReminderListCache().invalidateItem(id);
+		listCacheManager.getReminderListCache().invalidateUser(reminder.getReminderCreatedBy());
+		listCacheManager.getNoteListCache().clear();
+		listCacheManager.getNoteListCache().invalidateUser(reminderRecord.getReminderCreatedBy());
+
 		return reminder;
 	}
 
 	/* This method should be used to delete an existing reminder. */
-	public boolean deleteReminder(int reminderId) {
-		return reminderDAO.deleteReminder(reminderId);
+	public boolean deleteReminder(int reminderId, String userId) {
+
+		boolean operationFlag = reminderDAO.deleteReminder(reminderId, userId);
+
+		if (operationFlag) {
+
+			reminderScheduler.cancel(reminderId);
+		}
+
+		listCacheManager.getReminderListCache().invalidateUser(userId);
+		listCacheManager.getNoteListCache().clear();
+		listCacheManager.getNoteListCache().invalidateUser(userId);
+
+		return operationFlag;
 	}
 
 	/*
@@ -62,9 +134,42 @@ public class ReminderServiceImpl implements ReminderService {
 	}
 
 	/*
-	 * This method should be used to get a reminder by userId.
+	 * This method should be used to get a reminder by userId. The listing is served
+	 * from the per-user cache; the returned list is shared and must not be modified.
 	 */
 	public List<Reminder> getAllReminderByUserId(String userId) {
-		return reminderDAO.getAllReminderByUserId(userId);
+		return listCacheManager.getReminderListCache().get(userId,
+				() -> reminderDAO.getAllReminderByUserId(userId));
+	}
+
+	/*
+	 * This method should be used to pass every reminder of the user to the consumer
+	 * without building the full listing. The listing cache is bypassed.
+	 */
+	public int streamRemindersByUserId(String userId, Consumer<Reminder> consumer) {
+		return reminderDAO.streamRemindersByUserId(userId, consumer);
+	}
+
+	/*
+	 * This method should be used to get one page of reminders by userId.
+	 */
+	public ResultPage<Reminder> getRemindersByUserId(String userId, String afterCursor, int limit) {
+
+		PageCursor after = afterCursor == null ? null : PageCursor.decode(afterCursor);
+
+		List<Reminder> reminders = reminderDAO.getRemindersByUserId(userId, after, limit + 1);
+
+		String nextCursor = null;
+
+		if (reminders.size() > limit) {
+
+			reminders = new ArrayList<>(reminders.subList(0, limit));
+
+			Reminder lastReminder = reminders.get(limit - 1);
+
+			nextCursor = new PageCursor(lastReminder.getReminderCreationDate(), lastReminder.getReminderId()).encode();
+		}
+
+		return new ResultPage<>(reminders, nextCursor);
 	}
 }
@@ -0,0 +1,83 @@
+package com.stackroute.keepnote.sql;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * The class "SlowQuery" is one execution kept by the SlowQueryLog: the statement,
+ * its rendered bind parameters, the batch size, the rows it changed or read, how
+ * long it took and the method that ran it.
+ */
+public class SlowQuery {
+
+	private final String sql;
+
+	private final String parameters;
+
+	private final int batchSize;
+
+	private final long rows;
+
+	private final long elapsedNanos;
+
+	private final String caller;
+
+	private final Instant executedAt;
+
+	public SlowQuery(String sql, String parameters, int batchSize, long rows, long elapsedNanos, String caller,
+			Instant executedAt) {
+		this.sql = sql;
+		this.parameters = parameters;
+		this.batchSize = batchSize;
+		this.rows = rows;
+		this.elapsedNanos = elapsedNanos;
+		this.caller = caller;
+		this.executedAt = executedAt;
+	}
+
+	public String getSql() {
+		return sql;
+	}
+
+	public String getParameters() {
+		return parameters;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public long getRows() {
+		return rows;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	public String getCaller() {
+		return caller;
+	}
+
+	public Instant getExecutedAt() {
+		return executedAt;
+	}
+
+	/*
+	 * The execution as rendered by the /admin/slow-queries endpoint
+	 */
+	public Map<String, Object> toMap() {
+
+		Map<String, Object> slowQuery = new LinkedHashMap<>();
+		slowQuery.put("elapsedMillis", elapsedNanos / 1e6);
+		slowQuery.put("rows", rows);
+		slowQuery.put("batchSize", batchSize);
+		slowQuery.put("caller", caller);
+		slowQuery.put("sql", sql);
+		slowQuery.put("parameters", parameters);
+		slowQuery.put("executedAt", executedAt.toString());
+
+		return slowQuery;
+	}
+}
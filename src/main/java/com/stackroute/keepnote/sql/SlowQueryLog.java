@@ -0,0 +1,262 @@
+package com.stackroute.keepnote.sql;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/*
+ * The class "SlowQueryLog" replaces printing every statement with show_sql. The
+ * SqlCountingDataSource hands it every completed execution; the ones that took at
+ * least thresholdMillis, executing and fetching their rows, are logged once as a
+ * WARN with their SQL, bind parameters, row count, time and the DAO method that ran
+ * them, such as NoteDAOImpl.getAllNotesByUserId. The topSize slowest of them are
+ * also kept in memory for the /admin/slow-queries endpoint.
+ *
+ * The bind parameters are redacted to their types unless redactParameters is
+ * false, as they hold note contents and passwords. Only slow executions pay for
+ * finding the caller and rendering the parameters.
+ *
+ * It is configured with the system properties keepnote.sql.slowQuery.thresholdMillis
+ * (default 100), keepnote.sql.slowQuery.topSize (default 20) and
+ * keepnote.sql.slowQuery.redactParameters (default true).
+ */
+@Component
+public class SlowQueryLog {
+
+	private static final long DEFAULT_THRESHOLD_MILLIS = 100;
+
+	private static final int DEFAULT_TOP_SIZE = 20;
+
+	private static final int MAX_VALUE_LENGTH = 64;
+
+	private static final String DAO_PACKAGE = "com.stackroute.keepnote.dao.";
+
+	private static final String APPLICATION_PACKAGE = "com.stackroute.keepnote.";
+
+	private static final String SQL_PACKAGE = "com.stackroute.keepnote.sql.";
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(SlowQueryLog.class);
+
+	private final long thresholdNanos;
+
+	private final int topSize;
+
+	private final boolean redactParameters;
+
+	private final Clock clock;
+
+	private final LongAdder slowQueryCount = new LongAdder();
+
+	// the slowest queries kept, the fastest of them first
+	private final PriorityQueue<SlowQuery> slowest = new PriorityQueue<>(
+			Comparator.comparingLong(SlowQuery::getElapsedNanos));
+
+	public SlowQueryLog() {
+		this(Long.getLong("keepnote.sql.slowQuery.thresholdMillis", DEFAULT_THRESHOLD_MILLIS),
+				Integer.getInteger("keepnote.sql.slowQuery.topSize", DEFAULT_TOP_SIZE),
+				Boolean.parseBoolean(System.getProperty("keepnote.sql.slowQuery.redactParameters", "true")),
+				Clock.systemUTC());
+	}
+
+	public SlowQueryLog(long thresholdMillis, int topSize, boolean redactParameters, Clock clock) {
+		this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+		this.topSize = topSize;
+		this.redactParameters = redactParameters;
+		this.clock = clock;
+	}
+
+	/*
+	 * Record a completed execution: the statement, the parameters of its last
+	 * batch entry, the number of batch entries, the rows it changed or read and
+	 * the nanoseconds it took
+	 */
+	public void record(String sql, Object[] parameters, int batchSize, long rows, long nanos) {
+
+		if (nanos < thresholdNanos) {
+
+			return;
+		}
+
+		slowQueryCount.increment();
+
+		SlowQuery slowQuery = new SlowQuery(sql, renderParameters(parameters), batchSize, rows, nanos, findCaller(),
+				clock.instant());
+
+		LOGGER.warn("Slow query of {} ms in {}, {} rows{}: {} {}", TimeUnit.NANOSECONDS.toMillis(nanos),
+				slowQuery.getCaller(), rows, batchSize > 1 ? ", batch of " + batchSize : "", sql,
+				slowQuery.getParameters());
+
+		synchronized (slowest) {
+
+			if (slowest.size() < topSize) {
+
+				slowest.add(slowQuery);
+
+			} else if (topSize > 0 && slowest.peek().getElapsedNanos() < nanos) {
+
+				slowest.poll();
+				slowest.add(slowQuery);
+			}
+		}
+	}
+
+	/*
+	 * The slowest queries kept, the slowest first
+	 */
+	public List<SlowQuery> getSlowest() {
+
+		List<SlowQuery> slowQueries;
+
+		synchronized (slowest) {
+
+			slowQueries = new ArrayList<>(slowest);
+		}
+
+		slowQueries.sort(Comparator.comparingLong(SlowQuery::getElapsedNanos).reversed());
+
+		return slowQueries;
+	}
+
+	public long getSlowQueryCount() {
+		return slowQueryCount.sum();
+	}
+
+	public long getThresholdMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+	}
+
+	public int getTopSize() {
+		return topSize;
+	}
+
+	public boolean isRedactParameters() {
+		return redactParameters;
+	}
+
+	/*
+	 * The settings, the number of slow queries so far and the slowest of them, as
+	 * rendered by the /admin/slow-queries endpoint
+	 */
+	public Map<String, Object> toMap() {
+
+		List<Map<String, Object>> slowQueries = new ArrayList<>();
+
+		for (SlowQuery slowQuery : getSlowest()) {
+
+			slowQueries.add(slowQuery.toMap());
+		}
+
+		Map<String, Object> slowQueryMetrics = new LinkedHashMap<>();
+		slowQueryMetrics.put("thresholdMillis", getThresholdMillis());
+		slowQueryMetrics.put("topSize", topSize);
+		slowQueryMetrics.put("redactParameters", redactParameters);
+		slowQueryMetrics.put("slowQueries", getSlowQueryCount());
+		slowQueryMetrics.put("slowest", slowQueries);
+
+		return slowQueryMetrics;
+	}
+
+	/*
+	 * The parameters as [1: 'Jhon123', 2: 42], or [1: <String>, 2: <Integer>] when
+	 * redacted
+	 */
+	private String renderParameters(Object[] parameters) {
+
+		if (parameters == null) {
+
+			return "[]";
+		}
+
+		StringBuilder rendered = new StringBuilder("[");
+
+		for (int index = 0; index < parameters.length; index++) {
+
+			Object value = parameters[index];
+
+			if (index > 0) {
+
+				rendered.append(", ");
+			}
+
+			rendered.append(index + 1).append(": ");
+
+			if (value == null) {
+
+				rendered.append("NULL");
+
+			} else if (value instanceof byte[]) {
+
+				rendered.append('<').append(((byte[]) value).length).append(" bytes>");
+
+			} else if (redactParameters) {
+
+				rendered.append('<').append(value.getClass().getSimpleName()).append('>');
+
+			} else {
+
+				String text = String.valueOf(value);
+
+				if (text.length() > MAX_VALUE_LENGTH) {
+
+					text = text.substring(0, MAX_VALUE_LENGTH) + "...";
+				}
+
+				if (value instanceof CharSequence) {
+
+					rendered.append('\'').append(text).append('\'');
+
+				} else {
+
+					rendered.append(text);
+				}
+			}
+		}
+
+		return rendered.append(']').toString();
+	}
+
+	/*
+	 * The DAO method, or failing that the first application method, on the stack
+	 * of the current thread, as SimpleClassName.methodName
+	 */
+	private static String findCaller() {
+
+		String applicationCaller = "unknown";
+
+		for (StackTraceElement frame : new Throwable().getStackTrace()) {
+
+			String className = frame.getClassName();
+
+			// skip this package and the Spring proxies
+			if (!className.startsWith(APPLICATION_PACKAGE) || className.startsWith(SQL_PACKAGE)
+					|| className.contains("$$")) {
+
+				continue;
+			}
+
+			String caller = className.substring(className.lastIndexOf('.') + 1) + "." + frame.getMethodName();
+
+			if (className.startsWith(DAO_PACKAGE)) {
+
+				return caller;
+			}
+
+			if ("unknown".equals(applicationCaller)) {
+
+				applicationCaller = caller;
+			}
+		}
+
+		return applicationCaller;
+	}
+}
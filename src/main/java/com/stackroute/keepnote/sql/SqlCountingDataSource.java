@@ -0,0 +1,409 @@
+package com.stackroute.keepnote.sql;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/*
+ * The class "SqlCountingDataSource" wraps the connections of another DataSource so
+ * that every statement executed through them, whether issued by Hibernate, Flyway
+ * or plain JDBC, is recorded in the SqlStatistics bound to the current thread: one
+ * statement per execution, or per entry of an executed batch, the rows updated or
+ * read, and the time spent executing and fetching. With a SlowQueryLog, the bind
+ * parameters of the prepared statements are captured too, and every execution is
+ * handed to the log once complete, that is once its result set is exhausted or
+ * closed. Threads without bound statistics and without a SlowQueryLog pay one
+ * ThreadLocal lookup per execution.
+ *
+ * The wrappers are JDK proxies of the JDBC interfaces. Equality is identity of the
+ * proxy, as Hibernate keys its resource registry by statement.
+ */
+public class SqlCountingDataSource extends DelegatingDataSource {
+
+	private final SlowQueryLog slowQueryLog;
+
+	public SqlCountingDataSource(DataSource targetDataSource) {
+		this(targetDataSource, null);
+	}
+
+	public SqlCountingDataSource(DataSource targetDataSource, SlowQueryLog slowQueryLog) {
+		super(targetDataSource);
+		this.slowQueryLog = slowQueryLog;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return (Connection) wrap(Connection.class, new ConnectionHandler(super.getConnection(), slowQueryLog));
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return (Connection) wrap(Connection.class,
+				new ConnectionHandler(super.getConnection(username, password), slowQueryLog));
+	}
+
+	private static Object wrap(Class<?> type, JdbcHandler handler) {
+		return Proxy.newProxyInstance(SqlCountingDataSource.class.getClassLoader(), new Class<?>[] { type }, handler);
+	}
+
+	/*
+	 * Base of the proxies: identity equality, and the target exceptions rethrown as
+	 * they are
+	 */
+	private abstract static class JdbcHandler implements InvocationHandler {
+
+		final Object target;
+
+		JdbcHandler(Object target) {
+			this.target = target;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+			switch (method.getName()) {
+
+			case "equals":
+				return proxy == args[0];
+
+			case "hashCode":
+				return System.identityHashCode(proxy);
+
+			default:
+				return handle(method, args);
+			}
+		}
+
+		abstract Object handle(Method method, Object[] args) throws Throwable;
+
+		final Object delegate(Method method, Object[] args) throws Throwable {
+
+			try {
+
+				return method.invoke(target, args);
+
+			} catch (InvocationTargetException exception) {
+
+				throw exception.getCause();
+			}
+		}
+	}
+
+	/*
+	 * Wraps the statements a connection creates, keeping the SQL they were
+	 * prepared with
+	 */
+	private static final class ConnectionHandler extends JdbcHandler {
+
+		private final SlowQueryLog slowQueryLog;
+
+		ConnectionHandler(Connection target, SlowQueryLog slowQueryLog) {
+			super(target);
+			this.slowQueryLog = slowQueryLog;
+		}
+
+		@Override
+		Object handle(Method method, Object[] args) throws Throwable {
+
+			Object result = delegate(method, args);
+
+			switch (method.getName()) {
+
+			case "prepareStatement":
+			case "prepareCall":
+				return wrap(method.getReturnType(),
+						new StatementHandler((Statement) result, (String) args[0], slowQueryLog));
+
+			case "createStatement":
+				return wrap(method.getReturnType(), new StatementHandler((Statement) result, null, slowQueryLog));
+
+			default:
+				return result;
+			}
+		}
+	}
+
+	/*
+	 * Times the executions of a statement and counts the rows they update; the
+	 * result sets are wrapped to count the rows read. The parameters set on a
+	 * prepared statement are captured by index when there is a SlowQueryLog.
+	 */
+	private static final class StatementHandler extends JdbcHandler {
+
+		private final String preparedSql;
+
+		private final SlowQueryLog slowQueryLog;
+
+		private final List<Object> parameters;
+
+		private String batchSql;
+
+		private int batchCount;
+
+		StatementHandler(Statement target, String preparedSql, SlowQueryLog slowQueryLog) {
+			super(target);
+			this.preparedSql = preparedSql;
+			this.slowQueryLog = slowQueryLog;
+			this.parameters = slowQueryLog != null && preparedSql != null ? new ArrayList<>() : null;
+		}
+
+		@Override
+		Object handle(Method method, Object[] args) throws Throwable {
+
+			String name = method.getName();
+
+			// setString(1, ...), setNull(2, Types.INTEGER), but not setFetchSize(100)
+			if (parameters != null && name.startsWith("set") && args != null && args.length >= 2
+					&& args[0] instanceof Integer) {
+
+				setParameter((Integer) args[0], "setNull".equals(name) ? null : args[1]);
+
+				return delegate(method, args);
+			}
+
+			switch (name) {
+
+			case "clearParameters":
+				if (parameters != null) {
+
+					parameters.clear();
+				}
+				return delegate(method, args);
+
+			case "addBatch":
+				batchCount++;
+				batchSql = args == null ? preparedSql : (String) args[0];
+				return delegate(method, args);
+
+			case "clearBatch":
+				batchCount = 0;
+				return delegate(method, args);
+
+			case "executeBatch":
+			case "executeLargeBatch":
+				int count = Math.max(batchCount, 1);
+				batchCount = 0;
+				return execute(method, args, batchSql, count);
+
+			case "execute":
+			case "executeQuery":
+			case "executeUpdate":
+			case "executeLargeUpdate":
+				return execute(method, args, args != null && args.length > 0 ? (String) args[0] : preparedSql, 1);
+
+			case "getResultSet":
+				return wrapResultSet((ResultSet) delegate(method, args), SqlStatisticsContext.getStatistics(), null);
+
+			default:
+				return delegate(method, args);
+			}
+		}
+
+		private void setParameter(int index, Object value) {
+
+			while (parameters.size() < index) {
+
+				parameters.add(null);
+			}
+
+			parameters.set(index - 1, value);
+		}
+
+		private Object execute(Method method, Object[] args, String sql, int count) throws Throwable {
+
+			SqlStatistics statistics = SqlStatisticsContext.getStatistics();
+
+			if (statistics == null && slowQueryLog == null) {
+
+				return delegate(method, args);
+			}
+
+			Execution execution = new Execution(statistics, slowQueryLog, sql, count,
+					parameters == null ? null : parameters.toArray());
+
+			long start = System.nanoTime();
+
+			Object result = null;
+
+			try {
+
+				result = delegate(method, args);
+
+			} finally {
+
+				execution.nanos = System.nanoTime() - start;
+
+				if (!(result instanceof ResultSet)) {
+
+					execution.rows = updatedRows(result);
+					execution.complete();
+				}
+			}
+
+			return result instanceof ResultSet ? wrapResultSet((ResultSet) result, statistics, execution) : result;
+		}
+
+		private Object wrapResultSet(ResultSet resultSet, SqlStatistics statistics, Execution execution) {
+
+			if (resultSet == null || statistics == null && execution == null) {
+
+				return resultSet;
+			}
+
+			// a result set asked for after execute() belongs to an execution already counted
+			return wrap(ResultSet.class, new ResultSetHandler(resultSet,
+					execution == null ? new Execution(statistics, null, null, 0, null) : execution));
+		}
+
+		/*
+		 * The rows changed according to the result of an execution; execute() answers
+		 * false for an update, whose count is then asked from the statement
+		 */
+		private long updatedRows(Object result) throws SQLException {
+
+			if (result instanceof Integer || result instanceof Long) {
+
+				return Math.max(((Number) result).longValue(), 0);
+			}
+
+			if (result instanceof int[]) {
+
+				long rows = 0;
+
+				for (int updated : (int[]) result) {
+
+					rows += Math.max(updated, 0);
+				}
+
+				return rows;
+			}
+
+			if (result instanceof long[]) {
+
+				long rows = 0;
+
+				for (long updated : (long[]) result) {
+
+					rows += Math.max(updated, 0);
+				}
+
+				return rows;
+			}
+
+			if (Boolean.FALSE.equals(result)) {
+
+				return Math.max(((Statement) target).getUpdateCount(), 0);
+			}
+
+			return 0;
+		}
+	}
+
+	/*
+	 * Counts the rows read from a result set and the time next() spends fetching
+	 * them, completing the execution when the rows run out or the result set is
+	 * closed
+	 */
+	private static final class ResultSetHandler extends JdbcHandler {
+
+		private final Execution execution;
+
+		ResultSetHandler(ResultSet target, Execution execution) {
+			super(target);
+			this.execution = execution;
+		}
+
+		@Override
+		Object handle(Method method, Object[] args) throws Throwable {
+
+			switch (method.getName()) {
+
+			case "next":
+				long start = System.nanoTime();
+
+				Object hasRow = delegate(method, args);
+
+				execution.nanos += System.nanoTime() - start;
+
+				if (Boolean.TRUE.equals(hasRow)) {
+
+					execution.rows++;
+
+				} else {
+
+					execution.complete();
+				}
+
+				return hasRow;
+
+			case "close":
+				execution.complete();
+				return delegate(method, args);
+
+			default:
+				return delegate(method, args);
+			}
+		}
+	}
+
+	/*
+	 * One execution of a statement, from execute() until its rows are read
+	 */
+	private static final class Execution {
+
+		private final SqlStatistics statistics;
+
+		private final SlowQueryLog slowQueryLog;
+
+		private final String sql;
+
+		private final int count;
+
+		private final Object[] parameters;
+
+		private long nanos;
+
+		private long rows;
+
+		private boolean completed;
+
+		Execution(SqlStatistics statistics, SlowQueryLog slowQueryLog, String sql, int count, Object[] parameters) {
+			this.statistics = statistics;
+			this.slowQueryLog = slowQueryLog;
+			this.sql = sql;
+			this.count = count;
+			this.parameters = parameters;
+		}
+
+		void complete() {
+
+			if (completed) {
+
+				return;
+			}
+
+			completed = true;
+
+			if (statistics != null) {
+
+				statistics.recordStatement(sql, count, rows, nanos);
+			}
+
+			if (slowQueryLog != null) {
+
+				slowQueryLog.record(sql, parameters, count, rows, nanos);
+			}
+		}
+	}
+}
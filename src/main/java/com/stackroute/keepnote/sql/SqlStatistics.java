@@ -0,0 +1,85 @@
+package com.stackroute.keepnote.sql;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * The class "SqlStatistics" counts the SQL work of one request: the statements it
+ * executed, the rows they read or changed and the time spent in the driver. It
+ * also counts how often every distinct statement ran, so that the same select run
+ * once per loaded row, the N+1 pattern, stands out as its most repeated statement.
+ *
+ * The statements of a request can run on the container thread and on a
+ * RequestExecutor thread one after the other, so the counters are guarded by the
+ * instance itself.
+ */
+public class SqlStatistics {
+
+	/*
+	 * The request attribute holding the statistics of the request
+	 */
+	public static final String ATTRIBUTE = SqlStatistics.class.getName();
+
+	private long statementCount;
+
+	private long rowCount;
+
+	private long elapsedNanos;
+
+	private final Map<String, Integer> executions = new HashMap<>();
+
+	private String mostRepeatedSql;
+
+	private int mostRepeatedCount;
+
+	/*
+	 * Record the execution of a statement, counting every entry of a batch, with
+	 * the rows it changed or read. Executions without SQL text, such as the rows
+	 * of a result set asked for after execute(), are not tracked for repeats
+	 */
+	public synchronized void recordStatement(String sql, int count, long rows, long nanos) {
+
+		statementCount += count;
+		rowCount += rows;
+		elapsedNanos += nanos;
+
+		if (sql == null) {
+
+			return;
+		}
+
+		int executed = executions.merge(sql, count, Integer::sum);
+
+		if (executed > mostRepeatedCount) {
+
+			mostRepeatedCount = executed;
+			mostRepeatedSql = sql;
+		}
+	}
+
+	public synchronized long getStatementCount() {
+		return statementCount;
+	}
+
+	public synchronized long getRowCount() {
+		return rowCount;
+	}
+
+	public synchronized long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	public synchronized String getMostRepeatedSql() {
+		return mostRepeatedSql;
+	}
+
+	public synchronized int getMostRepeatedCount() {
+		return mostRepeatedCount;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return statementCount + " statements, " + rowCount + " rows, " + elapsedNanos / 1000 + " us"
+				+ (mostRepeatedCount > 1 ? ", " + mostRepeatedCount + " x [" + mostRepeatedSql + "]" : "");
+	}
+}
@@ -0,0 +1,27 @@
+package com.stackroute.keepnote.sql;
+
+/*
+ * The class "SqlStatisticsContext" holds the SqlStatistics of the request the
+ * current thread works for. It is bound by the SqlStatisticsInterceptor, carried
+ * over to the RequestExecutor threads like the RequestUserContext, and fed by the
+ * SqlCountingDataSource.
+ */
+public final class SqlStatisticsContext {
+
+	private static final ThreadLocal<SqlStatistics> CURRENT_STATISTICS = new ThreadLocal<>();
+
+	private SqlStatisticsContext() {
+	}
+
+	public static void setStatistics(SqlStatistics statistics) {
+		CURRENT_STATISTICS.set(statistics);
+	}
+
+	public static SqlStatistics getStatistics() {
+		return CURRENT_STATISTICS.get();
+	}
+
+	public static void clear() {
+		CURRENT_STATISTICS.remove();
+	}
+}
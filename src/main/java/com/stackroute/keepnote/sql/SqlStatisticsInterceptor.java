@@ -0,0 +1,172 @@
+package com.stackroute.keepnote.sql;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import com.stackroute.keepnote.metrics.MetricsRegistry;
+
+/*
+ * The class "SqlStatisticsInterceptor" gives every request a SqlStatistics, bound
+ * to the SqlStatisticsContext while the request is handled and kept as the
+ * "SqlStatistics" request attribute. When the request completes its counts are
+ * added to the keepnote_http_request_sql_* metrics of its mapping, and a request
+ * that ran one statement at least repeatedStatementThreshold times is logged as an
+ * N+1 suspect with the statement.
+ *
+ * With keepnote.sql.responseHeaders=true (default false, as they tell any
+ * client how its requests hit the database) the counts are also sent as the
+ * X-SQL-Statements, X-SQL-Rows and X-SQL-Time-Micros response headers, for
+ * development and load tests. As a ResponseBodyAdvice it sets them just before
+ * the body is written, which is after the RequestExecutor work of the request;
+ * responses without a body get them once the handler returns. The streamed
+ * listings commit the response while they are still reading, so they are only
+ * counted in the metrics.
+ *
+ * The threshold is the system property keepnote.sql.repeatedStatementThreshold
+ * (default 10).
+ */
+@ControllerAdvice
+public class SqlStatisticsInterceptor implements AsyncHandlerInterceptor, ResponseBodyAdvice<Object> {
+
+	public static final String STATEMENTS_HEADER = "X-SQL-Statements";
+
+	public static final String ROWS_HEADER = "X-SQL-Rows";
+
+	public static final String TIME_HEADER = "X-SQL-Time-Micros";
+
+	private static final int DEFAULT_REPEATED_STATEMENT_THRESHOLD = 10;
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(SqlStatisticsInterceptor.class);
+
+	private final MetricsRegistry metricsRegistry;
+
+	private final boolean responseHeaders;
+
+	private final int repeatedStatementThreshold;
+
+	@Autowired
+	public SqlStatisticsInterceptor(MetricsRegistry metricsRegistry) {
+		this(metricsRegistry, Boolean.parseBoolean(System.getProperty("keepnote.sql.responseHeaders", "false")),
+				Integer.getInteger("keepnote.sql.repeatedStatementThreshold", DEFAULT_REPEATED_STATEMENT_THRESHOLD));
+	}
+
+	public SqlStatisticsInterceptor(MetricsRegistry metricsRegistry, boolean responseHeaders,
+			int repeatedStatementThreshold) {
+		this.metricsRegistry = metricsRegistry;
+		this.responseHeaders = responseHeaders;
+		this.repeatedStatementThreshold = repeatedStatementThreshold;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+
+		// an async dispatch keeps counting into the statistics of the first dispatch
+		SqlStatistics statistics = (SqlStatistics) request.getAttribute(SqlStatistics.ATTRIBUTE);
+
+		if (statistics == null) {
+
+			statistics = new SqlStatistics();
+			request.setAttribute(SqlStatistics.ATTRIBUTE, statistics);
+		}
+
+		SqlStatisticsContext.setStatistics(statistics);
+
+		return true;
+	}
+
+	@Override
+	public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+			ModelAndView modelAndView) {
+
+		if (!response.isCommitted()) {
+
+			writeHeaders(request, response);
+		}
+	}
+
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+			Object handler) {
+
+		SqlStatisticsContext.clear();
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception exception) {
+
+		SqlStatisticsContext.clear();
+
+		SqlStatistics statistics = (SqlStatistics) request.getAttribute(SqlStatistics.ATTRIBUTE);
+
+		if (statistics == null) {
+
+			return;
+		}
+
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+
+		String path = pattern == null ? "unmapped" : pattern.toString();
+
+		boolean repeatedStatement = statistics.getMostRepeatedCount() >= repeatedStatementThreshold;
+
+		metricsRegistry.getRequestSqlMetrics(request.getMethod(), path).record(statistics.getStatementCount(),
+				statistics.getRowCount(), statistics.getElapsedNanos(), repeatedStatement);
+
+		if (repeatedStatement) {
+
+			LOGGER.warn("Possible N+1 in {} {}: the same statement ran {} times of {} [{}]", request.getMethod(),
+					path, statistics.getMostRepeatedCount(), statistics.getStatementCount(),
+					statistics.getMostRepeatedSql());
+		}
+	}
+
+	@Override
+	public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+		return responseHeaders;
+	}
+
+	@Override
+	public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+			Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+			ServerHttpResponse response) {
+
+		if (request instanceof ServletServerHttpRequest && response instanceof ServletServerHttpResponse) {
+
+			writeHeaders(((ServletServerHttpRequest) request).getServletRequest(),
+					((ServletServerHttpResponse) response).getServletResponse());
+		}
+
+		return body;
+	}
+
+	private void writeHeaders(HttpServletRequest request, HttpServletResponse response) {
+
+		SqlStatistics statistics = (SqlStatistics) request.getAttribute(SqlStatistics.ATTRIBUTE);
+
+		if (!responseHeaders || statistics == null) {
+
+			return;
+		}
+
+		response.setHeader(STATEMENTS_HEADER, Long.toString(statistics.getStatementCount()));
+		response.setHeader(ROWS_HEADER, Long.toString(statistics.getRowCount()));
+		response.setHeader(TIME_HEADER, Long.toString(statistics.getElapsedNanos() / 1000));
+	}
+}
@@ -0,0 +1,60 @@
+-- Baseline schema of the KeepNote application, equivalent to what
+-- hibernate.hbm2ddl.auto=create used to generate from the entity mappings.
+
+create table USER (
+	USER_ID varchar(255) not null,
+	USER_ADDED_DATE datetime,
+	USER_MOBILE varchar(255),
+	USER_NAME varchar(255),
+	USER_PASSWORD varchar(255),
+	primary key (USER_ID)
+) engine=InnoDB;
+
+create table CATEGORY (
+	CATEGORY_ID integer not null auto_increment,
+	CATEGORY_CREATOR varchar(255),
+	CATEGORY_CREATION_DATE datetime,
+	CATEGORY_DESCR varchar(255),
+	CATEGORY_NAME varchar(255),
+	primary key (CATEGORY_ID)
+) engine=InnoDB;
+
+create table REMINDER (
+	REMINDER_ID integer not null auto_increment,
+	REMINDER_CREATOR varchar(255),
+	REMINDER_CREATION_DATE datetime,
+	REMINDER_DESCR varchar(255),
+	REMINDER_NAME varchar(255),
+	REMINDER_TYPE varchar(255),
+	primary key (REMINDER_ID)
+) engine=InnoDB;
+
+create table NOTE (
+	NOTE_ID integer not null auto_increment,
+	NOTE_CREATOR varchar(255),
+	NOTE_CONTENT varchar(255),
+	NOTE_CREATION_DATE datetime,
+	NOTE_STATUS varchar(255),
+	NOTE_TITLE varchar(255),
+	CATEGORY_ID integer,
+	REMINDER_ID integer,
+	primary key (NOTE_ID),
+	constraint FK_NOTE_CATEGORY foreign key (CATEGORY_ID) references CATEGORY (CATEGORY_ID),
+	constraint FK_NOTE_REMINDER foreign key (REMINDER_ID) references REMINDER (REMINDER_ID)
+) engine=InnoDB;
+
+create table CATEGORY_NOTE (
+	Category_CATEGORY_ID integer not null,
+	notes_NOTE_ID integer not null,
+	constraint UK_CATEGORY_NOTE_NOTE unique (notes_NOTE_ID),
+	constraint FK_CATEGORY_NOTE_NOTE foreign key (notes_NOTE_ID) references NOTE (NOTE_ID),
+	constraint FK_CATEGORY_NOTE_CATEGORY foreign key (Category_CATEGORY_ID) references CATEGORY (CATEGORY_ID)
+) engine=InnoDB;
+
+create table REMINDER_NOTE (
+	Reminder_REMINDER_ID integer not null,
+	notes_NOTE_ID integer not null,
+	constraint UK_REMINDER_NOTE_NOTE unique (notes_NOTE_ID),
+	constraint FK_REMINDER_NOTE_NOTE foreign key (notes_NOTE_ID) references NOTE (NOTE_ID),
+	constraint FK_REMINDER_NOTE_REMINDER foreign key (Reminder_REMINDER_ID) references REMINDER (REMINDER_ID)
+) engine=InnoDB;
@@ -0,0 +1,9 @@
+-- Every per-user listing filters on the creator column and pages through the
+-- rows ordered by creation date and id, so one composite index per table turns
+-- those queries into index range scans.
+
+create index IDX_NOTE_CREATOR on NOTE (NOTE_CREATOR, NOTE_CREATION_DATE, NOTE_ID);
+
+create index IDX_CATEGORY_CREATOR on CATEGORY (CATEGORY_CREATOR, CATEGORY_CREATION_DATE, CATEGORY_ID);
+
+create index IDX_REMINDER_CREATOR on REMINDER (REMINDER_CREATOR, REMINDER_CREATION_DATE, REMINDER_ID);
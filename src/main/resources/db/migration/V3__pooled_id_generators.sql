@@ -0,0 +1,21 @@
+-- Note, Category and Reminder ids are handed out in blocks of 50 by Hibernate's
+-- pooled-lo optimizer instead of coming from AUTO_INCREMENT, so that inserts can
+-- be sent as JDBC batches. MySQL has no sequences, so each generator is backed by
+-- a single-row table holding the low value of the next free block. Reserving a
+-- block is an isolated "select ... for update" plus update on that row, which
+-- keeps blocks unique across every node sharing the database.
+--
+-- Existing keys are kept as they are: each table is seeded just above the highest
+-- id already in use. The AUTO_INCREMENT attribute stays on the key columns; it is
+-- no longer used by the application because the ids are now always supplied.
+-- next_val is a BIGINT, so the key columns can later be widened to BIGINT
+-- without touching the generators.
+
+create table NOTE_ID_SEQ (next_val bigint) engine=InnoDB;
+insert into NOTE_ID_SEQ select coalesce(max(NOTE_ID), 0) + 1 from NOTE;
+
+create table CATEGORY_ID_SEQ (next_val bigint) engine=InnoDB;
+insert into CATEGORY_ID_SEQ select coalesce(max(CATEGORY_ID), 0) + 1 from CATEGORY;
+
+create table REMINDER_ID_SEQ (next_val bigint) engine=InnoDB;
+insert into REMINDER_ID_SEQ select coalesce(max(REMINDER_ID), 0) + 1 from REMINDER;
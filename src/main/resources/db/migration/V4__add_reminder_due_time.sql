@@ -0,0 +1,13 @@
+-- Reminders get a due time, an optional recurrence (HOURLY, DAILY, WEEKLY or
+-- MONTHLY) and the time they last fired. The scheduler reads the pending
+-- reminders (due time set and not fired since) when the application starts, and
+-- marks a reminder as fired with an update conditional on its due time, so that
+-- only one node fires it when several share the database.
+
+alter table REMINDER add column REMINDER_DUE_AT datetime;
+
+alter table REMINDER add column REMINDER_RECURRENCE varchar(16);
+
+alter table REMINDER add column REMINDER_FIRED_AT datetime;
+
+create index IDX_REMINDER_DUE_AT on REMINDER (REMINDER_DUE_AT);
@@ -0,0 +1,20 @@
+-- The notes of a category or a reminder are the notes whose CATEGORY_ID or
+-- REMINDER_ID points at it: Category.notes and Reminder.notes are now mapped as
+-- the inverse side of Note.category and Note.reminder. The CATEGORY_NOTE and
+-- REMINDER_NOTE join tables Hibernate kept for those collections held the same
+-- association a second time, and cost extra inserts and deletes on every note
+-- linked to or unlinked from its category or reminder.
+--
+-- The application never linked a note through the collections alone, but any
+-- note that only its join table row ties to a category or reminder keeps it by
+-- copying the row into the foreign key before the tables are dropped.
+
+update NOTE set CATEGORY_ID = (select Category_CATEGORY_ID from CATEGORY_NOTE where notes_NOTE_ID = NOTE.NOTE_ID)
+where CATEGORY_ID is null and NOTE_ID in (select notes_NOTE_ID from CATEGORY_NOTE);
+
+update NOTE set REMINDER_ID = (select Reminder_REMINDER_ID from REMINDER_NOTE where notes_NOTE_ID = NOTE.NOTE_ID)
+where REMINDER_ID is null and NOTE_ID in (select notes_NOTE_ID from REMINDER_NOTE);
+
+drop table CATEGORY_NOTE;
+
+drop table REMINDER_NOTE;
@@ -0,0 +1,6 @@
+-- Notes carry a version for optimistic locking. Every update of a note bumps it,
+-- and PATCH /note/{id} only applies when the version the client read is still
+-- the current one, so concurrent edits are reported as a conflict instead of
+-- silently overwriting each other. Existing notes start at version 0.
+
+alter table NOTE add column NOTE_VERSION integer not null default 0;
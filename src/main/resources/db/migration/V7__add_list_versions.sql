@@ -0,0 +1,12 @@
+-- Every node keeps the per-user note, category and reminder listings in memory.
+-- A write bumps the version of the listing of its user in this table, and a
+-- node only serves a cached listing while the version it was loaded at is still
+-- the current one, so a write on one node invalidates the listing on all of
+-- them. Users without a row are at version 0.
+
+create table LIST_VERSION (
+	USER_ID varchar(255) not null,
+	LIST_NAME varchar(32) not null,
+	LIST_VERSION bigint not null,
+	primary key (USER_ID, LIST_NAME)
+) engine=InnoDB;
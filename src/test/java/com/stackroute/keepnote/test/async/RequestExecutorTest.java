@@ -0,0 +1,215 @@
+package com.stackroute.keepnote.test.async;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import com.stackroute.keepnote.async.RequestExecutor;
+import com.stackroute.keepnote.async.RequestExecutors;
+import com.stackroute.keepnote.async.ThreadMode;
+import com.stackroute.keepnote.async.VirtualThreads;
+import com.stackroute.keepnote.datasource.DataSourcePools;
+import com.stackroute.keepnote.datasource.InstrumentedBasicDataSource;
+import com.stackroute.keepnote.datasource.RequestUserContext;
+
+public class RequestExecutorTest {
+
+	private RequestExecutor requestExecutor;
+
+	@Before
+	public void setUp() throws Exception {
+		requestExecutor = new RequestExecutor("test", 1, 1, 10000);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		RequestUserContext.clear();
+		requestExecutor.shutdown(1, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void testTaskRunsOnNamedThreadWithRequestUser() throws InterruptedException {
+		RequestUserContext.setUserId("Jhon123");
+		DeferredResult<String> deferredResult = requestExecutor
+				.submit(() -> Thread.currentThread().getName() + "/" + RequestUserContext.getUserId());
+		assertEquals("keepnote-test-1/Jhon123", awaitResult(deferredResult));
+		assertEquals(1, requestExecutor.getQueueWaitHistogram().getCount());
+	}
+
+	@Test
+	public void testExceptionBecomesErrorResult() throws InterruptedException {
+		IllegalStateException failure = new IllegalStateException("failed");
+		DeferredResult<String> deferredResult = requestExecutor.submit(() -> {
+			throw failure;
+		});
+		assertSame(failure, awaitResult(deferredResult));
+	}
+
+	@Test
+	public void testFullQueueRejectsWithServiceUnavailable() throws InterruptedException {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			DeferredResult<String> running = requestExecutor.submit(() -> {
+				started.countDown();
+				release.await();
+				return "running";
+			});
+			assertTrue(started.await(2, TimeUnit.SECONDS));
+			DeferredResult<String> queued = requestExecutor.submit(() -> "queued");
+			DeferredResult<String> rejected = requestExecutor.submit(() -> "rejected");
+			assertEquals(1, requestExecutor.getQueueDepth());
+			assertEquals(1, requestExecutor.getActiveCount());
+			assertEquals(1, requestExecutor.getRejectedCount());
+			assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ((ResponseEntity<?>) rejected.getResult()).getStatusCode());
+			Map<String, Object> executorMetrics = requestExecutor.toMap();
+			assertEquals(1, executorMetrics.get("queueDepth"));
+			assertEquals(1L, executorMetrics.get("rejected"));
+			release.countDown();
+			assertEquals("running", awaitResult(running));
+			assertEquals("queued", awaitResult(queued));
+		} finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	public void testInlineTaskRunsOnCallingThreadBeforeDeadline() throws Exception {
+		Thread caller = Thread.currentThread();
+		long calledAt = System.nanoTime();
+		long deadline = requestExecutor.callInline(taskDeadline -> {
+			assertSame(caller, Thread.currentThread());
+			return taskDeadline;
+		});
+		assertTrue(deadline - calledAt >= TimeUnit.MILLISECONDS.toNanos(10000));
+		assertEquals(1, requestExecutor.getCompletedCount());
+		assertEquals(1, requestExecutor.getExecutionHistogram().getCount());
+	}
+
+	@Test
+	public void testInlineTaskWaitsForQueuedTaskPermit() throws Exception {
+		RequestExecutor busyExecutor = new RequestExecutor("busy", 1, 1, 50);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			DeferredResult<String> running = busyExecutor.submit(() -> {
+				started.countDown();
+				release.await();
+				return "running";
+			});
+			assertTrue(started.await(2, TimeUnit.SECONDS));
+			try {
+				busyExecutor.callInline(deadline -> "inline");
+				fail("RejectedExecutionException expected");
+			} catch (RejectedExecutionException exception) {
+				assertEquals(1, busyExecutor.getRejectedCount());
+				assertEquals(0, busyExecutor.getQueueDepth());
+			}
+			release.countDown();
+			assertEquals("running", awaitResult(running));
+			assertEquals("inline", busyExecutor.callInline(deadline -> "inline"));
+		} finally {
+			release.countDown();
+			busyExecutor.shutdown(1, TimeUnit.SECONDS);
+		}
+	}
+
+	@Test
+	public void testQueuedTaskWaitsForInlineTaskPermit() throws Exception {
+		DeferredResult<String> queued = requestExecutor.callInline(deadline -> {
+			DeferredResult<String> waiting = requestExecutor.submit(() -> "queued");
+			Thread.sleep(50);
+			assertFalse(waiting.hasResult());
+			return waiting;
+		});
+		assertEquals("queued", awaitResult(queued));
+	}
+
+	@Test
+	public void testCompletedResultIsSet() {
+		DeferredResult<String> deferredResult = RequestExecutor.completed("done");
+		assertTrue(deferredResult.isSetOrExpired());
+		assertEquals("done", deferredResult.getResult());
+	}
+
+	@Test
+	public void testVirtualModeAdmitsAsManyTasksAsThreads() throws InterruptedException {
+		Assume.assumeTrue(VirtualThreads.isSupported());
+		RequestExecutor virtualExecutor = new RequestExecutor("virtual", 1, 1, 10000, ThreadMode.VIRTUAL);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		try {
+			DeferredResult<String> running = virtualExecutor.submit(() -> {
+				started.countDown();
+				release.await();
+				return Thread.currentThread().getName();
+			});
+			assertTrue(started.await(2, TimeUnit.SECONDS));
+			DeferredResult<String> waiting = virtualExecutor.submit(() -> "waiting");
+			DeferredResult<String> rejected = virtualExecutor.submit(() -> "rejected");
+			assertEquals(1, virtualExecutor.getActiveCount());
+			assertEquals(1, virtualExecutor.getRejectedCount());
+			assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ((ResponseEntity<?>) rejected.getResult()).getStatusCode());
+			assertEquals(ThreadMode.VIRTUAL, virtualExecutor.toMap().get("mode"));
+			release.countDown();
+			assertEquals("keepnote-virtual-1", awaitResult(running));
+			assertEquals("waiting", awaitResult(waiting));
+		} finally {
+			release.countDown();
+			virtualExecutor.shutdown(1, TimeUnit.SECONDS);
+		}
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testVirtualModeNeedsJava21() {
+		Assume.assumeFalse(VirtualThreads.isSupported());
+		new RequestExecutor("virtual", 1, 1, 10000, ThreadMode.VIRTUAL);
+	}
+
+	@Test
+	public void testExecutorsAreSizedAfterConnectionPools() throws InterruptedException {
+		DataSourcePools dataSourcePools = new DataSourcePools();
+		dataSourcePools.addPool(DataSourcePools.PRIMARY, pool(20));
+		RequestExecutors requestExecutors = new RequestExecutors(dataSourcePools);
+		try {
+			assertEquals(12, requestExecutors.getReads().getThreads());
+			assertEquals(8, requestExecutors.getWrites().getThreads());
+		} finally {
+			requestExecutors.destroy();
+		}
+		dataSourcePools.addPool(DataSourcePools.REPLICA, pool(30));
+		requestExecutors = new RequestExecutors(dataSourcePools);
+		try {
+			assertEquals(30, requestExecutors.getReads().getThreads());
+			assertEquals(8, requestExecutors.getWrites().getThreads());
+		} finally {
+			requestExecutors.destroy();
+		}
+	}
+
+	private static InstrumentedBasicDataSource pool(int maxTotal) {
+		InstrumentedBasicDataSource pool = new InstrumentedBasicDataSource();
+		pool.setMaxTotal(maxTotal);
+		return pool;
+	}
+
+	private static Object awaitResult(DeferredResult<?> deferredResult) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+		while (!deferredResult.hasResult() && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+		assertTrue(deferredResult.hasResult());
+		return deferredResult.getResult();
+	}
+}
@@ -0,0 +1,59 @@
+package com.stackroute.keepnote.test.auth;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.stackroute.keepnote.auth.AdminInterceptor;
+
+public class AdminInterceptorTest {
+
+	private static final String ADMIN_TOKEN = "an-admin-token-of-32-characters!";
+
+	private MockHttpServletRequest request;
+
+	private MockHttpServletResponse response;
+
+	@Before
+	public void setUp() throws Exception {
+		request = new MockHttpServletRequest("GET", "/admin/slow-queries");
+		response = new MockHttpServletResponse();
+	}
+
+	@Test
+	public void testAdminTokenIsAccepted() {
+		request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + ADMIN_TOKEN);
+		assertTrue(new AdminInterceptor(ADMIN_TOKEN).preHandle(request, response, null));
+		assertEquals(200, response.getStatus());
+	}
+
+	@Test
+	public void testMissingTokenIsUnauthorized() {
+		assertFalse(new AdminInterceptor(ADMIN_TOKEN).preHandle(request, response, null));
+		assertEquals(401, response.getStatus());
+		assertEquals("Bearer", response.getHeader(HttpHeaders.WWW_AUTHENTICATE));
+	}
+
+	@Test
+	public void testWrongTokenIsForbidden() {
+		request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + ADMIN_TOKEN + "-other");
+		assertFalse(new AdminInterceptor(ADMIN_TOKEN).preHandle(request, response, null));
+		assertEquals(403, response.getStatus());
+	}
+
+	@Test
+	public void testEveryTokenIsForbiddenWithoutConfiguredToken() {
+		request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + ADMIN_TOKEN);
+		assertFalse(new AdminInterceptor(null).preHandle(request, response, null));
+		assertEquals(403, response.getStatus());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testShortTokenIsRefused() {
+		new AdminInterceptor("too-short");
+	}
+}
@@ -0,0 +1,75 @@
+package com.stackroute.keepnote.test.auth;
+
+import static org.junit.Assert.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.stackroute.keepnote.auth.AuthMode;
+import com.stackroute.keepnote.auth.AuthTokens;
+
+public class AuthTokensTest {
+
+	private static final String SECRET = "a-secret-shared-by-every-keepnote-node";
+
+	private static final Clock NOW = Clock.fixed(Instant.ofEpochSecond(1500000000), ZoneOffset.UTC);
+
+	private AuthTokens authTokens;
+
+	@Before
+	public void setUp() throws Exception {
+		authTokens = new AuthTokens(AuthMode.TOKEN, SECRET, 3600, NOW);
+	}
+
+	@Test
+	public void testIssuedTokenIsVerified() {
+		String token = authTokens.issue("Jhon.Simon", authTokens.newExpiry());
+		assertEquals(1500003600, authTokens.newExpiry());
+		assertEquals("Jhon.Simon", authTokens.verify(token, 0));
+		assertEquals("Jhon.Simon", authTokens.verify("Bearer " + token, "Bearer ".length()));
+	}
+
+	@Test
+	public void testTokenIsVerifiedByAnotherNodeWithTheSameSecret() {
+		String token = authTokens.issue("Jhon123", authTokens.newExpiry());
+		assertEquals("Jhon123", new AuthTokens(AuthMode.TOKEN, SECRET, 3600, NOW).verify(token, 0));
+		assertNull(new AuthTokens(AuthMode.TOKEN, SECRET + "-other", 3600, NOW).verify(token, 0));
+	}
+
+	@Test
+	public void testExpiredTokenIsRejected() {
+		String token = authTokens.issue("Jhon123", 1500000000);
+		assertNull(authTokens.verify(token, 0));
+		assertEquals("Jhon123", new AuthTokens(AuthMode.TOKEN, SECRET, 3600,
+				Clock.offset(NOW, Duration.ofSeconds(-1))).verify(token, 0));
+	}
+
+	@Test
+	public void testTamperedTokenIsRejected() {
+		String token = authTokens.issue("Jhon123", authTokens.newExpiry());
+		String[] parts = token.split("\\.");
+		assertNull(authTokens.verify(parts[0] + "." + (Long.parseLong(parts[1]) + 60) + "." + parts[2], 0));
+		char last = parts[2].charAt(parts[2].length() - 1);
+		assertNull(authTokens.verify(token.substring(0, token.length() - 1) + (last == 'A' ? 'B' : 'A'), 0));
+	}
+
+	@Test
+	public void testMalformedTokensAreRejected() {
+		assertNull(authTokens.verify("", 0));
+		assertNull(authTokens.verify("no-dots", 0));
+		assertNull(authTokens.verify("a.b", 0));
+		assertNull(authTokens.verify("SmhvbjEyMw.notanumber.AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA", 0));
+		assertNull(authTokens.verify("SmhvbjEyMw.9999999999.AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA", 0));
+		assertNull(authTokens.verify("Sm\u00e9.9999999999.AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA", 0));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testTokenModeNeedsSecret() {
+		new AuthTokens(AuthMode.TOKEN, "short", 3600, NOW);
+	}
+}
@@ -0,0 +1,74 @@
+package com.stackroute.keepnote.test.auth;
+
+import static org.junit.Assert.*;
+
+import java.time.Clock;
+
+import javax.servlet.http.Cookie;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.stackroute.keepnote.auth.AuthMode;
+import com.stackroute.keepnote.auth.AuthTokens;
+import com.stackroute.keepnote.auth.AuthenticationInterceptor;
+import com.stackroute.keepnote.datasource.RequestUserContext;
+
+public class AuthenticationInterceptorTest {
+
+	private AuthenticationInterceptor authenticationInterceptor;
+
+	private MockHttpServletRequest request;
+
+	private MockHttpServletResponse response;
+
+	@Before
+	public void setUp() throws Exception {
+		authenticationInterceptor = new AuthenticationInterceptor(
+				new AuthTokens(AuthMode.SESSION, null, 3600, Clock.systemUTC()));
+		request = new MockHttpServletRequest("GET", "/note/Jhon123");
+		request.getSession().setAttribute(AuthenticationInterceptor.LOGGED_IN_USER_ID, "Jhon123");
+		response = new MockHttpServletResponse();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		RequestUserContext.clear();
+	}
+
+	@Test
+	public void testLastWriteIsTakenFromCookie() {
+		request.setCookies(new Cookie(AuthenticationInterceptor.LAST_WRITE_COOKIE, "1500000000000"));
+		assertTrue(authenticationInterceptor.preHandle(request, response, null));
+		assertEquals("Jhon123", RequestUserContext.getUserId());
+		assertEquals(1500000000000L, RequestUserContext.getLastWrite().getWrittenAt());
+	}
+
+	@Test
+	public void testUnreadableLastWriteIsIgnored() {
+		request.setCookies(new Cookie(AuthenticationInterceptor.LAST_WRITE_COOKIE, "yesterday"));
+		assertTrue(authenticationInterceptor.preHandle(request, response, null));
+		assertEquals(0, RequestUserContext.getLastWrite().getWrittenAt());
+	}
+
+	@Test
+	public void testRecordedWriteSetsCookie() {
+		assertTrue(authenticationInterceptor.preHandle(request, response, null));
+		RequestUserContext.getLastWrite().recordWrite(1500000000000L);
+		Cookie cookie = response.getCookie(AuthenticationInterceptor.LAST_WRITE_COOKIE);
+		assertEquals("1500000000000", cookie.getValue());
+		assertEquals("/", cookie.getPath());
+		assertTrue(cookie.isHttpOnly());
+	}
+
+	@Test
+	public void testClearedAfterCompletion() {
+		assertTrue(authenticationInterceptor.preHandle(request, response, null));
+		authenticationInterceptor.afterCompletion(request, response, null, null);
+		assertNull(RequestUserContext.getUserId());
+		assertNull(RequestUserContext.getLastWrite());
+	}
+}
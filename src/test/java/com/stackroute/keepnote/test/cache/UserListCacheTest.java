@@ -0,0 +1,134 @@
+package com.stackroute.keepnote.test.cache;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.stackroute.keepnote.cache.UserListCache;
+import com.stackroute.keepnote.dao.ListVersionDAO;
+import com.stackroute.keepnote.model.Note;
+
+public class UserListCacheTest {
+
+	private UserListCache<Note> cache;
+	private AtomicInteger loads;
+	private List<Note> notes;
+
+	@Before
+	public void setUp() throws Exception {
+		cache = new UserListCache<>(2, 60000, Note::getNoteId);
+		loads = new AtomicInteger();
+		notes = new ArrayList<Note>();
+		notes.add(new Note(1, "Testing", "Testing cache", "Active", new Date(), null, null, "Jhon123"));
+	}
+
+	private List<Note> load(String userId) {
+		return cache.get(userId, () -> {
+			loads.incrementAndGet();
+			return notes;
+		});
+	}
+
+	@Test
+	public void testGetServesCachedListing() {
+		assertEquals(notes, load("Jhon123"));
+		assertEquals(notes, load("Jhon123"));
+		assertEquals(1, loads.get());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	public void testInvalidateUserReloads() {
+		load("Jhon123");
+		cache.invalidateUser("Jhon123");
+		load("Jhon123");
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	public void testInvalidateItemReloadsOwnerOnly() {
+		load("Jhon123");
+		cache.get("Chris123", () -> {
+			loads.incrementAndGet();
+			return Arrays.asList(new Note(2, "Testing-2", "Testing cache", "Active", new Date(), null, null, "Chris123"));
+		});
+		cache.invalidateItem(1);
+		load("Jhon123");
+		assertEquals(3, loads.get());
+		cache.get("Chris123", () -> notes);
+		assertEquals(3, loads.get());
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void testLeastRecentlyUsedUserEvicted() {
+		load("Jhon123");
+		load("Chris123");
+		load("Jhon123");
+		load("Mary123");
+		assertEquals(2, cache.size());
+		load("Jhon123");
+		assertEquals(3, loads.get());
+		load("Chris123");
+		assertEquals(4, loads.get());
+	}
+
+	@Test
+	public void testExpiredListingReloaded() throws InterruptedException {
+		cache = new UserListCache<>(2, 1, Note::getNoteId);
+		load("Jhon123");
+		Thread.sleep(5);
+		load("Jhon123");
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	public void testListingLoadedDuringWriteNotCached() {
+		List<Note> staleNotes = cache.get("Jhon123", () -> {
+			cache.invalidateUser("Jhon123");
+			return Arrays.asList(notes.get(0));
+		});
+		assertEquals(1, staleNotes.size());
+		load("Jhon123");
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	public void testWriteOnAnotherNodeReloads() {
+		ListVersionDAO listVersionDAO = mock(ListVersionDAO.class);
+		cache = new UserListCache<>("notes", 2, 60000, Note::getNoteId, listVersionDAO);
+		UserListCache<Note> otherNodeCache = new UserListCache<>("notes", 2, 60000, Note::getNoteId,
+				listVersionDAO);
+		when(listVersionDAO.getVersion("notes", "Jhon123")).thenReturn(0L);
+		load("Jhon123");
+		load("Jhon123");
+		assertEquals(1, loads.get());
+		otherNodeCache.invalidateUser("Jhon123");
+		verify(listVersionDAO).bumpVersion("notes", "Jhon123");
+		when(listVersionDAO.getVersion("notes", "Jhon123")).thenReturn(1L);
+		load("Jhon123");
+		load("Jhon123");
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	public void testZeroSizeDisablesCaching() {
+		cache = new UserListCache<>(0, 60000, Note::getNoteId);
+		load("Jhon123");
+		load("Jhon123");
+		assertEquals(2, loads.get());
+		assertEquals(0, cache.size());
+	}
+
+}
@@ -0,0 +1,81 @@
+package com.stackroute.keepnote.test.controller;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.stackroute.keepnote.auth.AdminInterceptor;
+import com.stackroute.keepnote.controller.CacheStatisticsController;
+
+public class CacheStatisticsControllerTest {
+
+	private static final String ADMIN_TOKEN = "an-admin-token-of-32-characters!";
+
+	private MockMvc mockMvc;
+	@Mock
+	private SessionFactory sessionFactory;
+	@Mock
+	private Statistics statistics;
+	@Mock
+	private SecondLevelCacheStatistics categoryStatistics;
+	@InjectMocks
+	private CacheStatisticsController cacheStatisticsController;
+
+	@Before
+	public void setUp() throws Exception {
+		MockitoAnnotations.initMocks(this);
+		mockMvc = MockMvcBuilders.standaloneSetup(cacheStatisticsController)
+				.addInterceptors(new AdminInterceptor(ADMIN_TOKEN)).build();
+		when(sessionFactory.getStatistics()).thenReturn(statistics);
+	}
+
+	@Test
+	public void testGetCacheStatistics() throws Exception {
+
+		when(statistics.isStatisticsEnabled()).thenReturn(true);
+		when(statistics.getSecondLevelCacheHitCount()).thenReturn(8L);
+		when(statistics.getSecondLevelCacheMissCount()).thenReturn(2L);
+		when(statistics.getSecondLevelCacheRegionNames()).thenReturn(new String[] { "keepnote.category" });
+		when(statistics.getSecondLevelCacheStatistics("keepnote.category")).thenReturn(categoryStatistics);
+		when(categoryStatistics.getHitCount()).thenReturn(8L);
+		when(categoryStatistics.getMissCount()).thenReturn(2L);
+
+		mockMvc.perform(get("/admin/cache").header(HttpHeaders.AUTHORIZATION, "Bearer " + ADMIN_TOKEN))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.hitCount").value(8))
+				.andExpect(jsonPath("$.missCount").value(2))
+				.andExpect(jsonPath("$.regions['keepnote.category'].hitCount").value(8)).andDo(print());
+	}
+
+	@Test
+	public void testGetCacheStatisticsWithoutRegions() throws Exception {
+
+		when(statistics.getSecondLevelCacheRegionNames()).thenReturn(new String[0]);
+
+		mockMvc.perform(get("/admin/cache").header(HttpHeaders.AUTHORIZATION, "Bearer " + ADMIN_TOKEN))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.regions").isEmpty())
+				.andDo(print());
+	}
+
+	@Test
+	public void testGetCacheStatisticsRequiresAdminToken() throws Exception {
+
+		mockMvc.perform(get("/admin/cache")).andExpect(status().isUnauthorized());
+
+		mockMvc.perform(get("/admin/cache").header(HttpHeaders.AUTHORIZATION, "Bearer not-the-admin-token"))
+				.andExpect(status().isForbidden());
+	}
+}
@@ -7,8 +7,10 @@ import static org.mockito.Mockito.*;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.Mockito.when;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -23,8 +25,16 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.mockito.Spy;
+import com.stackroute.keepnote.async.RequestExecutors;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stackroute.keepnote.auth.AuthTokens;
+import com.stackroute.keepnote.auth.AuthenticationInterceptor;
 import com.stackroute.keepnote.config.ApplicationContextConfig;
 import com.stackroute.keepnote.controller.CategoryController;
 import com.stackroute.keepnote.model.Category;
@@ -57,6 +67,8 @@ public class CategoryControllerTest {
 	private MockHttpSession session;
 	@Mock
 	CategoryService categoryService;
+	@Spy
+	private RequestExecutors requestExecutors = new RequestExecutors();
 	@InjectMocks
 	CategoryController categoryController;
 	private List<Category> categories = new ArrayList<Category>();
@@ -64,7 +76,8 @@ public class CategoryControllerTest {
 	@Before
 	public void setUp() throws Exception {
 		MockitoAnnotations.initMocks(this);
-		mockMvc = MockMvcBuilders.standaloneSetup(categoryController).build();
+		mockMvc = MockMvcBuilders.standaloneSetup(categoryController)
+				.addInterceptors(new AuthenticationInterceptor(new AuthTokens())).build();
 
 		// Creating User object
 		user = new User("Jhon123", "Jhon Simon", "974324567", "123456", new Date());
@@ -77,12 +90,17 @@ public class CategoryControllerTest {
 
 	}
 
+	@After
+	public void tearDown() throws Exception {
+		requestExecutors.destroy();
+	}
+
 	@Test
 
 	public void testCreateCategorySuccess() throws Exception {
 
 		when(categoryService.createCategory(any())).thenReturn(true);
-		mockMvc.perform(post("/category").contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)
+		perform(post("/category").contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)
 				.session(session).content(asJsonString(category))).andExpect(status().isCreated()).andDo(print());
 		verify(categoryService, times(1)).createCategory(Mockito.any(Category.class));
 		verifyNoMoreInteractions(categoryService);
@@ -93,7 +111,7 @@ public class CategoryControllerTest {
 	public void testCreateCategoryFailure() throws Exception {
 
 		when(categoryService.createCategory(category)).thenReturn(false);
-		mockMvc.perform(post("/category").contentType(MediaType.APPLICATION_JSON).content(asJsonString(category))
+		perform(post("/category").contentType(MediaType.APPLICATION_JSON).content(asJsonString(category))
 				.session(session)).andExpect(status().isConflict()).andDo(print());
 
 	}
@@ -102,7 +120,7 @@ public class CategoryControllerTest {
 	public void testCreateCategoryWithoutSessionFailure() throws Exception {
 
 		when(categoryService.createCategory(category)).thenReturn(false);
-		mockMvc.perform(post("/category").contentType(MediaType.APPLICATION_JSON).content(asJsonString(category)))
+		perform(post("/category").contentType(MediaType.APPLICATION_JSON).content(asJsonString(category)))
 				.andExpect(status().isUnauthorized()).andDo(print());
 
 	}
@@ -110,8 +128,8 @@ public class CategoryControllerTest {
 	@Test
 	public void testDeleteCategorySuccess() throws Exception {
 
-		when(categoryService.deleteCategory(category.getCategoryId())).thenReturn(true);
-		mockMvc.perform(delete("/category/{id}", category.getCategoryId()).contentType(MediaType.APPLICATION_JSON)
+		when(categoryService.deleteCategory(category.getCategoryId(), "Jhon123")).thenReturn(true);
+		perform(delete("/category/{id}", category.getCategoryId()).contentType(MediaType.APPLICATION_JSON)
 				.session(session)).andExpect(status().isOk()).andDo(print());
 
 	}
@@ -119,8 +137,8 @@ public class CategoryControllerTest {
 	@Test
 	public void testDeleteCategoryFailure() throws Exception {
 
-		when(categoryService.deleteCategory(category.getCategoryId())).thenReturn(false);
-		mockMvc.perform(delete("/category/{id}", category.getCategoryId()).contentType(MediaType.APPLICATION_JSON)
+		when(categoryService.deleteCategory(category.getCategoryId(), "Jhon123")).thenReturn(false);
+		perform(delete("/category/{id}", category.getCategoryId()).contentType(MediaType.APPLICATION_JSON)
 				.session(session)).andExpect(status().isNotFound()).andDo(print());
 
 	}
@@ -128,8 +146,8 @@ public class CategoryControllerTest {
 	@Test
 	public void testDeleteCategoryWithoutSessionFailure() throws Exception {
 
-		when(categoryService.deleteCategory(category.getCategoryId())).thenReturn(false);
-		mockMvc.perform(delete("/category/{id}", category.getCategoryId()).contentType(MediaType.APPLICATION_JSON))
+		when(categoryService.deleteCategory(category.getCategoryId(), "Jhon123")).thenReturn(false);
+		perform(delete("/category/{id}", category.getCategoryId()).contentType(MediaType.APPLICATION_JSON))
 				.andExpect(status().isUnauthorized()).andDo(print());
 
 	}
@@ -138,21 +156,21 @@ public class CategoryControllerTest {
 	
 	public void testUpdateCategorySuccess() throws Exception {
 		when(categoryService.updateCategory(any(), eq(category.getCategoryId()))).thenReturn(category);
-		mockMvc.perform(put("/category/{id}", category.getCategoryId()).contentType(MediaType.APPLICATION_JSON)
+		perform(put("/category/{id}", category.getCategoryId()).contentType(MediaType.APPLICATION_JSON)
 				.content(asJsonString(category)).session(session)).andExpect(status().isOk());
 	}
 
 	@Test
 	public void testUpdateCategoryFailure() throws Exception {
 		when(categoryService.updateCategory(any(), eq(category.getCategoryId()))).thenReturn(null);
-		mockMvc.perform(put("/category/{id}", 2).contentType(MediaType.APPLICATION_JSON).content(asJsonString(category))
+		perform(put("/category/{id}", 2).contentType(MediaType.APPLICATION_JSON).content(asJsonString(category))
 				.session(session)).andExpect(status().isNotFound());
 	}
 
 	@Test
 	public void testUpdateCategoryWithoutSessionFailure() throws Exception {
 		when(categoryService.updateCategory(any(), eq(category.getCategoryId()))).thenReturn(category);
-		mockMvc.perform(put("/category/{id}", category.getCategoryId()).contentType(MediaType.APPLICATION_JSON)
+		perform(put("/category/{id}", category.getCategoryId()).contentType(MediaType.APPLICATION_JSON)
 				.content(asJsonString(category))).andExpect(status().isUnauthorized());
 	}
 
@@ -166,7 +184,7 @@ public class CategoryControllerTest {
 		categories.add(category);
 
 		when(categoryService.getAllCategoryByUserId("Jhon123")).thenReturn(categories);
-		mockMvc.perform(get("/category").contentType(MediaType.APPLICATION_JSON).session(session))
+		perform(get("/category").contentType(MediaType.APPLICATION_JSON).session(session))
 				.andExpect(status().isOk()).andExpect(jsonPath("$", hasSize(3))).andDo(print());
 	}
 
@@ -180,10 +198,52 @@ public class CategoryControllerTest {
 		categories.add(category);
 
 		when(categoryService.getAllCategoryByUserId("Jhon123")).thenReturn(categories);
-		mockMvc.perform(get("/category").contentType(MediaType.APPLICATION_JSON)).andExpect(status().isUnauthorized())
+		perform(get("/category").contentType(MediaType.APPLICATION_JSON)).andExpect(status().isUnauthorized())
+				.andDo(print());
+	}
+
+	@Test
+	public void testStreamCategoriesSuccess() throws Exception {
+
+		categories.add(category);
+		category = new Category(2, "Testing-2", "All about testing spring application", new Date(), null, null);
+		categories.add(category);
+
+		doAnswer(invocation -> {
+			Consumer<Category> consumer = invocation.getArgument(1);
+			categories.forEach(consumer);
+			return categories.size();
+		}).when(categoryService).streamCategoriesByUserId(eq("Jhon123"), any());
+		perform(get("/category").param("stream", "true").session(session)).andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(2))).andExpect(jsonPath("$[1].categoryName").value("Testing-2"))
 				.andDo(print());
 	}
 
+	@Test
+	public void testStreamCategoriesWithoutSessionFailure() throws Exception {
+
+		perform(get("/category").param("stream", "true")).andExpect(status().isUnauthorized()).andDo(print());
+		verify(categoryService, never()).streamCategoriesByUserId(any(), any());
+	}
+
+	/*
+	 * Perform the request and, when the controller answered asynchronously, dispatch
+	 * the result the executor produced
+	 */
+	private ResultActions perform(RequestBuilder requestBuilder) throws Exception {
+
+		ResultActions resultActions = mockMvc.perform(requestBuilder);
+
+		MvcResult mvcResult = resultActions.andReturn();
+
+		if (mvcResult.getRequest().isAsyncStarted()) {
+
+			return mockMvc.perform(asyncDispatch(mvcResult));
+		}
+
+		return resultActions;
+	}
+
 	public static String asJsonString(final Object obj) {
 		try {
 
@@ -0,0 +1,81 @@
+package com.stackroute.keepnote.test.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.sql.Connection;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.stackroute.keepnote.auth.AdminInterceptor;
+import com.stackroute.keepnote.controller.DataSourceMetricsController;
+import com.stackroute.keepnote.datasource.DataSourcePools;
+import com.stackroute.keepnote.datasource.InstrumentedBasicDataSource;
+
+public class DataSourceMetricsControllerTest {
+
+	private static final String ADMIN_TOKEN = "an-admin-token-of-32-characters!";
+
+	private MockMvc mockMvc;
+	private DataSourcePools dataSourcePools;
+	private InstrumentedBasicDataSource pool;
+
+	@Before
+	public void setUp() throws Exception {
+		pool = new InstrumentedBasicDataSource();
+		pool.setDriverClassName("org.h2.Driver");
+		pool.setUrl("jdbc:h2:mem:pool;MODE=MySQL");
+		pool.setUsername("sa");
+		pool.setMaxTotal(4);
+		dataSourcePools = new DataSourcePools();
+		dataSourcePools.addPool(DataSourcePools.PRIMARY, pool);
+		mockMvc = MockMvcBuilders.standaloneSetup(new DataSourceMetricsController(dataSourcePools))
+				.addInterceptors(new AdminInterceptor(ADMIN_TOKEN)).build();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		dataSourcePools.close();
+	}
+
+	@Test
+	public void testGetDataSourceMetrics() throws Exception {
+
+		Connection connection = pool.getConnection();
+
+		try {
+
+			mockMvc.perform(get("/admin/datasource").header(HttpHeaders.AUTHORIZATION, "Bearer " + ADMIN_TOKEN))
+					.andExpect(status().isOk())
+					.andExpect(jsonPath("$.primary.maxTotal").value(4))
+					.andExpect(jsonPath("$.primary.active").value(1))
+					.andExpect(jsonPath("$.primary.waiters").value(0))
+					.andExpect(jsonPath("$.primary.borrowWait.count").value(1)).andDo(print());
+
+		} finally {
+
+			connection.close();
+		}
+
+		mockMvc.perform(get("/admin/datasource").header(HttpHeaders.AUTHORIZATION, "Bearer " + ADMIN_TOKEN))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.primary.active").value(0)).andExpect(jsonPath("$.primary.idle").value(1))
+				.andDo(print());
+	}
+
+	@Test
+	public void testGetDataSourceMetricsRequiresAdminToken() throws Exception {
+
+		mockMvc.perform(get("/admin/datasource")).andExpect(status().isUnauthorized());
+
+		mockMvc.perform(get("/admin/datasource").header(HttpHeaders.AUTHORIZATION, "Bearer not-the-admin-token"))
+				.andExpect(status().isForbidden());
+	}
+}
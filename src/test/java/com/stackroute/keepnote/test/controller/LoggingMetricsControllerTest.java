@@ -0,0 +1,71 @@
+package com.stackroute.keepnote.test.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.stackroute.keepnote.auth.AdminInterceptor;
+import com.stackroute.keepnote.controller.LoggingMetricsController;
+import com.stackroute.keepnote.log.RingBufferAppender;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+
+public class LoggingMetricsControllerTest {
+
+	private static final String ADMIN_TOKEN = "an-admin-token-of-32-characters!";
+
+	private MockMvc mockMvc;
+	private Logger logger;
+	private RingBufferAppender ringBufferAppender;
+
+	@Before
+	public void setUp() throws Exception {
+		LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+		logger = context.getLogger("com.stackroute.keepnote.test.controller.LoggingMetricsControllerTest");
+		ringBufferAppender = new RingBufferAppender();
+		ringBufferAppender.setContext(context);
+		ringBufferAppender.setName("TEST-ASYNC");
+		ringBufferAppender.setQueueSize(64);
+		ringBufferAppender.start();
+		logger.addAppender(ringBufferAppender);
+		mockMvc = MockMvcBuilders.standaloneSetup(new LoggingMetricsController())
+				.addInterceptors(new AdminInterceptor(ADMIN_TOKEN)).build();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		logger.detachAppender(ringBufferAppender);
+		ringBufferAppender.stop();
+	}
+
+	@Test
+	public void testGetLoggingMetrics() throws Exception {
+
+		mockMvc.perform(get("/admin/logging").header(HttpHeaders.AUTHORIZATION, "Bearer " + ADMIN_TOKEN))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.TEST-ASYNC.queueSize").value(64))
+				.andExpect(jsonPath("$.TEST-ASYNC.discardingThreshold").value(12))
+				.andExpect(jsonPath("$.TEST-ASYNC.discardLevel").value("INFO"))
+				.andExpect(jsonPath("$.TEST-ASYNC.discarded").value(0))
+				.andExpect(jsonPath("$.TEST-ASYNC.overflowed").value(0)).andDo(print());
+	}
+
+	@Test
+	public void testGetLoggingMetricsRequiresAdminToken() throws Exception {
+
+		mockMvc.perform(get("/admin/logging")).andExpect(status().isUnauthorized());
+
+		mockMvc.perform(get("/admin/logging").header(HttpHeaders.AUTHORIZATION, "Bearer not-the-admin-token"))
+				.andExpect(status().isForbidden());
+	}
+}
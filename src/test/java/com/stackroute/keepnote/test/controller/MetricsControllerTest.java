@@ -0,0 +1,83 @@
+package com.stackroute.keepnote.test.controller;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.stackroute.keepnote.auth.AdminInterceptor;
+import com.stackroute.keepnote.controller.MetricsController;
+import com.stackroute.keepnote.metrics.MetricsRegistry;
+import com.stackroute.keepnote.metrics.PrometheusTextFormat;
+import com.stackroute.keepnote.metrics.RequestMetricsInterceptor;
+
+public class MetricsControllerTest {
+
+	private static final String ADMIN_TOKEN = "an-admin-token-of-32-characters!";
+
+	private MockMvc mockMvc;
+	private MetricsRegistry metricsRegistry;
+
+	@Before
+	public void setUp() throws Exception {
+		metricsRegistry = new MetricsRegistry();
+		mockMvc = MockMvcBuilders.standaloneSetup(new MetricsController(metricsRegistry))
+				.addInterceptors(new RequestMetricsInterceptor(metricsRegistry), new AdminInterceptor(ADMIN_TOKEN))
+				.build();
+	}
+
+	@Test
+	public void testGetMetricsInPrometheusFormat() throws Exception {
+
+		metricsRegistry.getMethodMetrics("service", "NoteServiceImpl.updateNote").record(3_000_000, false);
+		metricsRegistry.getMethodMetrics("service", "NoteServiceImpl.updateNote").record(40_000_000, true);
+
+		metricsRegistry.getRequestSqlMetrics("GET", "/note").record(4, 6, 2_500_000, true);
+
+		mockMvc.perform(get("/metrics").header(HttpHeaders.AUTHORIZATION, "Bearer " + ADMIN_TOKEN))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(get("/metrics").header(HttpHeaders.AUTHORIZATION, "Bearer " + ADMIN_TOKEN))
+				.andExpect(status().isOk())
+				.andExpect(header().string("Content-Type", PrometheusTextFormat.CONTENT_TYPE))
+				.andExpect(content().string(containsString("# TYPE keepnote_method_seconds histogram\n")))
+				.andExpect(content().string(containsString("keepnote_method_seconds_bucket{layer=\"service\","
+						+ "operation=\"NoteServiceImpl.updateNote\",le=\"0.0025\"} 0\n")))
+				.andExpect(content().string(containsString("keepnote_method_seconds_bucket{layer=\"service\","
+						+ "operation=\"NoteServiceImpl.updateNote\",le=\"0.005\"} 1\n")))
+				.andExpect(content().string(containsString("keepnote_method_seconds_bucket{layer=\"service\","
+						+ "operation=\"NoteServiceImpl.updateNote\",le=\"+Inf\"} 2\n")))
+				.andExpect(content().string(containsString("keepnote_method_seconds_sum{layer=\"service\","
+						+ "operation=\"NoteServiceImpl.updateNote\"} 0.043\n")))
+				.andExpect(content().string(containsString("keepnote_method_errors_total{layer=\"service\","
+						+ "operation=\"NoteServiceImpl.updateNote\"} 1\n")))
+				.andExpect(content().string(containsString(
+						"keepnote_http_request_seconds_count{method=\"GET\",path=\"/metrics\"} 1\n")))
+				.andExpect(content().string(containsString(
+						"keepnote_http_request_errors_total{method=\"GET\",path=\"/metrics\"} 0\n")))
+				.andExpect(content().string(containsString(
+						"keepnote_http_request_sql_statements_total{method=\"GET\",path=\"/note\"} 4\n")))
+				.andExpect(content().string(containsString(
+						"keepnote_http_request_sql_seconds_total{method=\"GET\",path=\"/note\"} 0.0025\n")))
+				.andExpect(content().string(containsString(
+						"keepnote_http_request_sql_repeated_statements_total{method=\"GET\",path=\"/note\"} 1\n")))
+				.andDo(print());
+	}
+
+	@Test
+	public void testGetMetricsRequiresAdminToken() throws Exception {
+
+		mockMvc.perform(get("/metrics")).andExpect(status().isUnauthorized());
+
+		mockMvc.perform(get("/metrics").header(HttpHeaders.AUTHORIZATION, "Bearer not-the-admin-token"))
+				.andExpect(status().isForbidden());
+	}
+}
@@ -1,9 +1,19 @@
 package com.stackroute.keepnote.test.controller;
 
 import static org.mockito.Mockito.*;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import java.util.function.Consumer;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 import static org.hamcrest.Matchers.hasSize;
@@ -15,29 +25,55 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
 import org.springframework.mock.web.MockHttpSession;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.mockito.Spy;
+import com.stackroute.keepnote.async.RequestExecutor;
+import com.stackroute.keepnote.async.RequestExecutors;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.util.NestedServletException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stackroute.keepnote.auth.AuthMode;
+import com.stackroute.keepnote.auth.AuthTokens;
+import com.stackroute.keepnote.auth.AuthenticationInterceptor;
 import com.stackroute.keepnote.config.ApplicationContextConfig;
 import com.stackroute.keepnote.controller.NoteController;
+import com.stackroute.keepnote.exception.NoteNotFoundException;
+import com.stackroute.keepnote.exception.NoteVersionConflictException;
 import com.stackroute.keepnote.exception.ReminderNotFoundException;
 import com.stackroute.keepnote.model.Category;
 import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.NoteBatchResult;
+import com.stackroute.keepnote.model.NotePatch;
 import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.model.ResultPage;
+import com.stackroute.keepnote.model.SearchResult;
 import com.stackroute.keepnote.model.User;
 import com.stackroute.keepnote.service.NoteService;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 @RunWith(SpringRunner.class)
 @ContextConfiguration(classes = { ApplicationContextConfig.class })
@@ -57,17 +93,22 @@ public class NoteControllerTest {
 	private NoteService noteService;
 	@Autowired
 	private MockHttpSession session;
+	@Spy
+	private RequestExecutors requestExecutors = new RequestExecutors();
 	@InjectMocks
 	private NoteController noteController;
 
 	private List<Note> allNotesByUserId = new ArrayList<Note>();
 
+	private static final String TOKEN_SECRET = "a-secret-shared-by-every-keepnote-node";
+
 	@Before
 
 	public void setUp() throws Exception {
 
 		MockitoAnnotations.initMocks(this);
-		mockMvc = MockMvcBuilders.standaloneSetup(noteController).build();
+		mockMvc = MockMvcBuilders.standaloneSetup(noteController)
+				.addInterceptors(new AuthenticationInterceptor(new AuthTokens())).build();
 		// session = new MockHttpSession();
 		// Creating User Object
 		user = new User("Jhon123", "Jhon Simon", "974324567", "123456", new Date());
@@ -114,6 +155,7 @@ public class NoteControllerTest {
 	@After
 	public void tearDown() throws Exception {
 
+		requestExecutors.destroy();
 	}
 
 	@Test
@@ -123,7 +165,7 @@ public class NoteControllerTest {
 		when(noteService.createNote(any())).thenReturn(true);
 		System.out.println(noteService.createNote(note));
 
-		mockMvc.perform(
+		perform(
 				post("/note").contentType(MediaType.APPLICATION_JSON).content(asJsonString(note)).session(session))
 				.andExpect(status().isCreated()).andDo(print());
 
@@ -134,7 +176,7 @@ public class NoteControllerTest {
 
 		when(noteService.createNote(any())).thenReturn(false);
 
-		mockMvc.perform(
+		perform(
 				post("/note").contentType(MediaType.APPLICATION_JSON).content(asJsonString(note)).session(session))
 				.andExpect(status().isConflict()).andDo(print());
 
@@ -145,15 +187,15 @@ public class NoteControllerTest {
 
 		when(noteService.createNote(any())).thenReturn(true);
 
-		mockMvc.perform(post("/note").contentType(MediaType.APPLICATION_JSON).content(asJsonString(note)))
+		perform(post("/note").contentType(MediaType.APPLICATION_JSON).content(asJsonString(note)))
 				.andExpect(status().isUnauthorized()).andDo(print());
 	}
 
 	@Test
 	public void testDeleteNoteSuccess() throws Exception {
 
-		when(noteService.deleteNote(note.getNoteId())).thenReturn(true);
-		mockMvc.perform(delete("/note/{id}", note.getNoteId()).session(session)).andExpect(status().isOk())
+		when(noteService.deleteNote(note.getNoteId(), "Jhon123")).thenReturn(true);
+		perform(delete("/note/{id}", note.getNoteId()).session(session)).andExpect(status().isOk())
 				.andDo(print());
 
 	}
@@ -161,15 +203,15 @@ public class NoteControllerTest {
 	@Test
 	public void testDeleteNoteFailure() throws Exception {
 
-		when(noteService.deleteNote(1)).thenReturn(false);
-		mockMvc.perform(delete("/note/{id}", 1).session(session)).andExpect(status().isNotFound()).andDo(print());
+		when(noteService.deleteNote(1, "Jhon123")).thenReturn(false);
+		perform(delete("/note/{id}", 1).session(session)).andExpect(status().isNotFound()).andDo(print());
 	}
 
 	@Test
 	public void testDeleteNoteFailureWithoutSession() throws Exception {
 
-		when(noteService.deleteNote(1)).thenReturn(false);
-		mockMvc.perform(delete("/note/{id}", 1)).andExpect(status().isUnauthorized()).andDo(print());
+		when(noteService.deleteNote(1, "Jhon123")).thenReturn(false);
+		perform(delete("/note/{id}", 1)).andExpect(status().isUnauthorized()).andDo(print());
 	}
 
 	@Test
@@ -178,8 +220,8 @@ public class NoteControllerTest {
 		note = new Note(1, "Testing for Step-3", "Complete testing for step-3", "Active", new Date(), category,
 				reminder, user.getUserId());
 		note.setNoteContent("updating note card");
-		when(noteService.updateNote(any(), eq(1))).thenReturn(note);
-		mockMvc.perform(put("/note/{id}", note.getNoteId()).contentType(MediaType.APPLICATION_JSON)
+		when(noteService.updateNote(any(), eq(1), eq("Jhon123"), isNull())).thenReturn(note);
+		perform(put("/note/{id}", note.getNoteId()).contentType(MediaType.APPLICATION_JSON)
 				.content(asJsonString(note)).session(session)).andExpect(status().isOk()).andDo(print());
 
 	}
@@ -187,25 +229,124 @@ public class NoteControllerTest {
 	@Test
 	public void testUpdateNoteFailure() throws ReminderNotFoundException, Exception {
 		note.setNoteContent("updating note card");
-		when(noteService.updateNote(note, note.getNoteId())).thenReturn(null);
-		mockMvc.perform(put("/note/{id}", 1).contentType(MediaType.APPLICATION_JSON).content(asJsonString(note))
+		when(noteService.updateNote(note, note.getNoteId(), "Jhon123", null)).thenReturn(null);
+		perform(put("/note/{id}", 1).contentType(MediaType.APPLICATION_JSON).content(asJsonString(note))
 				.session(session)).andExpect(status().isNotFound()).andDo(print());
 	}
 
+	@Test
+	public void testUpdateNotePassesIfMatchVersion() throws Exception {
+
+		when(noteService.updateNote(any(), eq(1), eq("Jhon123"), eq(4))).thenReturn(note);
+		perform(put("/note/{id}", 1).contentType(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_MATCH, "\"4\"")
+				.content(asJsonString(note)).session(session)).andExpect(status().isOk()).andDo(print());
+		verify(noteService, times(1)).updateNote(any(), eq(1), eq("Jhon123"), eq(4));
+	}
+
+	@Test
+	public void testUpdateNoteWithoutIfMatch() throws Exception {
+
+		when(noteService.updateNote(any(), eq(1), eq("Jhon123"), isNull())).thenReturn(note);
+		perform(put("/note/{id}", 1).contentType(MediaType.APPLICATION_JSON).content(asJsonString(note))
+				.session(session)).andExpect(status().isOk()).andDo(print());
+		perform(put("/note/{id}", 1).contentType(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_MATCH, "*")
+				.content(asJsonString(note)).session(session)).andExpect(status().isOk());
+		verify(noteService, times(2)).updateNote(any(), eq(1), eq("Jhon123"), isNull());
+	}
+
+	@Test
+	public void testUpdateNoteWithInvalidIfMatch() throws Exception {
+
+		perform(put("/note/{id}", 1).contentType(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_MATCH, "abc")
+				.content(asJsonString(note)).session(session)).andExpect(status().isBadRequest()).andDo(print());
+		verify(noteService, never()).updateNote(any(), anyInt(), any(), any());
+	}
+
+	@Test
+	public void testUpdateNoteVersionConflict() throws Exception {
+
+		when(noteService.updateNote(any(), eq(1), eq("Jhon123"), eq(3)))
+				.thenThrow(new NoteVersionConflictException("Note changed"));
+		perform(put("/note/{id}", 1).contentType(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_MATCH, "3")
+				.content(asJsonString(note)).session(session)).andExpect(status().isConflict()).andDo(print());
+	}
+
 	@Test
 	public void testUpdateNoteFailureWithoutSession() throws ReminderNotFoundException, Exception {
 		// when(noteService.getNoteById(5)).thenReturn(null);
 		note.setNoteContent("updating note card");
-		when(noteService.updateNote(note, note.getNoteId())).thenReturn(note);
-		mockMvc.perform(put("/note/{id}", 1).contentType(MediaType.APPLICATION_JSON).content(asJsonString(note)))
+		when(noteService.updateNote(note, note.getNoteId(), "Jhon123", null)).thenReturn(note);
+		perform(put("/note/{id}", 1).contentType(MediaType.APPLICATION_JSON).content(asJsonString(note)))
 				.andExpect(status().isUnauthorized()).andDo(print());
 	}
 
+	@Test
+	public void testPatchNoteSuccess() throws Exception {
+
+		NotePatch patch = new NotePatch(null, "patched content", null, null, null, 3);
+		note.setNoteContent("patched content");
+		note.setNoteVersion(4);
+		when(noteService.patchNote(any(), eq(1), eq("Jhon123"))).thenReturn(note);
+		perform(patch("/note/{id}", 1).contentType(MediaType.APPLICATION_JSON).content(asJsonString(patch))
+				.session(session)).andExpect(status().isOk())
+						.andExpect(jsonPath("$.noteContent").value("patched content"))
+						.andExpect(jsonPath("$.noteVersion").value(4)).andDo(print());
+	}
+
+	@Test
+	public void testPatchNoteVersionConflict() throws Exception {
+
+		NotePatch patch = new NotePatch("patched title", null, null, null, null, 3);
+		when(noteService.patchNote(any(), eq(1), eq("Jhon123")))
+				.thenThrow(new NoteVersionConflictException("Note changed"));
+		perform(patch("/note/{id}", 1).contentType(MediaType.APPLICATION_JSON).content(asJsonString(patch))
+				.session(session)).andExpect(status().isConflict()).andDo(print());
+	}
+
+	@Test
+	public void testPatchNoteOfAnotherUser() throws Exception {
+
+		NotePatch patch = new NotePatch("patched title", null, null, null, null, 3);
+		when(noteService.patchNote(any(), eq(7), eq("Jhon123")))
+				.thenThrow(new NoteNotFoundException("Note record not found"));
+		perform(patch("/note/{id}", 7).contentType(MediaType.APPLICATION_JSON).content(asJsonString(patch))
+				.session(session)).andExpect(status().isNotFound()).andDo(print());
+		verify(noteService, times(1)).patchNote(any(), eq(7), eq("Jhon123"));
+	}
+
+	@Test
+	public void testPatchNoteNotFound() throws Exception {
+
+		NotePatch patch = new NotePatch("patched title", null, null, null, null, 3);
+		when(noteService.patchNote(any(), eq(5), eq("Jhon123")))
+				.thenThrow(new NoteNotFoundException("Note record not found"));
+		perform(patch("/note/{id}", 5).contentType(MediaType.APPLICATION_JSON).content(asJsonString(patch))
+				.session(session)).andExpect(status().isNotFound()).andDo(print());
+	}
+
+	@Test
+	public void testPatchNoteWithoutVersion() throws Exception {
+
+		NotePatch patch = new NotePatch("patched title", null, null, null, null, null);
+		perform(patch("/note/{id}", 1).contentType(MediaType.APPLICATION_JSON).content(asJsonString(patch))
+				.session(session)).andExpect(status().isBadRequest()).andDo(print());
+		verify(noteService, never()).patchNote(any(), anyInt(), any());
+	}
+
+	@Test
+	public void testPatchNoteFailureWithoutSession() throws Exception {
+
+		NotePatch patch = new NotePatch("patched title", null, null, null, null, 3);
+		perform(patch("/note/{id}", 1).contentType(MediaType.APPLICATION_JSON).content(asJsonString(patch)))
+				.andExpect(status().isUnauthorized()).andDo(print());
+		verify(noteService, never()).patchNote(any(), anyInt(), any());
+	}
+
 	@Test
 	public void testGetAllNotesByUserIdSuccess() throws Exception {
 
 		when(noteService.getAllNotesByUserId("Jhon123")).thenReturn(allNotesByUserId);
-		mockMvc.perform(get("/note").contentType(MediaType.APPLICATION_JSON).session(session))
+		perform(get("/note").contentType(MediaType.APPLICATION_JSON).session(session))
 				.andExpect(status().isOk()).andExpect(jsonPath("$", hasSize(3))).andDo(print());
 
 	}
@@ -214,11 +355,390 @@ public class NoteControllerTest {
 	public void testGetAllNotesByUserIdFailureWithoutSession() throws Exception {
 
 		when(noteService.getAllNotesByUserId("Jhon123")).thenReturn(allNotesByUserId);
-		mockMvc.perform(get("/note").contentType(MediaType.APPLICATION_JSON)).andExpect(status().isUnauthorized())
+		perform(get("/note").contentType(MediaType.APPLICATION_JSON)).andExpect(status().isUnauthorized())
+				.andDo(print());
+
+	}
+
+	@Test
+	public void testGetNotesPageByUserIdSuccess() throws Exception {
+
+		ResultPage<Note> page = new ResultPage<>(allNotesByUserId.subList(0, 2), "next-cursor");
+		when(noteService.getNotesByUserId("Jhon123", null, 2)).thenReturn(page);
+		perform(get("/note").param("limit", "2").contentType(MediaType.APPLICATION_JSON).session(session))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.items", hasSize(2)))
+				.andExpect(jsonPath("$.nextCursor").value("next-cursor")).andDo(print());
+
+	}
+
+	@Test
+	public void testGetNotesPageByUserIdMalformedCursor() throws Exception {
+
+		when(noteService.getNotesByUserId("Jhon123", "broken", ResultPage.DEFAULT_LIMIT))
+				.thenThrow(IllegalArgumentException.class);
+		perform(get("/note").param("after", "broken").contentType(MediaType.APPLICATION_JSON).session(session))
+				.andExpect(status().isBadRequest()).andDo(print());
+
+	}
+
+	@Test
+	public void testCreateNoteBatchSuccess() throws Exception {
+
+		List<NoteBatchResult> results = new ArrayList<NoteBatchResult>();
+		for (int index = 0; index < allNotesByUserId.size(); index++) {
+			results.add(new NoteBatchResult(index, index + 1, NoteBatchResult.CREATED, null));
+		}
+		when(noteService.createNotes(any())).thenReturn(results);
+		perform(post("/note/batch").contentType(MediaType.APPLICATION_JSON)
+				.content(asJsonString(allNotesByUserId)).session(session)).andExpect(status().isCreated())
+				.andExpect(jsonPath("$", hasSize(3))).andDo(print());
+
+	}
+
+	@Test
+	public void testCreateNoteBatchTooLarge() throws Exception {
+
+		StringBuilder json = new StringBuilder("[");
+		for (int index = 0; index <= NoteController.MAX_BATCH_SIZE; index++) {
+			json.append("{\"noteTitle\":\"Batch\"},");
+		}
+		json.append("{\"noteTitle\":\"Batch\"}]");
+		perform(post("/note/batch").contentType(MediaType.APPLICATION_JSON).content(json.toString())
+				.session(session)).andExpect(status().isPayloadTooLarge());
+		verify(noteService, never()).createNotes(any());
+
+	}
+
+	@Test
+	public void testCreateNoteBatchNotAnArray() throws Exception {
+
+		perform(post("/note/batch").contentType(MediaType.APPLICATION_JSON).content(asJsonString(note))
+				.session(session)).andExpect(status().isBadRequest()).andDo(print());
+		verify(noteService, never()).createNotes(any());
+
+	}
+
+	@Test
+	public void testCreateNoteBatchFromNdjsonPartialFailure() throws Exception {
+
+		StringBuilder ndjson = new StringBuilder();
+		for (Note batchNote : allNotesByUserId) {
+			ndjson.append(asJsonString(batchNote)).append('\n');
+		}
+		List<NoteBatchResult> results = new ArrayList<NoteBatchResult>();
+		results.add(new NoteBatchResult(0, 1, NoteBatchResult.CREATED, null));
+		results.add(new NoteBatchResult(1, null, NoteBatchResult.NOT_FOUND, "Category record not found"));
+		results.add(new NoteBatchResult(2, 3, NoteBatchResult.CREATED, null));
+		when(noteService.createNotes(any())).thenReturn(results);
+		perform(post("/note/batch").contentType(NoteController.NDJSON_VALUE).content(ndjson.toString())
+				.session(session)).andExpect(status().isMultiStatus()).andExpect(jsonPath("$[1].status").value("NOT_FOUND"))
+				.andDo(print());
+
+	}
+
+	@Test
+	public void testCreateNoteBatchFailureWithoutSession() throws Exception {
+
+		perform(post("/note/batch").contentType(MediaType.APPLICATION_JSON)
+				.content(asJsonString(allNotesByUserId))).andExpect(status().isUnauthorized()).andDo(print());
+
+	}
+
+	@Test
+	public void testSearchNotesSuccess() throws Exception {
+
+		when(noteService.searchNotes("Jhon123", "step*", 5))
+				.thenReturn(new SearchResult<>(allNotesByUserId, new ArrayList<>()));
+		perform(get("/note/search").param("q", "step*").param("limit", "5").session(session))
+				.andExpect(status().isOk()).andExpect(jsonPath("$", hasSize(3)))
+				.andExpect(header().doesNotExist(NoteController.SEARCH_TRUNCATED_HEADER)).andDo(print());
+
+	}
+
+	@Test
+	public void testSearchNotesTruncatedPrefix() throws Exception {
+
+		List<String> truncatedPrefixes = new ArrayList<>();
+		truncatedPrefixes.add("s*");
+		truncatedPrefixes.add("t*");
+		when(noteService.searchNotes("Jhon123", "s* t*", 20))
+				.thenReturn(new SearchResult<>(allNotesByUserId, truncatedPrefixes));
+		perform(get("/note/search").param("q", "s* t*").session(session)).andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(3)))
+				.andExpect(header().string(NoteController.SEARCH_TRUNCATED_HEADER, "s*,t*")).andDo(print());
+
+	}
+
+	@Test
+	public void testSearchNotesBlankQuery() throws Exception {
+
+		perform(get("/note/search").param("q", " - ").session(session)).andExpect(status().isBadRequest())
 				.andDo(print());
 
 	}
 
+	@Test
+	public void testSearchNotesFailureWithoutSession() throws Exception {
+
+		perform(get("/note/search").param("q", "step")).andExpect(status().isUnauthorized()).andDo(print());
+
+	}
+
+	@Test
+	public void testStreamNotesSuccess() throws Exception {
+
+		doAnswer(invocation -> {
+			Consumer<Note> consumer = invocation.getArgument(1);
+			allNotesByUserId.forEach(consumer);
+			return allNotesByUserId.size();
+		}).when(noteService).streamNotesByUserId(eq("Jhon123"), any());
+		perform(get("/note").param("stream", "true").session(session)).andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(3))).andExpect(jsonPath("$[2].noteTitle").value("Testing for Step-5"))
+				.andExpect(jsonPath("$[0].category.categoryName").value("Testing Spring")).andDo(print());
+		verify(noteService, never()).getAllNotesByUserId("Jhon123");
+
+	}
+
+	@Test
+	public void testStreamNotesEmpty() throws Exception {
+
+		when(noteService.streamNotesByUserId(eq("Jhon123"), any())).thenReturn(0);
+		perform(get("/note").param("stream", "true").session(session)).andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(0))).andDo(print());
+
+	}
+
+	@Test
+	public void testStreamNotesFailureWithoutSession() throws Exception {
+
+		perform(get("/note").param("stream", "true")).andExpect(status().isUnauthorized()).andDo(print());
+		verify(noteService, never()).streamNotesByUserId(any(), any());
+
+	}
+
+	@Test
+	public void testStreamNotesServiceUnavailableWhenReadsBusy() throws Exception {
+
+		RequestExecutors busyExecutors = new RequestExecutors(new RequestExecutor("reads", 1, 1, 50),
+				new RequestExecutor("writes", 1, 1, 50));
+		NoteController busyController = new NoteController(noteService, busyExecutors);
+		MockMvc busyMockMvc = MockMvcBuilders.standaloneSetup(busyController)
+				.addInterceptors(new AuthenticationInterceptor(new AuthTokens())).build();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(noteService.getAllNotesByUserId("Jhon123")).thenAnswer(invocation -> {
+			started.countDown();
+			release.await();
+			return allNotesByUserId;
+		});
+
+		try {
+
+			busyMockMvc.perform(get("/note").session(session)).andReturn();
+			assertTrue(started.await(2, TimeUnit.SECONDS));
+			busyMockMvc.perform(get("/note").param("stream", "true").session(session))
+					.andExpect(status().isServiceUnavailable()).andDo(print());
+			verify(noteService, never()).streamNotesByUserId(any(), any());
+			assertEquals(1, busyExecutors.getReads().getRejectedCount());
+
+		} finally {
+
+			release.countDown();
+			busyExecutors.destroy();
+		}
+
+	}
+
+	@Test
+	public void testStreamNotesCutShortAfterTimeout() throws Exception {
+
+		RequestExecutors slowExecutors = new RequestExecutors(new RequestExecutor("reads", 1, 1, 50),
+				new RequestExecutor("writes", 1, 1, 50));
+		NoteController slowController = new NoteController(noteService, slowExecutors);
+		MockMvc slowMockMvc = MockMvcBuilders.standaloneSetup(slowController)
+				.addInterceptors(new AuthenticationInterceptor(new AuthTokens())).build();
+		List<Note> written = new ArrayList<>();
+		doAnswer(invocation -> {
+			Consumer<Note> consumer = invocation.getArgument(1);
+			for (Note note : allNotesByUserId) {
+				consumer.accept(note);
+				written.add(note);
+				Thread.sleep(100);
+			}
+			return allNotesByUserId.size();
+		}).when(noteService).streamNotesByUserId(eq("Jhon123"), any());
+
+		try {
+
+			slowMockMvc.perform(get("/note").param("stream", "true").session(session));
+			fail("The stream should have been cut short");
+
+		} catch (NestedServletException exception) {
+
+			assertTrue(exception.getCause() instanceof UncheckedIOException);
+			assertEquals(1, written.size());
+			assertEquals(0, slowExecutors.getReads().getActiveCount());
+
+		} finally {
+
+			slowExecutors.destroy();
+		}
+
+	}
+
+	@Test
+	public void testGetAllNotesRunsOnReadExecutor() throws Exception {
+
+		List<String> threadNames = new ArrayList<>();
+		when(noteService.getAllNotesByUserId("Jhon123")).thenAnswer(invocation -> {
+			threadNames.add(Thread.currentThread().getName());
+			return allNotesByUserId;
+		});
+		MvcResult mvcResult = mockMvc.perform(get("/note").session(session)).andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(mvcResult)).andExpect(status().isOk()).andExpect(jsonPath("$", hasSize(3)))
+				.andDo(print());
+		assertTrue(threadNames.get(0).startsWith("keepnote-reads-"));
+
+	}
+
+	@Test
+	public void testCreateNoteRunsOnWriteExecutor() throws Exception {
+
+		List<String> threadNames = new ArrayList<>();
+		when(noteService.createNote(any())).thenAnswer(invocation -> {
+			threadNames.add(Thread.currentThread().getName());
+			return true;
+		});
+		MvcResult mvcResult = mockMvc.perform(post("/note").contentType(MediaType.APPLICATION_JSON).session(session)
+				.content(asJsonString(note))).andExpect(request().asyncStarted()).andReturn();
+		mockMvc.perform(asyncDispatch(mvcResult)).andExpect(status().isCreated()).andDo(print());
+		assertTrue(threadNames.get(0).startsWith("keepnote-writes-"));
+
+	}
+
+	@Test
+	public void testGetAllNotesServiceUnavailableWhenQueueFull() throws Exception {
+
+		RequestExecutors saturatedExecutors = new RequestExecutors(new RequestExecutor("reads", 1, 1, 10000),
+				new RequestExecutor("writes", 1, 1, 10000));
+		NoteController saturatedController = new NoteController(noteService, saturatedExecutors);
+		MockMvc saturatedMockMvc = MockMvcBuilders.standaloneSetup(saturatedController)
+				.addInterceptors(new AuthenticationInterceptor(new AuthTokens())).build();
+		CountDownLatch release = new CountDownLatch(1);
+		when(noteService.getAllNotesByUserId("Jhon123")).thenAnswer(invocation -> {
+			release.await();
+			return allNotesByUserId;
+		});
+
+		try {
+
+			MvcResult running = saturatedMockMvc.perform(get("/note").session(session)).andReturn();
+			MvcResult queued = saturatedMockMvc.perform(get("/note").session(session)).andReturn();
+			MvcResult rejected = saturatedMockMvc.perform(get("/note").session(session)).andReturn();
+			saturatedMockMvc.perform(asyncDispatch(rejected)).andExpect(status().isServiceUnavailable());
+			release.countDown();
+			saturatedMockMvc.perform(asyncDispatch(running)).andExpect(status().isOk());
+			saturatedMockMvc.perform(asyncDispatch(queued)).andExpect(status().isOk());
+			assertEquals(1, saturatedExecutors.getReads().getRejectedCount());
+
+		} finally {
+
+			release.countDown();
+			saturatedExecutors.destroy();
+		}
+
+	}
+
+	@Test
+	public void testGetAllNotesServiceUnavailableOnTimeout() throws Exception {
+
+		RequestExecutors slowExecutors = new RequestExecutors(new RequestExecutor("reads", 1, 1, 50),
+				new RequestExecutor("writes", 1, 1, 50));
+		NoteController slowController = new NoteController(noteService, slowExecutors);
+		MockMvc slowMockMvc = MockMvcBuilders.standaloneSetup(slowController)
+				.addInterceptors(new AuthenticationInterceptor(new AuthTokens())).build();
+		CountDownLatch release = new CountDownLatch(1);
+		when(noteService.getAllNotesByUserId("Jhon123")).thenAnswer(invocation -> {
+			release.await();
+			return allNotesByUserId;
+		});
+
+		try {
+
+			MvcResult running = slowMockMvc.perform(get("/note").session(session)).andReturn();
+			MvcResult queued = slowMockMvc.perform(get("/note").session(session)).andReturn();
+			MockAsyncContext asyncContext = (MockAsyncContext) queued.getRequest().getAsyncContext();
+			for (AsyncListener listener : asyncContext.getListeners()) {
+				listener.onTimeout(new AsyncEvent(asyncContext));
+			}
+			slowMockMvc.perform(asyncDispatch(queued)).andExpect(status().isServiceUnavailable());
+			release.countDown();
+			slowMockMvc.perform(asyncDispatch(running)).andExpect(status().isOk());
+			assertEquals(1, slowExecutors.getReads().getTimedOutCount());
+			slowExecutors.destroy();
+			verify(noteService, times(1)).getAllNotesByUserId("Jhon123");
+
+		} finally {
+
+			release.countDown();
+			slowExecutors.destroy();
+		}
+
+	}
+
+	/*
+	 * Perform the request and, when the controller answered asynchronously, dispatch
+	 * the result the executor produced
+	 */
+	@Test
+	public void testGetAllNotesWithTokenAndNoSession() throws Exception {
+
+		AuthTokens authTokens = new AuthTokens(AuthMode.TOKEN, TOKEN_SECRET, 3600, Clock.systemUTC());
+		MockMvc tokenMockMvc = MockMvcBuilders.standaloneSetup(noteController)
+				.addInterceptors(new AuthenticationInterceptor(authTokens)).build();
+		when(noteService.getAllNotesByUserId("Jhon123")).thenReturn(allNotesByUserId);
+		String token = authTokens.issue("Jhon123", authTokens.newExpiry());
+		MvcResult mvcResult = tokenMockMvc.perform(get("/note").header("Authorization", "Bearer " + token))
+				.andExpect(request().asyncStarted()).andReturn();
+		tokenMockMvc.perform(asyncDispatch(mvcResult)).andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(3))).andDo(print());
+		assertNull(mvcResult.getRequest().getSession(false));
+
+	}
+
+	@Test
+	public void testGetAllNotesFailureWithInvalidToken() throws Exception {
+
+		AuthTokens authTokens = new AuthTokens(AuthMode.TOKEN, TOKEN_SECRET, 3600, Clock.systemUTC());
+		MockMvc tokenMockMvc = MockMvcBuilders.standaloneSetup(noteController)
+				.addInterceptors(new AuthenticationInterceptor(authTokens)).build();
+		String token = authTokens.issue("Jhon123", authTokens.newExpiry());
+		String forgedToken = Base64.getUrlEncoder().withoutPadding()
+				.encodeToString("Simon456".getBytes(StandardCharsets.UTF_8)) + token.substring(token.indexOf('.'));
+		tokenMockMvc.perform(get("/note").header("Authorization", "Bearer " + forgedToken))
+				.andExpect(status().isUnauthorized()).andDo(print());
+		// the session mode login does not count in the token mode
+		MvcResult sessionResult = tokenMockMvc.perform(get("/note").session(session)).andReturn();
+		tokenMockMvc.perform(asyncDispatch(sessionResult)).andExpect(status().isUnauthorized()).andDo(print());
+		verify(noteService, never()).getAllNotesByUserId(any());
+
+	}
+
+	private ResultActions perform(RequestBuilder requestBuilder) throws Exception {
+
+		ResultActions resultActions = mockMvc.perform(requestBuilder);
+
+		MvcResult mvcResult = resultActions.andReturn();
+
+		if (mvcResult.getRequest().isAsyncStarted()) {
+
+			return mockMvc.perform(asyncDispatch(mvcResult));
+		}
+
+		return resultActions;
+	}
+
 	public static String asJsonString(final Object obj) {
 		try {
 
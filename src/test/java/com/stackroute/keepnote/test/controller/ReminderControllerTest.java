@@ -7,12 +7,16 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.hamcrest.Matchers.hasSize;
 
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -26,9 +30,17 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.mockito.Spy;
+import com.stackroute.keepnote.async.RequestExecutors;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stackroute.keepnote.auth.AuthTokens;
+import com.stackroute.keepnote.auth.AuthenticationInterceptor;
 import com.stackroute.keepnote.config.ApplicationContextConfig;
 import com.stackroute.keepnote.controller.ReminderController;
 import com.stackroute.keepnote.model.Reminder;
@@ -47,6 +59,8 @@ public class ReminderControllerTest {
 	MockHttpSession session;
 	@Mock
 	ReminderService reminderService;
+	@Spy
+	private RequestExecutors requestExecutors = new RequestExecutors();
 	@InjectMocks
 	ReminderController reminderController;
 	List<Reminder> allReminders = new ArrayList<Reminder>();
@@ -54,7 +68,8 @@ public class ReminderControllerTest {
 	@Before
 	public void setUp() throws Exception {
 		MockitoAnnotations.initMocks(this);
-		mockMvc = MockMvcBuilders.standaloneSetup(reminderController).build();
+		mockMvc = MockMvcBuilders.standaloneSetup(reminderController)
+				.addInterceptors(new AuthenticationInterceptor(new AuthTokens())).build();
 		// Creating User object
 		user = new User("Jhon123", "Jhon Simon", "974324567", "123456", new Date());
 		// creating Session object and setting session
@@ -62,46 +77,51 @@ public class ReminderControllerTest {
 		reminder = new Reminder(1, "Email", "Email reminder", "notification", "Jhon123", null, new Date());
 	}
 
+	@After
+	public void tearDown() throws Exception {
+		requestExecutors.destroy();
+	}
+
 	@Test
 	
 	public void testCreateReminderSuccess() throws Exception {
 		when(reminderService.createReminder(any())).thenReturn(true);
-		mockMvc.perform(post("/reminder").contentType(MediaType.APPLICATION_JSON).content(asJsonString(reminder))
+		perform(post("/reminder").contentType(MediaType.APPLICATION_JSON).content(asJsonString(reminder))
 				.session(session)).andExpect(status().isCreated());
 	}
 
 	@Test
 	public void testCreateReminderFailure() throws Exception {
 		when(reminderService.createReminder(any())).thenReturn(false);
-		mockMvc.perform(post("/reminder").contentType(MediaType.APPLICATION_JSON).content(asJsonString(reminder))
+		perform(post("/reminder").contentType(MediaType.APPLICATION_JSON).content(asJsonString(reminder))
 				.session(session)).andExpect(status().isConflict());
 	}
 
 	@Test
 	public void testCreateReminderWithoutSessionFailure() throws Exception {
 		when(reminderService.createReminder(any())).thenReturn(true);
-		mockMvc.perform(post("/reminder").contentType(MediaType.APPLICATION_JSON).content(asJsonString(reminder)))
+		perform(post("/reminder").contentType(MediaType.APPLICATION_JSON).content(asJsonString(reminder)))
 				.andExpect(status().isUnauthorized());
 	}
 
 	@Test
 	public void testDeleteReminderSuccess() throws Exception {
-		when(reminderService.deleteReminder(reminder.getReminderId())).thenReturn(true);
-		mockMvc.perform(delete("/reminder/{id}", reminder.getReminderId()).session(session)).andExpect(status().isOk())
+		when(reminderService.deleteReminder(reminder.getReminderId(), "Jhon123")).thenReturn(true);
+		perform(delete("/reminder/{id}", reminder.getReminderId()).session(session)).andExpect(status().isOk())
 				.andDo(print());
 	}
 
 	@Test
 	public void testDeleteReminderFailure() throws Exception {
-		when(reminderService.deleteReminder(reminder.getReminderId())).thenReturn(false);
-		mockMvc.perform(delete("/reminder/{id}", reminder.getReminderId()).session(session))
+		when(reminderService.deleteReminder(reminder.getReminderId(), "Jhon123")).thenReturn(false);
+		perform(delete("/reminder/{id}", reminder.getReminderId()).session(session))
 				.andExpect(status().isNotFound()).andDo(print());
 	}
 
 	@Test
 	public void testDeleteReminderWithoutSessionFailure() throws Exception {
-		when(reminderService.deleteReminder(reminder.getReminderId())).thenReturn(false);
-		mockMvc.perform(delete("/reminder/{id}", reminder.getReminderId())).andExpect(status().isUnauthorized())
+		when(reminderService.deleteReminder(reminder.getReminderId(), "Jhon123")).thenReturn(false);
+		perform(delete("/reminder/{id}", reminder.getReminderId())).andExpect(status().isUnauthorized())
 				.andDo(print());
 	}
 
@@ -110,7 +130,7 @@ public class ReminderControllerTest {
 		when(reminderService.updateReminder(any(),eq( reminder.getReminderId()))).thenReturn(reminder);
 		reminder.setReminderDescription("updating reminder");
 
-		mockMvc.perform(put("/reminder/{id}", reminder.getReminderId()).contentType(MediaType.APPLICATION_JSON)
+		perform(put("/reminder/{id}", reminder.getReminderId()).contentType(MediaType.APPLICATION_JSON)
 				.content(asJsonString(reminder)).session(session)).andExpect(status().isOk());
 	}
 
@@ -119,7 +139,7 @@ public class ReminderControllerTest {
 		when(reminderService.updateReminder(any(),eq( reminder.getReminderId()))).thenReturn(null);
 		reminder.setReminderDescription("updating reminder");
 
-		mockMvc.perform(put("/reminder/{id}", reminder.getReminderId()).contentType(MediaType.APPLICATION_JSON)
+		perform(put("/reminder/{id}", reminder.getReminderId()).contentType(MediaType.APPLICATION_JSON)
 				.content(asJsonString(reminder)).session(session)).andExpect(status().isNotFound());
 	}
 
@@ -128,7 +148,7 @@ public class ReminderControllerTest {
 		when(reminderService.updateReminder(any(),eq( reminder.getReminderId()))).thenReturn(null);
 		reminder.setReminderDescription("updating reminder");
 
-		mockMvc.perform(put("/reminder/{id}", reminder.getReminderId()).contentType(MediaType.APPLICATION_JSON)
+		perform(put("/reminder/{id}", reminder.getReminderId()).contentType(MediaType.APPLICATION_JSON)
 				.content(asJsonString(reminder))).andExpect(status().isUnauthorized());
 	}
 
@@ -141,7 +161,7 @@ public class ReminderControllerTest {
 		allReminders.add(reminder);
 
 		when(reminderService.getAllReminderByUserId(user.getUserId())).thenReturn(allReminders);
-		mockMvc.perform(get("/reminder").contentType(MediaType.APPLICATION_JSON).session(session))
+		perform(get("/reminder").contentType(MediaType.APPLICATION_JSON).session(session))
 				.andExpect(status().isOk());
 	}
 
@@ -154,13 +174,13 @@ public class ReminderControllerTest {
 		allReminders.add(reminder);
 
 		when(reminderService.getAllReminderByUserId(user.getUserId())).thenReturn(allReminders);
-		mockMvc.perform(get("/reminder").contentType(MediaType.APPLICATION_JSON)).andExpect(status().isUnauthorized());
+		perform(get("/reminder").contentType(MediaType.APPLICATION_JSON)).andExpect(status().isUnauthorized());
 	}
 
 	@Test
 	public void testGetReminderByIdSuccess() throws Exception {
 		when(reminderService.getReminderById(reminder.getReminderId())).thenReturn(reminder);
-		mockMvc.perform(get("/reminder/{id}", reminder.getReminderId()).contentType(MediaType.APPLICATION_JSON)
+		perform(get("/reminder/{id}", reminder.getReminderId()).contentType(MediaType.APPLICATION_JSON)
 				.session(session)).andExpect(status().isOk());
 
 	}
@@ -168,7 +188,7 @@ public class ReminderControllerTest {
 	@Test
 	public void testGetReminderByIdFailure() throws Exception {
 		when(reminderService.getReminderById(reminder.getReminderId())).thenReturn(null);
-		mockMvc.perform(get("/reminder/{id}", reminder.getReminderId()).contentType(MediaType.APPLICATION_JSON)
+		perform(get("/reminder/{id}", reminder.getReminderId()).contentType(MediaType.APPLICATION_JSON)
 				.session(session)).andExpect(status().isNotFound());
 
 	}
@@ -176,11 +196,50 @@ public class ReminderControllerTest {
 	@Test
 	public void testGetReminderByIdWithoutSessionFailure() throws Exception {
 		when(reminderService.getReminderById(reminder.getReminderId())).thenReturn(null);
-		mockMvc.perform(get("/reminder/{id}", reminder.getReminderId()).contentType(MediaType.APPLICATION_JSON))
+		perform(get("/reminder/{id}", reminder.getReminderId()).contentType(MediaType.APPLICATION_JSON))
 				.andExpect(status().isUnauthorized());
 
 	}
 
+	@Test
+	public void testStreamRemindersSuccess() throws Exception {
+		allReminders.add(reminder);
+		reminder = new Reminder(2, "Email-2", "Email reminder", "notification", "Jhon123", null, new Date());
+		allReminders.add(reminder);
+
+		doAnswer(invocation -> {
+			Consumer<Reminder> consumer = invocation.getArgument(1);
+			allReminders.forEach(consumer);
+			return allReminders.size();
+		}).when(reminderService).streamRemindersByUserId(eq(user.getUserId()), any());
+		perform(get("/reminder").param("stream", "true").session(session)).andExpect(status().isOk())
+				.andExpect(jsonPath("$", hasSize(2))).andExpect(jsonPath("$[1].reminderName").value("Email-2"));
+	}
+
+	@Test
+	public void testStreamRemindersWithoutSessionFailure() throws Exception {
+		perform(get("/reminder").param("stream", "true")).andExpect(status().isUnauthorized());
+		verify(reminderService, never()).streamRemindersByUserId(any(), any());
+	}
+
+	/*
+	 * Perform the request and, when the controller answered asynchronously, dispatch
+	 * the result the executor produced
+	 */
+	private ResultActions perform(RequestBuilder requestBuilder) throws Exception {
+
+		ResultActions resultActions = mockMvc.perform(requestBuilder);
+
+		MvcResult mvcResult = resultActions.andReturn();
+
+		if (mvcResult.getRequest().isAsyncStarted()) {
+
+			return mockMvc.perform(asyncDispatch(mvcResult));
+		}
+
+		return resultActions;
+	}
+
 	public static String asJsonString(final Object obj) {
 		try {
 
@@ -0,0 +1,60 @@
+package com.stackroute.keepnote.test.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.stackroute.keepnote.auth.AdminInterceptor;
+import com.stackroute.keepnote.async.RequestExecutor;
+import com.stackroute.keepnote.async.RequestExecutors;
+import com.stackroute.keepnote.controller.RequestExecutorMetricsController;
+
+public class RequestExecutorMetricsControllerTest {
+
+	private static final String ADMIN_TOKEN = "an-admin-token-of-32-characters!";
+
+	private MockMvc mockMvc;
+	private RequestExecutors requestExecutors;
+
+	@Before
+	public void setUp() throws Exception {
+		requestExecutors = new RequestExecutors(new RequestExecutor(RequestExecutors.READS, 3, 30, 1000),
+				new RequestExecutor(RequestExecutors.WRITES, 2, 20, 2000));
+		mockMvc = MockMvcBuilders.standaloneSetup(new RequestExecutorMetricsController(requestExecutors))
+				.addInterceptors(new AdminInterceptor(ADMIN_TOKEN)).build();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		requestExecutors.destroy();
+	}
+
+	@Test
+	public void testGetRequestExecutorMetrics() throws Exception {
+
+		mockMvc.perform(get("/admin/executors").header(HttpHeaders.AUTHORIZATION, "Bearer " + ADMIN_TOKEN))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.reads.threads").value(3)).andExpect(jsonPath("$.reads.queueCapacity").value(30))
+				.andExpect(jsonPath("$.reads.queueDepth").value(0)).andExpect(jsonPath("$.writes.threads").value(2))
+				.andExpect(jsonPath("$.writes.timeoutMillis").value(2000))
+				.andExpect(jsonPath("$.writes.rejected").value(0))
+				.andExpect(jsonPath("$.writes.queueWait.count").value(0)).andDo(print());
+	}
+
+	@Test
+	public void testGetExecutorMetricsRequiresAdminToken() throws Exception {
+
+		mockMvc.perform(get("/admin/executors")).andExpect(status().isUnauthorized());
+
+		mockMvc.perform(get("/admin/executors").header(HttpHeaders.AUTHORIZATION, "Bearer not-the-admin-token"))
+				.andExpect(status().isForbidden());
+	}
+}
@@ -0,0 +1,65 @@
+package com.stackroute.keepnote.test.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.stackroute.keepnote.auth.AdminInterceptor;
+import com.stackroute.keepnote.controller.SlowQueryController;
+import com.stackroute.keepnote.sql.SlowQueryLog;
+
+public class SlowQueryControllerTest {
+
+	private static final String ADMIN_TOKEN = "an-admin-token-of-32-characters!";
+
+	private MockMvc mockMvc;
+	private SlowQueryLog slowQueryLog;
+
+	@Before
+	public void setUp() throws Exception {
+		slowQueryLog = new SlowQueryLog(100, 2, true,
+				Clock.fixed(Instant.parse("2026-10-17T10:15:30Z"), ZoneOffset.UTC));
+		mockMvc = MockMvcBuilders.standaloneSetup(new SlowQueryController(slowQueryLog))
+				.addInterceptors(new AdminInterceptor(ADMIN_TOKEN)).build();
+	}
+
+	@Test
+	public void testGetSlowQueries() throws Exception {
+
+		slowQueryLog.record("select * from NOTE where NOTE_CREATED_BY = ?", new Object[] { "Jhon123" }, 1, 250,
+				150_000_000L);
+		slowQueryLog.record("insert into NOTE values (?)", new Object[] { "secret" }, 50, 50, 400_000_000L);
+		slowQueryLog.record("select 1", null, 1, 1, 1_000_000L);
+
+		mockMvc.perform(get("/admin/slow-queries").header(HttpHeaders.AUTHORIZATION, "Bearer " + ADMIN_TOKEN))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.thresholdMillis").value(100)).andExpect(jsonPath("$.topSize").value(2))
+				.andExpect(jsonPath("$.redactParameters").value(true)).andExpect(jsonPath("$.slowQueries").value(2))
+				.andExpect(jsonPath("$.slowest[0].sql").value("insert into NOTE values (?)"))
+				.andExpect(jsonPath("$.slowest[0].elapsedMillis").value(400.0))
+				.andExpect(jsonPath("$.slowest[0].batchSize").value(50))
+				.andExpect(jsonPath("$.slowest[0].parameters").value("[1: <String>]"))
+				.andExpect(jsonPath("$.slowest[1].rows").value(250))
+				.andExpect(jsonPath("$.slowest[1].executedAt").value("2026-10-17T10:15:30Z")).andDo(print());
+	}
+
+	@Test
+	public void testGetSlowQueriesRequiresAdminToken() throws Exception {
+
+		mockMvc.perform(get("/admin/slow-queries")).andExpect(status().isUnauthorized());
+
+		mockMvc.perform(get("/admin/slow-queries").header(HttpHeaders.AUTHORIZATION, "Bearer not-the-admin-token"))
+				.andExpect(status().isForbidden());
+	}
+}
@@ -1,24 +1,36 @@
 package com.stackroute.keepnote.test.controller;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.util.Date;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockHttpSession;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stackroute.keepnote.auth.AuthMode;
+import com.stackroute.keepnote.auth.AuthTokens;
+import com.stackroute.keepnote.auth.AuthenticationInterceptor;
 import com.stackroute.keepnote.controller.UserAuthenticationController;
 import com.stackroute.keepnote.model.User;
 import com.stackroute.keepnote.service.UserService;
@@ -29,6 +41,8 @@ public class UserAuthenticationControllerTest {
 	private User user;
 	@Mock
 	UserService userService;
+	@Spy
+	AuthTokens authTokens = new AuthTokens();
 	@Autowired
 	private MockHttpSession session;
 	@InjectMocks
@@ -37,7 +51,8 @@ public class UserAuthenticationControllerTest {
 	@Before
 	public void setUp() throws Exception {
 		MockitoAnnotations.initMocks(this);
-		mockMvc = MockMvcBuilders.standaloneSetup(authController).build();
+		mockMvc = MockMvcBuilders.standaloneSetup(authController)
+				.addInterceptors(new AuthenticationInterceptor(new AuthTokens())).build();
 		user = new User("Jhon123", "Jhon Simon", "974324567", "123456", new Date());
 		// creatin Session object and setting session
 		session = new MockHttpSession();
@@ -84,6 +99,31 @@ public class UserAuthenticationControllerTest {
 
 	}
 
+	@Test
+	public void testLoginIssuesTokenInTokenMode() throws Exception {
+
+		AuthTokens tokenAuthTokens = new AuthTokens(AuthMode.TOKEN, "a-secret-shared-by-every-keepnote-node", 3600,
+				Clock.fixed(Instant.ofEpochSecond(1500000000), ZoneOffset.UTC));
+		UserAuthenticationController tokenController = new UserAuthenticationController(userService, tokenAuthTokens);
+		MockMvc tokenMockMvc = MockMvcBuilders.standaloneSetup(tokenController)
+				.addInterceptors(new AuthenticationInterceptor(tokenAuthTokens)).build();
+		when(userService.validateUser(user.getUserId(), user.getUserPassword())).thenReturn(true);
+		when(userService.getUserById(user.getUserId())).thenReturn(user);
+
+		MvcResult mvcResult = tokenMockMvc
+				.perform(post("/login").contentType(MediaType.APPLICATION_JSON).content(asJsonString(user)))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.expiresAt").value(1500003600)).andDo(print())
+				.andReturn();
+		assertNull(mvcResult.getRequest().getSession(false));
+
+		JsonNode body = new ObjectMapper().readTree(mvcResult.getResponse().getContentAsString());
+		String token = body.get("token").asText();
+		assertEquals(user.getUserId(), tokenAuthTokens.verify(token, 0));
+
+		tokenMockMvc.perform(get("/logout").header("Authorization", "Bearer " + token)).andExpect(status().isOk())
+				.andDo(print());
+	}
+
 	public static String asJsonString(final Object obj) {
 		try {
 
@@ -24,6 +24,8 @@ import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stackroute.keepnote.auth.AuthTokens;
+import com.stackroute.keepnote.auth.AuthenticationInterceptor;
 import com.stackroute.keepnote.config.ApplicationContextConfig;
 import com.stackroute.keepnote.controller.UserController;
 import com.stackroute.keepnote.exception.UserAlreadyExistException;
@@ -49,7 +51,8 @@ public class UserControllerTest {
 
 		MockitoAnnotations.initMocks(this);
 
-		mockMvc = MockMvcBuilders.standaloneSetup(userController).build();
+		mockMvc = MockMvcBuilders.standaloneSetup(userController)
+				.addInterceptors(new AuthenticationInterceptor(new AuthTokens())).build();
 
 		user = new User("Jhon123", "Jhon Simon", "123456", "9872367384", new Date());
 		// Setting session attribute
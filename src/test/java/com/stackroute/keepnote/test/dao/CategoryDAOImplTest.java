@@ -2,11 +2,13 @@ package com.stackroute.keepnote.test.dao;
 
 import static org.junit.Assert.*;
 
+import java.util.Date;
 import java.util.List;
 
 import javax.persistence.Query;
 import javax.transaction.Transactional;
 
+import org.hibernate.Cache;
 import org.hibernate.SessionFactory;
 import org.junit.After;
 import org.junit.Before;
@@ -26,6 +28,7 @@ import com.stackroute.keepnote.dao.CategoryDAO;
 import com.stackroute.keepnote.dao.CategoryDAOImpl;
 import com.stackroute.keepnote.exception.CategoryNotFoundException;
 import com.stackroute.keepnote.model.Category;
+import com.stackroute.keepnote.model.PageCursor;
 
 @RunWith(SpringRunner.class)
 @Transactional
@@ -72,16 +75,45 @@ public class CategoryDAOImplTest {
 	@Test
 	public void testDeleteCategorySuccess() {
 		categoryDAO.createCategory(category);
-		boolean status = categoryDAO.deleteCategory(category.getCategoryId());
+		boolean status = categoryDAO.deleteCategory(category.getCategoryId(), "Jhon123");
 		assertEquals(true, status);
 	}
 
+	@Test
+	public void testDeleteCategoryEvictsOnlyThatCategory() throws CategoryNotFoundException {
+		// rows inserted by Hibernate are not cached until the transaction commits
+		insertCategory(1001);
+		insertCategory(1002);
+		categoryDAO.getCategoryById(1001);
+		categoryDAO.getCategoryById(1002);
+		Cache cache = sessionFactory.getCache();
+		assertTrue(cache.containsEntity(Category.class, 1001));
+		assertTrue(categoryDAO.deleteCategory(1001, "Jhon123"));
+		assertFalse(cache.containsEntity(Category.class, 1001));
+		assertTrue(cache.containsEntity(Category.class, 1002));
+	}
+
+	private void insertCategory(int categoryId) {
+		sessionFactory.getCurrentSession()
+				.createNativeQuery("INSERT INTO CATEGORY (CATEGORY_ID, CATEGORY_NAME, CATEGORY_DESCR, "
+						+ "CATEGORY_CREATION_DATE, CATEGORY_CREATOR) VALUES (:categoryId, 'Testing', "
+						+ "'All about testing spring application', CURRENT_TIMESTAMP, 'Jhon123')")
+				.setParameter("categoryId", categoryId).executeUpdate();
+	}
+
+	@Test
+	public void testDeleteCategoryOfAnotherUser() {
+		categoryDAO.createCategory(category);
+		boolean status = categoryDAO.deleteCategory(category.getCategoryId(), "Someone456");
+		assertEquals(false, status);
+	}
+
 	@Test(expected= CategoryNotFoundException.class)
 	public void testDeleteCategoryFailure() throws CategoryNotFoundException {
 		categoryDAO.createCategory(category);
 		@SuppressWarnings("unused")
 		Category savedCategory = categoryDAO.getCategoryById(2);
-		boolean status = categoryDAO.deleteCategory(2);
+		boolean status = categoryDAO.deleteCategory(2, "Jhon123");
 		assertEquals(false, status);
 	}
 
@@ -115,4 +147,27 @@ public class CategoryDAOImplTest {
 		assertEquals(3, allCategories.size());
 	}
 
+	@Test
+	@Rollback(true)
+	public void testGetCategoriesPageByUserIdWithUndatedCategories() {
+
+		Category otherUndatedCategory = new Category(2, "Testing-2", "All about testing spring application", null,
+				"Jhon123", null);
+		Category datedCategory = new Category(3, "Testing-3", "All about testing spring application", new Date(),
+				"Jhon123", null);
+		categoryDAO.createCategory(category);
+		categoryDAO.createCategory(otherUndatedCategory);
+		categoryDAO.createCategory(datedCategory);
+
+		List<Category> firstPage = categoryDAO.getCategoriesByUserId("Jhon123", null, 2);
+		Category last = firstPage.get(1);
+		PageCursor cursor = PageCursor
+				.decode(new PageCursor(last.getCategoryCreationDate(), last.getCategoryId()).encode());
+		List<Category> secondPage = categoryDAO.getCategoriesByUserId("Jhon123", cursor, 2);
+
+		assertEquals(otherUndatedCategory.getCategoryId(), last.getCategoryId());
+		assertEquals(1, secondPage.size());
+		assertEquals(datedCategory.getCategoryId(), secondPage.get(0).getCategoryId());
+	}
+
 }
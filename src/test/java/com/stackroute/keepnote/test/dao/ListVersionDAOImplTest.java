@@ -0,0 +1,56 @@
+package com.stackroute.keepnote.test.dao;
+
+import static org.junit.Assert.*;
+
+import javax.transaction.Transactional;
+
+import org.hibernate.SessionFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+import org.springframework.test.context.transaction.TransactionalTestExecutionListener;
+import org.springframework.test.context.web.WebAppConfiguration;
+
+import com.stackroute.keepnote.config.ApplicationContextConfig;
+import com.stackroute.keepnote.dao.ListVersionDAO;
+import com.stackroute.keepnote.dao.ListVersionDAOImpl;
+
+@RunWith(SpringRunner.class)
+@Transactional
+@WebAppConfiguration
+@ContextConfiguration(classes = { ApplicationContextConfig.class })
+@TestExecutionListeners({ DependencyInjectionTestExecutionListener.class, TransactionalTestExecutionListener.class })
+public class ListVersionDAOImplTest {
+
+	@Autowired
+	private SessionFactory sessionFactory;
+	private ListVersionDAO listVersionDAO;
+
+	@Before
+	public void setUp() throws Exception {
+		listVersionDAO = new ListVersionDAOImpl(sessionFactory);
+	}
+
+	@Test
+	@Rollback(true)
+	public void testUnwrittenListingIsAtVersionZero() {
+		assertEquals(0, listVersionDAO.getVersion("notes", "Jhon123"));
+	}
+
+	@Test
+	@Rollback(true)
+	public void testBumpVersionPerUserAndListing() {
+		assertEquals(1, listVersionDAO.bumpVersion("notes", "Jhon123"));
+		assertEquals(2, listVersionDAO.bumpVersion("notes", "Jhon123"));
+		assertEquals(1, listVersionDAO.bumpVersion("categories", "Jhon123"));
+		assertEquals(2, listVersionDAO.getVersion("notes", "Jhon123"));
+		assertEquals(1, listVersionDAO.getVersion("categories", "Jhon123"));
+		assertEquals(0, listVersionDAO.getVersion("notes", "Chris123"));
+	}
+}
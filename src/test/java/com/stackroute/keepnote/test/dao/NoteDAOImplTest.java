@@ -1,12 +1,16 @@
 package com.stackroute.keepnote.test.dao;
 
 import static org.junit.Assert.*;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
 import javax.persistence.Query;
 import javax.transaction.Transactional;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -24,7 +28,13 @@ import com.stackroute.keepnote.config.ApplicationContextConfig;
 import com.stackroute.keepnote.dao.NoteDAO;
 import com.stackroute.keepnote.dao.NoteDAOImpl;
 import com.stackroute.keepnote.exception.NoteNotFoundException;
+import com.stackroute.keepnote.exception.NoteVersionConflictException;
+import com.stackroute.keepnote.model.Category;
 import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.NotePatch;
+import com.stackroute.keepnote.model.PageCursor;
+import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.test.sql.SqlBudget;
 
 @RunWith(SpringRunner.class)
 @Transactional
@@ -58,7 +68,7 @@ public class NoteDAOImplTest {
 		noteDAO.createNote(note);
 		List<Note> notes = noteDAO.getAllNotesByUserId("Jhon123");
 		assertEquals("Testing-1", notes.get(0).getNoteTitle());
-		noteDAO.deleteNote(note.getNoteId());
+		noteDAO.deleteNote(note.getNoteId(), "Jhon123");
 	}
 
 	@Test
@@ -68,7 +78,7 @@ public class NoteDAOImplTest {
 		noteDAO.createNote(note);
 		List<Note> notes = noteDAO.getAllNotesByUserId("Jhon123");
 		assertNotEquals("Testing-2", notes.get(0).getNoteTitle());
-		noteDAO.deleteNote(note.getNoteId());
+		noteDAO.deleteNote(note.getNoteId(), "Jhon123");
 
 	}
 
@@ -78,11 +88,58 @@ public class NoteDAOImplTest {
 
 		noteDAO.createNote(note);
 		Note noteData = noteDAO.getNoteById(note.getNoteId());
-		boolean status = noteDAO.deleteNote(noteData.getNoteId());
+		boolean status = noteDAO.deleteNote(noteData.getNoteId(), "Jhon123");
 		assertEquals(true, status);
 
 	}
 
+	@Test
+	@Rollback(true)
+	public void testDeleteNoteCostIndependentOfTableSize() throws NoteNotFoundException {
+
+		noteDAO.createNote(note);
+		sessionFactory.getCurrentSession().flush();
+
+		// grow the table to 2^18 rows by repeatedly copying it onto itself
+		for (int index = 0; index < 18; index++) {
+			sessionFactory.getCurrentSession()
+					.createNativeQuery("INSERT INTO NOTE (NOTE_TITLE, NOTE_CONTENT, NOTE_STATUS, NOTE_CREATION_DATE, "
+							+ "NOTE_CREATOR) SELECT NOTE_TITLE, NOTE_CONTENT, NOTE_STATUS, NOTE_CREATION_DATE, "
+							+ "NOTE_CREATOR FROM NOTE")
+					.executeUpdate();
+		}
+		sessionFactory.getCurrentSession().clear();
+
+		Statistics statistics = sessionFactory.getStatistics();
+		statistics.setStatisticsEnabled(true);
+		statistics.clear();
+
+		boolean status = noteDAO.deleteNote(note.getNoteId(), "Jhon123");
+
+		assertEquals(true, status);
+		assertEquals(0, statistics.getEntityLoadCount());
+		assertEquals(1, statistics.getPrepareStatementCount());
+		statistics.setStatisticsEnabled(false);
+	}
+
+	@Test
+	@Rollback(true)
+	public void testDeleteNoteOfAnotherUser() throws NoteNotFoundException {
+
+		noteDAO.createNote(note);
+		boolean status = noteDAO.deleteNote(note.getNoteId(), "Someone456");
+		assertEquals(false, status);
+		assertEquals(note.getNoteId(), noteDAO.getNoteById(note.getNoteId()).getNoteId());
+	}
+
+	@Test
+	@Rollback(true)
+	public void testDeleteNoteFailure() throws NoteNotFoundException {
+
+		boolean status = noteDAO.deleteNote(Integer.MAX_VALUE, "Jhon123");
+		assertEquals(false, status);
+	}
+
 	@Test
 	public void testGetAllNotesByUserId() throws NoteNotFoundException {
 		Note note2 = new Note(2, "Testing-2", "Testing Service layer", "Active", new Date(), null, null, "Jhon123");
@@ -92,9 +149,9 @@ public class NoteDAOImplTest {
 		noteDAO.createNote(note3);
 		List<Note> notes = noteDAO.getAllNotesByUserId("Jhon123");
 		assertEquals(3, notes.size());
-		noteDAO.deleteNote(note.getNoteId());
-		noteDAO.deleteNote(note2.getNoteId());
-		noteDAO.deleteNote(note3.getNoteId());
+		noteDAO.deleteNote(note.getNoteId(), "Jhon123");
+		noteDAO.deleteNote(note2.getNoteId(), "Jhon123");
+		noteDAO.deleteNote(note3.getNoteId(), "Jhon123");
 	}
 
 	@Test
@@ -104,7 +161,7 @@ public class NoteDAOImplTest {
 		noteDAO.createNote(note);
 		Note noteData = noteDAO.getNoteById(note.getNoteId());
 		assertEquals(note, noteData);
-		noteDAO.deleteNote(note.getNoteId());
+		noteDAO.deleteNote(note.getNoteId(), "Jhon123");
 
 	}
 
@@ -115,7 +172,7 @@ public class NoteDAOImplTest {
 		noteDAO.createNote(note);
 		Note noteData = noteDAO.getNoteById(2);
 		assertEquals(note, noteData);
-		noteDAO.deleteNote(note.getNoteId());
+		noteDAO.deleteNote(note.getNoteId(), "Jhon123");
 
 	}
 
@@ -131,8 +188,275 @@ public class NoteDAOImplTest {
 		Note updatedNote = noteDAO.getNoteById(noteData.getNoteId());
 		assertEquals("Unit testing for DAO layer", updatedNote.getNoteContent());
 		assertEquals(true, status);
-		noteDAO.deleteNote(updatedNote.getNoteId());
+		noteDAO.deleteNote(updatedNote.getNoteId(), "Jhon123");
+
+	}
+
+	@Test
+	@Rollback(true)
+	public void testGetAllNotesByUserIdRunsOneStatement() throws Exception {
+
+		createNotesInTwoCategoriesAndReminders();
+
+		List<Note> notes = SqlBudget.statementsAtMost(1, () -> noteDAO.getAllNotesByUserId("Jhon123"));
+
+		assertEquals(4, notes.size());
+		assertCategoriesAndRemindersLoaded(notes);
+	}
+
+	@Test
+	@Rollback(true)
+	public void testGetNotesPageByUserIdRunsOneStatement() throws Exception {
+
+		createNotesInTwoCategoriesAndReminders();
+
+		List<Note> firstPage = SqlBudget.statementsAtMost(1, () -> noteDAO.getNotesByUserId("Jhon123", null, 2));
+		Note last = firstPage.get(1);
+		List<Note> secondPage = SqlBudget.statementsAtMost(1, () -> noteDAO.getNotesByUserId("Jhon123",
+				new PageCursor(last.getNoteCreatedAt(), last.getNoteId()), 2));
+
+		assertEquals(2, firstPage.size());
+		assertEquals(2, secondPage.size());
+		assertCategoriesAndRemindersLoaded(firstPage);
+		assertCategoriesAndRemindersLoaded(secondPage);
+	}
+
+	@Test
+	@Rollback(true)
+	public void testGetNotesPageByUserIdWithUndatedNotes() {
+
+		Note undatedNote = new Note(2, "Testing-2", "Testing Service layer", "Active", null, null, null, "Jhon123");
+		Note otherUndatedNote = new Note(3, "Testing-3", "Testing Service layer", "Active", null, null, null,
+				"Jhon123");
+		noteDAO.createNote(undatedNote);
+		noteDAO.createNote(otherUndatedNote);
+		noteDAO.createNote(note);
+
+		List<Note> firstPage = noteDAO.getNotesByUserId("Jhon123", null, 2);
+		Note last = firstPage.get(1);
+		PageCursor cursor = PageCursor.decode(new PageCursor(last.getNoteCreatedAt(), last.getNoteId()).encode());
+		List<Note> secondPage = noteDAO.getNotesByUserId("Jhon123", cursor, 2);
+
+		assertEquals(otherUndatedNote.getNoteId(), last.getNoteId());
+		assertEquals(1, secondPage.size());
+		assertEquals(note.getNoteId(), secondPage.get(0).getNoteId());
+	}
+
+	@Test
+	@Rollback(true)
+	public void testGetNoteByIdRunsOneStatement() throws Exception {
+
+		int noteId = createNotesInTwoCategoriesAndReminders().get(0).getNoteId();
+
+		Note noteData = SqlBudget.statementsAtMost(1, () -> noteDAO.getNoteById(noteId));
+
+		assertEquals("Spring", noteData.getCategory().getCategoryName());
+		assertEquals("Today", noteData.getReminder().getReminderName());
+	}
+
+	@Test
+	@Rollback(true)
+	public void testLazyCategoriesAndRemindersAreLoadedInBatches() throws Exception {
+
+		createNotesInTwoCategoriesAndReminders();
+
+		List<Note> notes = SqlBudget.statementsAtMost(1, () -> sessionFactory.getCurrentSession()
+				.createQuery("from Note where createdBy = :userId", Note.class).setParameter("userId", "Jhon123")
+				.list());
+
+		assertFalse(Hibernate.isInitialized(notes.get(0).getCategory()));
+
+		// one select for both categories and one for both reminders
+		SqlBudget.statementsAtMost(2, () -> {
+			assertCategoriesAndRemindersLoaded(notes);
+			return null;
+		});
+	}
+
+	@Test
+	@Rollback(true)
+	public void testPatchNoteWritesGivenFieldsInOneStatement() throws Exception {
+
+		List<Note> notes = createNotesInTwoCategoriesAndReminders();
+		int noteId = notes.get(0).getNoteId();
+		Category hibernate = notes.get(2).getCategory();
+
+		int version = SqlBudget.statementsAtMost(1, () -> noteDAO.patchNote(noteId, "Jhon123",
+				new NotePatch(null, "Patched content", null, hibernate, null, 0)));
+		sessionFactory.getCurrentSession().clear();
+
+		Note patchedNote = noteDAO.getNoteById(noteId);
+		assertEquals(1, patchedNote.getNoteVersion());
+		assertEquals("Patched content", patchedNote.getNoteContent());
+		assertEquals("Testing-1", patchedNote.getNoteTitle());
+		assertEquals("Hibernate", patchedNote.getCategory().getCategoryName());
+		assertEquals("Today", patchedNote.getReminder().getReminderName());
+	}
+
+	@Test
+	@Rollback(true)
+	public void testPatchNoteWithStaleVersion() throws Exception {
+
+		int noteId = createNotesInTwoCategoriesAndReminders().get(0).getNoteId();
+
+		noteDAO.patchNote(noteId, "Jhon123", new NotePatch("First edit", null, null, null, null, 0));
+
+		try {
+			noteDAO.patchNote(noteId, "Jhon123", new NotePatch("Second edit", null, null, null, null, 0));
+			fail("A patch against version 0 of a note at version 1 was applied");
+		} catch (NoteVersionConflictException exception) {
+			sessionFactory.getCurrentSession().clear();
+			assertEquals("First edit", noteDAO.getNoteById(noteId).getNoteTitle());
+		}
+	}
+
+	@Test(expected = NoteNotFoundException.class)
+	@Rollback(true)
+	public void testPatchNoteNotFound() throws Exception {
+
+		noteDAO.patchNote(-1, "Jhon123", new NotePatch("Patched title", null, null, null, null, 0));
+	}
+
+	@Test
+	@Rollback(true)
+	public void testPatchNoteOfAnotherUser() throws Exception {
+
+		int noteId = createNotesInTwoCategoriesAndReminders().get(0).getNoteId();
+
+		try {
+			noteDAO.patchNote(noteId, "Someone else", new NotePatch("Patched title", null, null, null, null, 0));
+			fail("A note of Jhon123 was patched by another user");
+		} catch (NoteNotFoundException exception) {
+			sessionFactory.getCurrentSession().clear();
+			Note note = noteDAO.getNoteById(noteId);
+			assertEquals("Testing-1", note.getNoteTitle());
+			assertEquals(0, note.getNoteVersion());
+		}
+
+		try {
+			noteDAO.patchNote(noteId, "Someone else", new NotePatch("Patched title", null, null, null, null, 7));
+			fail("A note of Jhon123 was patched by another user");
+		} catch (NoteNotFoundException exception) {
+			assertEquals("Note record not found", exception.getMessage());
+		}
+	}
 
+	@Test(expected = NoteNotFoundException.class)
+	@Rollback(true)
+	public void testReplaceNoteOfAnotherUser() throws Exception {
+
+		int noteId = createNotesInTwoCategoriesAndReminders().get(0).getNoteId();
+
+		noteDAO.replaceNote(noteId, "Someone else",
+				new Note(noteId, "Replaced title", null, null, null, null, null, "Someone else"), 0);
 	}
 
+	@Test
+	@Rollback(true)
+	public void testReplaceNoteUpdatesPathIdInPlace() throws Exception {
+
+		List<Note> notes = createNotesInTwoCategoriesAndReminders();
+		int noteId = notes.get(0).getNoteId();
+		Date createdAt = noteDAO.getNoteById(noteId).getNoteCreatedAt();
+		int noteCount = noteDAO.getAllNotesByUserId("Jhon123").size();
+		sessionFactory.getCurrentSession().clear();
+
+		Note replacement = new Note(0, "Replaced title", "Replaced content", "Done", null,
+				notes.get(2).getCategory(), null, "Someone else");
+		noteDAO.replaceNote(noteId, "Jhon123", replacement, 0);
+		sessionFactory.getCurrentSession().clear();
+
+		Note replacedNote = noteDAO.getNoteById(noteId);
+		assertEquals(1, replacedNote.getNoteVersion());
+		assertEquals("Replaced title", replacedNote.getNoteTitle());
+		assertEquals("Done", replacedNote.getNoteStatus());
+		assertEquals("Hibernate", replacedNote.getCategory().getCategoryName());
+		assertNull(replacedNote.getReminder());
+		assertEquals(createdAt, replacedNote.getNoteCreatedAt());
+		assertEquals("Jhon123", replacedNote.getCreatedBy());
+		assertEquals(noteCount, noteDAO.getAllNotesByUserId("Jhon123").size());
+	}
+
+	@Test
+	@Rollback(true)
+	public void testReplaceNoteWithStaleVersion() throws Exception {
+
+		int noteId = createNotesInTwoCategoriesAndReminders().get(0).getNoteId();
+
+		noteDAO.patchNote(noteId, "Jhon123", new NotePatch("First edit", null, null, null, null, 0));
+
+		try {
+			noteDAO.replaceNote(noteId, "Jhon123",
+					new Note(noteId, "Second edit", null, null, null, null, null, "Jhon123"), 0);
+			fail("A replacement of version 0 of a note at version 1 was applied");
+		} catch (NoteVersionConflictException exception) {
+			sessionFactory.getCurrentSession().clear();
+			assertEquals("First edit", noteDAO.getNoteById(noteId).getNoteTitle());
+		}
+	}
+
+	@Test
+	@Rollback(true)
+	public void testReplaceNoteWithoutVersion() throws Exception {
+
+		int noteId = createNotesInTwoCategoriesAndReminders().get(0).getNoteId();
+
+		noteDAO.patchNote(noteId, "Jhon123", new NotePatch("First edit", null, null, null, null, 0));
+		noteDAO.replaceNote(noteId, "Jhon123", new Note(noteId, "Second edit", null, null, null, null, null, "Jhon123"),
+				null);
+		sessionFactory.getCurrentSession().clear();
+
+		Note replacedNote = noteDAO.getNoteById(noteId);
+		assertEquals("Second edit", replacedNote.getNoteTitle());
+		assertEquals(2, replacedNote.getNoteVersion());
+	}
+
+	@Test(expected = NoteNotFoundException.class)
+	@Rollback(true)
+	public void testReplaceNoteNotFound() throws Exception {
+
+		noteDAO.replaceNote(-1, "Jhon123", new Note(0, "Replaced title", null, null, null, null, null, "Jhon123"),
+				null);
+	}
+
+	/*
+	 * Four notes of Jhon123 spread over two categories and two reminders, flushed
+	 * and evicted from the session and the second-level cache
+	 */
+	private List<Note> createNotesInTwoCategoriesAndReminders() {
+
+		Session session = sessionFactory.getCurrentSession();
+
+		Category spring = new Category(1, "Spring", "All about Spring", new Date(), "Jhon123", null);
+		Category hibernate = new Category(2, "Hibernate", "All about Hibernate", new Date(), "Jhon123", null);
+		Reminder today = new Reminder(1, "Today", "Due today", "Personal", "Jhon123", null, new Date());
+		Reminder tomorrow = new Reminder(2, "Tomorrow", "Due tomorrow", "Personal", "Jhon123", null, new Date());
+		session.save(spring);
+		session.save(hibernate);
+		session.save(today);
+		session.save(tomorrow);
+
+		List<Note> notes = new ArrayList<>();
+		notes.add(new Note(1, "Testing-1", "Testing", "Active", new Date(), spring, today, "Jhon123"));
+		notes.add(new Note(2, "Testing-2", "Testing", "Active", new Date(), spring, tomorrow, "Jhon123"));
+		notes.add(new Note(3, "Testing-3", "Testing", "Active", new Date(), hibernate, today, "Jhon123"));
+		notes.add(new Note(4, "Testing-4", "Testing", "Active", new Date(), hibernate, tomorrow, "Jhon123"));
+		for (Note newNote : notes) {
+			noteDAO.createNote(newNote);
+		}
+
+		session.flush();
+		session.clear();
+		sessionFactory.getCache().evictAllRegions();
+
+		return notes;
+	}
+
+	private void assertCategoriesAndRemindersLoaded(List<Note> notes) {
+
+		for (Note noteData : notes) {
+			assertNotNull(noteData.getCategory().getCategoryName());
+			assertNotNull(noteData.getReminder().getReminderName());
+		}
+	}
 }
@@ -6,8 +6,10 @@ import java.util.Date;
 import java.util.List;
 
 import javax.persistence.Query;
+import javax.persistence.TemporalType;
 import javax.transaction.Transactional;
 
+import org.hibernate.Cache;
 import org.hibernate.SessionFactory;
 import org.junit.After;
 import org.junit.Before;
@@ -26,6 +28,7 @@ import com.stackroute.keepnote.config.ApplicationContextConfig;
 import com.stackroute.keepnote.dao.ReminderDAO;
 import com.stackroute.keepnote.dao.ReminderDAOImpl;
 import com.stackroute.keepnote.exception.ReminderNotFoundException;
+import com.stackroute.keepnote.model.PageCursor;
 import com.stackroute.keepnote.model.Reminder;
 
 @RunWith(SpringRunner.class)
@@ -85,16 +88,66 @@ public class ReminderDAOImplTest {
 	public void testDeleteReminderSuccess() throws ReminderNotFoundException {
 		reminderDAO.createReminder(reminder);
 		Reminder savedReminder = reminderDAO.getReminderById(reminder.getReminderId());
-		boolean status = reminderDAO.deleteReminder(savedReminder.getReminderId());
+		boolean status = reminderDAO.deleteReminder(savedReminder.getReminderId(), "Jhon123");
 		assertEquals(true, status);
 	}
 
+	@Test
+	public void testDeleteReminderEvictsOnlyThatReminder() throws ReminderNotFoundException {
+		// rows inserted by Hibernate are not cached until the transaction commits
+		insertReminder(1001, null);
+		insertReminder(1002, null);
+		reminderDAO.getReminderById(1001);
+		reminderDAO.getReminderById(1002);
+		Cache cache = sessionFactory.getCache();
+		assertTrue(cache.containsEntity(Reminder.class, 1001));
+		assertTrue(reminderDAO.deleteReminder(1001, "Jhon123"));
+		assertFalse(cache.containsEntity(Reminder.class, 1001));
+		assertTrue(cache.containsEntity(Reminder.class, 1002));
+	}
+
+	@Test
+	public void testMarkReminderFiredEvictsOnlyThatReminder() throws ReminderNotFoundException {
+		insertReminder(1001, new Date(1500000000000L));
+		insertReminder(1002, new Date(1500000000000L));
+		reminderDAO.getReminderById(1001);
+		reminderDAO.getReminderById(1002);
+		Cache cache = sessionFactory.getCache();
+		assertFalse(reminderDAO.markReminderFired(1001, new Date(1500000060000L), new Date(1500000001000L),
+				new Date(1500000060000L)));
+		assertTrue(cache.containsEntity(Reminder.class, 1001));
+		assertTrue(reminderDAO.markReminderFired(1001, new Date(1500000000000L), new Date(1500000001000L),
+				new Date(1500000060000L)));
+		assertFalse(cache.containsEntity(Reminder.class, 1001));
+		assertTrue(cache.containsEntity(Reminder.class, 1002));
+		sessionFactory.getCurrentSession().clear();
+		Reminder firedReminder = reminderDAO.getReminderById(1001);
+		assertEquals(1500000001000L, firedReminder.getReminderFiredAt().getTime());
+		assertEquals(1500000060000L, firedReminder.getReminderDueAt().getTime());
+	}
+
+	private void insertReminder(int reminderId, Date dueAt) {
+		sessionFactory.getCurrentSession()
+				.createNativeQuery("INSERT INTO REMINDER (REMINDER_ID, REMINDER_NAME, REMINDER_DESCR, REMINDER_TYPE, "
+						+ "REMINDER_CREATION_DATE, REMINDER_CREATOR, REMINDER_DUE_AT) VALUES (:reminderId, 'Email', "
+						+ "'Email reminder', 'notification', CURRENT_TIMESTAMP, 'Jhon123', :dueAt)")
+				.setParameter("reminderId", reminderId).setParameter("dueAt", dueAt, TemporalType.TIMESTAMP)
+				.executeUpdate();
+	}
+
+	@Test
+	public void testDeleteReminderOfAnotherUser() throws ReminderNotFoundException {
+		reminderDAO.createReminder(reminder);
+		boolean status = reminderDAO.deleteReminder(reminder.getReminderId(), "Someone456");
+		assertEquals(false, status);
+	}
+
 	@Test
 	public void testDeleteReminderFailure() throws ReminderNotFoundException {
 		reminderDAO.createReminder(reminder);
 		@SuppressWarnings("unused")
 		Reminder savedReminder = reminderDAO.getReminderById(reminder.getReminderId());
-		boolean status = reminderDAO.deleteReminder(2);
+		boolean status = reminderDAO.deleteReminder(2, "Jhon123");
 		assertEquals(false, status);
 	}
 
@@ -127,4 +180,26 @@ public class ReminderDAOImplTest {
 		assertEquals(3, allReminder.size());
 	}
 
+	@Test
+	@Rollback(true)
+	public void testGetRemindersPageByUserIdWithUndatedReminders() {
+
+		Reminder undatedReminder = new Reminder(1, "Email", "Email reminder", "notification", "Jhon123", null, null);
+		Reminder otherUndatedReminder = new Reminder(2, "Email", "Email reminder", "notification", "Jhon123", null,
+				null);
+		reminderDAO.createReminder(undatedReminder);
+		reminderDAO.createReminder(otherUndatedReminder);
+		reminderDAO.createReminder(reminder);
+
+		List<Reminder> firstPage = reminderDAO.getRemindersByUserId("Jhon123", null, 2);
+		Reminder last = firstPage.get(1);
+		PageCursor cursor = PageCursor
+				.decode(new PageCursor(last.getReminderCreationDate(), last.getReminderId()).encode());
+		List<Reminder> secondPage = reminderDAO.getRemindersByUserId("Jhon123", cursor, 2);
+
+		assertEquals(otherUndatedReminder.getReminderId(), last.getReminderId());
+		assertEquals(1, secondPage.size());
+		assertEquals(reminder.getReminderId(), secondPage.get(0).getReminderId());
+	}
+
 }
@@ -0,0 +1,140 @@
+package com.stackroute.keepnote.test.datasource;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.stackroute.keepnote.datasource.LastWrite;
+import com.stackroute.keepnote.datasource.ReadWriteRoutingDataSource;
+import com.stackroute.keepnote.datasource.ReadYourWritesTracker;
+import com.stackroute.keepnote.datasource.RequestUserContext;
+
+public class ReadWriteRoutingDataSourceTest {
+
+	private JdbcTemplate jdbcTemplate;
+	private TransactionTemplate readTransaction;
+	private TransactionTemplate writeTransaction;
+	private ReadYourWritesTracker readYourWritesTracker;
+
+	@Before
+	public void setUp() throws Exception {
+		DriverManagerDataSource primary = createDatabase("primary");
+		DriverManagerDataSource replica = createDatabase("replica");
+		readYourWritesTracker = new ReadYourWritesTracker(60000);
+		ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(primary, replica,
+				readYourWritesTracker);
+		routingDataSource.afterPropertiesSet();
+		LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		readTransaction = new TransactionTemplate(transactionManager);
+		readTransaction.setReadOnly(true);
+		writeTransaction = new TransactionTemplate(transactionManager);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		RequestUserContext.clear();
+	}
+
+	private DriverManagerDataSource createDatabase(String name) {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+		JdbcTemplate template = new JdbcTemplate(dataSource);
+		template.execute("drop table if exists DATABASE_ROLE");
+		template.execute("create table DATABASE_ROLE (ROLE_NAME varchar(20))");
+		template.update("insert into DATABASE_ROLE values (?)", name);
+		return dataSource;
+	}
+
+	private String roleName() {
+		return jdbcTemplate.queryForObject("select ROLE_NAME from DATABASE_ROLE where ROLE_NAME <> 'written'", String.class);
+	}
+
+	@Test
+	public void testReadOnlyTransactionUsesReplica() {
+		assertEquals("replica", readTransaction.execute(status -> roleName()));
+	}
+
+	@Test
+	public void testWriteTransactionUsesPrimary() {
+		assertEquals("primary", writeTransaction.execute(status -> roleName()));
+	}
+
+	@Test
+	public void testReadAfterWriteOfSameUserUsesPrimary() {
+		RequestUserContext.setUserId("Jhon123");
+		writeTransaction.execute(status -> jdbcTemplate.update("insert into DATABASE_ROLE values ('written')"));
+		assertTrue(readYourWritesTracker.isWithinWindow("Jhon123"));
+		assertEquals("primary", readTransaction.execute(status -> roleName()));
+
+		RequestUserContext.setUserId("Chris123");
+		assertEquals("replica", readTransaction.execute(status -> roleName()));
+	}
+
+	@Test
+	public void testRolledBackWriteDoesNotOpenWindow() {
+		RequestUserContext.setUserId("Jhon123");
+		writeTransaction.execute(status -> {
+			jdbcTemplate.update("insert into DATABASE_ROLE values ('written')");
+			status.setRollbackOnly();
+			return null;
+		});
+		assertFalse(readYourWritesTracker.isWithinWindow("Jhon123"));
+		assertEquals("replica", readTransaction.execute(status -> roleName()));
+	}
+
+	@Test
+	public void testReadAfterWriteOnAnotherNodeUsesPrimary() {
+		RequestUserContext.setUserId("Jhon123");
+		RequestUserContext.setLastWrite(new LastWrite(System.currentTimeMillis(), writtenAt -> {
+		}));
+		assertFalse(readYourWritesTracker.isWithinWindow("Jhon123"));
+		assertEquals("primary", readTransaction.execute(status -> roleName()));
+
+		RequestUserContext.setLastWrite(new LastWrite(System.currentTimeMillis() - 60000, writtenAt -> {
+		}));
+		assertEquals("replica", readTransaction.execute(status -> roleName()));
+
+		RequestUserContext.setLastWrite(new LastWrite(System.currentTimeMillis() + 600000, writtenAt -> {
+		}));
+		assertEquals("replica", readTransaction.execute(status -> roleName()));
+	}
+
+	@Test
+	public void testCommittedWriteIsHandedBackToClient() {
+		List<Long> published = new ArrayList<>();
+		RequestUserContext.setUserId("Jhon123");
+		RequestUserContext.setLastWrite(new LastWrite(0, published::add));
+		writeTransaction.execute(status -> {
+			jdbcTemplate.update("insert into DATABASE_ROLE values ('written')");
+			status.setRollbackOnly();
+			return null;
+		});
+		assertTrue(published.isEmpty());
+
+		writeTransaction.execute(status -> jdbcTemplate.update("insert into DATABASE_ROLE values ('written')"));
+		assertEquals(1, published.size());
+		assertTrue(readYourWritesTracker.isWithinWindow(published.get(0)));
+		assertEquals(published.get(0).longValue(), RequestUserContext.getLastWrite().getWrittenAt());
+	}
+
+	@Test
+	public void testWindowExpires() throws InterruptedException {
+		ReadYourWritesTracker tracker = new ReadYourWritesTracker(1);
+		tracker.recordWrite("Jhon123");
+		Thread.sleep(5);
+		assertFalse(tracker.isWithinWindow("Jhon123"));
+	}
+
+}
@@ -0,0 +1,155 @@
+package com.stackroute.keepnote.test.log;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.stackroute.keepnote.log.RingBufferAppender;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.joran.JoranConfigurator;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+public class RingBufferAppenderTest {
+
+	private LoggerContext context;
+
+	private Logger logger;
+
+	private RingBufferAppender ringBufferAppender;
+
+	private ListAppender<ILoggingEvent> listAppender;
+
+	@Before
+	public void setUp() throws Exception {
+		context = new LoggerContext();
+		logger = context.getLogger("com.stackroute.keepnote.test");
+		listAppender = new ListAppender<>();
+		listAppender.setContext(context);
+		listAppender.start();
+		ringBufferAppender = new RingBufferAppender();
+		ringBufferAppender.setContext(context);
+		ringBufferAppender.setName("ASYNC");
+		ringBufferAppender.addAppender(listAppender);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		context.stop();
+	}
+
+	@Test
+	public void testEventsAreWrittenInOrderOffTheCallingThread() throws InterruptedException {
+		ringBufferAppender.start();
+		logger.addAppender(ringBufferAppender);
+		for (int i = 0; i < 100; i++) {
+			logger.info("event {}", i);
+		}
+		awaitWritten(100);
+		assertEquals("event 0", listAppender.list.get(0).getFormattedMessage());
+		assertEquals("event 99", listAppender.list.get(99).getFormattedMessage());
+		assertEquals(Thread.currentThread().getName(), listAppender.list.get(0).getThreadName());
+		assertEquals(0, ringBufferAppender.getDiscardedCount() + ringBufferAppender.getOverflowCount());
+	}
+
+	@Test
+	public void testLowPriorityEventsAreDiscardedAndLossIsReported() throws InterruptedException {
+		CountDownLatch release = new CountDownLatch(1);
+		BlockingAppender blockingAppender = new BlockingAppender(release);
+		blockingAppender.setContext(context);
+		blockingAppender.start();
+		ringBufferAppender.addAppender(blockingAppender);
+		ringBufferAppender.setQueueSize(4);
+		ringBufferAppender.setDiscardingThreshold(3);
+		ringBufferAppender.start();
+		logger.addAppender(ringBufferAppender);
+		try {
+			// taken by the writer thread, which then blocks
+			logger.warn("first");
+			assertTrue(blockingAppender.blocked.await(2, TimeUnit.SECONDS));
+			logger.info("queued 1");
+			logger.info("queued 2");
+			logger.info("discarded 1");
+			logger.debug("discarded 2");
+			logger.warn("queued 3");
+			logger.error("queued 4");
+			logger.error("overflowed");
+			assertEquals(2, ringBufferAppender.getDiscardedCount());
+			assertEquals(1, ringBufferAppender.getOverflowCount());
+			assertEquals(4, ringBufferAppender.getQueueDepth());
+		} finally {
+			release.countDown();
+		}
+		awaitWritten(5);
+		// the loss is reported at the end of the batch it happened during
+		awaitListed(6);
+		assertEquals("queued 4", listAppender.list.get(5).getFormattedMessage());
+		ILoggingEvent report = listAppender.list.get(1);
+		assertEquals(Level.WARN, report.getLevel());
+		assertEquals("Dropped 3 log events in [ASYNC] since the last report, 3 in total",
+				report.getFormattedMessage());
+		assertEquals(2L, ringBufferAppender.toMap().get("discarded"));
+		assertEquals(1L, ringBufferAppender.toMap().get("overflowed"));
+	}
+
+	@Test
+	public void testProductionConfigurationLogsThroughRingBuffer() throws Exception {
+		JoranConfigurator configurator = new JoranConfigurator();
+		configurator.setContext(context);
+		configurator.doConfigure(getClass().getClassLoader().getResource("logback-production.xml"));
+		RingBufferAppender productionAppender = (RingBufferAppender) context.getLogger("com.stackroute")
+				.getAppender("ASYNC-FILE-AUDIT");
+		assertNotNull(productionAppender);
+		assertTrue(productionAppender.isStarted());
+		assertNotNull(productionAppender.getAppender("FILE-AUDIT"));
+		assertFalse(context.getLogger("com.stackroute").isDebugEnabled());
+	}
+
+	private void awaitWritten(long count) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+		while (ringBufferAppender.getWrittenCount() < count && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+		assertEquals(count, ringBufferAppender.getWrittenCount());
+	}
+
+	private void awaitListed(int count) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+		while (listAppender.list.size() < count && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+		assertEquals(count, listAppender.list.size());
+	}
+
+	/*
+	 * Holds the writer thread on the first event until released
+	 */
+	private static class BlockingAppender extends ListAppender<ILoggingEvent> {
+
+		private final CountDownLatch blocked = new CountDownLatch(1);
+
+		private final CountDownLatch release;
+
+		private BlockingAppender(CountDownLatch release) {
+			this.release = release;
+		}
+
+		@Override
+		protected void append(ILoggingEvent event) {
+			blocked.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException exception) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
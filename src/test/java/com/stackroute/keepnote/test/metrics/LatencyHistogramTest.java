@@ -0,0 +1,50 @@
+package com.stackroute.keepnote.test.metrics;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.stackroute.keepnote.metrics.LatencyHistogram;
+
+public class LatencyHistogramTest {
+
+	private LatencyHistogram histogram;
+
+	@Before
+	public void setUp() throws Exception {
+		histogram = new LatencyHistogram();
+	}
+
+	@Test
+	public void testEmptyHistogram() {
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getPercentileMillis(99), 0);
+		assertEquals(0, histogram.getMeanMillis(), 0);
+	}
+
+	@Test
+	public void testPercentilesUseBucketBounds() {
+		for (int i = 0; i < 90; i++) {
+			histogram.record(800_000);
+		}
+		for (int i = 0; i < 10; i++) {
+			histogram.record(40_000_000);
+		}
+		assertEquals(100, histogram.getCount());
+		assertEquals(1, histogram.getPercentileMillis(50), 0);
+		assertEquals(40, histogram.getPercentileMillis(95), 0);
+		assertEquals(40, histogram.getMaxMillis(), 0);
+		assertEquals(4.72, histogram.getMeanMillis(), 0.0001);
+	}
+
+	@Test
+	public void testDurationAboveLastBoundCounted() {
+		histogram.record(20_000_000_000L);
+		long[] cumulativeCounts = histogram.getCumulativeCounts();
+		assertEquals(0, cumulativeCounts[LatencyHistogram.BUCKET_BOUNDS_MILLIS.length - 1]);
+		assertEquals(1, cumulativeCounts[LatencyHistogram.BUCKET_BOUNDS_MILLIS.length]);
+		assertEquals(20000, histogram.getPercentileMillis(99), 0);
+	}
+
+}
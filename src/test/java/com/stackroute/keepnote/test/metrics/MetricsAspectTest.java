@@ -0,0 +1,79 @@
+package com.stackroute.keepnote.test.metrics;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import com.stackroute.keepnote.aspect.MetricsAspect;
+import com.stackroute.keepnote.cache.ListCacheManager;
+import com.stackroute.keepnote.dao.CategoryDAO;
+import com.stackroute.keepnote.dao.NoteDAO;
+import com.stackroute.keepnote.dao.ReminderDAO;
+import com.stackroute.keepnote.exception.NoteNotFoundException;
+import com.stackroute.keepnote.metrics.MetricsRegistry;
+import com.stackroute.keepnote.metrics.OperationMetrics;
+import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.search.NoteSearchIndex;
+import com.stackroute.keepnote.service.NoteService;
+import com.stackroute.keepnote.service.NoteServiceImpl;
+
+public class MetricsAspectTest {
+
+	@Mock
+	private NoteDAO noteDAO;
+	@Mock
+	private CategoryDAO categoryDAO;
+	@Mock
+	private ReminderDAO reminderDAO;
+	@Mock
+	private ListCacheManager listCacheManager;
+	@Mock
+	private NoteSearchIndex noteSearchIndex;
+	@InjectMocks
+	private NoteServiceImpl noteServiceImpl;
+
+	private MetricsRegistry metricsRegistry;
+
+	private NoteService noteService;
+
+	@Before
+	public void setUp() throws Exception {
+		MockitoAnnotations.initMocks(this);
+		metricsRegistry = new MetricsRegistry();
+		AspectJProxyFactory proxyFactory = new AspectJProxyFactory(noteServiceImpl);
+		proxyFactory.addAspect(new MetricsAspect(metricsRegistry));
+		noteService = proxyFactory.getProxy();
+	}
+
+	@Test
+	public void testServiceCallsAreTimedAndFailuresCounted() throws Exception {
+		Note note = new Note();
+		when(noteDAO.getNoteById(1)).thenReturn(note);
+		when(noteDAO.getNoteById(2)).thenThrow(new NoteNotFoundException("Note not found"));
+		assertSame(note, noteService.getNoteById(1));
+		assertSame(note, noteService.getNoteById(1));
+		try {
+			noteService.getNoteById(2);
+			fail("NoteNotFoundException expected");
+		} catch (NoteNotFoundException exception) {
+			// counted as an error
+		}
+		List<OperationMetrics> methodMetrics = metricsRegistry.getMethodMetrics();
+		assertEquals(1, methodMetrics.size());
+		OperationMetrics getNoteById = methodMetrics.get(0);
+		assertEquals("NoteServiceImpl.getNoteById", getNoteById.getName());
+		assertEquals("layer=\"service\",operation=\"NoteServiceImpl.getNoteById\"", getNoteById.getLabels());
+		assertEquals(3, getNoteById.getHistogram().getCount());
+		assertEquals(1, getNoteById.getErrorCount());
+		assertSame(getNoteById, metricsRegistry.getMethodMetrics(MetricsAspect.SERVICE_LAYER,
+				"NoteServiceImpl.getNoteById"));
+	}
+}
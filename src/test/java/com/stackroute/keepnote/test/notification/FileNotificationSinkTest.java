@@ -0,0 +1,39 @@
+package com.stackroute.keepnote.test.notification;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.notification.FileNotificationSink;
+
+public class FileNotificationSinkTest {
+
+	@Test
+	public void testSendAppendsOneJsonLinePerReminder() throws Exception {
+
+		Path directory = Files.createTempDirectory("keepnote-sink");
+		Path file = directory.resolve("notifications/reminders.jsonl");
+		Reminder reminder = new Reminder(1, "Email reminder", "daily reminder", "Email", "Jhon123", null, new Date());
+
+		try (FileNotificationSink sink = new FileNotificationSink(file)) {
+			sink.send(reminder, new Date(1000));
+			sink.send(reminder, new Date(2000));
+		}
+
+		List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+		assertEquals(2, lines.size());
+		JsonNode notification = new ObjectMapper().readTree(lines.get(1));
+		assertEquals(1, notification.get("reminderId").asInt());
+		assertEquals("Jhon123", notification.get("reminderCreatedBy").asText());
+		assertEquals(2000, notification.get("dueAt").asLong());
+	}
+}
@@ -0,0 +1,85 @@
+package com.stackroute.keepnote.test.scheduler;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.stackroute.keepnote.scheduler.HashedTimingWheel;
+
+public class HashedTimingWheelTest {
+
+	private HashedTimingWheel timingWheel;
+
+	@Before
+	public void setUp() throws Exception {
+		timingWheel = new HashedTimingWheel(5, TimeUnit.MILLISECONDS, 4, Runnable::run, "test-wheel");
+		timingWheel.start();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		timingWheel.stop();
+	}
+
+	@Test
+	public void testWheelSizeRoundedToPowerOfTwo() {
+		assertEquals(4, timingWheel.getWheelSize());
+		assertEquals(8, new HashedTimingWheel(1, TimeUnit.MILLISECONDS, 5, Runnable::run, "unused").getWheelSize());
+	}
+
+	@Test
+	public void testTaskRunsAfterDelay() throws InterruptedException {
+		CountDownLatch fired = new CountDownLatch(1);
+		long start = System.nanoTime();
+		HashedTimingWheel.Timeout timeout = timingWheel.newTimeout(fired::countDown, 30, TimeUnit.MILLISECONDS);
+		assertTrue(fired.await(2, TimeUnit.SECONDS));
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(30));
+		assertTrue(timeout.isExpired());
+		assertEquals(0, timingWheel.getPendingCount());
+	}
+
+	@Test
+	public void testTaskBeyondOneRoundWaitsForItsRound() throws InterruptedException {
+		CountDownLatch fired = new CountDownLatch(1);
+		long start = System.nanoTime();
+		timingWheel.newTimeout(fired::countDown, 70, TimeUnit.MILLISECONDS);
+		assertTrue(fired.await(2, TimeUnit.SECONDS));
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(70));
+	}
+
+	@Test
+	public void testCancelledTaskDoesNotRun() throws InterruptedException {
+		AtomicInteger runs = new AtomicInteger();
+		HashedTimingWheel.Timeout timeout = timingWheel.newTimeout(runs::incrementAndGet, 20, TimeUnit.MILLISECONDS);
+		assertEquals(1, timingWheel.getPendingCount());
+		assertTrue(timeout.cancel());
+		assertFalse(timeout.cancel());
+		assertEquals(0, timingWheel.getPendingCount());
+		Thread.sleep(60);
+		assertEquals(0, runs.get());
+		assertTrue(timeout.isCancelled());
+	}
+
+	@Test
+	public void testManyTasksAllRun() throws InterruptedException {
+		int count = 10000;
+		CountDownLatch fired = new CountDownLatch(count);
+		for (int index = 0; index < count; index++) {
+			timingWheel.newTimeout(fired::countDown, index % 50, TimeUnit.MILLISECONDS);
+		}
+		assertTrue(fired.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testNewTimeoutOnStoppedWheel() throws InterruptedException {
+		timingWheel.stop();
+		timingWheel.newTimeout(() -> {
+		}, 1, TimeUnit.MILLISECONDS);
+	}
+}
@@ -0,0 +1,140 @@
+package com.stackroute.keepnote.test.scheduler;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.stackroute.keepnote.cache.ListCacheManager;
+import com.stackroute.keepnote.dao.ReminderDAO;
+import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.model.ReminderRecurrence;
+import com.stackroute.keepnote.scheduler.ReminderScheduler;
+
+public class ReminderSchedulerTest {
+
+	@Mock
+	private ReminderDAO reminderDAO;
+
+	private ReminderScheduler reminderScheduler;
+	private Reminder reminder;
+	private List<Reminder> sent;
+	private CountDownLatch sentLatch;
+
+	@Before
+	public void setUp() throws Exception {
+		MockitoAnnotations.initMocks(this);
+		sent = new CopyOnWriteArrayList<Reminder>();
+		sentLatch = new CountDownLatch(1);
+		reminderScheduler = new ReminderScheduler(reminderDAO, (sentReminder, dueAt) -> {
+			sent.add(sentReminder);
+			sentLatch.countDown();
+		}, new ListCacheManager(), 5, 8);
+		when(reminderDAO.getPendingReminderDueTimes()).thenReturn(Collections.emptyMap());
+		reminderScheduler.start();
+		reminder = new Reminder(1, "Email reminder", "daily reminder", "Email", "Jhon123", null, new Date());
+		reminder.setReminderDueAt(new Date(System.currentTimeMillis() + 30));
+		when(reminderDAO.getReminderById(1)).thenReturn(reminder);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		reminderScheduler.stop();
+	}
+
+	@Test
+	public void testDueReminderIsSent() throws Exception {
+		when(reminderDAO.markReminderFired(eq(1), eq(reminder.getReminderDueAt()), any(Date.class),
+				eq(reminder.getReminderDueAt()))).thenReturn(true);
+		reminderScheduler.schedule(reminder);
+		assertEquals(1, reminderScheduler.getPendingCount());
+		assertTrue(sentLatch.await(2, TimeUnit.SECONDS));
+		assertEquals(1, sent.get(0).getReminderId());
+		assertNotNull(sent.get(0).getReminderFiredAt());
+		assertEquals(0, reminderScheduler.getPendingCount());
+	}
+
+	@Test
+	public void testReminderFiredElsewhereIsNotSent() throws Exception {
+		when(reminderDAO.markReminderFired(anyInt(), any(Date.class), any(Date.class), any(Date.class)))
+				.thenReturn(false);
+		reminderScheduler.schedule(reminder);
+		verify(reminderDAO, timeout(2000)).markReminderFired(anyInt(), any(Date.class), any(Date.class),
+				any(Date.class));
+		Thread.sleep(20);
+		assertTrue(sent.isEmpty());
+	}
+
+	@Test
+	public void testRecurringReminderIsRescheduled() throws Exception {
+		Date dueAt = reminder.getReminderDueAt();
+		reminder.setReminderRecurrence(ReminderRecurrence.HOURLY);
+		when(reminderDAO.markReminderFired(anyInt(), any(Date.class), any(Date.class), any(Date.class)))
+				.thenReturn(true);
+		reminderScheduler.schedule(reminder);
+		assertTrue(sentLatch.await(2, TimeUnit.SECONDS));
+		verify(reminderDAO).markReminderFired(eq(1), eq(dueAt), any(Date.class),
+				eq(new Date(dueAt.getTime() + TimeUnit.HOURS.toMillis(1))));
+		assertEquals(1, reminderScheduler.getPendingCount());
+	}
+
+	@Test
+	public void testCancelledReminderIsNotFired() throws Exception {
+		reminderScheduler.schedule(reminder);
+		reminderScheduler.cancel(1);
+		assertEquals(0, reminderScheduler.getPendingCount());
+		Thread.sleep(80);
+		verify(reminderDAO, never()).getReminderById(1);
+	}
+
+	@Test
+	public void testAlreadyFiredOrUndatedReminderIsNotScheduled() {
+		reminder.setReminderFiredAt(reminder.getReminderDueAt());
+		reminderScheduler.schedule(reminder);
+		assertEquals(0, reminderScheduler.getPendingCount());
+		reminder.setReminderFiredAt(null);
+		reminder.setReminderDueAt(null);
+		reminderScheduler.schedule(reminder);
+		assertEquals(0, reminderScheduler.getPendingCount());
+	}
+
+	@Test
+	public void testPendingRemindersAreLoadedOnStart() throws Exception {
+		ReminderScheduler restartedScheduler = new ReminderScheduler(reminderDAO, (sentReminder, dueAt) -> {
+		}, new ListCacheManager(), 5, 8);
+		when(reminderDAO.getPendingReminderDueTimes())
+				.thenReturn(Collections.singletonMap(1, new Date(System.currentTimeMillis() + 60000)));
+		restartedScheduler.start();
+		assertEquals(1, restartedScheduler.getPendingCount());
+		restartedScheduler.stop();
+	}
+
+	@Test
+	public void testNextOccurrenceSkipsMissedOnes() {
+		Calendar calendar = Calendar.getInstance();
+		calendar.set(2020, Calendar.JANUARY, 31, 9, 0, 0);
+		Date dueAt = calendar.getTime();
+		Date nextDueAt = ReminderRecurrence.DAILY.nextAfter(dueAt, dueAt.getTime() + TimeUnit.HOURS.toMillis(49));
+		calendar.add(Calendar.DAY_OF_MONTH, 3);
+		assertEquals(calendar.getTime(), nextDueAt);
+		assertEquals(1000, ReminderScheduler.toSeconds(new Date(1999)).getTime());
+	}
+}
@@ -0,0 +1,162 @@
+package com.stackroute.keepnote.test.search;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.stackroute.keepnote.cache.ListCacheManager;
+import com.stackroute.keepnote.dao.ListVersionDAO;
+import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.SearchResult;
+import com.stackroute.keepnote.search.NoteSearchIndex;
+import com.stackroute.keepnote.search.SearchTerm;
+import com.stackroute.keepnote.search.UserNoteIndex;
+
+public class NoteSearchIndexTest {
+
+	private NoteSearchIndex index;
+	private AtomicInteger loads;
+	private List<Note> notes;
+
+	@Before
+	public void setUp() throws Exception {
+		index = new NoteSearchIndex(2);
+		loads = new AtomicInteger();
+		notes = new ArrayList<Note>();
+		notes.add(new Note(1, "Spring testing", "Complete testing for step-3", "Active", new Date(), null, null,
+				"Jhon123"));
+		notes.add(new Note(2, "Groceries", "Buy milk, bread and spring onions", "Active", new Date(), null, null,
+				"Jhon123"));
+		notes.add(new Note(3, "Hibernate", "Read about second-level caching", "Active", new Date(), null, null,
+				"Jhon123"));
+	}
+
+	private List<Integer> search(String userId, String query) {
+		return index.search(userId, query, 10, () -> {
+			loads.incrementAndGet();
+			return userId.equals("Jhon123") ? notes : new ArrayList<Note>();
+		}).getItems();
+	}
+
+	@Test
+	public void testTokenize() {
+		assertEquals(Arrays.asList("spring", "boot", "2", "0"), SearchTerm.tokenize("Spring-Boot 2.0!"));
+	}
+
+	@Test
+	public void testParseQueryPrefix() {
+		List<SearchTerm> terms = SearchTerm.parseQuery("  spring-boo* ");
+		assertEquals(2, terms.size());
+		assertFalse(terms.get(0).isPrefix());
+		assertEquals("boo", terms.get(1).getTerm());
+		assertTrue(terms.get(1).isPrefix());
+	}
+
+	@Test
+	public void testSearchRanksTitleMatchFirst() {
+		assertEquals(Arrays.asList(1, 2), search("Jhon123", "spring"));
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	public void testSearchMoreMatchingTermsRankHigher() {
+		assertEquals(Arrays.asList(2, 1), search("Jhon123", "spring onions"));
+	}
+
+	@Test
+	public void testSearchPrefix() {
+		assertEquals(Arrays.asList(3), search("Jhon123", "cach*"));
+		assertTrue(search("Jhon123", "cach").isEmpty());
+	}
+
+	@Test
+	public void testSearchPrefixKeepsMostFrequentTerms() {
+		notes.add(new Note(5, "Testing again", "Retest", "Active", new Date(), null, null, "Jhon123"));
+		for (int noteId = 10; noteId < 10 + UserNoteIndex.MAX_PREFIX_EXPANSIONS; noteId++) {
+			notes.add(new Note(noteId, "Draft", "term" + noteId, "Active", new Date(), null, null, "Jhon123"));
+		}
+		SearchResult<Integer> result = index.search("Jhon123", "te*", 100, () -> notes);
+		assertEquals(Arrays.asList("te*"), result.getTruncatedPrefixes());
+		assertTrue(result.getItems().contains(1));
+		assertTrue(result.getItems().contains(5));
+		assertFalse(result.getItems().contains(9 + UserNoteIndex.MAX_PREFIX_EXPANSIONS));
+		assertEquals(UserNoteIndex.MAX_PREFIX_EXPANSIONS + 1, result.getItems().size());
+
+		assertTrue(index.search("Jhon123", "testing", 100, () -> notes).getTruncatedPrefixes().isEmpty());
+	}
+
+	@Test
+	public void testIndexFollowsWritesOfOtherNodes() {
+		ListVersionDAO listVersionDAO = mock(ListVersionDAO.class);
+		index = new NoteSearchIndex(2, listVersionDAO);
+		when(listVersionDAO.getVersion(ListCacheManager.NOTE_LIST, "Jhon123")).thenReturn(1L);
+		search("Jhon123", "spring");
+		index.indexNote(new Note(4, "Spring boot", "Auto configuration", "Active", new Date(), null, null, "Jhon123"),
+				2);
+		when(listVersionDAO.getVersion(ListCacheManager.NOTE_LIST, "Jhon123")).thenReturn(2L);
+		assertTrue(search("Jhon123", "configuration").contains(4));
+		assertEquals(1, loads.get());
+
+		when(listVersionDAO.getVersion(ListCacheManager.NOTE_LIST, "Jhon123")).thenReturn(3L);
+		assertFalse(search("Jhon123", "configuration").contains(4));
+		assertEquals(2, loads.get());
+
+		index.removeNote(2, 5);
+		when(listVersionDAO.getVersion(ListCacheManager.NOTE_LIST, "Jhon123")).thenReturn(5L);
+		assertEquals(Arrays.asList(1, 2), search("Jhon123", "spring"));
+		assertEquals(3, loads.get());
+	}
+
+	@Test
+	public void testSearchIsScopedPerUser() {
+		assertTrue(search("Chris123", "spring").isEmpty());
+	}
+
+	@Test
+	public void testIndexedNoteIsUpdatedAndRemoved() {
+		search("Jhon123", "spring");
+		index.indexNote(new Note(4, "Spring boot", "Auto configuration", "Active", new Date(), null, null, "Jhon123"),
+				0);
+		assertTrue(search("Jhon123", "configuration").contains(4));
+		index.indexNote(new Note(1, "Testing", "Complete testing for step-3", "Active", new Date(), null, null,
+				"Jhon123"), 0);
+		assertFalse(search("Jhon123", "spring").contains(1));
+		index.removeNote(2, 0);
+		assertEquals(Arrays.asList(4), search("Jhon123", "spring"));
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	public void testNoteOfUnloadedUserIsNotIndexed() {
+		index.indexNote(new Note(4, "Spring boot", "Auto configuration", "Active", new Date(), null, null, "Jhon123"),
+				0);
+		assertEquals(0, index.getIndexedUserCount());
+		assertTrue(search("Jhon123", "configuration").isEmpty());
+	}
+
+	@Test
+	public void testLeastRecentlySearchedUserIsEvicted() {
+		search("Jhon123", "spring");
+		search("Chris123", "spring");
+		search("Mary123", "spring");
+		assertEquals(2, index.getIndexedUserCount());
+		search("Jhon123", "spring");
+		assertEquals(4, loads.get());
+	}
+
+	@Test
+	public void testClampLimit() {
+		assertEquals(NoteSearchIndex.DEFAULT_LIMIT, NoteSearchIndex.clampLimit(null));
+		assertEquals(1, NoteSearchIndex.clampLimit(0));
+		assertEquals(NoteSearchIndex.MAX_LIMIT, NoteSearchIndex.clampLimit(100000));
+	}
+}
@@ -13,7 +13,9 @@ import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
+import com.stackroute.keepnote.cache.ListCacheManager;
 import com.stackroute.keepnote.dao.CategoryDAO;
 import com.stackroute.keepnote.exception.CategoryNotFoundException;
 import com.stackroute.keepnote.model.Category;
@@ -23,6 +25,8 @@ public class CategoryServiceImplTest {
 
 	@Mock
 	CategoryDAO categoryDAO;
+	@Spy
+	ListCacheManager listCacheManager = new ListCacheManager();
 	@InjectMocks
 	CategoryServiceImpl categoryServiceImpl;
 	private Category category = null;
@@ -54,18 +58,18 @@ public class CategoryServiceImplTest {
 
 	@Test
 	public void testDeleteCategorySuccess() {
-		when(categoryDAO.deleteCategory(1)).thenReturn(true);
-		boolean status = categoryServiceImpl.deleteCategory(1);
+		when(categoryDAO.deleteCategory(1, "Jhon123")).thenReturn(true);
+		boolean status = categoryServiceImpl.deleteCategory(1, "Jhon123");
 		assertEquals(true, status);
-		verify(categoryDAO, times(1)).deleteCategory(1);
+		verify(categoryDAO, times(1)).deleteCategory(1, "Jhon123");
 	}
 
 	@Test
 	public void testDeleteCategoryFailure() {
-		when(categoryDAO.deleteCategory(1)).thenReturn(false);
-		boolean status = categoryServiceImpl.deleteCategory(1);
+		when(categoryDAO.deleteCategory(1, "Jhon123")).thenReturn(false);
+		boolean status = categoryServiceImpl.deleteCategory(1, "Jhon123");
 		assertEquals(false, status);
-		verify(categoryDAO, times(1)).deleteCategory(1);
+		verify(categoryDAO, times(1)).deleteCategory(1, "Jhon123");
 	}
 
 	@Test
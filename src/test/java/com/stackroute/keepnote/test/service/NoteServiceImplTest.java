@@ -1,27 +1,42 @@
 package com.stackroute.keepnote.test.service;
 
 import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import com.stackroute.keepnote.cache.ListCacheManager;
 import com.stackroute.keepnote.dao.CategoryDAO;
 import com.stackroute.keepnote.dao.NoteDAO;
 import com.stackroute.keepnote.dao.ReminderDAO;
 import com.stackroute.keepnote.exception.CategoryNotFoundException;
 import com.stackroute.keepnote.exception.NoteNotFoundException;
+import com.stackroute.keepnote.exception.NoteVersionConflictException;
 import com.stackroute.keepnote.exception.ReminderNotFoundException;
 import com.stackroute.keepnote.model.Category;
 import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.model.NoteBatchResult;
+import com.stackroute.keepnote.model.NotePatch;
+import com.stackroute.keepnote.model.PageCursor;
 import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.model.ResultPage;
+import com.stackroute.keepnote.search.NoteSearchIndex;
 import com.stackroute.keepnote.service.NoteServiceImpl;
 
 public class NoteServiceImplTest {
@@ -32,6 +47,10 @@ public class NoteServiceImplTest {
 	private CategoryDAO categoryDAO;
 	@Mock
 	private ReminderDAO reminderDAO;
+	@Spy
+	private ListCacheManager listCacheManager = new ListCacheManager();
+	@Spy
+	private NoteSearchIndex noteSearchIndex = new NoteSearchIndex();
 	@InjectMocks
 	NoteServiceImpl noteServiceImpl;
 
@@ -120,20 +139,58 @@ public class NoteServiceImplTest {
 
 	}
 
+	@Test
+	public void testCreateNotesResolvesEachCategoryAndReminderOnce()
+			throws ReminderNotFoundException, CategoryNotFoundException {
+
+		notes.add(note);
+		notes.add(new Note(2, "Testing-2", "Testing Service layer", "Active", new Date(), category, reminder, "Jhon123"));
+		notes.add(new Note(3, "Testing-3", "Testing Service layer", "Active", new Date(), category, null, "Jhon123"));
+		when(categoryDAO.getCategoryById(1)).thenReturn(category);
+		when(reminderDAO.getReminderById(1)).thenReturn(reminder);
+		when(noteDAO.createNotes(notes)).thenReturn(true);
+		List<NoteBatchResult> results = noteServiceImpl.createNotes(notes);
+		assertEquals(3, results.size());
+		for (NoteBatchResult result : results) {
+			assertEquals(NoteBatchResult.CREATED, result.getStatus());
+		}
+		verify(categoryDAO, times(1)).getCategoryById(1);
+		verify(reminderDAO, times(1)).getReminderById(1);
+		verify(noteDAO, times(1)).createNotes(notes);
+	}
+
+	@Test
+	public void testCreateNotesReportsUnknownCategory() throws ReminderNotFoundException, CategoryNotFoundException {
+
+		Category unknownCategory = new Category(2, "Unknown", "Missing category", new Date(), "Jhon123", null);
+		Note orphanNote = new Note(2, "Testing-2", "Testing Service layer", "Active", new Date(), unknownCategory,
+				null, "Jhon123");
+		notes.add(note);
+		notes.add(orphanNote);
+		when(categoryDAO.getCategoryById(1)).thenReturn(category);
+		when(categoryDAO.getCategoryById(2)).thenThrow(CategoryNotFoundException.class);
+		when(reminderDAO.getReminderById(1)).thenReturn(reminder);
+		when(noteDAO.createNotes(any())).thenReturn(true);
+		List<NoteBatchResult> results = noteServiceImpl.createNotes(notes);
+		assertEquals(NoteBatchResult.CREATED, results.get(0).getStatus());
+		assertEquals(NoteBatchResult.NOT_FOUND, results.get(1).getStatus());
+		assertEquals(1, results.get(1).getIndex());
+	}
+
 	@Test
 	public void testDeleteNoteSuccess() throws NoteNotFoundException {
-		when(noteDAO.deleteNote(1)).thenReturn(true);
-		boolean status = noteServiceImpl.deleteNote(1);
+		when(noteDAO.deleteNote(1, "Jhon123")).thenReturn(true);
+		boolean status = noteServiceImpl.deleteNote(1, "Jhon123");
 		assertEquals(true, status);
-		verify(noteDAO, times(1)).deleteNote(1);
+		verify(noteDAO, times(1)).deleteNote(1, "Jhon123");
 	}
 
 	@Test
 	public void testDeleteNoteFailure() throws NoteNotFoundException {
-		when(noteDAO.deleteNote(1)).thenReturn(false);
-		boolean status = noteServiceImpl.deleteNote(1);
+		when(noteDAO.deleteNote(1, "Jhon123")).thenReturn(false);
+		boolean status = noteServiceImpl.deleteNote(1, "Jhon123");
 		assertEquals(false, status);
-		verify(noteDAO, times(1)).deleteNote(1);
+		verify(noteDAO, times(1)).deleteNote(1, "Jhon123");
 	}
 
 	@Test
@@ -153,6 +210,119 @@ public class NoteServiceImplTest {
 
 	}
 
+	@Test
+	public void testGetAllNotesByUserIdServedFromCacheUntilWrite()
+			throws ReminderNotFoundException, CategoryNotFoundException {
+
+		notes.add(note);
+		when(noteDAO.getAllNotesByUserId("Jhon123")).thenReturn(notes);
+		noteServiceImpl.getAllNotesByUserId("Jhon123");
+		List<Note> allNotes = noteServiceImpl.getAllNotesByUserId("Jhon123");
+		assertEquals(notes, allNotes);
+		verify(noteDAO, times(1)).getAllNotesByUserId("Jhon123");
+
+		Note newNote = new Note(2, "Testing-2", "Testing Service layer", "Active", new Date(), null, null, "Jhon123");
+		when(noteDAO.createNote(newNote)).thenReturn(true);
+		noteServiceImpl.createNote(newNote);
+		noteServiceImpl.getAllNotesByUserId("Jhon123");
+		verify(noteDAO, times(2)).getAllNotesByUserId("Jhon123");
+
+	}
+
+	@Test
+	public void testDeleteNoteInvalidatesOwnerListing() throws NoteNotFoundException {
+
+		notes.add(note);
+		when(noteDAO.getAllNotesByUserId("Jhon123")).thenReturn(notes);
+		when(noteDAO.deleteNote(1, "Jhon123")).thenReturn(true);
+		noteServiceImpl.getAllNotesByUserId("Jhon123");
+		noteServiceImpl.deleteNote(1, "Jhon123");
+		noteServiceImpl.getAllNotesByUserId("Jhon123");
+		verify(noteDAO, times(2)).getAllNotesByUserId("Jhon123");
+
+	}
+
+	@Test
+	public void testSearchNotesKeepsRankOrder() {
+
+		Note groceries = new Note(2, "Groceries", "Testing milk", "Active", new Date(), null, null, "Jhon123");
+		notes.add(note);
+		notes.add(groceries);
+		when(noteDAO.getAllNotesByUserId("Jhon123")).thenReturn(notes);
+		when(noteDAO.getNotesByIds(any())).thenReturn(notes);
+		List<Note> found = noteServiceImpl.searchNotes("Jhon123", "milk testing", 10).getItems();
+		assertEquals(2, found.size());
+		assertEquals(groceries, found.get(0));
+
+	}
+
+	@Test
+	public void testSearchNotesFollowsWrites() throws ReminderNotFoundException, CategoryNotFoundException,
+			NoteNotFoundException {
+
+		when(noteDAO.getAllNotesByUserId("Jhon123")).thenReturn(notes);
+		assertTrue(noteServiceImpl.searchNotes("Jhon123", "service", 10).getItems().isEmpty());
+		when(categoryDAO.getCategoryById(1)).thenReturn(category);
+		when(reminderDAO.getReminderById(1)).thenReturn(reminder);
+		when(noteDAO.createNote(note)).thenReturn(true);
+		noteServiceImpl.createNote(note);
+		notes.add(note);
+		when(noteDAO.getNotesByIds(any())).thenReturn(notes);
+		assertEquals(1, noteServiceImpl.searchNotes("Jhon123", "service", 10).getItems().size());
+		when(noteDAO.deleteNote(1, "Jhon123")).thenReturn(true);
+		noteServiceImpl.deleteNote(1, "Jhon123");
+		assertTrue(noteServiceImpl.searchNotes("Jhon123", "service", 10).getItems().isEmpty());
+		verify(noteDAO, times(1)).getAllNotesByUserId("Jhon123");
+
+	}
+
+	@Test
+	public void testGetNotesByUserIdFirstPage() {
+
+		notes.add(note);
+		note = new Note(2, "Testing-2", "Testing Service layer", "Active", new Date(), category, reminder, "Jhon123");
+		notes.add(note);
+		note = new Note(3, "Testing-3", "Testing Service layer", "Active", new Date(), category, reminder, "Jhon123");
+		notes.add(note);
+		when(noteDAO.getNotesByUserId("Jhon123", null, 3)).thenReturn(notes);
+		ResultPage<Note> page = noteServiceImpl.getNotesByUserId("Jhon123", null, 2);
+		assertEquals(2, page.getItems().size());
+		assertEquals("Testing-2", page.getItems().get(1).getNoteTitle());
+		PageCursor nextCursor = PageCursor.decode(page.getNextCursor());
+		assertEquals(2, nextCursor.getId());
+		assertEquals(notes.get(1).getNoteCreatedAt(), nextCursor.getCreatedAt());
+		verify(noteDAO, times(1)).getNotesByUserId("Jhon123", null, 3);
+	}
+
+	@Test
+	public void testGetNotesByUserIdLastPage() {
+
+		notes.add(note);
+		when(noteDAO.getNotesByUserId(eq("Jhon123"), any(PageCursor.class), eq(3))).thenReturn(notes);
+		String afterCursor = new PageCursor(new Date(), 7).encode();
+		ResultPage<Note> page = noteServiceImpl.getNotesByUserId("Jhon123", afterCursor, 2);
+		assertEquals(1, page.getItems().size());
+		assertNull(page.getNextCursor());
+	}
+
+	@Test
+	public void testGetNotesByUserIdUndatedNote() {
+
+		notes.add(new Note(1, "Testing-1", "Testing Service layer", "Active", null, category, reminder, "Jhon123"));
+		notes.add(note);
+		when(noteDAO.getNotesByUserId("Jhon123", null, 2)).thenReturn(notes);
+		ResultPage<Note> page = noteServiceImpl.getNotesByUserId("Jhon123", null, 1);
+		PageCursor nextCursor = PageCursor.decode(page.getNextCursor());
+		assertEquals(1, nextCursor.getId());
+		assertNull(nextCursor.getCreatedAt());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testGetNotesByUserIdMalformedCursor() {
+
+		noteServiceImpl.getNotesByUserId("Jhon123", "not-a-cursor", 2);
+	}
+
 	@Test
 	public void testGetNoteByIdSuccess() throws NoteNotFoundException {
 		when(noteDAO.getNoteById(note.getNoteId())).thenReturn(note);
@@ -172,59 +342,76 @@ public class NoteServiceImplTest {
 
 	@Test
 	public void testUpdateNoteSuccess()
-			throws ReminderNotFoundException, NoteNotFoundException, CategoryNotFoundException {
+			throws ReminderNotFoundException, NoteNotFoundException, CategoryNotFoundException,
+			NoteVersionConflictException {
 
 		note.setNoteContent("Testing updateNote()");
 		when(reminderDAO.getReminderById(1)).thenReturn(reminder);
 		when(categoryDAO.getCategoryById(1)).thenReturn(category);
 		when(noteDAO.getNoteById(1)).thenReturn(note);
-		when(noteDAO.UpdateNote(note)).thenReturn(true);
-		Note updatedNote = noteServiceImpl.updateNote(note, 1);
+		Note updatedNote = noteServiceImpl.updateNote(note, 1, "Jhon123", null);
 		assertEquals("Testing updateNote()", updatedNote.getNoteContent());
 		verify(categoryDAO, times(1)).getCategoryById(category.getCategoryId());
 		verify(noteDAO, times(1)).getNoteById(1);
-		verify(noteDAO, times(1)).UpdateNote(note);
+		verify(noteDAO, times(1)).replaceNote(1, "Jhon123", note, null);
 		verify(reminderDAO, times(1)).getReminderById(1);
 	}
 
+	@Test
+	public void testUpdateNoteKeepsCreationDate()
+			throws ReminderNotFoundException, NoteNotFoundException, CategoryNotFoundException,
+			NoteVersionConflictException {
+
+		Note noteRecord = new Note(1, "Testing", "Testing Service layer", "Active", new Date(5000), category, reminder,
+				"Jhon123");
+		note.setNoteCreatedAt(null);
+		when(reminderDAO.getReminderById(1)).thenReturn(reminder);
+		when(categoryDAO.getCategoryById(1)).thenReturn(category);
+		when(noteDAO.getNoteById(1)).thenReturn(noteRecord);
+		Note updatedNote = noteServiceImpl.updateNote(note, 1, "Jhon123", null);
+		assertNull(note.getNoteCreatedAt());
+		assertEquals(new Date(5000), updatedNote.getNoteCreatedAt());
+	}
+
 	@Test
 	public void testUpdateNoteWithoutReminderSuccess()
-			throws ReminderNotFoundException, NoteNotFoundException, CategoryNotFoundException {
+			throws ReminderNotFoundException, NoteNotFoundException, CategoryNotFoundException,
+			NoteVersionConflictException {
 
 		note.setNoteContent("Testing updateNote()");
 		note.setReminder(null);
 		when(reminderDAO.getReminderById(1)).thenReturn(null);
 		when(categoryDAO.getCategoryById(1)).thenReturn(category);
 		when(noteDAO.getNoteById(1)).thenReturn(note);
-		when(noteDAO.UpdateNote(note)).thenReturn(true);
-		Note updatedNote = noteServiceImpl.updateNote(note, 1);
+		Note updatedNote = noteServiceImpl.updateNote(note, 1, "Jhon123", null);
 		assertEquals("Testing updateNote()", updatedNote.getNoteContent());
 		verify(categoryDAO, times(1)).getCategoryById(category.getCategoryId());
 		verify(noteDAO, times(1)).getNoteById(1);
-		verify(noteDAO, times(1)).UpdateNote(note);
+		verify(noteDAO, times(1)).replaceNote(1, "Jhon123", note, null);
 
 	}
 
 	@Test
 	public void testUpdateNoteWithoutCategorySuccess()
-			throws ReminderNotFoundException, NoteNotFoundException, CategoryNotFoundException {
+			throws ReminderNotFoundException, NoteNotFoundException, CategoryNotFoundException,
+			NoteVersionConflictException {
 
 		note.setNoteContent("Testing updateNote()");
 		note.setCategory(null);
 		when(reminderDAO.getReminderById(1)).thenReturn(reminder);
 		when(categoryDAO.getCategoryById(1)).thenReturn(null);
 		when(noteDAO.getNoteById(1)).thenReturn(note);
-		when(noteDAO.UpdateNote(note)).thenReturn(true);
-		Note updatedNote = noteServiceImpl.updateNote(note, 1);
+		Note updatedNote = noteServiceImpl.updateNote(note, 1, "Jhon123", null);
 		assertEquals("Testing updateNote()", updatedNote.getNoteContent());
 		verify(noteDAO, times(1)).getNoteById(1);
-		verify(noteDAO, times(1)).UpdateNote(note);
+		verify(noteDAO, times(1)).replaceNote(1, "Jhon123", note, null);
 		verify(reminderDAO, times(1)).getReminderById(1);
 	}
 
 	@Test
 	public void testUpdateNoteWithoutCategoryAndReminderSuccess()
-			throws ReminderNotFoundException, NoteNotFoundException, CategoryNotFoundException {
+			throws ReminderNotFoundException, NoteNotFoundException, CategoryNotFoundException,
+			NoteVersionConflictException {
 
 		note.setNoteContent("Testing updateNote()");
 		note.setReminder(null);
@@ -232,26 +419,120 @@ public class NoteServiceImplTest {
 		when(reminderDAO.getReminderById(1)).thenReturn(null);
 		when(categoryDAO.getCategoryById(1)).thenReturn(null);
 		when(noteDAO.getNoteById(1)).thenReturn(note);
-		when(noteDAO.UpdateNote(note)).thenReturn(true);
-		Note updatedNote = noteServiceImpl.updateNote(note, 1);
+		Note updatedNote = noteServiceImpl.updateNote(note, 1, "Jhon123", null);
 		assertEquals("Testing updateNote()", updatedNote.getNoteContent());
 		verify(noteDAO, times(1)).getNoteById(1);
-		verify(noteDAO, times(1)).UpdateNote(note);
+		verify(noteDAO, times(1)).replaceNote(1, "Jhon123", note, null);
+
+	}
+
+	@Test
+	public void testStreamNotesByUserIdBypassesCache() {
+
+		List<Note> streamed = new ArrayList<>();
+		Consumer<Note> consumer = streamed::add;
+		when(noteDAO.streamNotesByUserId("Jhon123", consumer)).thenAnswer(invocation -> {
+			consumer.accept(note);
+			return 1;
+		});
+		assertEquals(1, noteServiceImpl.streamNotesByUserId("Jhon123", consumer));
+		assertEquals(1, streamed.size());
+		assertEquals(note, streamed.get(0));
+		verify(noteDAO, never()).getAllNotesByUserId("Jhon123");
+		assertEquals(0, listCacheManager.getNoteListCache().size());
 
 	}
 
 	@Test(expected = NoteNotFoundException.class)
 	public void testUpdateNoteFailure()
-			throws ReminderNotFoundException, NoteNotFoundException, CategoryNotFoundException {
+			throws ReminderNotFoundException, NoteNotFoundException, CategoryNotFoundException,
+			NoteVersionConflictException {
 
 		note.setNoteContent("Testing updateNote()");
 		when(reminderDAO.getReminderById(1)).thenReturn(reminder);
 		when(categoryDAO.getCategoryById(1)).thenReturn(category);
-		when(noteDAO.getNoteById(1)).thenThrow(NoteNotFoundException.class);
-		when(noteDAO.UpdateNote(note)).thenReturn(true);
+		doThrow(NoteNotFoundException.class).when(noteDAO).replaceNote(1, "Jhon123", note, null);
 		@SuppressWarnings("unused")
-		Note updatedNote = noteServiceImpl.updateNote(note, 1);
+		Note updatedNote = noteServiceImpl.updateNote(note, 1, "Jhon123", null);
+
+	}
+
+	@Test(expected = NoteVersionConflictException.class)
+	public void testUpdateNoteVersionConflict() throws Exception {
+
+		when(reminderDAO.getReminderById(1)).thenReturn(reminder);
+		when(categoryDAO.getCategoryById(1)).thenReturn(category);
+		doThrow(new NoteVersionConflictException("Note is at version 4, not 3")).when(noteDAO).replaceNote(1,
+				"Jhon123", note, 3);
+		try {
+			noteServiceImpl.updateNote(note, 1, "Jhon123", 3);
+		} finally {
+			verify(noteDAO, never()).getNoteById(1);
+			verify(noteDAO, never()).UpdateNote(any());
+			verify(noteSearchIndex, never()).indexNote(any(), anyLong());
+		}
+	}
+
+	@Test
+	public void testPatchNoteSuccess() throws Exception {
+
+		Category patchCategory = new Category();
+		patchCategory.setCategoryId(1);
+		NotePatch patch = new NotePatch(null, "Testing patchNote()", null, patchCategory, null, 3);
+		note.setNoteContent("Testing patchNote()");
+		note.setNoteVersion(4);
+		when(categoryDAO.getCategoryById(1)).thenReturn(category);
+		when(noteDAO.patchNote(1, "Jhon123", patch)).thenReturn(4);
+		when(noteDAO.getNoteById(1)).thenReturn(note);
+		Note patchedNote = noteServiceImpl.patchNote(patch, 1, "Jhon123");
+		assertEquals("Testing patchNote()", patchedNote.getNoteContent());
+		assertEquals(4, patchedNote.getNoteVersion());
+		assertSame(category, patch.getCategory());
+		verify(reminderDAO, never()).getReminderById(anyInt());
+		verify(noteDAO, times(1)).patchNote(1, "Jhon123", patch);
+		verify(noteDAO, never()).UpdateNote(any());
+		verify(noteSearchIndex, times(1)).indexNote(note, 0);
+	}
+
+	@Test
+	public void testPatchNoteInvalidatesCachedListing() throws Exception {
+
+		when(noteDAO.getAllNotesByUserId("Jhon123")).thenReturn(notes);
+		noteServiceImpl.getAllNotesByUserId("Jhon123");
+		NotePatch patch = new NotePatch("Patched title", null, null, null, null, 0);
+		when(noteDAO.patchNote(1, "Jhon123", patch)).thenReturn(1);
+		when(noteDAO.getNoteById(1)).thenReturn(note);
+		noteServiceImpl.patchNote(patch, 1, "Jhon123");
+		noteServiceImpl.getAllNotesByUserId("Jhon123");
+		verify(noteDAO, times(2)).getAllNotesByUserId("Jhon123");
+	}
+
+	@Test(expected = NoteVersionConflictException.class)
+	public void testPatchNoteVersionConflict() throws Exception {
+
+		NotePatch patch = new NotePatch("Patched title", null, null, null, null, 3);
+		when(noteDAO.patchNote(1, "Jhon123", patch))
+				.thenThrow(new NoteVersionConflictException("Note is at version 4, not 3"));
+		try {
+			noteServiceImpl.patchNote(patch, 1, "Jhon123");
+		} finally {
+			verify(noteDAO, never()).getNoteById(1);
+			verify(noteSearchIndex, never()).indexNote(any(), anyLong());
+		}
+	}
 
+	@Test(expected = CategoryNotFoundException.class)
+	public void testPatchNoteWithUnknownCategory() throws Exception {
+
+		Category patchCategory = new Category();
+		patchCategory.setCategoryId(7);
+		NotePatch patch = new NotePatch(null, null, null, patchCategory, null, 3);
+		when(categoryDAO.getCategoryById(7)).thenThrow(new CategoryNotFoundException("Category record not found"));
+		try {
+			noteServiceImpl.patchNote(patch, 1, "Jhon123");
+		} finally {
+			verify(noteDAO, never()).patchNote(anyInt(), any(), any());
+		}
 	}
 
 }
@@ -0,0 +1,109 @@
+package com.stackroute.keepnote.test.service;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.TemporalType;
+import javax.transaction.Transactional;
+
+import org.hibernate.SessionFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+import org.springframework.test.context.transaction.TransactionalTestExecutionListener;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.stackroute.keepnote.cache.ListCacheManager;
+import com.stackroute.keepnote.config.ApplicationContextConfig;
+import com.stackroute.keepnote.dao.ReminderDAO;
+import com.stackroute.keepnote.dao.ReminderDAOImpl;
+import com.stackroute.keepnote.exception.ReminderNotFoundException;
+import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.scheduler.ReminderScheduler;
+import com.stackroute.keepnote.service.ReminderServiceImpl;
+
+/*
+ * ReminderServiceImpl over the real ReminderDAOImpl, for the behaviour that depends
+ * on the statements actually run
+ */
+@RunWith(SpringRunner.class)
+@Transactional
+@WebAppConfiguration
+@ContextConfiguration(classes = { ApplicationContextConfig.class })
+@TestExecutionListeners({ DependencyInjectionTestExecutionListener.class, TransactionalTestExecutionListener.class })
+public class ReminderServiceImplDAOTest {
+
+	private static final long DUE_AT = 4102444800000L;
+
+	@Autowired
+	private SessionFactory sessionFactory;
+	private ReminderDAO reminderDAO;
+	private ReminderScheduler reminderScheduler;
+	private ReminderServiceImpl reminderServiceImpl;
+
+	@Before
+	public void setUp() throws Exception {
+		reminderDAO = new ReminderDAOImpl(sessionFactory);
+		reminderScheduler = mock(ReminderScheduler.class);
+		reminderServiceImpl = new ReminderServiceImpl();
+		ReflectionTestUtils.setField(reminderServiceImpl, "reminderDAO", reminderDAO);
+		ReflectionTestUtils.setField(reminderServiceImpl, "listCacheManager", new ListCacheManager());
+		ReflectionTestUtils.setField(reminderServiceImpl, "reminderScheduler", reminderScheduler);
+	}
+
+	@Test
+	@Rollback(true)
+	public void testUpdateReminderUpdatesPathIdInPlace() throws ReminderNotFoundException {
+		insertReminder(1001);
+		insertReminder(1002);
+		Reminder reminder = new Reminder(1002, "Call", "Call the bank", "notification", "Someone456", null,
+				new Date());
+		reminder.setReminderDueAt(new Date(DUE_AT + 3600500));
+		Reminder updatedReminder = reminderServiceImpl.updateReminder(reminder, 1001);
+		assertEquals(1001, updatedReminder.getReminderId());
+		verify(reminderScheduler, times(1)).schedule(argThat(scheduled -> scheduled.getReminderId() == 1001));
+
+		sessionFactory.getCurrentSession().clear();
+		List<Reminder> reminders = reminderDAO.getAllReminderByUserId("Jhon123");
+		assertEquals(2, reminders.size());
+		assertTrue(reminderDAO.getAllReminderByUserId("Someone456").isEmpty());
+		Reminder savedReminder = reminderDAO.getReminderById(1001);
+		assertEquals("Call", savedReminder.getReminderName());
+		assertEquals("Call the bank", savedReminder.getReminderDescription());
+		assertEquals(DUE_AT + 3600000, savedReminder.getReminderDueAt().getTime());
+		assertEquals("Email", reminderDAO.getReminderById(1002).getReminderName());
+	}
+
+	@Test(expected = ReminderNotFoundException.class)
+	@Rollback(true)
+	public void testUpdateUnknownReminderInsertsNothing() throws ReminderNotFoundException {
+		Reminder reminder = new Reminder(0, "Call", "Call the bank", "notification", "Jhon123", null, new Date());
+		try {
+			reminderServiceImpl.updateReminder(reminder, 1001);
+		} finally {
+			assertTrue(reminderDAO.getAllReminderByUserId("Jhon123").isEmpty());
+		}
+	}
+
+	private void insertReminder(int reminderId) {
+		sessionFactory.getCurrentSession()
+				.createNativeQuery("INSERT INTO REMINDER (REMINDER_ID, REMINDER_NAME, REMINDER_DESCR, REMINDER_TYPE, "
+						+ "REMINDER_CREATION_DATE, REMINDER_CREATOR, REMINDER_DUE_AT) VALUES (:reminderId, 'Email', "
+						+ "'Email reminder', 'notification', CURRENT_TIMESTAMP, 'Jhon123', :dueAt)")
+				.setParameter("reminderId", reminderId).setParameter("dueAt", new Date(DUE_AT), TemporalType.TIMESTAMP)
+				.executeUpdate();
+	}
+}
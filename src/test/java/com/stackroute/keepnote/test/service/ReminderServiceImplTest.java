@@ -1,6 +1,7 @@
 package com.stackroute.keepnote.test.service;
 
 import static org.junit.Assert.*;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -13,16 +14,23 @@ import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
+import com.stackroute.keepnote.cache.ListCacheManager;
 import com.stackroute.keepnote.dao.ReminderDAO;
 import com.stackroute.keepnote.exception.ReminderNotFoundException;
 import com.stackroute.keepnote.model.Reminder;
+import com.stackroute.keepnote.scheduler.ReminderScheduler;
 import com.stackroute.keepnote.service.ReminderServiceImpl;
 
 public class ReminderServiceImplTest {
 
 	@Mock
 	ReminderDAO reminderDAO;
+	@Spy
+	ListCacheManager listCacheManager = new ListCacheManager();
+	@Mock
+	ReminderScheduler reminderScheduler;
 	@InjectMocks
 	ReminderServiceImpl reminderServiceImpl;
 	private Reminder reminder = null;
@@ -76,13 +84,85 @@ public class ReminderServiceImplTest {
 
 	}
 
+	@Test
+	public void testCreateReminderSchedulesDueTime() {
+
+		reminder.setReminderDueAt(new Date(1500));
+		when(reminderDAO.createReminder(reminder)).thenReturn(true);
+		reminderServiceImpl.createReminder(reminder);
+		assertEquals(1000, reminder.getReminderDueAt().getTime());
+		verify(reminderScheduler, times(1)).schedule(reminder);
+
+		Reminder failedReminder = new Reminder(2, "Email", "Email reminder", "notification", "Jhon123", null,
+				new Date());
+		when(reminderDAO.createReminder(failedReminder)).thenReturn(false);
+		reminderServiceImpl.createReminder(failedReminder);
+		verify(reminderScheduler, never()).schedule(failedReminder);
+	}
+
+	@Test
+	public void testUpdateReminderKeepsFiredAtAndReschedules() throws ReminderNotFoundException {
+
+		Reminder reminderRecord = new Reminder(1, "Email", "Email reminder", "notification", "Jhon123", null,
+				new Date());
+		reminderRecord.setReminderFiredAt(new Date(5000));
+		reminder.setReminderDueAt(new Date(9000));
+		when(reminderDAO.getReminderById(1)).thenReturn(reminderRecord);
+		when(reminderDAO.updateReminder(reminder)).thenReturn(true);
+		reminderServiceImpl.updateReminder(reminder, 1);
+		assertEquals(new Date(5000), reminder.getReminderFiredAt());
+		verify(reminderScheduler, times(1)).schedule(reminder);
+	}
+
+	@Test
+	public void testUpdateReminderUsesPathId() throws ReminderNotFoundException {
+
+		Reminder reminderRecord = new Reminder(1, "Email", "Email reminder", "notification", "Jhon123", null,
+				new Date(1000));
+		Reminder body = new Reminder(7, "Call", "Call reminder", "notification", "Someone456", null, new Date());
+		when(reminderDAO.getReminderById(1)).thenReturn(reminderRecord);
+		when(reminderDAO.updateReminder(body)).thenReturn(true);
+		Reminder updatedReminder = reminderServiceImpl.updateReminder(body, 1);
+		assertEquals(1, updatedReminder.getReminderId());
+		assertEquals("Jhon123", updatedReminder.getReminderCreatedBy());
+		assertEquals(new Date(1000), updatedReminder.getReminderCreationDate());
+		verify(reminderScheduler, times(1)).schedule(updatedReminder);
+	}
+
+	@Test
+	public void testUpdateReminderDeletedMeanwhile() throws ReminderNotFoundException {
+
+		when(reminderDAO.getReminderById(1)).thenReturn(reminder);
+		when(reminderDAO.updateReminder(reminder)).thenReturn(false);
+		assertNull(reminderServiceImpl.updateReminder(reminder, 1));
+		verify(reminderScheduler, times(1)).cancel(1);
+		verify(reminderScheduler, never()).schedule(reminder);
+	}
+
+	@Test
+	public void testDeleteReminderCancelsSchedule() {
+
+		when(reminderDAO.deleteReminder(1, "Jhon123")).thenReturn(true);
+		reminderServiceImpl.deleteReminder(1, "Jhon123");
+		verify(reminderScheduler, times(1)).cancel(1);
+	}
+
+	@Test
+	public void testDeleteReminderOfAnotherUserKeepsSchedule() {
+
+		when(reminderDAO.deleteReminder(1, "Someone456")).thenReturn(false);
+		boolean status = reminderServiceImpl.deleteReminder(1, "Someone456");
+		assertEquals(false, status);
+		verify(reminderScheduler, never()).cancel(1);
+	}
+
 	@Test
 	public void testDeleteReminder() {
 
-		when(reminderDAO.deleteReminder(reminder.getReminderId())).thenReturn(true);
-		boolean status = reminderServiceImpl.deleteReminder(reminder.getReminderId());
+		when(reminderDAO.deleteReminder(reminder.getReminderId(), "Jhon123")).thenReturn(true);
+		boolean status = reminderServiceImpl.deleteReminder(reminder.getReminderId(), "Jhon123");
 		assertEquals(true, status);
-		verify(reminderDAO, times(1)).deleteReminder(reminder.getReminderId());
+		verify(reminderDAO, times(1)).deleteReminder(reminder.getReminderId(), "Jhon123");
 	}
 
 	@Test
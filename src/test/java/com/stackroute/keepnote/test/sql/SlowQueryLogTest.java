@@ -0,0 +1,101 @@
+package com.stackroute.keepnote.test.sql;
+
+import static org.junit.Assert.*;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.stackroute.keepnote.sql.SlowQuery;
+import com.stackroute.keepnote.sql.SlowQueryLog;
+import com.stackroute.keepnote.sql.SqlCountingDataSource;
+
+public class SlowQueryLogTest {
+
+	private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-10-17T10:15:30Z"), ZoneOffset.UTC);
+
+	private DriverManagerDataSource database;
+
+	@Before
+	public void setUp() throws Exception {
+		database = new DriverManagerDataSource("jdbc:h2:mem:slowquery;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+		jdbcTemplate.execute("drop table if exists SLOW_NOTE");
+		jdbcTemplate.execute("create table SLOW_NOTE (NOTE_ID int primary key, NOTE_CREATED_BY varchar(50))");
+		jdbcTemplate.update("insert into SLOW_NOTE values (1, 'Jhon123'), (2, 'Jhon123'), (3, 'Chris123')");
+	}
+
+	@Test
+	public void testSlowQueryIsKeptWithParametersRowsAndCaller() {
+		SlowQueryLog slowQueryLog = new SlowQueryLog(0, 5, false, CLOCK);
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(new SqlCountingDataSource(database, slowQueryLog));
+
+		assertEquals(2, queryNotesOf(jdbcTemplate, "Jhon123").size());
+
+		assertEquals(1, slowQueryLog.getSlowQueryCount());
+		SlowQuery slowQuery = slowQueryLog.getSlowest().get(0);
+		assertEquals("select NOTE_ID from SLOW_NOTE where NOTE_CREATED_BY = ? and NOTE_ID > ?", slowQuery.getSql());
+		assertEquals("[1: 'Jhon123', 2: 0]", slowQuery.getParameters());
+		assertEquals(2, slowQuery.getRows());
+		assertEquals("SlowQueryLogTest.queryNotesOf", slowQuery.getCaller());
+		assertEquals(Instant.parse("2026-10-17T10:15:30Z"), slowQuery.getExecutedAt());
+	}
+
+	@Test
+	public void testParametersAreRedacted() {
+		SlowQueryLog slowQueryLog = new SlowQueryLog(0, 5, true, CLOCK);
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(new SqlCountingDataSource(database, slowQueryLog));
+
+		queryNotesOf(jdbcTemplate, "Jhon123");
+		jdbcTemplate.update("update SLOW_NOTE set NOTE_CREATED_BY = ? where NOTE_ID = ?", null, 3);
+
+		List<SlowQuery> slowest = slowQueryLog.getSlowest();
+		assertEquals(2, slowest.size());
+		for (SlowQuery slowQuery : slowest) {
+			if (slowQuery.getSql().startsWith("update")) {
+				assertEquals("[1: NULL, 2: <Integer>]", slowQuery.getParameters());
+				assertEquals(1, slowQuery.getRows());
+			} else {
+				assertEquals("[1: <String>, 2: <Integer>]", slowQuery.getParameters());
+			}
+		}
+	}
+
+	@Test
+	public void testFastQueriesAreIgnored() {
+		SlowQueryLog slowQueryLog = new SlowQueryLog(60000, 5, true, CLOCK);
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(new SqlCountingDataSource(database, slowQueryLog));
+
+		queryNotesOf(jdbcTemplate, "Jhon123");
+
+		assertEquals(0, slowQueryLog.getSlowQueryCount());
+		assertTrue(slowQueryLog.getSlowest().isEmpty());
+	}
+
+	@Test
+	public void testOnlyTheSlowestAreKept() {
+		SlowQueryLog slowQueryLog = new SlowQueryLog(10, 3, true, CLOCK);
+		for (int millis = 10; millis <= 60; millis += 10) {
+			slowQueryLog.record("select " + millis, null, 1, 0, millis * 1_000_000L);
+		}
+		slowQueryLog.record("select fast", null, 1, 0, 9_000_000L);
+
+		assertEquals(6, slowQueryLog.getSlowQueryCount());
+		List<SlowQuery> slowest = slowQueryLog.getSlowest();
+		assertEquals(3, slowest.size());
+		assertEquals("select 60", slowest.get(0).getSql());
+		assertEquals("select 50", slowest.get(1).getSql());
+		assertEquals("select 40", slowest.get(2).getSql());
+	}
+
+	private List<Integer> queryNotesOf(JdbcTemplate jdbcTemplate, String userId) {
+		return jdbcTemplate.queryForList("select NOTE_ID from SLOW_NOTE where NOTE_CREATED_BY = ? and NOTE_ID > ?",
+				Integer.class, userId, 0);
+	}
+}
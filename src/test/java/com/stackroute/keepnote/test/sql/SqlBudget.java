@@ -0,0 +1,75 @@
+package com.stackroute.keepnote.test.sql;
+
+import java.util.concurrent.Callable;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import com.stackroute.keepnote.sql.SqlStatistics;
+import com.stackroute.keepnote.sql.SqlStatisticsContext;
+
+/*
+ * Statement budgets for tests: a test fails when a request, or a block of code,
+ * runs more SQL statements than it is allowed. The failure names the statement run
+ * most often, which is the usual culprit of an N+1.
+ *
+ * For MockMvc, match the final result of a request, the async dispatch of a
+ * request handled by a RequestExecutor, with statementsAtMost(n); the request must
+ * go through the SqlStatisticsInterceptor. For service and DAO calls, wrap them in
+ * statementsAtMost(n, () -> ...); the DataSource must be a SqlCountingDataSource.
+ */
+public final class SqlBudget {
+
+	private SqlBudget() {
+	}
+
+	public static ResultMatcher statementsAtMost(long budget) {
+
+		return result -> {
+
+			MockHttpServletRequest request = result.getRequest();
+
+			SqlStatistics statistics = (SqlStatistics) request.getAttribute(SqlStatistics.ATTRIBUTE);
+
+			if (statistics == null) {
+
+				throw new AssertionError("No SQL statistics for " + request.getMethod() + " "
+						+ request.getRequestURI() + ", is the SqlStatisticsInterceptor registered?");
+			}
+
+			check(budget, statistics, request.getMethod() + " " + request.getRequestURI());
+		};
+	}
+
+	public static <T> T statementsAtMost(long budget, Callable<T> work) throws Exception {
+
+		SqlStatistics statistics = new SqlStatistics();
+
+		SqlStatistics enclosing = SqlStatisticsContext.getStatistics();
+
+		SqlStatisticsContext.setStatistics(statistics);
+
+		T result;
+
+		try {
+
+			result = work.call();
+
+		} finally {
+
+			SqlStatisticsContext.setStatistics(enclosing);
+		}
+
+		check(budget, statistics, "The work");
+
+		return result;
+	}
+
+	private static void check(long budget, SqlStatistics statistics, String subject) {
+
+		if (statistics.getStatementCount() > budget) {
+
+			throw new AssertionError(subject + " ran " + statistics + ", over the budget of " + budget + " statements");
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package com.stackroute.keepnote.test.sql;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.stackroute.keepnote.sql.SqlCountingDataSource;
+import com.stackroute.keepnote.sql.SqlStatistics;
+import com.stackroute.keepnote.sql.SqlStatisticsContext;
+
+public class SqlCountingDataSourceTest {
+
+	private JdbcTemplate jdbcTemplate;
+	private SqlStatistics statistics;
+
+	@Before
+	public void setUp() throws Exception {
+		jdbcTemplate = new JdbcTemplate(new SqlCountingDataSource(new DriverManagerDataSource(
+				"jdbc:h2:mem:sqlcounting;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "")));
+		jdbcTemplate.execute("drop table if exists COUNTED_NOTE");
+		jdbcTemplate.execute("create table COUNTED_NOTE (NOTE_ID int primary key, NOTE_TITLE varchar(50))");
+		statistics = new SqlStatistics();
+		SqlStatisticsContext.setStatistics(statistics);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		SqlStatisticsContext.clear();
+	}
+
+	@Test
+	public void testStatementsAndRowsAreCounted() {
+		List<Object[]> notes = Arrays.asList(new Object[] { 1, "first" }, new Object[] { 2, "second" },
+				new Object[] { 3, "third" });
+		jdbcTemplate.batchUpdate("insert into COUNTED_NOTE values (?, ?)", notes);
+		assertEquals(3, statistics.getStatementCount());
+		assertEquals(3, statistics.getRowCount());
+
+		assertEquals(3, jdbcTemplate.queryForList("select NOTE_TITLE from COUNTED_NOTE", String.class).size());
+		assertEquals(4, statistics.getStatementCount());
+		assertEquals(6, statistics.getRowCount());
+
+		assertEquals(1, jdbcTemplate.update("update COUNTED_NOTE set NOTE_TITLE = 'changed' where NOTE_ID = 1"));
+		assertEquals(5, statistics.getStatementCount());
+		assertEquals(7, statistics.getRowCount());
+		assertTrue(statistics.getElapsedNanos() > 0);
+	}
+
+	@Test
+	public void testMostRepeatedStatement() {
+		jdbcTemplate.update("insert into COUNTED_NOTE values (1, 'first')");
+		for (int i = 0; i < 4; i++) {
+			jdbcTemplate.queryForObject("select NOTE_TITLE from COUNTED_NOTE where NOTE_ID = ?", String.class, 1);
+		}
+		assertEquals(5, statistics.getStatementCount());
+		assertEquals(4, statistics.getMostRepeatedCount());
+		assertEquals("select NOTE_TITLE from COUNTED_NOTE where NOTE_ID = ?", statistics.getMostRepeatedSql());
+	}
+
+	@Test
+	public void testNothingIsCountedWithoutStatistics() {
+		SqlStatisticsContext.clear();
+		jdbcTemplate.update("insert into COUNTED_NOTE values (1, 'first')");
+		assertEquals(1, jdbcTemplate.queryForList("select NOTE_TITLE from COUNTED_NOTE", String.class).size());
+		assertEquals(0, statistics.getStatementCount());
+	}
+
+	@Test
+	public void testStatementBudget() throws Exception {
+		assertEquals(Integer.valueOf(0), SqlBudget.statementsAtMost(1,
+				() -> jdbcTemplate.queryForObject("select count(*) from COUNTED_NOTE", Integer.class)));
+		try {
+			SqlBudget.statementsAtMost(1, () -> {
+				jdbcTemplate.queryForObject("select count(*) from COUNTED_NOTE", Integer.class);
+				return jdbcTemplate.queryForObject("select count(*) from COUNTED_NOTE", Integer.class);
+			});
+			fail("AssertionError expected");
+		} catch (AssertionError error) {
+			assertTrue(error.getMessage().contains("2 statements"));
+			assertTrue(error.getMessage().contains("over the budget of 1 statements"));
+		}
+		// the work is not counted for the enclosing statistics
+		assertEquals(0, statistics.getStatementCount());
+	}
+}
@@ -0,0 +1,142 @@
+package com.stackroute.keepnote.test.sql;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.stackroute.keepnote.async.RequestExecutors;
+import com.stackroute.keepnote.auth.AuthTokens;
+import com.stackroute.keepnote.auth.AuthenticationInterceptor;
+import com.stackroute.keepnote.controller.NoteController;
+import com.stackroute.keepnote.metrics.MetricsRegistry;
+import com.stackroute.keepnote.metrics.RequestSqlMetrics;
+import com.stackroute.keepnote.model.Note;
+import com.stackroute.keepnote.service.NoteService;
+import com.stackroute.keepnote.sql.SqlCountingDataSource;
+import com.stackroute.keepnote.sql.SqlStatisticsInterceptor;
+
+public class SqlStatisticsInterceptorTest {
+
+	private MockMvc mockMvc;
+	private MockHttpSession session;
+	private MetricsRegistry metricsRegistry;
+	private JdbcTemplate jdbcTemplate;
+	@Mock
+	private NoteService noteService;
+	@Spy
+	private RequestExecutors requestExecutors = new RequestExecutors();
+	@InjectMocks
+	private NoteController noteController;
+
+	@Before
+	public void setUp() throws Exception {
+		MockitoAnnotations.initMocks(this);
+		metricsRegistry = new MetricsRegistry();
+		SqlStatisticsInterceptor sqlStatisticsInterceptor = new SqlStatisticsInterceptor(metricsRegistry, true, 3);
+		mockMvc = MockMvcBuilders.standaloneSetup(noteController).setControllerAdvice(sqlStatisticsInterceptor)
+				.addInterceptors(sqlStatisticsInterceptor, new AuthenticationInterceptor(new AuthTokens())).build();
+		session = new MockHttpSession();
+		session.setAttribute("loggedInUserId", "Jhon123");
+
+		jdbcTemplate = new JdbcTemplate(new SqlCountingDataSource(new DriverManagerDataSource(
+				"jdbc:h2:mem:sqlstatistics;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "")));
+		jdbcTemplate.execute("drop table if exists COUNTED_CATEGORY");
+		jdbcTemplate.execute("create table COUNTED_CATEGORY (CATEGORY_ID int primary key, CATEGORY_NAME varchar(50))");
+		jdbcTemplate.update("insert into COUNTED_CATEGORY values (1, 'Testing'), (2, 'Spring'), (3, 'Hibernate')");
+
+		// one query for the notes, then one per note for its category: an N+1
+		when(noteService.getAllNotesByUserId("Jhon123")).thenAnswer(invocation -> {
+			List<Note> notes = new ArrayList<>();
+			for (Integer categoryId : jdbcTemplate.queryForList("select CATEGORY_ID from COUNTED_CATEGORY",
+					Integer.class)) {
+				Note note = new Note();
+				note.setNoteTitle(jdbcTemplate.queryForObject(
+						"select CATEGORY_NAME from COUNTED_CATEGORY where CATEGORY_ID = ?", String.class, categoryId));
+				notes.add(note);
+			}
+			return notes;
+		});
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		requestExecutors.destroy();
+	}
+
+	@Test
+	public void testStatementsOfExecutorWorkAreCounted() throws Exception {
+		MvcResult mvcResult = mockMvc.perform(get("/note").contentType(MediaType.APPLICATION_JSON).session(session))
+				.andReturn();
+		mockMvc.perform(asyncDispatch(mvcResult)).andExpect(status().isOk())
+				.andExpect(header().string(SqlStatisticsInterceptor.STATEMENTS_HEADER, "4"))
+				.andExpect(header().string(SqlStatisticsInterceptor.ROWS_HEADER, "6"))
+				.andExpect(header().exists(SqlStatisticsInterceptor.TIME_HEADER))
+				.andExpect(SqlBudget.statementsAtMost(4)).andDo(print());
+
+		RequestSqlMetrics requestSqlMetrics = metricsRegistry.getRequestSqlMetrics("GET", "/note");
+		assertEquals(4, requestSqlMetrics.getStatementCount());
+		assertEquals(6, requestSqlMetrics.getRowCount());
+		assertEquals(1, requestSqlMetrics.getRepeatedStatementCount());
+	}
+
+	@Test
+	public void testStatementBudgetOfRequest() throws Exception {
+		MvcResult mvcResult = mockMvc.perform(get("/note").contentType(MediaType.APPLICATION_JSON).session(session))
+				.andReturn();
+		try {
+			mockMvc.perform(asyncDispatch(mvcResult)).andExpect(SqlBudget.statementsAtMost(2));
+			fail("AssertionError expected");
+		} catch (AssertionError error) {
+			assertTrue(error.getMessage().startsWith("GET /note ran 4 statements"));
+			assertTrue(error.getMessage().contains("3 x [select CATEGORY_NAME from COUNTED_CATEGORY"));
+		}
+	}
+
+	@Test
+	public void testHeadersOfResponseWithoutBody() throws Exception {
+		MvcResult mvcResult = mockMvc.perform(get("/note").contentType(MediaType.APPLICATION_JSON)).andReturn();
+		mockMvc.perform(asyncDispatch(mvcResult)).andExpect(status().isUnauthorized())
+				.andExpect(header().string(SqlStatisticsInterceptor.STATEMENTS_HEADER, "0"));
+	}
+
+	@Test
+	public void testNoHeadersByDefault() throws Exception {
+		System.clearProperty("keepnote.sql.responseHeaders");
+		assertFalse(new SqlStatisticsInterceptor(metricsRegistry).supports(null, null));
+	}
+
+	@Test
+	public void testNoHeadersWhenDisabled() throws Exception {
+		SqlStatisticsInterceptor sqlStatisticsInterceptor = new SqlStatisticsInterceptor(metricsRegistry, false, 3);
+		mockMvc = MockMvcBuilders.standaloneSetup(noteController).setControllerAdvice(sqlStatisticsInterceptor)
+				.addInterceptors(sqlStatisticsInterceptor, new AuthenticationInterceptor(new AuthTokens())).build();
+		MvcResult mvcResult = mockMvc.perform(get("/note").contentType(MediaType.APPLICATION_JSON).session(session))
+				.andReturn();
+		mockMvc.perform(asyncDispatch(mvcResult)).andExpect(status().isOk())
+				.andExpect(header().doesNotExist(SqlStatisticsInterceptor.STATEMENTS_HEADER))
+				.andExpect(SqlBudget.statementsAtMost(4));
+		assertEquals(4, metricsRegistry.getRequestSqlMetrics("GET", "/note").getStatementCount());
+	}
+}